@@ -0,0 +1,85 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+/**
+ * The {@link LogSink} that writes log events to the system log via
+ * {@link android.util.Log#println(int, String, String)}. It is the default sink on Android.
+ *
+ * <p>The system log truncates messages longer than about 4 KB, so oversized messages are split
+ * into numbered chunks, see {@link LineSplitter}.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class AndroidLogSink implements LogSink {
+
+    /** The shared instance. */
+    public static final AndroidLogSink INSTANCE = new AndroidLogSink();
+
+    /** Creates a new sink, please use {@link #INSTANCE}. */
+    private AndroidLogSink() {}
+
+    /** {@inheritDoc} */
+    @Override
+    public int write(LogEvent event) {
+        final int priority = event.getPriority();
+        final String appTag = event.getAppTag();
+        final String tag = event.getTag();
+        final CharSequence line;
+        int prefixLength = 0;
+        if (tag == null) {
+            line = event.getMessage();
+        } else {
+            final StringBuilder builder = LogCat.obtainSinkBuffer();
+            builder.append(tag).append(LogCat.TAG_DELIMITER);
+            prefixLength = builder.length();
+            builder.append(event.getMessage());
+            line = builder;
+        }
+        if (line.length() <= LineSplitter.SAFE_LINE_LENGTH) {
+            return android.util.Log.println(priority, appTag, line.toString());
+        }
+        // The system log truncates oversized messages, so write it by numbered chunks
+        final LineSplitter splitter = LineSplitter.obtain();
+        final int count = splitter.split(line, prefixLength);
+        if (count <= 1) return android.util.Log.println(priority, appTag, line.toString());
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            final int written = android.util.Log.println(priority, appTag,
+                    splitter.chunk(line, prefixLength, i));
+            if (written > 0) result += written;
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(LogEvent[] events, int offset, int count) {
+        // The system log has no batch call
+        for (int i = offset, end = offset + count; i < end; i++) write(events[i]);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void flush() {}
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {}
+
+}
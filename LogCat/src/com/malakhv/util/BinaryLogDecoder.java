@@ -0,0 +1,323 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The decoder of binary log files, that are written by {@link BinaryLogWriter}. It converts
+ * the binary records to text lines in the same format as {@link FileLogSink} does:
+ * <br>&nbsp;<br>
+ * &#09;{@code "2013-10-17 12:00:00.123 1234 D/MyApp: MyActivity: Any message."}
+ * <br>&nbsp;<br>
+ * It could be used as a command line tool (it needs no Android API):
+ * <br>&nbsp;<br>
+ * &#09;{@code java -cp logcat.jar com.malakhv.util.BinaryLogDecoder [DIRECTORY] [PREFIX]}
+ * <br>&nbsp;<br>
+ * The incomplete records (after a crash of the process) are skipped.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class BinaryLogDecoder {
+
+    /** The charset of strings. */
+    private static final String UTF_8 = "UTF-8";
+
+    /** The pattern of time of log message. */
+    private static final String TIME_PATTERN = "yyyy-MM-dd HH:mm:ss.SSS";
+
+    /** The strings of dictionary. */
+    private final List<String> mStrings = new ArrayList<String>();
+
+    /** The time format. */
+    private final SimpleDateFormat mTimeFormat = new SimpleDateFormat(TIME_PATTERN, Locale.US);
+
+    /** The buffer for text lines. */
+    private final StringBuilder mLine = new StringBuilder();
+
+    /** The number of skipped (incomplete or corrupted) records. */
+    private int mSkipped = 0;
+
+    /**
+     * Creates a new decoder with specified dictionary file.
+     * @throws IOException if the dictionary file could not be read.
+     * */
+    public BinaryLogDecoder(File dictionary) throws IOException {
+        readDictionary(readFile(dictionary), mStrings);
+    }
+
+    /** @return The number of skipped (incomplete or corrupted) records. */
+    public int getSkippedCount() { return mSkipped; }
+
+    /**
+     * Decodes the binary log file to text lines.
+     * @return The number of decoded records.
+     * @throws IOException if the file could not be read or the text could not be written.
+     * */
+    public int decode(File file, Appendable out) throws IOException {
+        final byte[] data = readFile(file);
+        final Reader reader = new Reader(data);
+        int count = 0;
+        while (reader.mPos < data.length) {
+            // The zero bytes are the holes of records that were not written, or the tail
+            if (data[reader.mPos] == 0) {
+                reader.mPos++;
+                continue;
+            }
+            final long length;
+            try {
+                length = reader.varint();
+            } catch (RuntimeException e) {
+                mSkipped++;
+                break;
+            }
+            final long end = reader.mPos + length;
+            if (length <= 0 || end > data.length) {
+                mSkipped++;
+                break;
+            }
+            if (data[(int) end - 1] != BinaryLogWriter.COMMIT) {
+                // The record was not written completely
+                mSkipped++;
+            } else {
+                try {
+                    reader.mEnd = (int) end - 1;
+                    decodeRecord(reader, out);
+                    count++;
+                } catch (RuntimeException e) {
+                    mSkipped++;
+                }
+            }
+            reader.mPos = (int) end;
+            reader.mEnd = data.length;
+        }
+        return count;
+    }
+
+    /** Decodes one record, and appends it as text to the output. */
+    private void decodeRecord(Reader reader, Appendable out) throws IOException {
+        final long time = reader.varint();
+        final int priority = reader.readByte();
+        final long threadId = reader.varint();
+        final String appTag = readRef(reader);
+        final String tag = readRef(reader);
+        final String format = readRef(reader);
+        final int count = (int) reader.varint() - 1;
+        Object[] args = null;
+        if (count >= 0) {
+            args = new Object[count];
+            for (int i = 0; i < count; i++) args[i] = readArg(reader);
+        }
+        final String trace = readRef(reader);
+        final String site = reader.mPos < reader.mEnd ? readRef(reader) : null;
+        final String context = reader.mPos < reader.mEnd ? readRef(reader) : null;
+        if (reader.mPos > reader.mEnd) throw new IndexOutOfBoundsException("Record overflow");
+        final StringBuilder line = mLine;
+        line.setLength(0);
+        line.append(mTimeFormat.format(new Date(time))).append(' ').append(threadId).append(' ')
+                .append(LogEvent.toPriorityChar(priority)).append('/').append(appTag)
+                .append(LogCat.TAG_DELIMITER);
+        if (tag != null) line.append(tag).append(LogCat.TAG_DELIMITER);
+        if (site != null) line.append(site).append(LogCat.TAG_DELIMITER);
+        if (context != null) line.append(context);
+        if (args == null) {
+            line.append(format);
+        } else {
+            try {
+                LogFormatter.format(line, format, args);
+            } catch (RuntimeException e) {
+                // The format is not valid for arguments, so write it as is
+                line.append(format).append(' ').append(Arrays.toString(args));
+            }
+        }
+        if (trace != null) {
+            if (format != null) line.append('\n');
+            line.append(trace);
+        }
+        // The same as FileLogSink, the line break is added even after the trace
+        line.append('\n');
+        out.append(line);
+    }
+
+    /** Reads the reference to string. */
+    private String readRef(Reader reader) {
+        final long ref = reader.varint();
+        if (ref == BinaryLogWriter.REF_NULL) return null;
+        if (ref == BinaryLogWriter.REF_INLINE) return reader.utf8();
+        final long id = ref - BinaryLogWriter.REF_ID;
+        if (id >= mStrings.size()) return "<unknown string #" + id + ">";
+        return mStrings.get((int) id);
+    }
+
+    /** Reads the argument. */
+    private static Object readArg(Reader reader) {
+        final int type = reader.readByte();
+        switch (type) {
+            case BinaryLogWriter.ARG_NULL: return null;
+            case BinaryLogWriter.ARG_INT: return (int) reader.zigzag();
+            case BinaryLogWriter.ARG_LONG: return reader.zigzag();
+            case BinaryLogWriter.ARG_FLOAT: return Float.intBitsToFloat((int) reader.fixed(4));
+            case BinaryLogWriter.ARG_DOUBLE: return Double.longBitsToDouble(reader.fixed(8));
+            case BinaryLogWriter.ARG_CHAR: return (char) reader.varint();
+            case BinaryLogWriter.ARG_BOOLEAN: return reader.readByte() != 0;
+            case BinaryLogWriter.ARG_STRING: return reader.utf8();
+            case BinaryLogWriter.ARG_BYTE: return (byte) reader.zigzag();
+            case BinaryLogWriter.ARG_SHORT: return (short) reader.zigzag();
+            default: throw new IllegalArgumentException("Unknown argument type " + type);
+        }
+    }
+
+    /**
+     * Reads the strings of dictionary.
+     * @return The length of valid data, the incomplete record at the end is not counted.
+     * */
+    static int readDictionary(byte[] data, List<String> strings) {
+        final Reader reader = new Reader(data);
+        int valid = 0;
+        try {
+            while (reader.mPos < data.length) {
+                strings.add(reader.utf8());
+                valid = reader.mPos;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // The last record was not written completely
+        }
+        return valid;
+    }
+
+    /** Reads the whole file. */
+    private static byte[] readFile(File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final long length = raf.length();
+            if (length > Integer.MAX_VALUE) throw new IOException("The file is too large");
+            final byte[] data = new byte[(int) length];
+            raf.readFully(data);
+            return data;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Decodes all binary log files in the directory to standard output.
+     * @param args The directory, and the prefix of file names (optional, the default value is
+     *             {@link FileLogSink#DEFAULT_FILE_PREFIX}).
+     * */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2 || !new File(args[0]).isDirectory()) {
+            System.err.println("Usage: BinaryLogDecoder DIRECTORY [PREFIX]");
+            System.exit(1);
+            return;
+        }
+        final File directory = new File(args[0]);
+        final String prefix = args.length > 1 ? args[1] : FileLogSink.DEFAULT_FILE_PREFIX;
+        final File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                final String name = file.getName();
+                return file.isFile() && name.startsWith(prefix + "-")
+                        && name.endsWith(FileLogSink.BINARY_FILE_EXTENSION);
+            }
+        });
+        final BinaryLogDecoder decoder = new BinaryLogDecoder(
+                new File(directory, prefix + BinaryLogWriter.DICTIONARY_EXTENSION));
+        final BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, UTF_8));
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) decoder.decode(file, out);
+        }
+        out.flush();
+        if (decoder.getSkippedCount() > 0) {
+            System.err.println("Skipped " + decoder.getSkippedCount() + " incomplete records");
+        }
+    }
+
+    /**
+     * The reader of binary data.
+     * */
+    private static final class Reader {
+
+        /** The data. */
+        private final byte[] mData;
+
+        /** The current position. */
+        private int mPos = 0;
+
+        /** The end of current record. */
+        private int mEnd;
+
+        Reader(byte[] data) {
+            mData = data;
+            mEnd = data.length;
+        }
+
+        int readByte() {
+            if (mPos >= mEnd) throw new IndexOutOfBoundsException("End of record");
+            return mData[mPos++];
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        long zigzag() {
+            final long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long fixed(int size) {
+            long value = 0;
+            for (int i = 0; i < size; i++) value = (value << 8) | (readByte() & 0xFF);
+            return value;
+        }
+
+        String utf8() {
+            final long length = varint();
+            if (length < 0 || length > mEnd - mPos) {
+                throw new IndexOutOfBoundsException("End of record");
+            }
+            final int start = mPos;
+            mPos += (int) length;
+            try {
+                return new String(mData, start, (int) length, UTF_8);
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+}
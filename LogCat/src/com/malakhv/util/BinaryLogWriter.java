@@ -0,0 +1,487 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The writer of log messages in compact binary form, see
+ * {@link LogCat#setBinaryWriter(BinaryLogWriter)}. The messages are not formatted on the device:
+ * each record contains the time, the level, the ids of tags and format string, and the raw
+ * arguments. The binary files could be converted to text by {@link BinaryLogDecoder}.
+ *
+ * <p>The tags and format strings are registered once and get small integer ids, they are kept
+ * in the dictionary file ({@code [PREFIX].dict}) next to the log files. The messages without
+ * arguments, long strings and strings registered after the dictionary is full, are written
+ * inline. The binary records are written to rolling memory-mapped files via
+ * {@link FileLogSink}, with the same limits of size and age of files.</p>
+ *
+ * <p>The record format (all integers are varints, signed integers are zig-zag encoded):
+ * <pre>
+ * record  = length payload 0x7E
+ * payload = time priority(byte) threadId appTag tag format argCount args* trace [site [context]]
+ * string  = 0 (null) | 1 length UTF-8 (inline) | id + 2 (dictionary)
+ * argCount = 0 (not formatted message) | count + 1
+ * </pre>
+ * The call site (see {@link CallSite#toString()}) and the diagnostic context (see
+ * {@link LogContext#getPrefix()}) are string references, they are optional: the old records end
+ * right after the trace, the site is {@code null} if there is the context only.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class BinaryLogWriter {
+
+    /** The extension of dictionary file. */
+    public static final String DICTIONARY_EXTENSION = ".dict";
+
+    /** The last byte of each record, it means "the record was written completely". */
+    static final byte COMMIT = 0x7E;
+
+    /** The reference to {@code null} string. */
+    static final int REF_NULL = 0;
+
+    /** The reference to inline string. */
+    static final int REF_INLINE = 1;
+
+    /** The first reference to dictionary string, the reference is {@code id + REF_ID}. */
+    static final int REF_ID = 2;
+
+    /** The argument types. */
+    static final byte ARG_NULL = 0;
+    static final byte ARG_INT = 1;
+    static final byte ARG_LONG = 2;
+    static final byte ARG_FLOAT = 3;
+    static final byte ARG_DOUBLE = 4;
+    static final byte ARG_CHAR = 5;
+    static final byte ARG_BOOLEAN = 6;
+    static final byte ARG_STRING = 7;
+    static final byte ARG_BYTE = 8;
+    static final byte ARG_SHORT = 9;
+
+    /** The maximum number of strings in dictionary. */
+    private static final int MAX_DICTIONARY_SIZE = 16 * 1024;
+
+    /** The maximum length of string in dictionary, in characters. */
+    private static final int MAX_DICTIONARY_STRING_LENGTH = 512;
+
+    /** The space for length of record, it is written before the payload. */
+    private static final int LENGTH_RESERVED = 5;
+
+    /** The initial capacity of the per-thread buffer for records, in bytes. */
+    private static final int BUFFER_CAPACITY = 256;
+
+    /** The maximum capacity of the per-thread buffer, a larger buffer will be replaced. */
+    private static final int BUFFER_MAX_CAPACITY = 64 * 1024;
+
+    /** The files for binary records. */
+    private final FileLogSink mFiles;
+
+    /** The dictionary file. */
+    private final File mDictionaryFile;
+
+    /** The output stream of dictionary file. */
+    private final FileOutputStream mDictionary;
+
+    /** The ids of registered strings. */
+    private final ConcurrentHashMap<String, Integer> mIds =
+            new ConcurrentHashMap<String, Integer>();
+
+    /** The number of registered strings. */
+    private int mSize;
+
+    /** True, if no more strings could be registered. */
+    private volatile boolean mFull = false;
+
+    /** The per-thread buffer for records. */
+    private static final ThreadLocal<Buffer> sBuffer = new ThreadLocal<Buffer>() {
+        @Override
+        protected Buffer initialValue() { return new Buffer(); }
+    };
+
+    /**
+     * Creates a new writer, opens the dictionary file and a new binary file.
+     * @param files The directory and limits of files, the prefix of file names is also used for
+     *              the dictionary file.
+     * @throws IOException if the directory or the files could not be created.
+     * */
+    public BinaryLogWriter(FileLogSink.Builder files) throws IOException {
+        mFiles = files.buildBinary();
+        mDictionaryFile = new File(mFiles.getDirectory(), mFiles.getFilePrefix()
+                + DICTIONARY_EXTENSION);
+        final List<String> strings = new ArrayList<String>();
+        if (mDictionaryFile.exists()) {
+            // Reload the registered strings and cut the incomplete record, if any
+            final RandomAccessFile raf = new RandomAccessFile(mDictionaryFile, "rw");
+            try {
+                final byte[] data = new byte[(int) raf.length()];
+                raf.readFully(data);
+                raf.setLength(BinaryLogDecoder.readDictionary(data, strings));
+            } finally {
+                raf.close();
+            }
+        }
+        for (int i = 0; i < strings.size(); i++) mIds.putIfAbsent(strings.get(i), i);
+        mSize = strings.size();
+        mFull = mSize >= MAX_DICTIONARY_SIZE;
+        mDictionary = new FileOutputStream(mDictionaryFile, true);
+    }
+
+    /** @return The dictionary file. */
+    public File getDictionaryFile() { return mDictionaryFile; }
+
+    /** @return The binary log files, sorted from the oldest to the newest. */
+    public File[] listFiles() { return mFiles.listFiles(); }
+
+    /**
+     * Closes the dictionary file and the current binary file. The messages, that are written
+     * after this call, are dropped.
+     * */
+    public void close() {
+        mFiles.close();
+        synchronized (this) {
+            mFull = true;
+            try {
+                mDictionary.close();
+            } catch (IOException ignored) {
+                // Nothing to do
+            }
+        }
+    }
+
+    /**
+     * Writes the log message with array of arguments.
+     * @param format The format string, or the message if {@code args} is {@code null}.
+     * @param args The arguments, or {@code null} if the message should not be formatted.
+     * @param trace The printable representation of exception, or {@code null}.
+     * @param site The place of log call, or {@code null}.
+     * @param context The diagnostic context of log call, or {@code null}.
+     * @return The size of record, or {@code -1} if the record was dropped.
+     * */
+    int write(long time, Thread thread, int priority, String appTag, String tag, String format,
+            Object[] args, String trace, CallSite site, LogContext context) {
+        final Buffer buffer = obtainBuffer();
+        putHeader(buffer, time, thread, priority, appTag, tag);
+        if (args == null) {
+            buffer.putString(REF_INLINE, format);
+            buffer.putVarint(0);
+        } else {
+            putRef(buffer, format);
+            buffer.putVarint(args.length + 1);
+            for (Object arg : args) putArg(buffer, arg);
+        }
+        buffer.putString(trace != null ? REF_INLINE : REF_NULL, trace);
+        putTail(buffer, site, context);
+        return commit(buffer, time);
+    }
+
+    /**
+     * Writes the log message with the per-thread list of arguments.
+     * @param site The place of log call, or {@code null}.
+     * @param context The diagnostic context of log call, or {@code null}.
+     * @return The size of record, or {@code -1} if the record was dropped.
+     * */
+    int write(long time, Thread thread, int priority, String appTag, String tag, String format,
+            LogArgs args, CallSite site, LogContext context) {
+        final Buffer buffer = obtainBuffer();
+        putHeader(buffer, time, thread, priority, appTag, tag);
+        putRef(buffer, format);
+        final int count = args.count;
+        buffer.putVarint(count + 1);
+        for (int i = 0; i < count; i++) {
+            switch (args.types[i]) {
+                case LogArgs.LONG:
+                    buffer.putByte(ARG_LONG);
+                    buffer.putZigZag(args.longs[i]);
+                    break;
+                case LogArgs.INT:
+                    buffer.putByte(ARG_INT);
+                    buffer.putZigZag(args.longs[i]);
+                    break;
+                case LogArgs.SHORT:
+                    buffer.putByte(ARG_SHORT);
+                    buffer.putZigZag(args.longs[i]);
+                    break;
+                case LogArgs.BYTE:
+                    buffer.putByte(ARG_BYTE);
+                    buffer.putZigZag(args.longs[i]);
+                    break;
+                case LogArgs.DOUBLE:
+                    buffer.putByte(ARG_DOUBLE);
+                    buffer.putFixed(Double.doubleToRawLongBits(args.doubles[i]), 8);
+                    break;
+                case LogArgs.FLOAT:
+                    buffer.putByte(ARG_FLOAT);
+                    buffer.putFixed(Float.floatToRawIntBits((float) args.doubles[i]), 4);
+                    break;
+                case LogArgs.CHAR:
+                    buffer.putByte(ARG_CHAR);
+                    buffer.putVarint(args.longs[i]);
+                    break;
+                default:
+                    putArg(buffer, args.objects[i]);
+            }
+        }
+        buffer.putVarint(REF_NULL);
+        putTail(buffer, site, context);
+        return commit(buffer, time);
+    }
+
+    /** Writes the optional call site and diagnostic context. */
+    private void putTail(Buffer buffer, CallSite site, LogContext context) {
+        final boolean hasContext = context != null && !context.isEmpty();
+        if (site == null && !hasContext) return;
+        putRef(buffer, site != null ? site.toString() : null);
+        // The prefix of context is the same for many records, so it gets the id
+        if (hasContext) putRef(buffer, context.getPrefix());
+    }
+
+    /**
+     * Returns the empty per-thread buffer for records, or a new buffer in the nested log call
+     * (the {@code toString()} of argument could log something, see {@code LogCat.CallState}).
+     * */
+    private static Buffer obtainBuffer() {
+        final Buffer buffer = LogCat.isNestedCall() ? new Buffer() : sBuffer.get();
+        buffer.reset();
+        return buffer;
+    }
+
+    /** Writes the common part of record. */
+    private void putHeader(Buffer buffer, long time, Thread thread, int priority, String appTag,
+            String tag) {
+        buffer.putVarint(time);
+        buffer.putByte((byte) priority);
+        buffer.putVarint(thread.getId());
+        putRef(buffer, appTag);
+        putRef(buffer, tag);
+    }
+
+    /** Writes the argument. */
+    private static void putArg(Buffer buffer, Object arg) {
+        if (arg == null) {
+            buffer.putByte(ARG_NULL);
+        } else if (arg instanceof Integer) {
+            buffer.putByte(ARG_INT);
+            buffer.putZigZag((Integer) arg);
+        } else if (arg instanceof Long) {
+            buffer.putByte(ARG_LONG);
+            buffer.putZigZag((Long) arg);
+        } else if (arg instanceof Double) {
+            buffer.putByte(ARG_DOUBLE);
+            buffer.putFixed(Double.doubleToRawLongBits((Double) arg), 8);
+        } else if (arg instanceof Float) {
+            buffer.putByte(ARG_FLOAT);
+            buffer.putFixed(Float.floatToRawIntBits((Float) arg), 4);
+        } else if (arg instanceof Character) {
+            buffer.putByte(ARG_CHAR);
+            buffer.putVarint((Character) arg);
+        } else if (arg instanceof Boolean) {
+            buffer.putByte(ARG_BOOLEAN);
+            buffer.putByte((byte) ((Boolean) arg ? 1 : 0));
+        } else if (arg instanceof Byte) {
+            buffer.putByte(ARG_BYTE);
+            buffer.putZigZag((Byte) arg);
+        } else if (arg instanceof Short) {
+            buffer.putByte(ARG_SHORT);
+            buffer.putZigZag((Short) arg);
+        } else {
+            // Other objects are written as string, the same as "%s" does
+            buffer.putByte(ARG_STRING);
+            buffer.putUtf8(String.valueOf(arg));
+        }
+    }
+
+    /** Writes the reference to string: the id in dictionary, or inline string. */
+    private void putRef(Buffer buffer, String str) {
+        if (str == null) {
+            buffer.putVarint(REF_NULL);
+            return;
+        }
+        Integer id = mIds.get(str);
+        if (id == null) id = register(str);
+        if (id >= 0) {
+            buffer.putVarint(id + REF_ID);
+        } else {
+            buffer.putString(REF_INLINE, str);
+        }
+    }
+
+    /**
+     * Adds the string to the dictionary.
+     * @return The id of string, or {@code -1} if the string could not be registered.
+     * */
+    private int register(String str) {
+        if (mFull || str.length() > MAX_DICTIONARY_STRING_LENGTH) return -1;
+        synchronized (this) {
+            final Integer registered = mIds.get(str);
+            if (registered != null) return registered;
+            if (mFull) return -1;
+            // The string is written to the dictionary before any record that uses it
+            final Buffer buffer = new Buffer();
+            buffer.putUtf8(str);
+            try {
+                mDictionary.write(buffer.mBytes, LENGTH_RESERVED,
+                        buffer.mLength - LENGTH_RESERVED);
+            } catch (IOException e) {
+                mFull = true;
+                return -1;
+            }
+            final int id = mSize++;
+            if (mSize >= MAX_DICTIONARY_SIZE) mFull = true;
+            mIds.put(str, id);
+            return id;
+        }
+    }
+
+    /** Completes the record and writes it to the file. */
+    private int commit(Buffer buffer, long time) {
+        buffer.putByte(COMMIT);
+        final int start = buffer.putLength();
+        final int length = buffer.mLength - start;
+        return mFiles.commit(buffer.mBytes, start, length, time) ? length : -1;
+    }
+
+    /**
+     * The buffer for encoding records. The payload starts after {@link #LENGTH_RESERVED} bytes,
+     * the length of record is written before it.
+     * */
+    private static final class Buffer {
+
+        /** The encoded bytes. */
+        private byte[] mBytes = new byte[BUFFER_CAPACITY];
+
+        /** The end of encoded bytes. */
+        private int mLength = LENGTH_RESERVED;
+
+        Buffer() {}
+
+        /** Clears this buffer. */
+        void reset() {
+            if (mBytes.length > BUFFER_MAX_CAPACITY) mBytes = new byte[BUFFER_CAPACITY];
+            mLength = LENGTH_RESERVED;
+        }
+
+        /** Writes the length of payload before it, returns the start of record. */
+        int putLength() {
+            long value = mLength - LENGTH_RESERVED;
+            int size = 1;
+            for (long v = value >>> 7; v != 0; v >>>= 7) size++;
+            int pos = LENGTH_RESERVED - size;
+            final int start = pos;
+            while ((value & ~0x7FL) != 0) {
+                mBytes[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            mBytes[pos] = (byte) value;
+            return start;
+        }
+
+        void putByte(byte value) {
+            ensureCapacity(1);
+            mBytes[mLength++] = value;
+        }
+
+        void putVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                mBytes[mLength++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            mBytes[mLength++] = (byte) value;
+        }
+
+        void putZigZag(long value) { putVarint((value << 1) ^ (value >> 63)); }
+
+        /** Writes the value as fixed number of bytes, big-endian. */
+        void putFixed(long value, int size) {
+            ensureCapacity(size);
+            for (int shift = (size - 1) * 8; shift >= 0; shift -= 8) {
+                mBytes[mLength++] = (byte) (value >>> shift);
+            }
+        }
+
+        /** Writes the reference and the inline string, if it is needed. */
+        void putString(int ref, String str) {
+            putVarint(ref);
+            if (ref == REF_INLINE) putUtf8(str);
+        }
+
+        /** Writes the length and UTF-8 bytes of string. */
+        void putUtf8(String str) {
+            final int length = str.length();
+            int size = 0;
+            for (int i = 0; i < length; i++) {
+                final char c = str.charAt(i);
+                if (c < 0x80) {
+                    size++;
+                } else if (c < 0x800) {
+                    size += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(str.charAt(i + 1))) {
+                    size += 4;
+                    i++;
+                } else if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+                    size++;
+                } else {
+                    size += 3;
+                }
+            }
+            putVarint(size);
+            ensureCapacity(size);
+            final byte[] bytes = mBytes;
+            int pos = mLength;
+            for (int i = 0; i < length; i++) {
+                final char c = str.charAt(i);
+                if (c < 0x80) {
+                    bytes[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[pos++] = (byte) (0xC0 | c >> 6);
+                    bytes[pos++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(str.charAt(i + 1))) {
+                    final int code = Character.toCodePoint(c, str.charAt(++i));
+                    bytes[pos++] = (byte) (0xF0 | code >> 18);
+                    bytes[pos++] = (byte) (0x80 | code >> 12 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | code >> 6 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | code & 0x3F);
+                } else if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+                    bytes[pos++] = '?';
+                } else {
+                    bytes[pos++] = (byte) (0xE0 | c >> 12);
+                    bytes[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+            mLength = pos;
+        }
+
+        private void ensureCapacity(int extra) {
+            final int required = mLength + extra;
+            if (required <= mBytes.length) return;
+            final byte[] bytes = new byte[Math.max(required, mBytes.length * 2)];
+            System.arraycopy(mBytes, 0, bytes, 0, mLength);
+            mBytes = bytes;
+        }
+    }
+
+}
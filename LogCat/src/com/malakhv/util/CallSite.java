@@ -0,0 +1,118 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+/**
+ * The place in source code where a log call occurs: class, method, file and line. The call
+ * sites are resolved once and kept in static fields, so there is no stack walking per log call.
+ * The {@code LogCatStrip} Gradle plugin generates such fields for each {@code LogCat} call and
+ * passes them by {@link LogCat#callSite(CallSite)}, the same could be done manually:
+ * <br>&nbsp;<br>
+ * &#09;{@code private static final CallSite SITE = CallSite.here();}<br>
+ * &#09;{@code ...}<br>
+ * &#09;{@code LogCat.callSite(SITE);}<br>
+ * &#09;{@code LogCat.d(TAG, "Loaded %d items", count);}<br>
+ * &#09;{@code LogCat.callSite(null);}
+ * <br>&nbsp;<br>
+ *
+ * <p>The call site is available to sinks (see {@link LogEvent#getCallSite()}), to the rate
+ * limiter (see {@link LogRateLimiter.Builder#setPerCallSite(boolean)}), to binary mode and to
+ * log messages (see {@link LogCat#setPrintCallSites(boolean)}).</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class CallSite {
+
+    /** The fully qualified name of class. */
+    private final String mClassName;
+
+    /** The name of method. */
+    private final String mMethodName;
+
+    /** The name of source file, or {@code null} if it is unknown. */
+    private final String mFileName;
+
+    /** The line number, or {@code -1} if it is unknown. */
+    private final int mLineNumber;
+
+    /** The short description of call site, see {@link #toString()}. */
+    private final String mDescription;
+
+    /**
+     * Creates a new call site, please use {@link #of(String, String, String, int)}.
+     * */
+    private CallSite(String className, String methodName, String fileName, int lineNumber) {
+        mClassName = className;
+        mMethodName = methodName;
+        mFileName = fileName;
+        mLineNumber = lineNumber;
+        final StringBuilder builder = new StringBuilder();
+        builder.append(className, className.lastIndexOf('.') + 1, className.length())
+                .append('.').append(methodName).append('(');
+        builder.append(fileName != null ? fileName : "Unknown Source");
+        if (fileName != null && lineNumber >= 0) builder.append(':').append(lineNumber);
+        mDescription = builder.append(')').toString();
+    }
+
+    /**
+     * Returns the call site.
+     * @param className The fully qualified name of class, like {@code "com.example.MyActivity"}.
+     * @param methodName The name of method.
+     * @param fileName The name of source file, or {@code null} if it is unknown.
+     * @param lineNumber The line number, or {@code -1} if it is unknown.
+     * */
+    public static CallSite of(String className, String methodName, String fileName,
+            int lineNumber) {
+        if (className == null || methodName == null) {
+            throw new NullPointerException("className == null || methodName == null");
+        }
+        return new CallSite(className, methodName, fileName, lineNumber);
+    }
+
+    /**
+     * Returns the call site of the method that called this method. It walks the stack, so it
+     * should be called once per call site (in static initializer, for example).
+     * */
+    public static CallSite here() {
+        final StackTraceElement[] elements = new Throwable().getStackTrace();
+        if (elements.length < 2) return of("Unknown", "unknown", null, -1);
+        final StackTraceElement element = elements[1];
+        return of(element.getClassName(), element.getMethodName(), element.getFileName(),
+                element.getLineNumber());
+    }
+
+    /** @return The fully qualified name of class. */
+    public String getClassName() { return mClassName; }
+
+    /** @return The name of method. */
+    public String getMethodName() { return mMethodName; }
+
+    /** @return The name of source file, or {@code null} if it is unknown. */
+    public String getFileName() { return mFileName; }
+
+    /** @return The line number, or {@code -1} if it is unknown. */
+    public int getLineNumber() { return mLineNumber; }
+
+    /**
+     * Returns the short description of call site, in the same form as stack trace has it:
+     * {@code "MyActivity.onCreate(MyActivity.java:42)"}. The string is created once.
+     * */
+    @Override
+    public String toString() { return mDescription; }
+
+}
@@ -0,0 +1,233 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+/**
+ * The filter that detects consecutive identical log messages, see
+ * {@link LogCat#setCollapseDuplicates(boolean, long)}. It keeps the last message (the run) for
+ * each thread that writes log messages.
+ *
+ * <p>The runs are registered in this filter, so the held duplicates of any thread could be
+ * reported by other thread: when the window of run is over (see {@link #isSweepDue(long)}), or
+ * when all runs are drained by {@link LogCat#flush()}. Each run is changed under its own lock,
+ * that is not contended in the usual case: the run is used by its thread only.</p>
+ *
+ * <p>In asynchronous mode, the messages of all threads are written by the writer thread, so the
+ * run is looked up by the thread that wrote the message (see {@link #get(Thread)}), and the runs
+ * of different threads are not merged.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+final class DuplicateFilter {
+
+    /** The maximum time (in nanoseconds) to hold duplicates before summary line. */
+    final long window;
+
+    /** The interval (in nanoseconds) between two checks of windows of all runs. */
+    private final long mSweepInterval;
+
+    /** The time of next check of windows of all runs, see {@link System#nanoTime()}. */
+    private final java.util.concurrent.atomic.AtomicLong mNextSweep;
+
+    /** All runs, including the runs of finished threads that have held duplicates. */
+    private final java.util.concurrent.ConcurrentLinkedQueue<Run> mAll =
+            new java.util.concurrent.ConcurrentLinkedQueue<Run>();
+
+    /** The runs of threads, which messages are written by other thread (in asynchronous mode). */
+    private final java.util.concurrent.ConcurrentHashMap<Thread, Run> mForeign =
+            new java.util.concurrent.ConcurrentHashMap<Thread, Run>();
+
+    /** The per-thread runs of identical messages. */
+    private final ThreadLocal<Run> mRuns = new ThreadLocal<Run>() {
+        @Override
+        protected Run initialValue() {
+            final Run run = new Run(Thread.currentThread());
+            mAll.add(run);
+            return run;
+        }
+    };
+
+    /**
+     * Creates a new filter.
+     * @param window The maximum time (in milliseconds) to hold duplicates before summary line.
+     * */
+    DuplicateFilter(long window) {
+        this.window = window * 1000000L;
+        // The duplicates are reported no later than 1.5 windows after the start of run
+        mSweepInterval = Math.max(this.window / 2, 1);
+        mNextSweep = new java.util.concurrent.atomic.AtomicLong(System.nanoTime()
+                + mSweepInterval);
+    }
+
+    /**
+     * Returns the run of specified thread.
+     * @param thread The thread that wrote the message. It is not the current thread, if the
+     * message is written by the writer thread in asynchronous mode.
+     * */
+    Run get(Thread thread) {
+        if (thread == Thread.currentThread()) return mRuns.get();
+        Run run = mForeign.get(thread);
+        if (run == null) {
+            final Run created = new Run(thread);
+            run = mForeign.putIfAbsent(thread, created);
+            if (run == null) {
+                run = created;
+                mAll.add(run);
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Returns true, if the windows of all runs should be checked now (see
+     * {@link #sweep(long, boolean, java.util.List)}). Only one thread gets {@code true} for
+     * each interval.
+     * */
+    boolean isSweepDue(long now) {
+        final long next = mNextSweep.get();
+        return now - next >= 0 && mNextSweep.compareAndSet(next, now + mSweepInterval);
+    }
+
+    /**
+     * Takes the held duplicates of all runs, which window is over.
+     * @param now The current time, see {@link System#nanoTime()}.
+     * @param all True, if the held duplicates of all runs should be taken, regardless of window.
+     * @param out The list for summaries of taken duplicates.
+     * */
+    void sweep(long now, boolean all, java.util.List<Summary> out) {
+        for (java.util.Iterator<Run> i = mAll.iterator(); i.hasNext(); ) {
+            final Run run = i.next();
+            synchronized (run) {
+                if (run.count > 0 && (all || now - run.start >= window)) {
+                    out.add(run.take(now));
+                } else if (run.count == 0 && !run.thread.isAlive()) {
+                    // The thread is finished, its run will not be used anymore
+                    run.clear();
+                    i.remove();
+                    mForeign.remove(run.thread, run);
+                }
+            }
+        }
+    }
+
+    /**
+     * The summary of held duplicates, it is taken from the run under its lock, and written
+     * without the lock.
+     * */
+    static final class Summary {
+
+        /** The thread that wrote the duplicates. */
+        final Thread thread;
+
+        /** The priority of message. */
+        final int priority;
+
+        /** The component tag of message. */
+        final String tag;
+
+        /** The diagnostic context of message, or {@code null}. */
+        final LogContext context;
+
+        /** The number of held duplicates. */
+        final int count;
+
+        Summary(Thread thread, int priority, String tag, LogContext context, int count) {
+            this.thread = thread;
+            this.priority = priority;
+            this.tag = tag;
+            this.context = context;
+            this.count = count;
+        }
+    }
+
+    /**
+     * The run of identical messages. All fields are guarded by the lock of run.
+     * */
+    static final class Run {
+
+        /** The thread of this run. */
+        final Thread thread;
+
+        /** The priority of message. */
+        int priority;
+
+        /** The component tag of message. */
+        String tag;
+
+        /** The message, or {@code null} if there is no run. */
+        String msg;
+
+        /** The diagnostic context of message, or {@code null}. */
+        LogContext context;
+
+        /** The number of held duplicates. */
+        int count;
+
+        /** The time of start of this run or last summary line, see {@link System#nanoTime()}. */
+        long start;
+
+        Run(Thread thread) { this.thread = thread; }
+
+        /**
+         * Returns true, if specified message is the same as message of this run. The lengths
+         * and hashes are compared first, so the check is cheap for different messages.
+         * */
+        boolean matches(int priority, String tag, String msg, LogContext context) {
+            final String last = this.msg;
+            if (last == null || msg == null || this.priority != priority) return false;
+            // The snapshots of context are compared by reference, it is enough for a run
+            if (this.context != context) return false;
+            if (last != msg && (last.length() != msg.length()
+                    || last.hashCode() != msg.hashCode() || !last.equals(msg))) {
+                return false;
+            }
+            return this.tag == tag || (tag != null && tag.equals(this.tag));
+        }
+
+        /** Starts the new run. */
+        void start(int priority, String tag, String msg, LogContext context, long now) {
+            this.priority = priority;
+            this.tag = tag;
+            this.msg = msg;
+            this.context = context;
+            this.count = 0;
+            this.start = now;
+        }
+
+        /**
+         * Takes the held duplicates, the run goes on with the new window.
+         * @return The summary, or {@code null} if there are no held duplicates.
+         * */
+        Summary take(long now) {
+            if (count == 0) return null;
+            final Summary summary = new Summary(thread, priority, tag, context, count);
+            count = 0;
+            start = now;
+            return summary;
+        }
+
+        /** Finishes this run, to not keep the message in memory. */
+        void clear() {
+            tag = null;
+            msg = null;
+            context = null;
+            count = 0;
+        }
+    }
+
+}
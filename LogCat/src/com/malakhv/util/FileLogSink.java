@@ -0,0 +1,740 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link LogSink} that writes log events to rolling files, to keep the log history on the
+ * device. The file is written via memory-mapped region (see {@link FileChannel#map}), so a log
+ * event is copied to the page cache without system calls, and it survives a crash of the
+ * process. Each event is written as text line(s) in UTF-8:
+ * <br>&nbsp;<br>
+ * &#09;{@code "2013-10-17 12:00:00.123 1234 D/MyApp: MyActivity: Any message."}
+ * <br>&nbsp;<br>
+ *
+ * <p>The threads never wait for each other: each writer reserves the space in the file by
+ * atomic increment of the offset and copies the record into own part of the file. The lock is
+ * taken only to roll the file, when the file is full (see {@link Builder#setFileSize(int)}) or
+ * too old (see {@link Builder#setMaxFileAge(long)}). The oldest files are deleted if the total
+ * size of files exceeds the limit (see {@link Builder#setMaxTotalSize(long)}).</p>
+ *
+ * <p>The file is preallocated and truncated to actual size when it is rolled or the sink is
+ * closed. If the process crashed, the file keeps zero tail and, maybe, zero holes of records
+ * that were not completed. Such files are repaired when a new sink is created: the holes and
+ * truncated records are removed.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class FileLogSink implements LogSink {
+
+    /** The default maximum size of one file, in bytes. */
+    public static final int DEFAULT_FILE_SIZE = 1024 * 1024;
+
+    /** The default maximum total size of all files, in bytes. */
+    public static final long DEFAULT_MAX_TOTAL_SIZE = 16 * 1024 * 1024;
+
+    /** The default maximum age of one file, in milliseconds. */
+    public static final long DEFAULT_MAX_FILE_AGE = 24 * 60 * 60 * 1000;
+
+    /** The default prefix of file names. */
+    public static final String DEFAULT_FILE_PREFIX = "log";
+
+    /** The extension of log files. */
+    public static final String FILE_EXTENSION = ".log";
+
+    /** The extension of binary log files, see {@link BinaryLogWriter}. */
+    public static final String BINARY_FILE_EXTENSION = ".bin";
+
+    /** The minimum size of one file, in bytes. */
+    private static final int MIN_FILE_SIZE = 4 * 1024;
+
+    /** The time (in milliseconds) between two attempts to open a file after error. */
+    private static final long RETRY_INTERVAL = 1000;
+
+    /** The number of digits of creation time in file name, to sort files by name. */
+    private static final int TIME_DIGITS = 13;
+
+    /** The directory for log files. */
+    private final File mDirectory;
+
+    /** The prefix of file names. */
+    private final String mPrefix;
+
+    /** The extension of file names. */
+    private final String mExtension;
+
+    /** The maximum size of one file, in bytes. */
+    private final int mFileSize;
+
+    /** The maximum age of one file, in milliseconds. */
+    private final long mMaxFileAge;
+
+    /** The maximum total size of all files, in bytes. */
+    private final long mMaxTotalSize;
+
+    /** True, if {@link #flush()} should write the file to the storage device. */
+    private final boolean mForceOnFlush;
+
+    /** The current file, or {@code null} if it could not be opened or the sink is closed. */
+    private volatile Segment mCurrent;
+
+    /** The lock for rolling files. */
+    private final Object mRollLock = new Object();
+
+    /** The time of next attempt to open a file after error. */
+    private volatile long mRetryTime = 0;
+
+    /** True, if this sink is closed. */
+    private volatile boolean mClosed = false;
+
+    /** The per-thread encoder of log events. */
+    private static final ThreadLocal<Encoder> sEncoder = new ThreadLocal<Encoder>() {
+        @Override
+        protected Encoder initialValue() { return new Encoder(); }
+    };
+
+    /**
+     * Creates a new sink, please use {@link Builder}.
+     * */
+    private FileLogSink(Builder builder, boolean binary) throws IOException {
+        mDirectory = builder.mDirectory;
+        mPrefix = builder.mPrefix;
+        mExtension = binary ? BINARY_FILE_EXTENSION : FILE_EXTENSION;
+        mFileSize = builder.mFileSize;
+        mMaxFileAge = builder.mMaxFileAge;
+        mMaxTotalSize = builder.mMaxTotalSize;
+        mForceOnFlush = builder.mForceOnFlush;
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Cannot create directory " + mDirectory);
+        }
+        // The binary records are checked by decoder, see BinaryLogDecoder
+        if (!binary) {
+            for (File file : listFiles()) recover(file);
+        }
+        mCurrent = openSegment(System.currentTimeMillis());
+        deleteOldFiles();
+    }
+
+    /** @return The directory for log files. */
+    public File getDirectory() { return mDirectory; }
+
+    /** @return The prefix of file names. */
+    public String getFilePrefix() { return mPrefix; }
+
+    /**
+     * @return The log files, sorted from the oldest to the newest.
+     * */
+    public File[] listFiles() {
+        final File[] files = mDirectory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                final String name = file.getName();
+                return file.isFile() && name.startsWith(mPrefix + "-")
+                        && name.endsWith(mExtension);
+            }
+        });
+        if (files == null) return new File[0];
+        Arrays.sort(files);
+        return files;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int write(LogEvent event) {
+        final Encoder encoder = sEncoder.get();
+        encoder.reset();
+        encoder.encode(event, mFileSize);
+        return commit(encoder.mBytes, 0, encoder.mLength, event.getTime()) ? encoder.mLength : -1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(LogEvent[] events, int offset, int count) {
+        // The batch is written by as few reservations as possible
+        final Encoder encoder = sEncoder.get();
+        final int limit = mFileSize / 2;
+        encoder.reset();
+        for (int i = offset, end = offset + count; i < end; i++) {
+            final int start = encoder.mLength;
+            encoder.encode(events[i], mFileSize);
+            if (encoder.mLength > limit && start > 0) {
+                encoder.mLength = start;
+                commit(encoder.mBytes, 0, encoder.mLength, events[i].getTime());
+                encoder.reset();
+                encoder.encode(events[i], mFileSize);
+            }
+        }
+        if (encoder.mLength > 0) {
+            commit(encoder.mBytes, 0, encoder.mLength, events[offset + count - 1].getTime());
+        }
+    }
+
+    /**
+     * Writes the encoded records to the current file, and rolls the file if it is needed. It is
+     * also used by {@link BinaryLogWriter} for binary records.
+     * @param time The time of records, to roll the old file.
+     * @return True, if the records were written.
+     * */
+    boolean commit(byte[] bytes, int offset, int length, long time) {
+        if (length > mFileSize) return false;
+        final Encoder encoder = sEncoder.get();
+        while (!mClosed) {
+            final Segment segment = mCurrent;
+            if (segment == null) {
+                if (!reopen(time)) return false;
+                continue;
+            }
+            if (!segment.acquire()) continue;
+            try {
+                if (time - segment.mCreated >= mMaxFileAge) {
+                    roll(segment, time);
+                    continue;
+                }
+                final int position = segment.mOffset.getAndAdd(length);
+                if (position >= 0 && position <= mFileSize - length) {
+                    encoder.copyTo(segment, position, bytes, offset, length);
+                    return true;
+                }
+                segment.overflow(position);
+                roll(segment, time);
+            } finally {
+                segment.release();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the full or old file with a new one. Only the first thread rolls the file,
+     * other threads just take the new file.
+     * */
+    private void roll(Segment segment, long time) {
+        synchronized (mRollLock) {
+            if (mCurrent != segment || mClosed) return;
+            Segment next = null;
+            try {
+                next = openSegment(time);
+            } catch (IOException e) {
+                mRetryTime = System.currentTimeMillis() + RETRY_INTERVAL;
+            }
+            mCurrent = next;
+            segment.retire();
+            deleteOldFiles();
+        }
+    }
+
+    /**
+     * Tries to open a new file, after error.
+     * @return True, if the file was opened.
+     * */
+    private boolean reopen(long time) {
+        if (System.currentTimeMillis() - mRetryTime < 0) return false;
+        synchronized (mRollLock) {
+            if (mClosed) return false;
+            if (mCurrent != null) return true;
+            try {
+                mCurrent = openSegment(time);
+                return true;
+            } catch (IOException e) {
+                mRetryTime = System.currentTimeMillis() + RETRY_INTERVAL;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Creates and maps a new file.
+     * */
+    private Segment openSegment(long time) throws IOException {
+        File file;
+        long stamp = time;
+        do {
+            file = new File(mDirectory, fileName(stamp++));
+        } while (!file.createNewFile());
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            final FileChannel channel = raf.getChannel();
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    mFileSize);
+            return new Segment(file, raf, buffer, time, mFileSize);
+        } catch (IOException e) {
+            raf.close();
+            file.delete();
+            throw e;
+        }
+    }
+
+    /** Returns the file name for specified creation time. */
+    private String fileName(long time) {
+        final String digits = Long.toString(Math.max(0, time));
+        final StringBuilder builder = new StringBuilder(mPrefix).append('-');
+        for (int i = digits.length(); i < TIME_DIGITS; i++) builder.append('0');
+        return builder.append(digits).append(mExtension).toString();
+    }
+
+    /**
+     * Deletes the oldest files, if the total size of files exceeds the limit. The current file
+     * is never deleted, and its size is counted as full. The current file is not always the
+     * last one by name: if the wall clock goes backwards, the new file gets an earlier name.
+     * */
+    private void deleteOldFiles() {
+        final File[] files = listFiles();
+        final Segment current = mCurrent;
+        long total = mFileSize;
+        // Count other files from the newest, all files after the limit are deleted
+        for (int i = files.length - 1; i >= 0; i--) {
+            if (current != null && current.mName.equals(files[i])) continue;
+            total += files[i].length();
+            if (total > mMaxTotalSize) files[i].delete();
+        }
+    }
+
+    /**
+     * Writes the current file to the storage device, if
+     * {@link Builder#setForceOnFlush(boolean)} is set. Otherwise, this method does nothing:
+     * written events are already in the page cache, and they survive a crash of the process.
+     * */
+    @Override
+    public void flush() {
+        if (!mForceOnFlush) return;
+        final Segment segment = mCurrent;
+        if (segment == null || !segment.acquire()) return;
+        try {
+            segment.mBuffer.force();
+        } finally {
+            segment.release();
+        }
+    }
+
+    /**
+     * Writes the current file to the storage device and truncates it to actual size. The
+     * events, that are written after this call, are dropped.
+     * */
+    @Override
+    public void close() {
+        synchronized (mRollLock) {
+            if (mClosed) return;
+            mClosed = true;
+            final Segment segment = mCurrent;
+            mCurrent = null;
+            if (segment != null) {
+                segment.mBuffer.force();
+                segment.retire();
+            }
+        }
+    }
+
+    /**
+     * Repairs the file after a crash of the process: removes zero holes (the records that were
+     * reserved, but not written) and truncated records, and truncates the file to actual size.
+     * */
+    private static void recover(File file) {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            final long length = raf.length();
+            if (length > Integer.MAX_VALUE) return;
+            if (length > 0) {
+                raf.seek(length - 1);
+                // The file that was closed properly ends with the end of record
+                if (raf.read() == '\n') return;
+            }
+            final byte[] data = new byte[(int) length];
+            raf.seek(0);
+            raf.readFully(data);
+            int out = 0, recordStart = 0;
+            for (int i = 0; i < data.length; i++) {
+                final byte b = data[i];
+                if (b == 0) {
+                    // The record before the hole may be truncated
+                    out = recordStart;
+                    continue;
+                }
+                data[out++] = b;
+                if (b == '\n') recordStart = out;
+            }
+            out = recordStart;
+            raf.seek(0);
+            raf.write(data, 0, out);
+            raf.setLength(out);
+            if (out == 0) {
+                raf.close();
+                raf = null;
+                file.delete();
+            }
+        } catch (IOException ignored) {
+            // Nothing to do, the file will be deleted as usual
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException ignored) {
+                    // Nothing to do
+                }
+            }
+        }
+    }
+
+    /**
+     * The mapped log file.
+     * */
+    private static final class Segment {
+
+        /** The file name. */
+        private final File mName;
+
+        /** The file. */
+        private final RandomAccessFile mFile;
+
+        /**
+         * The mapped region of file, or {@code null} after {@link #close()}. It is used only by
+         * registered writers (see {@link #acquire()}), so it is never used after close.
+         * */
+        private volatile MappedByteBuffer mBuffer;
+
+        /** The time of creation of this file. */
+        private final long mCreated;
+
+        /** The size of mapped region. */
+        private final int mSize;
+
+        /** The offset of free space, it is reserved by writers via atomic increment. */
+        private final AtomicInteger mOffset = new AtomicInteger(0);
+
+        /** The smallest reservation that doesn't fit into the file, it is the end of file. */
+        private final AtomicInteger mEnd;
+
+        /** The number of writers that work with this file now. */
+        private final AtomicInteger mWriters = new AtomicInteger(0);
+
+        /** True, if this file is not current anymore. */
+        private volatile boolean mRetired = false;
+
+        /** True, if this file was truncated and closed. */
+        private final AtomicBoolean mClosed = new AtomicBoolean(false);
+
+        Segment(File name, RandomAccessFile file, MappedByteBuffer buffer, long created, int size) {
+            mName = name;
+            mFile = file;
+            mBuffer = buffer;
+            mCreated = created;
+            mSize = size;
+            mEnd = new AtomicInteger(size);
+        }
+
+        /**
+         * Registers the writer.
+         * @return False, if this file is not current anymore.
+         * */
+        boolean acquire() {
+            mWriters.incrementAndGet();
+            if (!mRetired) return true;
+            release();
+            return false;
+        }
+
+        /** Unregisters the writer, and closes the retired file after the last writer. */
+        void release() {
+            if (mWriters.decrementAndGet() == 0 && mRetired) close();
+        }
+
+        /** Marks this file as not current, it will be closed after the last writer. */
+        void retire() {
+            mRetired = true;
+            if (mWriters.get() == 0) close();
+        }
+
+        /** Records the reservation that doesn't fit into the file. */
+        void overflow(int position) {
+            if (position < 0) position = mSize;
+            int end;
+            do {
+                end = mEnd.get();
+            } while (position < end && !mEnd.compareAndSet(end, position));
+        }
+
+        /**
+         * Truncates the file to actual size and closes it. The data is not forced to the
+         * storage device, because it is called on the thread that writes log events.
+         *
+         * <p>There is no public API to unmap the region, so it is unmapped by GC, when the
+         * buffer and its views (the cached views of {@link Encoder}, that are replaced by the
+         * next write of each thread) are unreachable. The reference is dropped before the file
+         * is truncated, so the mapping could be released as soon as possible, and nobody
+         * touches the pages beyond the new end of file (it is a {@code SIGBUS} on Linux). If the
+         * truncation fails (on a system that doesn't truncate mapped files), the file is
+         * repaired on next start.</p>
+         * */
+        private void close() {
+            if (!mClosed.compareAndSet(false, true)) return;
+            mBuffer = null;
+            final int offset = mOffset.get();
+            final int end = Math.min(mEnd.get(), offset >= 0 ? offset : mSize);
+            try {
+                mFile.setLength(end);
+            } catch (IOException ignored) {
+                // Nothing to do, the file will be repaired on next start
+            } finally {
+                try {
+                    mFile.close();
+                } catch (IOException ignored) {
+                    // Nothing to do
+                }
+            }
+        }
+    }
+
+    /**
+     * The per-thread encoder of log events to UTF-8 records.
+     * */
+    private static final class Encoder {
+
+        /** The pattern of time of log event, without milliseconds. */
+        private static final String TIME_PATTERN = "yyyy-MM-dd HH:mm:ss.";
+
+        /** The encoded records. */
+        private byte[] mBytes = new byte[1024];
+
+        /** The length of encoded records. */
+        private int mLength = 0;
+
+        /** The time format, it is created on first use. */
+        private SimpleDateFormat mFormat;
+
+        /** The second of cached time, see {@link #mSecondBytes}. */
+        private long mSecond = Long.MIN_VALUE;
+
+        /** The cached time, without milliseconds. */
+        private byte[] mSecondBytes;
+
+        /** The segment of cached view of mapped region. */
+        private Segment mSegment;
+
+        /** The cached view of mapped region, it has own position. */
+        private ByteBuffer mView;
+
+        /** Clears encoded records. */
+        void reset() { mLength = 0; }
+
+        /**
+         * Appends the log event as a record.
+         * @param maxLength The maximum length of record, a longer record is truncated.
+         * */
+        void encode(LogEvent event, int maxLength) {
+            final int start = mLength;
+            appendTime(event.getTime());
+            appendAscii(Long.toString(event.getThreadId()));
+            append(' ');
+            append(LogEvent.toPriorityChar(event.getPriority()));
+            append('/');
+            appendUtf8(event.getAppTag());
+            appendAscii(LogCat.TAG_DELIMITER);
+            final String tag = event.getTag();
+            if (tag != null) {
+                appendUtf8(tag);
+                appendAscii(LogCat.TAG_DELIMITER);
+            }
+            appendUtf8(event.getMessage());
+            if (mLength - start >= maxLength) mLength = start + maxLength - 1;
+            append('\n');
+        }
+
+        /** Copies the records to the file, via cached view of mapped region. */
+        void copyTo(Segment segment, int position, byte[] bytes, int offset, int length) {
+            if (mSegment != segment) {
+                mSegment = segment;
+                mView = segment.mBuffer.duplicate();
+            }
+            mView.position(position);
+            mView.put(bytes, offset, length);
+        }
+
+        /** Appends the time, like {@code "2013-10-17 12:00:00.123 "}. */
+        private void appendTime(long time) {
+            final long second = time / 1000;
+            if (second != mSecond) {
+                if (mFormat == null) mFormat = new SimpleDateFormat(TIME_PATTERN, Locale.US);
+                mSecondBytes = mFormat.format(new Date(second * 1000)).getBytes();
+                mSecond = second;
+            }
+            ensureCapacity(mSecondBytes.length + 4);
+            System.arraycopy(mSecondBytes, 0, mBytes, mLength, mSecondBytes.length);
+            mLength += mSecondBytes.length;
+            final int millis = (int) (time - second * 1000);
+            mBytes[mLength++] = (byte) ('0' + millis / 100);
+            mBytes[mLength++] = (byte) ('0' + millis / 10 % 10);
+            mBytes[mLength++] = (byte) ('0' + millis % 10);
+            mBytes[mLength++] = ' ';
+        }
+
+        /** Appends one ASCII character. */
+        private void append(char c) {
+            ensureCapacity(1);
+            mBytes[mLength++] = (byte) c;
+        }
+
+        /** Appends the ASCII string. */
+        private void appendAscii(String str) {
+            final int length = str.length();
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) mBytes[mLength++] = (byte) str.charAt(i);
+        }
+
+        /** Appends the string in UTF-8, the zero characters are replaced by spaces. */
+        private void appendUtf8(String str) {
+            if (str == null) str = "null";
+            final int length = str.length();
+            ensureCapacity(length * 3);
+            final byte[] bytes = mBytes;
+            int pos = mLength;
+            for (int i = 0; i < length; i++) {
+                final char c = str.charAt(i);
+                if (c < 0x80) {
+                    // The zero byte means "not written" in the file
+                    bytes[pos++] = (byte) (c != 0 ? c : ' ');
+                } else if (c < 0x800) {
+                    bytes[pos++] = (byte) (0xC0 | c >> 6);
+                    bytes[pos++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(str.charAt(i + 1))) {
+                    final int code = Character.toCodePoint(c, str.charAt(++i));
+                    bytes[pos++] = (byte) (0xF0 | code >> 18);
+                    bytes[pos++] = (byte) (0x80 | code >> 12 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | code >> 6 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | code & 0x3F);
+                } else if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+                    bytes[pos++] = '?';
+                } else {
+                    bytes[pos++] = (byte) (0xE0 | c >> 12);
+                    bytes[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+            mLength = pos;
+        }
+
+        /** Grows the buffer, if it is needed. */
+        private void ensureCapacity(int extra) {
+            final int required = mLength + extra;
+            if (required <= mBytes.length) return;
+            mBytes = Arrays.copyOf(mBytes, Math.max(required, mBytes.length * 2));
+        }
+    }
+
+    /**
+     * The builder for {@link FileLogSink}.
+     * */
+    public static final class Builder {
+        private final File mDirectory;
+        private String mPrefix = DEFAULT_FILE_PREFIX;
+        private int mFileSize = DEFAULT_FILE_SIZE;
+        private long mMaxFileAge = DEFAULT_MAX_FILE_AGE;
+        private long mMaxTotalSize = DEFAULT_MAX_TOTAL_SIZE;
+        private boolean mForceOnFlush = false;
+
+        /**
+         * @param directory The directory for log files, {@code context.getFilesDir()} subfolder
+         *                  for example.
+         * */
+        public Builder(File directory) {
+            if (directory == null) throw new NullPointerException("The directory is null");
+            mDirectory = directory;
+        }
+
+        /**
+         * Set the prefix of file names, the default value is {@link #DEFAULT_FILE_PREFIX}.
+         * */
+        public Builder setFilePrefix(String prefix) {
+            if (prefix == null || prefix.length() == 0) {
+                throw new IllegalArgumentException("The prefix is null or empty");
+            }
+            mPrefix = prefix;
+            return this;
+        }
+
+        /**
+         * Set the maximum size of one file (in bytes), the default value is
+         * {@link #DEFAULT_FILE_SIZE}. The longer log event is truncated to this size.
+         * */
+        public Builder setFileSize(int bytes) {
+            if (bytes < MIN_FILE_SIZE) {
+                throw new IllegalArgumentException("The file size should be at least "
+                        + MIN_FILE_SIZE);
+            }
+            mFileSize = bytes;
+            return this;
+        }
+
+        /**
+         * Set the maximum age of one file (in milliseconds), the default value is
+         * {@link #DEFAULT_MAX_FILE_AGE}.
+         * */
+        public Builder setMaxFileAge(long millis) {
+            if (millis <= 0) throw new IllegalArgumentException("The age should be positive");
+            mMaxFileAge = millis;
+            return this;
+        }
+
+        /**
+         * Set the maximum total size of all files (in bytes), the default value is
+         * {@link #DEFAULT_MAX_TOTAL_SIZE}. The oldest files are deleted when the limit is
+         * exceeded.
+         * */
+        public Builder setMaxTotalSize(long bytes) {
+            if (bytes <= 0) throw new IllegalArgumentException("The size should be positive");
+            mMaxTotalSize = bytes;
+            return this;
+        }
+
+        /**
+         * Set true, if {@link FileLogSink#flush()} should write the current file to the
+         * storage device (it is slow). By default, the written events survive a crash of the
+         * process, but not a power loss.
+         * */
+        public Builder setForceOnFlush(boolean force) {
+            mForceOnFlush = force;
+            return this;
+        }
+
+        /**
+         * Creates the new {@link FileLogSink}, repairs the files after a crash and opens a new
+         * file.
+         * @throws IOException if the directory or the file could not be created.
+         * */
+        public FileLogSink build() throws IOException { return new FileLogSink(this, false); }
+
+        /**
+         * Creates the new {@link FileLogSink} for binary records, see {@link BinaryLogWriter}.
+         * */
+        FileLogSink buildBinary() throws IOException { return new FileLogSink(this, true); }
+    }
+
+}
@@ -0,0 +1,369 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The in-memory flight recorder of recent log messages, see
+ * {@link LogCat#setFlightRecorder(FlightRecorder)}. It keeps the last N log messages of all
+ * levels (also the messages below the current log level), so the context of a crash could be
+ * dumped to the system log or to a file (see {@link #dump(LogSink)}).
+ *
+ * <p>The messages are not formatted while recording: the primitive values (time, level, thread,
+ * primitive arguments) are written to the preallocated direct {@link ByteBuffer}, and the
+ * references to the tag, the format string and the object arguments are kept in the
+ * preallocated array. The messages are formatted only during dump. Please note, the object
+ * arguments are formatted during dump, so the mutable objects show their state at that time.
+ * The messages, that should be obfuscated, are obfuscated during dump too, with the obfuscator
+ * of current settings (see {@link LogCat#reconfigure()}).</p>
+ *
+ * <p>The recording takes no locks: the writer claims the slot by atomic increment of sequence,
+ * and the slot is protected by its version (the odd version means "the slot is being written").
+ * If the slot is being written by other thread (the buffer is too small), the message is not
+ * recorded. The dump skips slots that were overwritten while reading.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class FlightRecorder {
+
+    /** The default number of recorded messages. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** The maximum number of primitive arguments in the slot. */
+    private static final int MAX_ARGS = LogArgs.MAX_COUNT;
+
+    /** The size of slot in the byte buffer. */
+    private static final int SLOT_SIZE = 64;
+
+    /** The offsets of fields in the slot. */
+    private static final int OFFSET_TIME = 0;
+    private static final int OFFSET_THREAD = 8;
+    private static final int OFFSET_PRIORITY = 16;
+    private static final int OFFSET_FLAGS = 17;
+    private static final int OFFSET_COUNT = 18;
+    private static final int OFFSET_TYPES = 19;
+    private static final int OFFSET_VALUES = 24;
+
+    /** The flag: the message was written to the sinks. */
+    private static final byte FLAG_WRITTEN = 1;
+
+    /** The flag: the arguments are stored as {@link LogArgs}, not as array. */
+    private static final byte FLAG_TYPED_ARGS = 2;
+
+    /** The flag: the message should be obfuscated. */
+    private static final byte FLAG_OBFUSCATE = 4;
+
+    /** The number of references for each slot. */
+    private static final int OBJECT_STRIDE = 8;
+
+    /** The indexes of references in the slot. */
+    private static final int OBJECT_TAG = 0;
+    private static final int OBJECT_FORMAT = 1;
+    private static final int OBJECT_THROWABLE = 2;
+    private static final int OBJECT_THREAD_NAME = 3;
+    private static final int OBJECT_ARGS = 4;
+
+    /** The primitive fields of slots. */
+    private final ByteBuffer mBuffer;
+
+    /** The references of slots. */
+    private final Object[] mObjects;
+
+    /** The versions of slots: {@code 2 * seq + 1} while writing, {@code 2 * seq + 2} after. */
+    private final AtomicLongArray mVersions;
+
+    /** The mask for computing slot index from sequence, the capacity is a power of two. */
+    private final int mMask;
+
+    /** The next sequence. */
+    private final AtomicLong mSequence = new AtomicLong(0);
+
+    /** The number of messages that were not recorded, because the slot was busy. */
+    private final AtomicLong mDropped = new AtomicLong(0);
+
+    /** The sequence after the last message of the last dump of not written messages. */
+    private final AtomicLong mDumped = new AtomicLong(0);
+
+    /** True, if the dump is in progress. */
+    private final AtomicBoolean mDumping = new AtomicBoolean(false);
+
+    /** The lowest recorded level. */
+    private final int mLevel;
+
+    /** True, if the not written messages should be dumped on error with exception. */
+    private final boolean mDumpOnError;
+
+    /**
+     * Creates a new recorder, please use {@link Builder}.
+     * */
+    private FlightRecorder(Builder builder) {
+        int size = Integer.highestOneBit(builder.mCapacity);
+        if (size < builder.mCapacity) size <<= 1;
+        mMask = size - 1;
+        mBuffer = ByteBuffer.allocateDirect(size * SLOT_SIZE);
+        mObjects = new Object[size * OBJECT_STRIDE];
+        mVersions = new AtomicLongArray(size);
+        mLevel = builder.mLevel;
+        mDumpOnError = builder.mDumpOnError;
+    }
+
+    /** @return The number of recorded messages, that this recorder keeps. */
+    public int getCapacity() { return mMask + 1; }
+
+    /** @return The lowest recorded level. */
+    public int getLevel() { return mLevel; }
+
+    /** @return True, if the messages should be dumped on error with exception. */
+    public boolean isDumpOnError() { return mDumpOnError; }
+
+    /** @return The number of messages that were not recorded, because the slot was busy. */
+    public long getDroppedCount() { return mDropped.get(); }
+
+    /** Returns true, if the messages of specified level are recorded. */
+    boolean isRecorded(int priority) { return priority >= mLevel; }
+
+    /**
+     * Records the log message with array of arguments.
+     * @param msg The message, or the format string if {@code args} is not {@code null}.
+     * @param written True, if the message is written to the sinks.
+     * @param obfuscate True, if the message should be obfuscated.
+     * */
+    void record(long time, Thread thread, int priority, String tag, String msg, Object[] args,
+            Throwable tr, boolean written, boolean obfuscate) {
+        final long seq = mSequence.getAndIncrement();
+        final int slot = (int) seq & mMask;
+        if (!begin(slot, seq)) return;
+        final int base = slot * SLOT_SIZE;
+        putHeader(base, time, thread, priority, flags(written, obfuscate), 0);
+        final int objects = slot * OBJECT_STRIDE;
+        putObjects(objects, tag, msg, tr, thread);
+        mObjects[objects + OBJECT_ARGS] = args;
+        for (int i = OBJECT_ARGS + 1; i < OBJECT_STRIDE; i++) mObjects[objects + i] = null;
+        mVersions.set(slot, 2 * seq + 2);
+    }
+
+    /**
+     * Records the log message with the per-thread list of arguments, the primitive arguments
+     * are not boxed.
+     * @param written True, if the message is written to the sinks.
+     * @param obfuscate True, if the message should be obfuscated.
+     * */
+    void record(long time, Thread thread, int priority, String tag, String format,
+            LogArgs args, boolean written, boolean obfuscate) {
+        final long seq = mSequence.getAndIncrement();
+        final int slot = (int) seq & mMask;
+        if (!begin(slot, seq)) return;
+        final int base = slot * SLOT_SIZE;
+        final int count = args.count;
+        putHeader(base, time, thread, priority, FLAG_TYPED_ARGS | flags(written, obfuscate),
+                count);
+        final int objects = slot * OBJECT_STRIDE;
+        putObjects(objects, tag, format, null, thread);
+        for (int i = 0; i < MAX_ARGS; i++) {
+            final byte type = i < count ? args.types[i] : LogArgs.OBJECT;
+            mBuffer.put(base + OFFSET_TYPES + i, type);
+            mObjects[objects + OBJECT_ARGS + i] = i < count ? args.objects[i] : null;
+            if (i >= count) continue;
+            if (type == LogArgs.DOUBLE || type == LogArgs.FLOAT) {
+                mBuffer.putLong(base + OFFSET_VALUES + i * 8,
+                        Double.doubleToRawLongBits(args.doubles[i]));
+            } else if (type != LogArgs.OBJECT) {
+                mBuffer.putLong(base + OFFSET_VALUES + i * 8, args.longs[i]);
+            }
+        }
+        mVersions.set(slot, 2 * seq + 2);
+    }
+
+    /** Returns the flags of the slot. */
+    private static int flags(boolean written, boolean obfuscate) {
+        return (written ? FLAG_WRITTEN : 0) | (obfuscate ? FLAG_OBFUSCATE : 0);
+    }
+
+    /**
+     * Marks the slot as being written.
+     * @return False, if the slot is being written by other thread.
+     * */
+    private boolean begin(int slot, long seq) {
+        final long version = mVersions.get(slot);
+        if ((version & 1) != 0 || !mVersions.compareAndSet(slot, version, 2 * seq + 1)) {
+            mDropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /** Writes the primitive fields of the slot. */
+    private void putHeader(int base, long time, Thread thread, int priority, int flags,
+            int count) {
+        mBuffer.putLong(base + OFFSET_TIME, time);
+        mBuffer.putLong(base + OFFSET_THREAD, thread.getId());
+        mBuffer.put(base + OFFSET_PRIORITY, (byte) priority);
+        mBuffer.put(base + OFFSET_FLAGS, (byte) flags);
+        mBuffer.put(base + OFFSET_COUNT, (byte) count);
+    }
+
+    /** Writes the common references of the slot. */
+    private void putObjects(int objects, String tag, String format, Throwable tr, Thread thread) {
+        mObjects[objects + OBJECT_TAG] = tag;
+        mObjects[objects + OBJECT_FORMAT] = format;
+        mObjects[objects + OBJECT_THROWABLE] = tr;
+        mObjects[objects + OBJECT_THREAD_NAME] = thread.getName();
+    }
+
+    /**
+     * Writes all recorded messages to the sink, from the oldest to the newest. The messages are
+     * written with own time, level and thread.
+     * @return The number of written messages, or {@code -1} if other dump is in progress.
+     * */
+    public int dump(LogSink sink) {
+        return dump(sink, LogCat.getConfig(), false);
+    }
+
+    /**
+     * Writes recorded messages to the sink.
+     * @param config The settings for log events: the main app tag and the obfuscator.
+     * @param hiddenOnly If true, only the messages, that were not written to the sinks and were
+     *                   not dumped before, are written.
+     * @return The number of written messages, or {@code -1} if other dump is in progress.
+     * */
+    int dump(LogSink sink, LogConfig config, boolean hiddenOnly) {
+        if (!mDumping.compareAndSet(false, true)) return -1;
+        try {
+            final long end = mSequence.get();
+            long start = Math.max(0, end - (mMask + 1));
+            if (hiddenOnly) start = Math.max(start, mDumped.getAndSet(end));
+            final LogEvent event = new LogEvent();
+            final StringBuilder builder = new StringBuilder();
+            final Object[] objects = new Object[OBJECT_STRIDE];
+            final long[] values = new long[MAX_ARGS];
+            final byte[] types = new byte[MAX_ARGS];
+            int count = 0;
+            for (long seq = start; seq < end; seq++) {
+                final int slot = (int) seq & mMask;
+                final long version = 2 * seq + 2;
+                if (mVersions.get(slot) != version) continue;
+                final int base = slot * SLOT_SIZE;
+                final long time = mBuffer.getLong(base + OFFSET_TIME);
+                final long threadId = mBuffer.getLong(base + OFFSET_THREAD);
+                final int priority = mBuffer.get(base + OFFSET_PRIORITY);
+                final int flags = mBuffer.get(base + OFFSET_FLAGS);
+                final int argCount = mBuffer.get(base + OFFSET_COUNT);
+                for (int i = 0; i < MAX_ARGS; i++) {
+                    types[i] = mBuffer.get(base + OFFSET_TYPES + i);
+                    values[i] = mBuffer.getLong(base + OFFSET_VALUES + i * 8);
+                }
+                System.arraycopy(mObjects, slot * OBJECT_STRIDE, objects, 0, OBJECT_STRIDE);
+                // The CAS works as a full barrier: the slot was not overwritten while reading
+                if (!mVersions.compareAndSet(slot, version, version)) continue;
+                if (hiddenOnly && (flags & FLAG_WRITTEN) != 0) continue;
+                builder.setLength(0);
+                appendMessage(builder, objects, flags, argCount, types, values);
+                String msg = builder.toString();
+                if ((flags & FLAG_OBFUSCATE) != 0) msg = LogCat.obfuscate(config, msg);
+                event.set(time, priority, config.getAppTag(), (String) objects[OBJECT_TAG], msg,
+                        threadId, (String) objects[OBJECT_THREAD_NAME]);
+                try {
+                    sink.write(event);
+                } catch (RuntimeException ignored) {
+                    // The dump should not fail because of a single bad message
+                }
+                count++;
+            }
+            return count;
+        } finally {
+            mDumping.set(false);
+        }
+    }
+
+    /** Formats the recorded message. */
+    private static void appendMessage(StringBuilder builder, Object[] objects, int flags,
+            int count, byte[] types, long[] values) {
+        final String format = (String) objects[OBJECT_FORMAT];
+        Object[] args = null;
+        if ((flags & FLAG_TYPED_ARGS) != 0) {
+            args = new Object[count];
+            for (int i = 0; i < count; i++) {
+                final byte type = types[i];
+                final boolean real = type == LogArgs.DOUBLE || type == LogArgs.FLOAT;
+                args[i] = LogArgs.box(type, values[i],
+                        real ? Double.longBitsToDouble(values[i]) : 0, objects[OBJECT_ARGS + i]);
+            }
+        } else {
+            args = (Object[]) objects[OBJECT_ARGS];
+        }
+        String msg = format;
+        if (args != null && format != null) {
+            try {
+                msg = LogFormatter.format(format, args);
+            } catch (RuntimeException e) {
+                msg = format;
+            }
+        }
+        LogCat.appendMessage(builder, msg, (Throwable) objects[OBJECT_THROWABLE]);
+    }
+
+    /**
+     * The builder for {@link FlightRecorder}.
+     * */
+    public static final class Builder {
+        private int mCapacity = DEFAULT_CAPACITY;
+        private int mLevel = LogCat.VERBOSE;
+        private boolean mDumpOnError = true;
+
+        /**
+         * Set the number of recorded messages, that the recorder keeps. It will be rounded up
+         * to a power of two. The default value is {@link #DEFAULT_CAPACITY}.
+         * */
+        public Builder setCapacity(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("The capacity should be positive");
+            }
+            mCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * Set the lowest recorded level, the default value is {@link LogCat#VERBOSE}.
+         * */
+        public Builder setLevel(int level) {
+            if (level < LogCat.VERBOSE || level > LogCat.ASSERT) {
+                throw new IllegalArgumentException("Invalid level " + level);
+            }
+            mLevel = level;
+            return this;
+        }
+
+        /**
+         * Set true, if the recorded messages, that were not written to the sinks, should be
+         * dumped to the sinks when an error with exception is logged (see
+         * {@link LogCat#e(String, String, Throwable)}). The default value is {@code true}.
+         * */
+        public Builder setDumpOnError(boolean dump) {
+            mDumpOnError = dump;
+            return this;
+        }
+
+        /** Creates the new {@link FlightRecorder}. */
+        public FlightRecorder build() { return new FlightRecorder(this); }
+    }
+
+}
@@ -0,0 +1,144 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The fixed-bucket log-linear histogram of latencies, in nanoseconds (the same idea as
+ * HdrHistogram): each power of two range is split to {@link #SUB_COUNT} linear buckets, so the
+ * relative error of percentiles is less than 1/{@link #SUB_COUNT}. The buckets are striped:
+ * each thread updates its own stripe (selected by thread id), and the stripes are merged by
+ * {@link #snapshot()}. So the recording takes no locks and no allocations.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+final class LatencyHistogram {
+
+    /** The number of bits of linear buckets in each power of two range. */
+    private static final int SUB_BITS = 3;
+
+    /** The number of linear buckets in each power of two range. */
+    static final int SUB_COUNT = 1 << SUB_BITS;
+
+    /** The maximum power of two of values, the greater values are counted in the last bucket. */
+    private static final int MAX_EXP = 42;
+
+    /** The number of buckets. */
+    static final int BUCKET_COUNT = (MAX_EXP - SUB_BITS + 2) * SUB_COUNT;
+
+    /** The indexes of total count, sum and max in the snapshot and in the stripe. */
+    static final int COUNT = BUCKET_COUNT;
+    static final int SUM = BUCKET_COUNT + 1;
+    static final int MAX = BUCKET_COUNT + 2;
+
+    /** The size of stripe, it is padded to separate cache lines. */
+    private static final int STRIPE_SIZE = (BUCKET_COUNT + 3 + 7) & ~7;
+
+    /** The maximum number of stripes. */
+    private static final int MAX_STRIPES = 4;
+
+    /** The mask for selecting stripe by thread id. */
+    private final int mStripeMask;
+
+    /** The buckets, the count, the sum and the max of each stripe. */
+    private final AtomicLongArray mStripes;
+
+    /** Creates a new histogram. */
+    LatencyHistogram() {
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors());
+        stripes = Math.max(1, Math.min(MAX_STRIPES, stripes));
+        mStripeMask = stripes - 1;
+        mStripes = new AtomicLongArray(stripes * STRIPE_SIZE);
+    }
+
+    /**
+     * Records the value, in nanoseconds. The negative values are recorded as 0.
+     * */
+    void record(long value) {
+        if (value < 0) value = 0;
+        final int base = ((int) Thread.currentThread().getId() & mStripeMask) * STRIPE_SIZE;
+        mStripes.getAndIncrement(base + index(value));
+        mStripes.getAndIncrement(base + COUNT);
+        mStripes.getAndAdd(base + SUM, value);
+        long max;
+        while (value > (max = mStripes.get(base + MAX))) {
+            if (mStripes.compareAndSet(base + MAX, max, value)) break;
+        }
+    }
+
+    /** Clears all stripes. The values that are recorded concurrently could be lost. */
+    void reset() {
+        for (int i = 0; i < mStripes.length(); i++) mStripes.set(i, 0);
+    }
+
+    /**
+     * Returns the merged stripes: the buckets, then the count, the sum and the max (see
+     * {@link #COUNT}, {@link #SUM} and {@link #MAX}).
+     * */
+    long[] snapshot() {
+        final long[] result = new long[BUCKET_COUNT + 3];
+        for (int base = 0; base < mStripes.length(); base += STRIPE_SIZE) {
+            for (int i = 0; i < MAX; i++) result[i] += mStripes.get(base + i);
+            result[MAX] = Math.max(result[MAX], mStripes.get(base + MAX));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value at specified percentile of snapshot: the middle of bucket, but not
+     * greater than max.
+     * @param snapshot The snapshot, see {@link #snapshot()}.
+     * @param percentile The percentile, from 0 to 100.
+     * */
+    static long percentile(long[] snapshot, double percentile) {
+        final long count = snapshot[COUNT];
+        if (count == 0) return 0;
+        final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(snapshot[MAX], (lowest(i) + highest(i)) / 2);
+        }
+        return snapshot[MAX];
+    }
+
+    /** Returns the index of bucket for value. */
+    static int index(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        final int exp = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXP);
+        final int shift = exp - SUB_BITS;
+        final int sub = (int) Math.min(value >>> shift, 2 * SUB_COUNT - 1) - SUB_COUNT;
+        return (shift + 1) * SUB_COUNT + sub;
+    }
+
+    /** Returns the lowest value of bucket. */
+    static long lowest(int index) {
+        if (index < SUB_COUNT) return index;
+        final int shift = index / SUB_COUNT - 1;
+        return (long) (index % SUB_COUNT + SUB_COUNT) << shift;
+    }
+
+    /** Returns the highest value of bucket. */
+    static long highest(int index) {
+        if (index < SUB_COUNT) return index;
+        final int shift = index / SUB_COUNT - 1;
+        return ((long) (index % SUB_COUNT + SUB_COUNT + 1) << shift) - 1;
+    }
+
+}
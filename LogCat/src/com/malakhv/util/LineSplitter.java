@@ -0,0 +1,141 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+/**
+ * The splitter of oversized log messages. The system log accepts about 4 KB per message and
+ * silently truncates the tail, so {@link AndroidLogSink} splits such messages into numbered
+ * chunks:
+ * <br>&nbsp;<br>
+ * &#09;{@code "MyActivity: [1/3] ..."}
+ * <br>&nbsp;<br>
+ * The message is scanned once, it is split on line boundaries if possible. Each chunk is
+ * assembled directly from the source buffer into the reusable per-thread buffer, so there are
+ * no temporary strings except the chunks itself.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+final class LineSplitter {
+
+    /** The maximum size of one log message in UTF-8 bytes (with prefix). */
+    static final int MAX_LINE_BYTES = 4000;
+
+    /** The maximum length of message (in characters), that never needs to be split. */
+    static final int SAFE_LINE_LENGTH = MAX_LINE_BYTES / 3;
+
+    /** The reserved size of chunk number, like {@code "[999/999] "}. */
+    private static final int NUMBER_RESERVED_BYTES = 16;
+
+    /** The per-thread instances. */
+    private static final ThreadLocal<LineSplitter> sSplitter = new ThreadLocal<LineSplitter>() {
+        @Override
+        protected LineSplitter initialValue() { return new LineSplitter(); }
+    };
+
+    /** The end of each chunk (exclusive) in the source buffer. */
+    private int[] mEnds = new int[16];
+
+    /** The number of chunks. */
+    private int mCount = 0;
+
+    /** The buffer for assembling chunks. */
+    private final StringBuilder mChunk = new StringBuilder(MAX_LINE_BYTES);
+
+    /** Returns the per-thread instance. */
+    static LineSplitter obtain() { return sSplitter.get(); }
+
+    /**
+     * Splits the message into chunks.
+     * @param line The message, it consists of prefix (the component tag, for example) and body.
+     * @param bodyStart The start of body in message, the prefix will be added to each chunk.
+     * @return The number of chunks.
+     * */
+    int split(CharSequence line, int bodyStart) {
+        final int length = line.length();
+        int budget = MAX_LINE_BYTES - NUMBER_RESERVED_BYTES - utf8Length(line, 0, bodyStart);
+        if (budget < 1) budget = 1;
+        mCount = 0;
+        int start = bodyStart;
+        while (start < length) {
+            int bytes = 0, newLine = -1, i = start;
+            while (i < length) {
+                final char c = line.charAt(i);
+                final int size = utf8Length(c);
+                if (bytes + size > budget && i > start) break;
+                bytes += size;
+                if (c == '\n') newLine = i;
+                i++;
+            }
+            int end = i;
+            if (i < length) {
+                if (newLine > start) {
+                    end = newLine;
+                } else if (Character.isLowSurrogate(line.charAt(i))
+                        && Character.isHighSurrogate(line.charAt(i - 1)) && i - 1 > start) {
+                    // Don't split the surrogate pair
+                    end = i - 1;
+                }
+            }
+            add(end);
+            start = end;
+            // The line separator is not needed at the start of next chunk
+            if (start < length && line.charAt(start) == '\n') start++;
+        }
+        if (mCount == 0) add(length);
+        return mCount;
+    }
+
+    /**
+     * Returns the chunk with specified index, see {@link #split(CharSequence, int)}.
+     * */
+    String chunk(CharSequence line, int bodyStart, int index) {
+        int start = index == 0 ? bodyStart : mEnds[index - 1];
+        if (index > 0 && start < line.length() && line.charAt(start) == '\n') start++;
+        final StringBuilder chunk = mChunk;
+        chunk.setLength(0);
+        chunk.append(line, 0, bodyStart);
+        chunk.append('[').append(index + 1).append('/').append(mCount).append("] ");
+        chunk.append(line, start, mEnds[index]);
+        return chunk.toString();
+    }
+
+    /** Adds the end of new chunk. */
+    private void add(int end) {
+        if (mCount == mEnds.length) {
+            final int[] ends = new int[mCount * 2];
+            System.arraycopy(mEnds, 0, ends, 0, mCount);
+            mEnds = ends;
+        }
+        mEnds[mCount++] = end;
+    }
+
+    /** Returns the size of character in UTF-8 (a surrogate is a half of 4 bytes). */
+    private static int utf8Length(char c) {
+        if (c < 0x80) return 1;
+        if (c < 0x800 || Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) return 2;
+        return 3;
+    }
+
+    /** Returns the size of text in UTF-8. */
+    private static int utf8Length(CharSequence text, int start, int end) {
+        int bytes = 0;
+        for (int i = start; i < end; i++) bytes += utf8Length(text.charAt(i));
+        return bytes;
+    }
+
+}
@@ -0,0 +1,171 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+/**
+ * The reusable per-thread list of format arguments (see {@code LogCat.obtainArgs()}). It allows
+ * to pass primitive arguments to {@link LogFormatter} without boxing and without allocation of
+ * arguments array.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+final class LogArgs {
+
+    /** The maximum number of arguments. */
+    static final int MAX_COUNT = 4;
+
+    /** The type of argument: any object. */
+    static final byte OBJECT = 0;
+
+    /** The type of argument: long. */
+    static final byte LONG = 1;
+
+    /** The type of argument: double. */
+    static final byte DOUBLE = 2;
+
+    /** The type of argument: float, stored as double. */
+    static final byte FLOAT = 3;
+
+    /** The type of argument: char, stored as long. */
+    static final byte CHAR = 4;
+
+    /**
+     * The type of argument: int, stored as long. The width of integer arguments is kept, because
+     * the result of some conversions depends on it ({@code %x} of {@code -1}, for example).
+     * */
+    static final byte INT = 5;
+
+    /** The type of argument: short, stored as long. */
+    static final byte SHORT = 6;
+
+    /** The type of argument: byte, stored as long. */
+    static final byte BYTE = 7;
+
+    /** The number of arguments. */
+    int count = 0;
+
+    /** The types of arguments. */
+    final byte[] types = new byte[MAX_COUNT];
+
+    /** The values of integer and char arguments. */
+    final long[] longs = new long[MAX_COUNT];
+
+    /** The values of floating point arguments. */
+    final double[] doubles = new double[MAX_COUNT];
+
+    /** The values of object arguments. */
+    final Object[] objects = new Object[MAX_COUNT];
+
+    /** Adds long argument. */
+    LogArgs add(long value) {
+        longs[count] = value; types[count++] = LONG; return this;
+    }
+
+    /** Adds int argument. */
+    LogArgs add(int value) {
+        longs[count] = value; types[count++] = INT; return this;
+    }
+
+    /** Adds short argument. */
+    LogArgs add(short value) {
+        longs[count] = value; types[count++] = SHORT; return this;
+    }
+
+    /** Adds byte argument. */
+    LogArgs add(byte value) {
+        longs[count] = value; types[count++] = BYTE; return this;
+    }
+
+    /** Adds double argument. */
+    LogArgs add(double value) {
+        doubles[count] = value; types[count++] = DOUBLE; return this;
+    }
+
+    /** Adds float argument. */
+    LogArgs add(float value) {
+        doubles[count] = value; types[count++] = FLOAT; return this;
+    }
+
+    /** Adds char argument. */
+    LogArgs add(char value) {
+        longs[count] = value; types[count++] = CHAR; return this;
+    }
+
+    /** Adds object argument. */
+    LogArgs add(Object value) {
+        objects[count] = value; types[count++] = OBJECT; return this;
+    }
+
+    /**
+     * Returns the argument with specified index as object, primitive values will be boxed. It is
+     * used as a fallback for the complex format strings only.
+     * */
+    Object get(int index) {
+        return box(types[index], longs[index], doubles[index], objects[index]);
+    }
+
+    /**
+     * Returns the argument of specified type as object, primitive values will be boxed with
+     * their original width.
+     * */
+    static Object box(byte type, long value, double real, Object object) {
+        switch (type) {
+            case LONG: return value;
+            case INT: return (int) value;
+            case SHORT: return (short) value;
+            case BYTE: return (byte) value;
+            case DOUBLE: return real;
+            case FLOAT: return (float) real;
+            case CHAR: return (char) value;
+            default: return object;
+        }
+    }
+
+    /** Returns true, if the type is integer type: long, int, short or byte. */
+    static boolean isInteger(byte type) {
+        return type == LONG || type == INT || type == SHORT || type == BYTE;
+    }
+
+    /**
+     * Replaces all arguments by the copy of other arguments, without boxing. It is used to pass
+     * the arguments to the writer thread in asynchronous mode.
+     * */
+    void copyFrom(LogArgs other) {
+        clear();
+        final int size = other.count;
+        System.arraycopy(other.types, 0, types, 0, size);
+        System.arraycopy(other.longs, 0, longs, 0, size);
+        System.arraycopy(other.doubles, 0, doubles, 0, size);
+        System.arraycopy(other.objects, 0, objects, 0, size);
+        count = size;
+    }
+
+    /** Returns all arguments as array, primitive values will be boxed. */
+    Object[] toArray() {
+        final Object[] array = new Object[count];
+        for (int i = 0; i < count; i++) array[i] = get(i);
+        return array;
+    }
+
+    /** Removes all arguments and clears all references, to not keep it in memory. */
+    void clear() {
+        for (int i = 0; i < count; i++) objects[i] = null;
+        count = 0;
+    }
+
+}
@@ -16,8 +16,6 @@
 
 package com.malakhv.util;
 
-import android.text.TextUtils;
-
 /**
  * Class extends standard Android API for sending a log output.
  *
@@ -84,10 +82,15 @@ import android.text.TextUtils;
  * printed as usual app log, and you could specify tag and priority. For more details, please, see
  * {@link #printStackTrace(String, int, Thread)}</p>
  *
+ * <p><b>Log Sinks</b><br>By default, log messages are written to the system log. If you want
+ * to write them to a file, to memory or to several destinations, you could use {@link LogSink}
+ * interface. For more details, please see: {@link LogSink},
+ * {@link LogCat#init(String, boolean, boolean, int, LogSink...)}.</p>
+ *
  * <p><b>Log Obfuscation</b><br>If you want to obfuscate your log message, you could use
  * {@link LogObfuscator} interface for it. For more details, please see: {@link LogObfuscator},
  * {@link LogCat#setObfuscator(LogObfuscator)}, {@link LogCat#setObfuscateByDefault(boolean)},
- * {@link LogCat#SIMPLE_NUMBER_OBFUSCATOR}.</p>
+ * {@link LogCat#SIMPLE_NUMBER_OBFUSCATOR}, {@link LogObfuscatorEngine}.</p>
  *
  * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
  *
@@ -109,11 +112,47 @@ public final class LogCat {
     /*----------------------------------------------------------------------------------------*/
 
     /** String that will use as delimiter for tags in LogCat message. */
-    private static final String TAG_DELIMITER = ": ";
+    static final String TAG_DELIMITER = ": ";
 
     /** The maximum length of tag. */
     private static final int TAG_MAX_LENGTH = 23;
 
+    /**
+     * The default interval (in milliseconds) between two checks of the log level for
+     * {@code APP_TAG}. For more details, please see {@link #setLevelRefreshInterval(long)}.
+     * */
+    public static final long DEFAULT_LEVEL_REFRESH_INTERVAL = 1000;
+
+    /** The default capacity of the log buffer in asynchronous mode. */
+    public static final int DEFAULT_ASYNC_BUFFER_SIZE = 1024;
+
+    /** The default time (in milliseconds) to wait in {@link #flush()} and {@link #shutdown()}. */
+    private static final long DEFAULT_FLUSH_TIMEOUT = 5000;
+
+    /** The initial capacity of the per-thread buffer for log messages, in characters. */
+    private static final int BUFFER_CAPACITY = 256;
+
+    /**
+     * The maximum capacity of the per-thread buffer for log messages, in characters. If the
+     * buffer grows over this value (for a long stack trace, for example), it will be replaced.
+     * */
+    private static final int BUFFER_MAX_CAPACITY = 16 * 1024;
+
+    /**
+     * The length of one log message of thread dumps and stack traces, in characters. The dumps
+     * are written in chunks of about this length, so the whole dump is never kept in memory.
+     * */
+    private static final int DUMP_CHUNK_LENGTH = 1024;
+
+    /** The name of the writer thread in asynchronous mode. */
+    private static final String WRITER_THREAD_NAME = "LogCat-Writer";
+
+    /**
+     * True, if this code runs on Android. On a plain JVM (unit tests and benchmarks, for
+     * example) the Android API is not available, so {@link LogCat} doesn't use it.
+     * */
+    private static final boolean IS_ANDROID = "Dalvik".equals(System.getProperty("java.vm.name"));
+
     /*----------------------------------------------------------------------------------------*/
     /* Grabbing the native values from Android's native logging facilities,
     /* to make for easy migration, interaction and accessibility.
@@ -137,21 +176,38 @@ public final class LogCat {
     /** Priority constant for the println method. */
     public static final int ASSERT = android.util.Log.ASSERT;
 
+    /** The log level that turns off all logging, see {@link #setTagLevel(String, int)}. */
+    public static final int SUPPRESS = ASSERT + 1;
+
     /*----------------------------------------------------------------------------------------*/
     /* General static fields
     /*----------------------------------------------------------------------------------------*/
 
-    /** The main LogCat tag for app. */
-    private static String sAppTag = null;
+    /**
+     * The cached lowest log level that is loggable for the main app tag. It equals
+     * {@link #SUPPRESS} if all logging is turned off.
+     * */
+    private static volatile int sLevel = INFO;
+
+    /**
+     * The time (see {@link System#nanoTime()}) after which {@link #sLevel} should be checked. The
+     * thread that moves it forward by CAS checks the level, other threads use the cached one.
+     * */
+    private static final java.util.concurrent.atomic.AtomicLong sLevelExpireTime =
+            new java.util.concurrent.atomic.AtomicLong(0);
 
     /**
-     * The debug flag. If it equals {@code true}, all log levels will be enabled for
-     * {@link LogCat#sAppTag}. Use {@code true} for debug mode only.
+     * The interval (in nanoseconds) between two checks of the log level, or negative value if
+     * the level should be checked only via {@link #refreshLevel()}.
      * */
-    private static boolean sDebug = false;
+    private static volatile long sLevelRefreshInterval =
+            DEFAULT_LEVEL_REFRESH_INTERVAL * 1000000L;
 
-    /** State of initialisation {@link LogCat} in app. */
-    private static boolean sWasInit = false;
+    /** The log buffer in asynchronous mode, or {@code null} in synchronous mode. */
+    private static volatile LogRingBuffer<LogRingBuffer.Entry> sRingBuffer = null;
+
+    /** The dispatcher of log events to registered sinks. */
+    private static volatile SinkDispatcher sDispatcher = null;
 
     /*----------------------------------------------------------------------------------------*/
     /* Constructor and static initialization methods
@@ -180,37 +236,281 @@ public final class LogCat {
      *              {@code tag}. Use {@code true} for debug mode only.
      * @throws IllegalArgumentException If the appTag is null or empty, or the appTag.length() > 23.
      * */
-    public static void init(String tag, boolean debug) {
-        sAppTag = tag != null ? tag.trim() : null;
+    public static void init(String tag, boolean debug) { init(tag, debug, false); }
+
+    /**
+     * Before using this class for write logs, you should initialize it and specify the main log
+     * tag for your app. This tag will be used into all methods for print logs as unique log tag.
+     *
+     * @param tag The main app LogCat tag that will use into all methods for print logs.
+     * @param debug If it equals {@code true}, all log levels will be enabled for specified
+     *              {@code tag}. Use {@code true} for debug mode only.
+     * @param async If it equals {@code true}, log messages will be written in asynchronous mode
+     *              with buffer of {@link #DEFAULT_ASYNC_BUFFER_SIZE} messages. For more details,
+     *              please see {@link #init(String, boolean, boolean, int)}.
+     * @throws IllegalArgumentException If the appTag is null or empty, or the appTag.length() > 23.
+     * */
+    public static void init(String tag, boolean debug, boolean async) {
+        init(tag, debug, async, DEFAULT_ASYNC_BUFFER_SIZE);
+    }
+
+    /**
+     * Before using this class for write logs, you should initialize it and specify the main log
+     * tag for your app. This tag will be used into all methods for print logs as unique log tag.
+     *
+     * <p>In asynchronous mode the log methods only put the message into a bounded buffer, and
+     * the separate writer thread formats, obfuscates and writes it to the system log. The log
+     * methods never wait for the writer thread: if the buffer is full, the message is dropped
+     * and the method returns {@code -1}. The log methods return {@code 0} for each message that
+     * was put into the buffer. Please note, the format arguments are formatted on the writer
+     * thread (the primitive arguments are copied to the buffer without boxing), so the objects
+     * should not be changed after log call. You should call {@link #flush()} or
+     * {@link #shutdown()} before process exit (in crash handler, for example), to not lose
+     * pending messages.</p>
+     *
+     * @param tag The main app LogCat tag that will use into all methods for print logs.
+     * @param debug If it equals {@code true}, all log levels will be enabled for specified
+     *              {@code tag}. Use {@code true} for debug mode only.
+     * @param async If it equals {@code true}, log messages will be written in asynchronous mode.
+     * @param bufferSize The maximum number of pending messages in asynchronous mode.
+     * @throws IllegalArgumentException If the appTag is null or empty, or the appTag.length() > 23,
+     * or the bufferSize is not positive in asynchronous mode.
+     * */
+    public static void init(String tag, boolean debug, boolean async, int bufferSize) {
+        init(tag, debug, async, bufferSize, (LogSink[]) null);
+    }
+
+    /**
+     * Before using this class for write logs, you should initialize it and specify the main log
+     * tag for your app. This tag will be used into all methods for print logs as unique log tag.
+     *
+     * @param tag The main app LogCat tag that will use into all methods for print logs.
+     * @param debug If it equals {@code true}, all log levels will be enabled for specified
+     *              {@code tag}. Use {@code true} for debug mode only.
+     * @param sinks The destinations of log messages. If there are no sinks, the default sink is
+     *              used. For more details, please see
+     *              {@link #init(String, boolean, boolean, int, LogSink...)}.
+     * @throws IllegalArgumentException If the appTag is null or empty, or the appTag.length() > 23.
+     * */
+    public static void init(String tag, boolean debug, LogSink... sinks) {
+        init(tag, debug, false, DEFAULT_ASYNC_BUFFER_SIZE, sinks);
+    }
+
+    /**
+     * Before using this class for write logs, you should initialize it and specify the main log
+     * tag for your app. This tag will be used into all methods for print logs as unique log tag.
+     *
+     * <p>The log messages are written to specified sinks (see {@link LogSink}). If there are no
+     * sinks, the default sink is used: {@link AndroidLogSink} on Android, or
+     * {@link StreamLogSink} (it writes to {@link System#err}) on a plain JVM. The single sink
+     * is called directly. If there are several sinks, each sink has own queue of
+     * {@code bufferSize} messages and own thread, so log calls never wait for the slowest sink.
+     * The sinks of previous initialization, that are not used anymore, are closed.</p>
+     *
+     * @param tag The main app LogCat tag that will use into all methods for print logs.
+     * @param debug If it equals {@code true}, all log levels will be enabled for specified
+     *              {@code tag}. Use {@code true} for debug mode only.
+     * @param async If it equals {@code true}, log messages will be written in asynchronous mode,
+     *              see {@link #init(String, boolean, boolean, int)}.
+     * @param bufferSize The maximum number of pending messages in asynchronous mode, and in the
+     *                   queue of each sink if there are several sinks.
+     * @param sinks The destinations of log messages, maybe empty.
+     * @throws IllegalArgumentException If the appTag is null or empty, or the appTag.length() > 23,
+     * or the bufferSize is not positive in asynchronous mode or for several sinks.
+     * */
+    public static void init(String tag, boolean debug, boolean async, int bufferSize,
+            LogSink... sinks) {
+        if (sinks == null || sinks.length == 0) {
+            sinks = new LogSink[] { IS_ANDROID ? AndroidLogSink.INSTANCE : new StreamLogSink() };
+        }
+        if ((async || sinks.length > 1) && bufferSize <= 0) {
+            throw new IllegalArgumentException(LOG_TAG + TAG_DELIMITER +
+                    "The buffer size should be positive");
+        }
+        final String appTag = tag != null ? tag.trim() : null;
         // Check initial tag is null or empty
-        if (TextUtils.isEmpty(sAppTag)) {
+        if (isEmpty(appTag)) {
             throw new IllegalArgumentException(LOG_TAG + TAG_DELIMITER +
                     "The tag is null or empty");
         }
         // Check initial tag is not very long
-        if (sAppTag.length() > TAG_MAX_LENGTH) {
+        if (appTag.length() > TAG_MAX_LENGTH) {
             throw new IllegalArgumentException(LOG_TAG + TAG_DELIMITER + "The tag is too long");
         }
-        sDebug = debug;
-        sWasInit = true;
-        LogCat.d(LOG_TAG, "Init with app tag - " + sAppTag);
+        synchronized (sConfigLock) {
+            sConfig = sConfig.withAppTag(appTag, debug);
+        }
+        shutdown();
+        final SinkDispatcher dispatcher = new SinkDispatcher(sinks, bufferSize);
+        final SinkDispatcher old = sDispatcher;
+        sDispatcher = dispatcher;
+        if (old != null) old.close(DEFAULT_FLUSH_TIMEOUT, dispatcher);
+        if (async) {
+            sRingBuffer = new LogRingBuffer<LogRingBuffer.Entry>(bufferSize, ASYNC_HANDLER,
+                    WRITER_THREAD_NAME);
+        }
+        refreshLevel();
+        LogCat.d(LOG_TAG, "Init with app tag - " + appTag);
     }
 
+    /**
+     * @return The main app tag, or {@code null} if this class was not been initialized.
+     * */
+    public static String getAppTag() { return sConfig.getAppTag(); }
+
+    /**
+     * Returns {@code true} if the string is null or 0-length (the same as
+     * {@code TextUtils.isEmpty}, that is not available on a plain JVM).
+     * */
+    private static boolean isEmpty(CharSequence str) { return str == null || str.length() == 0; }
+
     /**
      * Returns {@code true} if the tag is null or empty.
      * @param tag The tag to be examined.
      * */
     private static boolean isTagEmpty(String tag) {
-        return TextUtils.isEmpty(tag) || TextUtils.isEmpty(tag.trim());
+        if (isEmpty(tag)) return true;
+        // The same as tag.trim().isEmpty(), but without allocations
+        for (int i = 0, len = tag.length(); i < len; i++) {
+            if (tag.charAt(i) > ' ') return false;
+        }
+        return true;
+    }
+
+    /**
+     * The per-thread state of log calls: the reusable buffers, arguments and event, and the depth
+     * of nested log calls. A log call is nested, if it is made by {@code toString()} of argument
+     * (or by message supplier, obfuscator and so on) of other log call, that still uses the
+     * reusable objects. So only the outer log call uses them, the nested calls get new ones.
+     * */
+    private static final class CallState {
+
+        /** The buffer for assembling log messages. */
+        StringBuilder buffer = new StringBuilder(BUFFER_CAPACITY);
+
+        /**
+         * The buffer for formatting log events in sinks. It is separate from the message
+         * buffer, because the message could be still in the message buffer while sinks write it.
+         * */
+        StringBuilder sinkBuffer = new StringBuilder(BUFFER_CAPACITY);
+
+        /** The list of format arguments. */
+        final LogArgs args = new LogArgs();
+
+        /** The log event, that is passed to sinks. */
+        final LogEvent event = new LogEvent();
+
+        /** The number of log calls in progress. */
+        int depth = 0;
+
+        /** The place of the next log call, see {@link #callSite(CallSite)}. */
+        CallSite site;
+    }
+
+    /** The state of log calls of each thread. */
+    private static final ThreadLocal<CallState> sCallState = new ThreadLocal<CallState>() {
+        @Override
+        protected CallState initialValue() { return new CallState(); }
+    };
+
+    /**
+     * Marks the start of log call on current thread, it should be finished by
+     * {@link #exit(CallState)} in {@code finally} block.
+     * */
+    private static CallState enter() {
+        final CallState state = sCallState.get();
+        state.depth++;
+        return state;
+    }
+
+    /**
+     * Marks the end of log call on current thread. The call site (see
+     * {@link #callSite(CallSite)}) is cleared after the outer log call, also if it throws, so
+     * it is never left for the next calls.
+     * */
+    private static void exit(CallState state) {
+        if (--state.depth == 0) state.site = null;
+    }
+
+    /**
+     * @return True, if current thread is in the nested log call, see {@link CallState}.
+     * */
+    static boolean isNestedCall() { return sCallState.get().depth > 1; }
+
+    /**
+     * Returns the empty per-thread buffer for assembling log messages, or a new buffer in the
+     * nested log call.
+     * */
+    static StringBuilder obtainBuffer() {
+        final CallState state = sCallState.get();
+        if (state.depth > 1) return new StringBuilder(BUFFER_CAPACITY);
+        StringBuilder buffer = state.buffer;
+        if (buffer.capacity() > BUFFER_MAX_CAPACITY) {
+            buffer = new StringBuilder(BUFFER_CAPACITY);
+            state.buffer = buffer;
+        } else {
+            buffer.setLength(0);
+        }
+        return buffer;
     }
 
+    /**
+     * Returns the empty per-thread buffer for formatting log events in sinks, or a new buffer in
+     * the nested log call. Unlike {@link #obtainBuffer()}, it never holds the message that is
+     * written, so the sink could use it while the message is still in the message buffer.
+     * */
+    static StringBuilder obtainSinkBuffer() {
+        final CallState state = sCallState.get();
+        if (state.depth > 1) return new StringBuilder(BUFFER_CAPACITY);
+        StringBuilder buffer = state.sinkBuffer;
+        if (buffer.capacity() > BUFFER_MAX_CAPACITY) {
+            buffer = new StringBuilder(BUFFER_CAPACITY);
+            state.sinkBuffer = buffer;
+        } else {
+            buffer.setLength(0);
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the empty per-thread list of format arguments, or a new list if the log call is
+     * made inside other log call. It is called before the start of log call, and it should be
+     * cleared (see {@link LogArgs#clear()}) after use.
+     * */
+    private static LogArgs obtainArgs() {
+        final CallState state = sCallState.get();
+        if (state.depth > 0) return new LogArgs();
+        state.args.clear();
+        return state.args;
+    }
+
+    /**
+     * Returns the per-thread log event, or a new event in the nested log call.
+     * */
+    private static LogEvent obtainEvent() {
+        final CallState state = sCallState.get();
+        return state.depth > 1 ? new LogEvent() : state.event;
+    }
+
+    /**
+     * Checks that this class was been initialized or not.
+     * @throws IllegalStateException if this class was not been initialized.
+     * */
+    private static void checkInit() { checkInit(sConfig); }
+
     /**
      * Checks that this class was been initialized or not.
+     * @param config The current settings, see {@link #getConfig()}.
+     * @return The same settings.
      * @throws IllegalStateException if this class was not been initialized.
      * */
-    private static void checkInit() {
-        if (!sWasInit) throw new IllegalStateException(LOG_TAG + TAG_DELIMITER +
-                "You should init LogCat before use it.");
+    private static LogConfig checkInit(LogConfig config) {
+        if (!config.isInit()) {
+            clearCallSite();
+            throw new IllegalStateException(LOG_TAG + TAG_DELIMITER +
+                    "You should init LogCat before use it.");
+        }
+        return config;
     }
 
     /*----------------------------------------------------------------------------------------*/
@@ -224,9 +524,290 @@ public final class LogCat {
      * @return Whether or not that this is allowed to be logged.
      * @throws IllegalArgumentException is thrown if the tag.length() > 23.
      * */
-    public static boolean isLoggable(int level) {
-        checkInit();
-        return sDebug || android.util.Log.isLoggable(sAppTag, level);
+    public static boolean isLoggable(int level) { return isLoggable(null, level); }
+
+    /**
+     * Checks to see whether or not a log for the specified component tag is loggable at the
+     * specified level. If the level for this tag was not specified (see
+     * {@link #setTagLevel(String, int)} and {@link #loadTagLevels(String...)}), the level for
+     * {@code APP_TAG} is used.
+     *
+     * @param tag The component tag, maybe {@code null}.
+     * @param level The level to check.
+     * @return Whether or not that this is allowed to be logged.
+     * */
+    public static boolean isLoggable(String tag, int level) {
+        return isLoggable(sConfig, tag, level);
+    }
+
+    /**
+     * Checks to see whether or not a log for the specified component tag is loggable at the
+     * specified level, with specified settings.
+     * @see #isLoggable(String, int)
+     * */
+    private static boolean isLoggable(LogConfig config, String tag, int level) {
+        checkInit(config);
+        if (config.isDebug()) return true;
+        final long interval = sLevelRefreshInterval;
+        if (interval >= 0) {
+            final long expire = sLevelExpireTime.get();
+            final long now = System.nanoTime();
+            if (now - expire >= 0 && sLevelExpireTime.compareAndSet(expire, now + interval)) {
+                reloadLevel(config.getAppTag());
+            }
+        }
+        final int tagLevel = sTagLevels.get(tag);
+        return level >= (tagLevel != TagLevels.NOT_SET ? tagLevel : sLevel);
+    }
+
+    /**
+     * Reads the current log level for {@code APP_TAG} from the system (see
+     * {@link android.util.Log#isLoggable(String, int)}) and caches it. You could call this method
+     * if you want to apply changes made via {@code setprop log.tag.[APP_TAG]} immediately. On a
+     * plain JVM, the level is read from the system property {@code log.tag.[APP_TAG]}, for
+     * example {@code -Dlog.tag.MyApp=DEBUG}.
+     * @throws IllegalStateException if this class was not been initialized.
+     * */
+    public static void refreshLevel() {
+        final String appTag = checkInit(sConfig).getAppTag();
+        final long interval = sLevelRefreshInterval;
+        if (interval >= 0) sLevelExpireTime.set(System.nanoTime() + interval);
+        reloadLevel(appTag);
+    }
+
+    /**
+     * Reads the current log levels for {@code APP_TAG} and component tags, see
+     * {@link #refreshLevel()}.
+     * */
+    private static void reloadLevel(String appTag) {
+        int level = VERBOSE;
+        if (IS_ANDROID) {
+            while (level <= ASSERT && !android.util.Log.isLoggable(appTag, level)) level++;
+        } else {
+            level = parseLevel(System.getProperty(LEVEL_PROPERTY_PREFIX + appTag));
+            if (level == TagLevels.NOT_SET) level = INFO;
+        }
+        sLevel = level;
+        reloadTagLevels();
+    }
+
+    /**
+     * Set the interval between two checks of the log level for {@code APP_TAG}. Between checks
+     * the cached level is used, so changes made via {@code setprop log.tag.[APP_TAG]} take
+     * effect within this interval. The default value is
+     * {@link #DEFAULT_LEVEL_REFRESH_INTERVAL}.
+     * @param millis The interval in milliseconds. Use {@code 0} to check the level on each log
+     *               call, or negative value to check it only via {@link #refreshLevel()}.
+     * */
+    public static void setLevelRefreshInterval(long millis) {
+        sLevelRefreshInterval = millis >= 0 ? millis * 1000000L : -1;
+        sLevelExpireTime.set(System.nanoTime());
+    }
+
+    /**
+     * @return The interval (in milliseconds) between two checks of the log level for
+     * {@code APP_TAG}, or {@code -1} if the level is checked only via {@link #refreshLevel()}.
+     * */
+    public static long getLevelRefreshInterval() {
+        final long interval = sLevelRefreshInterval;
+        return interval >= 0 ? interval / 1000000L : -1;
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Log levels for component tags
+    /*----------------------------------------------------------------------------------------*/
+
+    /** The prefix of system property with log level. */
+    private static final String LEVEL_PROPERTY_PREFIX = "log.tag.";
+
+    /** The lock for changing log levels for component tags. */
+    private static final Object sTagLevelsLock = new Object();
+
+    /** The log levels for component tags, that were set from code. */
+    private static TagLevels sCodeTagLevels = TagLevels.EMPTY;
+
+    /** The component tags, which log levels should be loaded from system properties. */
+    private static volatile String[] sPropertyTags = new String[0];
+
+    /** The log levels for component tags, that were loaded from system properties. */
+    private static TagLevels sPropertyTagLevels = TagLevels.EMPTY;
+
+    /** The log levels for component tags (from code and system properties). */
+    private static volatile TagLevels sTagLevels = TagLevels.EMPTY;
+
+    /**
+     * Set the log level for the component tag. This level will be used instead of the level of
+     * {@code APP_TAG} for all log messages with this tag. For example, you could turn on
+     * {@link #DEBUG} logs for one subsystem only:
+     * <br>&nbsp;<br>
+     * &#09;{@code LogCat.setTagLevel("net.*", LogCat.DEBUG);}
+     * <br>&nbsp;<br>
+     * The tag could be the exact tag ({@code "MyActivity"}) or hierarchical prefix
+     * ({@code "net.*"}), which matches {@code "net"} and any tag that starts with
+     * {@code "net."}. The exact tag has priority over prefixes, the longest prefix has priority
+     * over shorter ones. The levels from system properties (see
+     * {@link #loadTagLevels(String...)}) have priority over levels from code.
+     *
+     * @param tag The component tag or hierarchical prefix.
+     * @param level The level, from {@link #VERBOSE} to {@link #SUPPRESS}.
+     * @throws IllegalArgumentException If the tag is null or empty, or the level is invalid.
+     * */
+    public static void setTagLevel(String tag, int level) {
+        if (isTagEmpty(tag)) {
+            throw new IllegalArgumentException(LOG_TAG + TAG_DELIMITER +
+                    "The tag is null or empty");
+        }
+        if (level < VERBOSE || level > SUPPRESS) {
+            throw new IllegalArgumentException(LOG_TAG + TAG_DELIMITER + "Invalid level " + level);
+        }
+        synchronized (sTagLevelsLock) {
+            sCodeTagLevels = sCodeTagLevels.with(tag, level);
+            publishTagLevels();
+        }
+    }
+
+    /**
+     * Removes the log level for the component tag, that was set via
+     * {@link #setTagLevel(String, int)}.
+     * @param tag The component tag or hierarchical prefix.
+     * */
+    public static void clearTagLevel(String tag) {
+        if (tag == null) return;
+        synchronized (sTagLevelsLock) {
+            sCodeTagLevels = sCodeTagLevels.with(tag, TagLevels.NOT_SET);
+            publishTagLevels();
+        }
+    }
+
+    /**
+     * Returns the log level for the component tag, or the level for {@code APP_TAG} if the
+     * level for this tag was not specified.
+     * @param tag The component tag, maybe {@code null}.
+     * */
+    public static int getTagLevel(String tag) {
+        final int level = sTagLevels.get(tag);
+        return level != TagLevels.NOT_SET ? level : sLevel;
+    }
+
+    /**
+     * Loads log levels for specified component tags from system properties. You can change the
+     * level of component tag by setting a system property:
+     * <br>&nbsp;<br>
+     * &#09;{@code adb shell setprop log.tag.[APP_TAG].[TAG] [LEVEL]}
+     * <br>&nbsp;<br>
+     * For hierarchical prefix (like {@code "net.*"}) the property name should not contain
+     * {@code ".*"}: {@code log.tag.[APP_TAG].net}. The properties are checked again together
+     * with the level of {@code APP_TAG} (see {@link #setLevelRefreshInterval(long)}).
+     *
+     * <p>Please note, before Android 8.0 the name of system property is limited by 31
+     * characters.</p>
+     *
+     * @param tags The component tags or hierarchical prefixes.
+     * */
+    public static void loadTagLevels(String... tags) {
+        if (tags == null) return;
+        synchronized (sTagLevelsLock) {
+            final java.util.LinkedHashSet<String> all = new java.util.LinkedHashSet<String>(
+                    java.util.Arrays.asList(sPropertyTags));
+            for (String tag : tags) if (!isTagEmpty(tag)) all.add(tag);
+            sPropertyTags = all.toArray(new String[all.size()]);
+            sPropertyTagLevels = loadPropertyTagLevels(sPropertyTags);
+            publishTagLevels();
+        }
+    }
+
+    /**
+     * Reads again the log levels for component tags from system properties. The properties are
+     * read without the lock, the lock is used only to publish the result.
+     * */
+    private static void reloadTagLevels() {
+        final String[] tags = sPropertyTags;
+        if (tags.length == 0) return;
+        final TagLevels levels = loadPropertyTagLevels(tags);
+        synchronized (sTagLevelsLock) {
+            // The tags could be changed concurrently, then the levels are already loaded again
+            if (sPropertyTags != tags) return;
+            sPropertyTagLevels = levels;
+            publishTagLevels();
+        }
+    }
+
+    /**
+     * Merges the levels from code and system properties, and publishes the result.
+     * */
+    private static void publishTagLevels() {
+        sTagLevels = sCodeTagLevels.merge(sPropertyTagLevels);
+    }
+
+    /**
+     * Reads the log levels for specified component tags from system properties.
+     * */
+    private static TagLevels loadPropertyTagLevels(String[] tags) {
+        TagLevels levels = TagLevels.EMPTY;
+        final String appTag = sConfig.getAppTag();
+        if (appTag == null) return levels;
+        for (String tag : tags) {
+            final String name = TagLevels.isPrefix(tag)
+                    ? tag.substring(0, tag.length() - TagLevels.PREFIX_SUFFIX.length()) : tag;
+            final int level = parseLevel(getSystemProperty(LEVEL_PROPERTY_PREFIX + appTag + "."
+                    + name));
+            if (level != TagLevels.NOT_SET) levels = levels.with(tag, level);
+        }
+        return levels;
+    }
+
+    /**
+     * Returns the log level by its name (only first character is used, the same as Android
+     * does), or {@link TagLevels#NOT_SET}.
+     * */
+    private static int parseLevel(String value) {
+        if (isEmpty(value)) return TagLevels.NOT_SET;
+        switch (Character.toUpperCase(value.charAt(0))) {
+            case 'V': return VERBOSE;
+            case 'D': return DEBUG;
+            case 'I': return INFO;
+            case 'W': return WARN;
+            case 'E': return ERROR;
+            case 'A': return ASSERT;
+            case 'S': return SUPPRESS;
+            default: return TagLevels.NOT_SET;
+        }
+    }
+
+    /**
+     * Returns the value of system property, or {@code null} if it is not available.
+     * */
+    private static String getSystemProperty(String name) {
+        if (!IS_ANDROID) return System.getProperty(name);
+        final java.lang.reflect.Method get = SystemProperties.GET;
+        if (get == null) return null;
+        try {
+            return (String) get.invoke(null, name);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * The lazy holder of {@code android.os.SystemProperties.get(String)}, it is resolved once,
+     * on the first use. There is no public API that tells whether the property is set at all
+     * ({@link android.util.Log#isLoggable(String, int)} returns {@code true} for {@link #INFO} by
+     * default), so the hidden API is used; if it is not accessible, the levels for component tags
+     * are not loaded from system properties.
+     * */
+    private static final class SystemProperties {
+
+        /** The method, or {@code null} if it is not accessible. */
+        static final java.lang.reflect.Method GET = resolve();
+
+        private static java.lang.reflect.Method resolve() {
+            try {
+                return Class.forName("android.os.SystemProperties").getMethod("get",
+                        String.class);
+            } catch (Exception e) {
+                return null;
+            }
+        }
     }
 
     /**
@@ -258,7 +839,7 @@ public final class LogCat {
      *            activity where the log call occurs. Maybe {@code null}.
      * @param msg The message you would like logged.
      * */
-    public static int v(String tag, String msg) { return LogCat.v(tag, msg, sObfuscateByDefault); }
+    public static int v(String tag, String msg) { return LogCat.println(VERBOSE, tag, msg); }
 
     /**
      * Send a {@link #VERBOSE} log message.
@@ -269,7 +850,7 @@ public final class LogCat {
      * @param obfuscate True, if you want to obfuscate log message.
      * */
     public static int v(String tag, String msg, boolean obfuscate) {
-        return LogCat.println(VERBOSE, tag, msg, obfuscate);
+        return LogCat.println(sConfig, VERBOSE, tag, msg, obfuscate);
     }
 
     /**
@@ -277,7 +858,7 @@ public final class LogCat {
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param format The format string (see {@link java.util.Formatter#format}).
+     * @param format The format string (see {@link LogFormatter}).
      * @param args The list of arguments passed to the formatter. If there are more arguments than
      *             required by {@code format}, additional arguments are ignored.
      *
@@ -289,482 +870,2471 @@ public final class LogCat {
     }
 
     /**
-     * Send a {@link #VERBOSE} log message and log the exception.
+     * Send a {@link #VERBOSE} log message. The same as {@link #v(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
      *
-     * @param msg The message you would like logged.
-     * @param tr  An exception to log.
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The argument referenced by the format specifier.
      * */
-    public static int v(String msg, Throwable tr) { return LogCat.v(null, msg, tr); }
+    public static int v(String tag, String format, Object arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, VERBOSE) ? LogCat.printf(config, VERBOSE, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
 
     /**
-     * Send a {@link #VERBOSE} log message and log the exception.
+     * Send a {@link #VERBOSE} log message. The same as {@link #v(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param msg The message you would like logged.
-     * @param tr  An exception to log.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The long integer argument referenced by the format specifier.
      * */
-    public static int v(String tag, String msg, Throwable tr) {
-        return LogCat.println(VERBOSE, tag, msg, tr);
+    public static int v(String tag, String format, long arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, VERBOSE) ? LogCat.printf(config, VERBOSE, tag,
+                format, obtainArgs().add(arg)) : -1;
     }
 
-    /*----------------------------------------------------------------------------------------*/
-    /* Log level - DEBUG
-    /*----------------------------------------------------------------------------------------*/
-
-    /**
-     * Send a {@link #DEBUG} log message.
-     * @param msg The message you would like logged.
-     * */
-    public static int d(String msg) { return LogCat.d(null, msg); }
-
     /**
-     * Send a {@link #DEBUG} log message.
+     * Send a {@link #VERBOSE} log message. The same as {@link #v(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param msg The message you would like logged.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The integer argument referenced by the format specifier.
      * */
-    public static int d(String tag, String msg) { return LogCat.d(tag, msg, sObfuscateByDefault); }
+    public static int v(String tag, String format, int arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, VERBOSE) ? LogCat.printf(config, VERBOSE, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
 
     /**
-     * Send a {@link #DEBUG} log message.
+     * Send a {@link #VERBOSE} log message. The same as {@link #v(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param msg The message you would like logged.
-     * @param obfuscate True, if you want to obfuscate log message.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The short integer argument referenced by the format specifier.
      * */
-    public static int d(String tag, String msg, boolean obfuscate) {
-        return LogCat.println(DEBUG, tag, msg, obfuscate);
+    public static int v(String tag, String format, short arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, VERBOSE) ? LogCat.printf(config, VERBOSE, tag,
+                format, obtainArgs().add(arg)) : -1;
     }
 
     /**
-     * Send a {@link #DEBUG} log message.
+     * Send a {@link #VERBOSE} log message. The same as {@link #v(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param format The format string (see {@link java.util.Formatter#format}).
-     * @param args The list of arguments passed to the formatter. If there are more arguments than
-     *             required by {@code format}, additional arguments are ignored.
-     *
-     * @throws NullPointerException if {@code format == null}.
-     * @throws java.util.IllegalFormatException if the format is invalid.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The byte argument referenced by the format specifier.
      * */
-    public static int d(String tag, String format, Object... args) {
-        return LogCat.println(DEBUG, tag, format, args);
+    public static int v(String tag, String format, byte arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, VERBOSE) ? LogCat.printf(config, VERBOSE, tag,
+                format, obtainArgs().add(arg)) : -1;
     }
 
     /**
-     * Send a {@link #DEBUG} log message and log the exception.
+     * Send a {@link #VERBOSE} log message. The same as {@link #v(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
      *
-     * @param msg The message you would like logged.
-     * @param tr  An exception to log.
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The floating point argument referenced by the format specifier.
      * */
-    public static int d(String msg, Throwable tr) { return LogCat.d(null, msg, tr); }
+    public static int v(String tag, String format, double arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, VERBOSE) ? LogCat.printf(config, VERBOSE, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
 
     /**
-     * Send a {@link #DEBUG} log message and log the exception.
+     * Send a {@link #VERBOSE} log message. The same as {@link #v(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param msg The message you would like logged.
-     * @param tr  An exception to log.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The floating point argument referenced by the format specifier.
      * */
-    public static int d(String tag, String msg, Throwable tr) {
-        return LogCat.println(DEBUG, tag, msg, tr);
+    public static int v(String tag, String format, float arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, VERBOSE) ? LogCat.printf(config, VERBOSE, tag,
+                format, obtainArgs().add(arg)) : -1;
     }
 
-    /*----------------------------------------------------------------------------------------*/
-    /* Log level - INFO
-    /*----------------------------------------------------------------------------------------*/
-
     /**
-     * Send a {@link #INFO} log message.
+     * Send a {@link #VERBOSE} log message. The same as {@link #v(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
      *
-     * @param msg The message you would like logged.
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The character argument referenced by the format specifier.
      * */
-    public static int i(String msg) { return LogCat.i(null, msg); }
+    public static int v(String tag, String format, char arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, VERBOSE) ? LogCat.printf(config, VERBOSE, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
 
     /**
-     * Send a {@link #INFO} log message.
+     * Send a {@link #VERBOSE} log message. The same as {@link #v(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param msg The message you would like logged.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
      * */
-    public static int i(String tag, String msg) { return LogCat.i(tag, msg, sObfuscateByDefault); }
+    public static int v(String tag, String format, Object arg1, Object arg2) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, VERBOSE) ? LogCat.printf(config, VERBOSE, tag,
+                format, obtainArgs().add(arg1).add(arg2)) : -1;
+    }
 
     /**
-     * Send a {@link #INFO} log message.
+     * Send a {@link #VERBOSE} log message. The same as {@link #v(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param msg The message you would like logged.
-     * @param obfuscate True, if you want to obfuscate log message.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     * @param arg3 The third argument.
      * */
-    public static int i(String tag, String msg, boolean obfuscate) {
-        return LogCat.println(INFO, tag, msg, obfuscate);
+    public static int v(String tag, String format, Object arg1, Object arg2,
+            Object arg3) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, VERBOSE) ? LogCat.printf(config, VERBOSE, tag,
+                format, obtainArgs().add(arg1).add(arg2).add(arg3)) : -1;
     }
 
     /**
-     * Send a {@link #INFO} log message.
+     * Send a {@link #VERBOSE} log message. The same as {@link #v(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param format The format string (see {@link java.util.Formatter#format}).
-     * @param args The list of arguments passed to the formatter. If there are more arguments than
-     *             required by {@code format}, additional arguments are ignored.
-     *
-     * @throws NullPointerException if {@code format == null}.
-     * @throws java.util.IllegalFormatException if the format is invalid.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     * @param arg3 The third argument.
+     * @param arg4 The fourth argument.
      * */
-    public static int i(String tag, String format, Object... args) {
-        return LogCat.println(INFO, tag, format, args);
+    public static int v(String tag, String format, Object arg1, Object arg2,
+            Object arg3, Object arg4) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, VERBOSE) ? LogCat.printf(config, VERBOSE, tag,
+                format, obtainArgs().add(arg1).add(arg2).add(arg3).add(arg4)) : -1;
     }
 
     /**
-     * Send a {@link #INFO} log message and log the exception.
+     * Send a {@link #VERBOSE} log message and log the exception.
      *
      * @param msg The message you would like logged.
      * @param tr  An exception to log.
      * */
-    public static int i(String msg, Throwable tr) { return LogCat.i(null, msg, tr); }
+    public static int v(String msg, Throwable tr) { return LogCat.v(null, msg, tr); }
 
     /**
-     * Send a {@link #INFO} log message and log the exception.
+     * Send a {@link #VERBOSE} log message and log the exception.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
      * @param msg The message you would like logged.
      * @param tr  An exception to log.
      * */
-    public static int i(String tag, String msg, Throwable tr) {
-        return LogCat.println(INFO, tag, msg, tr);
+    public static int v(String tag, String msg, Throwable tr) {
+        return LogCat.println(VERBOSE, tag, msg, tr);
     }
 
-    /*----------------------------------------------------------------------------------------*/
-    /* Log level - WARN
-    /*----------------------------------------------------------------------------------------*/
-
-    /**
-     * Send a {@link #WARN} log message.
-     * @param msg The message you would like logged.
-     * */
-    public static int w(String msg) { return LogCat.w(null, msg); }
-
-    /**
-     * Send a {@link #WARN} log message.
-     *
-     * @param tag Used to identify the source of a log message. It usually identifies the class or
-     *            activity where the log call occurs. Maybe {@code null}.
-     * @param msg The message you would like logged.
-     * */
-    public static int w(String tag, String msg) { return LogCat.w(tag, msg, sObfuscateByDefault); }
-
     /**
-     * Send a {@link #WARN} log message.
+     * Send a {@link #VERBOSE} log message. The message will be built only if the {@link #VERBOSE}
+     * level is enabled.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param msg The message you would like logged.
-     * @param obfuscate True, if you want to obfuscate log message.
+     * @param msg The supplier of the message you would like logged.
      * */
-    public static int w(String tag, String msg, boolean obfuscate) {
-        return LogCat.println(WARN, tag, msg, obfuscate);
+    public static int v(String tag, MessageSupplier msg) {
+        return LogCat.println(VERBOSE, tag, msg, null);
     }
 
     /**
-     * Send a {@link #WARN} log message.
+     * Send a {@link #VERBOSE} log message. The message will be built only if the {@link #VERBOSE}
+     * level is enabled.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param format The format string (see {@link java.util.Formatter#format}).
-     * @param args The list of arguments passed to the formatter. If there are more arguments than
-     *             required by {@code format}, additional arguments are ignored.
-     *
-     * @throws NullPointerException if {@code format == null}.
-     * @throws java.util.IllegalFormatException if the format is invalid.
+     * @param msg The supplier of the message you would like logged.
+     * @param obfuscate True, if you want to obfuscate log message.
      * */
-    public static int w(String tag, String format, Object... args) {
-        return LogCat.println(WARN, tag, format, args);
+    public static int v(String tag, MessageSupplier msg, boolean obfuscate) {
+        return LogCat.println(sConfig, VERBOSE, tag, msg, null, obfuscate);
     }
 
     /**
-     * Send a {@link #WARN} log message and log the exception.
+     * Send a {@link #VERBOSE} log message and log the exception. The message will be built only if
+     * the {@link #VERBOSE} level is enabled.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param msg The message you would like logged.
+     * @param msg The supplier of the message you would like logged.
      * @param tr  An exception to log.
      * */
-    public static int w(String tag, String msg, Throwable tr) {
-        return LogCat.println(WARN, tag, msg, tr);
+    public static int v(String tag, MessageSupplier msg, Throwable tr) {
+        return LogCat.println(VERBOSE, tag, msg, tr);
     }
 
     /**
-     * Send a {@link #WARN} log message and log the exception.
-     * @param tr An exception to log.
-     * */
-    public static int w(Throwable tr) { return LogCat.w(null, tr); }
-
-    /**
-     * Send a {@link #WARN} log message and log the exception.
+     * Send a {@link #VERBOSE} structured log message: the message and the fields are written as one
+     * line (see {@link LogFields}). The fields are encoded only if the {@link #VERBOSE} level is
+     * enabled, and they are cleared in any case.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param tr  An exception to log.
+     * @param msg The message you would like logged, or {@code null}.
+     * @param fields The fields of log message, see {@link LogFields#of(String, Object)}. Maybe
+     *               {@code null}, then the message is written without fields.
      * */
-    public static int w(String tag, Throwable tr) {
-        return LogCat.println(WARN, tag, android.util.Log.getStackTraceString(tr));
+    public static int v(String tag, String msg, LogFields fields) {
+        return LogCat.println(VERBOSE, tag, msg, fields);
     }
 
     /*----------------------------------------------------------------------------------------*/
-    /* Log level - ERROR
+    /* Log level - DEBUG
     /*----------------------------------------------------------------------------------------*/
 
     /**
-     * Send a {@link #ERROR} log message.
+     * Send a {@link #DEBUG} log message.
      * @param msg The message you would like logged.
      * */
-    public static int e(String msg) { return LogCat.e(null, msg); }
+    public static int d(String msg) { return LogCat.d(null, msg); }
 
     /**
-     * Send a {@link #ERROR} log message.
+     * Send a {@link #DEBUG} log message.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
      * @param msg The message you would like logged.
      * */
-    public static int e(String tag, String msg) {
-        return LogCat.e(tag, msg, sObfuscateByDefault);
-    }
+    public static int d(String tag, String msg) { return LogCat.println(DEBUG, tag, msg); }
 
     /**
-     * Send a {@link #ERROR} log message.
+     * Send a {@link #DEBUG} log message.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
      * @param msg The message you would like logged.
      * @param obfuscate True, if you want to obfuscate log message.
      * */
-    public static int e(String tag, String msg, boolean obfuscate) {
-        return LogCat.println(ERROR, tag, msg, obfuscate);
+    public static int d(String tag, String msg, boolean obfuscate) {
+        return LogCat.println(sConfig, DEBUG, tag, msg, obfuscate);
     }
 
     /**
-     * Send a {@link #ERROR} log message.
+     * Send a {@link #DEBUG} log message.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param format The format string (see {@link java.util.Formatter#format}).
+     * @param format The format string (see {@link LogFormatter}).
      * @param args The list of arguments passed to the formatter. If there are more arguments than
      *             required by {@code format}, additional arguments are ignored.
      *
      * @throws NullPointerException if {@code format == null}.
      * @throws java.util.IllegalFormatException if the format is invalid.
      * */
-    public static int e(String tag, String format, Object... args) {
-        return LogCat.println(ERROR, tag, format, args);
+    public static int d(String tag, String format, Object... args) {
+        return LogCat.println(DEBUG, tag, format, args);
     }
 
     /**
-     * Send a {@link #ERROR} log message and log the exception.
+     * Send a {@link #DEBUG} log message. The same as {@link #d(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
      *
-     * @param msg The message you would like logged.
-     * @param tr  An exception to log.
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The argument referenced by the format specifier.
      * */
-    public static int e(String msg, Throwable tr) { return LogCat.e(null, msg, tr); }
+    public static int d(String tag, String format, Object arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, DEBUG) ? LogCat.printf(config, DEBUG, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
 
     /**
-     * Send a {@link #ERROR} log message and log the exception.
+     * Send a {@link #DEBUG} log message. The same as {@link #d(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
      *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param msg The message you would like logged.
-     * @param tr  An exception to log.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The long integer argument referenced by the format specifier.
      * */
-    public static int e(String tag, String msg, Throwable tr) {
-        return LogCat.println(ERROR, tag, msg, tr);
+    public static int d(String tag, String format, long arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, DEBUG) ? LogCat.printf(config, DEBUG, tag,
+                format, obtainArgs().add(arg)) : -1;
     }
 
-    /*----------------------------------------------------------------------------------------*/
-    /* Stacktrace
-    /*----------------------------------------------------------------------------------------*/
-
     /**
-     * Send a {@link #DEBUG} log message that contains a printable representation of current
-     * {@link Thread}'s stack trace.
+     * Send a {@link #DEBUG} log message. The same as {@link #d(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The integer argument referenced by the format specifier.
      * */
-    public static void printStackTrace() {
-        printStackTrace(null, DEBUG, Thread.currentThread());
+    public static int d(String tag, String format, int arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, DEBUG) ? LogCat.printf(config, DEBUG, tag,
+                format, obtainArgs().add(arg)) : -1;
     }
 
     /**
-     * Send a log message that contains a printable representation of current {@link Thread}'s
-     * stack trace.
-     * @param priority The priority/type of this log message.
+     * Send a {@link #DEBUG} log message. The same as {@link #d(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The short integer argument referenced by the format specifier.
      * */
-    public static void printStackTrace(int priority) {
-        printStackTrace(null, priority, Thread.currentThread());
+    public static int d(String tag, String format, short arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, DEBUG) ? LogCat.printf(config, DEBUG, tag,
+                format, obtainArgs().add(arg)) : -1;
     }
 
     /**
-     * Send a log message that contains a printable representation of current {@link Thread}'s
-     * stack trace.
+     * Send a {@link #DEBUG} log message. The same as {@link #d(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param priority The priority/type of this log message.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The byte argument referenced by the format specifier.
      * */
-    public static void printStackTrace(String tag, int priority) {
-        printStackTrace(tag, priority, Thread.currentThread());
+    public static int d(String tag, String format, byte arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, DEBUG) ? LogCat.printf(config, DEBUG, tag,
+                format, obtainArgs().add(arg)) : -1;
     }
 
     /**
-     * Send a log message that contains a printable representation of specified {@link Thread}'s
-     * stack trace.
+     * Send a {@link #DEBUG} log message. The same as {@link #d(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param priority The priority/type of this log message.
-     * @param thread The {@link Thread}, for which a stack trace will be sent.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The floating point argument referenced by the format specifier.
      * */
-    public static void printStackTrace(String tag, int priority, Thread thread) {
-        checkInit();
-        if (thread == null) {
-            LogCat.w("Cannot print stack trace for thread - thread is null"); return;
-        }
-        StackTraceElement[] elements = thread.getStackTrace();
-        final StringBuilder builder = new StringBuilder(elements.length * 2);
-        //TODO Could we remove from output following elements?:
-        //TODO  - dalvik.system.VMStack.getThreadStackTrace(Native Method)
-        //TODO  - java.lang.Thread.getStackTrace(Thread.java:580)
-        //TODO  - com.malakhv.util.LogCat.printStackTrace(LogCat.java:534)
-        //TODO  - com.malakhv.util.LogCat.printStackTrace(LogCat.java:520)
-        for (StackTraceElement element: elements) {
-            builder.append(element.toString()).append(NEW_LINE);
-        }
-        LogCat.println(priority, tag, builder.toString(), false);
+    public static int d(String tag, String format, double arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, DEBUG) ? LogCat.printf(config, DEBUG, tag,
+                format, obtainArgs().add(arg)) : -1;
     }
 
-    /*----------------------------------------------------------------------------------------*/
-    /* Threads
-    /*----------------------------------------------------------------------------------------*/
-
     /**
-     * Send a {@link #DEBUG} log message that contains information (name, priority, group) about
-     * all active threads in current {@link ThreadGroup}.
+     * Send a {@link #DEBUG} log message. The same as {@link #d(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The floating point argument referenced by the format specifier.
      * */
-    public static void printThreads() {
-        printThreads(null, DEBUG);
+    public static int d(String tag, String format, float arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, DEBUG) ? LogCat.printf(config, DEBUG, tag,
+                format, obtainArgs().add(arg)) : -1;
     }
 
     /**
-     * Send a log message that contains information (name, priority, group) about all active
-     * threads in current {@link ThreadGroup}.
-     * @param priority The priority/type of this log message.
+     * Send a {@link #DEBUG} log message. The same as {@link #d(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The character argument referenced by the format specifier.
      * */
-    public static void printThreads(int priority) {
-        printThreads(null, priority);
+    public static int d(String tag, String format, char arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, DEBUG) ? LogCat.printf(config, DEBUG, tag,
+                format, obtainArgs().add(arg)) : -1;
     }
 
     /**
-     * Send a log message that contains information (name, priority, group) about all active
-     * threads in current {@link ThreadGroup}.
+     * Send a {@link #DEBUG} log message. The same as {@link #d(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param priority The priority/type of this log message.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
      * */
-    public static void printThreads(String tag, int priority) {
-        printThreads(tag, priority, Thread.currentThread().getThreadGroup());
+    public static int d(String tag, String format, Object arg1, Object arg2) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, DEBUG) ? LogCat.printf(config, DEBUG, tag,
+                format, obtainArgs().add(arg1).add(arg2)) : -1;
     }
 
     /**
-     * Send a log message that contains information (name, priority, group) about all active
-     * threads in specified {@link ThreadGroup}.
+     * Send a {@link #DEBUG} log message. The same as {@link #d(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param priority The priority/type of this log message.
-     * @param group The group of threads.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     * @param arg3 The third argument.
      * */
-    public static void printThreads(String tag, int priority, ThreadGroup group) {
-        if (group == null) {
-            LogCat.println(priority, tag, "ThreadGroup is null" , false);
-            return;
-        }
-        int count = group.activeCount();
-        final Thread[] threads = new Thread[count];
-        int copied = group.enumerate(threads, true);
-        final StringBuilder builder = new StringBuilder(copied * 2);
-        builder.append(NEW_LINE);
-        for (int i = 0; i < copied; i++) {
-            builder.append(threads[i].toString()).append(NEW_LINE);
-        }
-        LogCat.println(priority, tag, builder.toString(), false);
+    public static int d(String tag, String format, Object arg1, Object arg2,
+            Object arg3) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, DEBUG) ? LogCat.printf(config, DEBUG, tag,
+                format, obtainArgs().add(arg1).add(arg2).add(arg3)) : -1;
     }
 
-    /*----------------------------------------------------------------------------------------*/
-    /* Log Obfuscator
-    /*----------------------------------------------------------------------------------------*/
-
-    /** The behavior of obfuscation by default. */
-    private static boolean sObfuscateByDefault = false;
-
     /**
-     * @return True, if log messages will obfuscate by default.
+     * Send a {@link #DEBUG} log message. The same as {@link #d(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     * @param arg3 The third argument.
+     * @param arg4 The fourth argument.
      * */
-    public static boolean isObfuscateByDefault() { return sObfuscateByDefault; }
+    public static int d(String tag, String format, Object arg1, Object arg2,
+            Object arg3, Object arg4) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, DEBUG) ? LogCat.printf(config, DEBUG, tag,
+                format, obtainArgs().add(arg1).add(arg2).add(arg3).add(arg4)) : -1;
+    }
 
     /**
-     * Set the default behaviour for log obfuscator.
-     * @param obfuscate True, if you want to obfuscate log messages by default.
+     * Send a {@link #DEBUG} log message and log the exception.
+     *
+     * @param msg The message you would like logged.
+     * @param tr  An exception to log.
      * */
-    public static void setObfuscateByDefault(boolean obfuscate) {
-        sObfuscateByDefault = obfuscate;
-    }
+    public static int d(String msg, Throwable tr) { return LogCat.d(null, msg, tr); }
 
     /**
-     * The default simple number obfuscator. You could use it for obfuscate all numbers (like
-     * phone number, for example) in your log messages.
+     * Send a {@link #DEBUG} log message and log the exception.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged.
+     * @param tr  An exception to log.
      * */
-    public static final LogObfuscator SIMPLE_NUMBER_OBFUSCATOR = new LogObfuscator() {
-        @Override
-        public String obfuscate(String msg) {
-            if (TextUtils.isEmpty(msg)) return msg;
-            return msg.replaceAll("[0-9]","*");
-        }
-    };
-
-    /** The current obfuscator for log messages. */
-    private static LogObfuscator sObfuscator = SIMPLE_NUMBER_OBFUSCATOR;
+    public static int d(String tag, String msg, Throwable tr) {
+        return LogCat.println(DEBUG, tag, msg, tr);
+    }
 
     /**
-     * @return The {@link LogObfuscator} that currently used.
+     * Send a {@link #DEBUG} log message. The message will be built only if the {@link #DEBUG}
+     * level is enabled.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged.
      * */
-    public static LogObfuscator getObfuscator() { return sObfuscator; }
+    public static int d(String tag, MessageSupplier msg) {
+        return LogCat.println(DEBUG, tag, msg, null);
+    }
 
     /**
-     * Set the new obfuscator for log messages.
+     * Send a {@link #DEBUG} log message. The message will be built only if the {@link #DEBUG}
+     * level is enabled.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged.
+     * @param obfuscate True, if you want to obfuscate log message.
      * */
-    public static void setObfuscator(LogObfuscator obfuscator) { sObfuscator = obfuscator; }
+    public static int d(String tag, MessageSupplier msg, boolean obfuscate) {
+        return LogCat.println(sConfig, DEBUG, tag, msg, null, obfuscate);
+    }
 
     /**
-     * @return Obfuscated message for logging.
+     * Send a {@link #DEBUG} log message and log the exception. The message will be built only if
+     * the {@link #DEBUG} level is enabled.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged.
+     * @param tr  An exception to log.
      * */
-    public static String obfuscate(String msg) {
-        return sObfuscator != null ? sObfuscator.obfuscate(msg) : msg;
+    public static int d(String tag, MessageSupplier msg, Throwable tr) {
+        return LogCat.println(DEBUG, tag, msg, tr);
     }
 
     /**
-     * Interface definition for a method to be invoked when a message should be obfuscated.
-     * @see LogCat#setObfuscator(LogObfuscator)
+     * Send a {@link #DEBUG} structured log message: the message and the fields are written as one
+     * line (see {@link LogFields}). The fields are encoded only if the {@link #DEBUG} level is
+     * enabled, and they are cleared in any case.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged, or {@code null}.
+     * @param fields The fields of log message, see {@link LogFields#of(String, Object)}. Maybe
+     *               {@code null}, then the message is written without fields.
+     * */
+    public static int d(String tag, String msg, LogFields fields) {
+        return LogCat.println(DEBUG, tag, msg, fields);
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Log level - INFO
+    /*----------------------------------------------------------------------------------------*/
+
+    /**
+     * Send a {@link #INFO} log message.
+     *
+     * @param msg The message you would like logged.
+     * */
+    public static int i(String msg) { return LogCat.i(null, msg); }
+
+    /**
+     * Send a {@link #INFO} log message.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged.
+     * */
+    public static int i(String tag, String msg) { return LogCat.println(INFO, tag, msg); }
+
+    /**
+     * Send a {@link #INFO} log message.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged.
+     * @param obfuscate True, if you want to obfuscate log message.
+     * */
+    public static int i(String tag, String msg, boolean obfuscate) {
+        return LogCat.println(sConfig, INFO, tag, msg, obfuscate);
+    }
+
+    /**
+     * Send a {@link #INFO} log message.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param args The list of arguments passed to the formatter. If there are more arguments than
+     *             required by {@code format}, additional arguments are ignored.
+     *
+     * @throws NullPointerException if {@code format == null}.
+     * @throws java.util.IllegalFormatException if the format is invalid.
+     * */
+    public static int i(String tag, String format, Object... args) {
+        return LogCat.println(INFO, tag, format, args);
+    }
+
+    /**
+     * Send a {@link #INFO} log message. The same as {@link #i(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The argument referenced by the format specifier.
+     * */
+    public static int i(String tag, String format, Object arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, INFO) ? LogCat.printf(config, INFO, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #INFO} log message. The same as {@link #i(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The long integer argument referenced by the format specifier.
+     * */
+    public static int i(String tag, String format, long arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, INFO) ? LogCat.printf(config, INFO, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #INFO} log message. The same as {@link #i(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The integer argument referenced by the format specifier.
+     * */
+    public static int i(String tag, String format, int arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, INFO) ? LogCat.printf(config, INFO, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #INFO} log message. The same as {@link #i(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The short integer argument referenced by the format specifier.
+     * */
+    public static int i(String tag, String format, short arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, INFO) ? LogCat.printf(config, INFO, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #INFO} log message. The same as {@link #i(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The byte argument referenced by the format specifier.
+     * */
+    public static int i(String tag, String format, byte arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, INFO) ? LogCat.printf(config, INFO, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #INFO} log message. The same as {@link #i(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The floating point argument referenced by the format specifier.
+     * */
+    public static int i(String tag, String format, double arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, INFO) ? LogCat.printf(config, INFO, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #INFO} log message. The same as {@link #i(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The floating point argument referenced by the format specifier.
+     * */
+    public static int i(String tag, String format, float arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, INFO) ? LogCat.printf(config, INFO, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #INFO} log message. The same as {@link #i(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The character argument referenced by the format specifier.
+     * */
+    public static int i(String tag, String format, char arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, INFO) ? LogCat.printf(config, INFO, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #INFO} log message. The same as {@link #i(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     * */
+    public static int i(String tag, String format, Object arg1, Object arg2) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, INFO) ? LogCat.printf(config, INFO, tag,
+                format, obtainArgs().add(arg1).add(arg2)) : -1;
+    }
+
+    /**
+     * Send a {@link #INFO} log message. The same as {@link #i(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     * @param arg3 The third argument.
+     * */
+    public static int i(String tag, String format, Object arg1, Object arg2,
+            Object arg3) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, INFO) ? LogCat.printf(config, INFO, tag,
+                format, obtainArgs().add(arg1).add(arg2).add(arg3)) : -1;
+    }
+
+    /**
+     * Send a {@link #INFO} log message. The same as {@link #i(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     * @param arg3 The third argument.
+     * @param arg4 The fourth argument.
+     * */
+    public static int i(String tag, String format, Object arg1, Object arg2,
+            Object arg3, Object arg4) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, INFO) ? LogCat.printf(config, INFO, tag,
+                format, obtainArgs().add(arg1).add(arg2).add(arg3).add(arg4)) : -1;
+    }
+
+    /**
+     * Send a {@link #INFO} log message and log the exception.
+     *
+     * @param msg The message you would like logged.
+     * @param tr  An exception to log.
+     * */
+    public static int i(String msg, Throwable tr) { return LogCat.i(null, msg, tr); }
+
+    /**
+     * Send a {@link #INFO} log message and log the exception.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged.
+     * @param tr  An exception to log.
+     * */
+    public static int i(String tag, String msg, Throwable tr) {
+        return LogCat.println(INFO, tag, msg, tr);
+    }
+
+    /**
+     * Send a {@link #INFO} log message. The message will be built only if the {@link #INFO}
+     * level is enabled.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged.
+     * */
+    public static int i(String tag, MessageSupplier msg) {
+        return LogCat.println(INFO, tag, msg, null);
+    }
+
+    /**
+     * Send a {@link #INFO} log message. The message will be built only if the {@link #INFO}
+     * level is enabled.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged.
+     * @param obfuscate True, if you want to obfuscate log message.
+     * */
+    public static int i(String tag, MessageSupplier msg, boolean obfuscate) {
+        return LogCat.println(sConfig, INFO, tag, msg, null, obfuscate);
+    }
+
+    /**
+     * Send a {@link #INFO} log message and log the exception. The message will be built only if
+     * the {@link #INFO} level is enabled.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged.
+     * @param tr  An exception to log.
+     * */
+    public static int i(String tag, MessageSupplier msg, Throwable tr) {
+        return LogCat.println(INFO, tag, msg, tr);
+    }
+
+    /**
+     * Send a {@link #INFO} structured log message: the message and the fields are written as one
+     * line (see {@link LogFields}). The fields are encoded only if the {@link #INFO} level is
+     * enabled, and they are cleared in any case.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged, or {@code null}.
+     * @param fields The fields of log message, see {@link LogFields#of(String, Object)}. Maybe
+     *               {@code null}, then the message is written without fields.
+     * */
+    public static int i(String tag, String msg, LogFields fields) {
+        return LogCat.println(INFO, tag, msg, fields);
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Log level - WARN
+    /*----------------------------------------------------------------------------------------*/
+
+    /**
+     * Send a {@link #WARN} log message.
+     * @param msg The message you would like logged.
+     * */
+    public static int w(String msg) { return LogCat.w(null, msg); }
+
+    /**
+     * Send a {@link #WARN} log message.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged.
+     * */
+    public static int w(String tag, String msg) { return LogCat.println(WARN, tag, msg); }
+
+    /**
+     * Send a {@link #WARN} log message.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged.
+     * @param obfuscate True, if you want to obfuscate log message.
+     * */
+    public static int w(String tag, String msg, boolean obfuscate) {
+        return LogCat.println(sConfig, WARN, tag, msg, obfuscate);
+    }
+
+    /**
+     * Send a {@link #WARN} log message.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param args The list of arguments passed to the formatter. If there are more arguments than
+     *             required by {@code format}, additional arguments are ignored.
+     *
+     * @throws NullPointerException if {@code format == null}.
+     * @throws java.util.IllegalFormatException if the format is invalid.
+     * */
+    public static int w(String tag, String format, Object... args) {
+        return LogCat.println(WARN, tag, format, args);
+    }
+
+    /**
+     * Send a {@link #WARN} log message. The same as {@link #w(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The argument referenced by the format specifier.
+     * */
+    public static int w(String tag, String format, Object arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, WARN) ? LogCat.printf(config, WARN, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #WARN} log message. The same as {@link #w(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The long integer argument referenced by the format specifier.
+     * */
+    public static int w(String tag, String format, long arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, WARN) ? LogCat.printf(config, WARN, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #WARN} log message. The same as {@link #w(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The integer argument referenced by the format specifier.
+     * */
+    public static int w(String tag, String format, int arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, WARN) ? LogCat.printf(config, WARN, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #WARN} log message. The same as {@link #w(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The short integer argument referenced by the format specifier.
+     * */
+    public static int w(String tag, String format, short arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, WARN) ? LogCat.printf(config, WARN, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #WARN} log message. The same as {@link #w(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The byte argument referenced by the format specifier.
+     * */
+    public static int w(String tag, String format, byte arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, WARN) ? LogCat.printf(config, WARN, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #WARN} log message. The same as {@link #w(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The floating point argument referenced by the format specifier.
+     * */
+    public static int w(String tag, String format, double arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, WARN) ? LogCat.printf(config, WARN, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #WARN} log message. The same as {@link #w(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The floating point argument referenced by the format specifier.
+     * */
+    public static int w(String tag, String format, float arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, WARN) ? LogCat.printf(config, WARN, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #WARN} log message. The same as {@link #w(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The character argument referenced by the format specifier.
+     * */
+    public static int w(String tag, String format, char arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, WARN) ? LogCat.printf(config, WARN, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #WARN} log message. The same as {@link #w(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     * */
+    public static int w(String tag, String format, Object arg1, Object arg2) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, WARN) ? LogCat.printf(config, WARN, tag,
+                format, obtainArgs().add(arg1).add(arg2)) : -1;
+    }
+
+    /**
+     * Send a {@link #WARN} log message. The same as {@link #w(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     * @param arg3 The third argument.
+     * */
+    public static int w(String tag, String format, Object arg1, Object arg2,
+            Object arg3) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, WARN) ? LogCat.printf(config, WARN, tag,
+                format, obtainArgs().add(arg1).add(arg2).add(arg3)) : -1;
+    }
+
+    /**
+     * Send a {@link #WARN} log message. The same as {@link #w(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     * @param arg3 The third argument.
+     * @param arg4 The fourth argument.
+     * */
+    public static int w(String tag, String format, Object arg1, Object arg2,
+            Object arg3, Object arg4) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, WARN) ? LogCat.printf(config, WARN, tag,
+                format, obtainArgs().add(arg1).add(arg2).add(arg3).add(arg4)) : -1;
+    }
+
+    /**
+     * Send a {@link #WARN} log message and log the exception.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged.
+     * @param tr  An exception to log.
+     * */
+    public static int w(String tag, String msg, Throwable tr) {
+        return LogCat.println(WARN, tag, msg, tr);
+    }
+
+    /**
+     * Send a {@link #WARN} log message and log the exception.
+     * @param tr An exception to log.
+     * */
+    public static int w(Throwable tr) { return LogCat.w(null, tr); }
+
+    /**
+     * Send a {@link #WARN} log message and log the exception.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param tr  An exception to log.
+     * */
+    public static int w(String tag, Throwable tr) {
+        return LogCat.println(WARN, tag, (String) null, tr);
+    }
+
+    /**
+     * Send a {@link #WARN} log message. The message will be built only if the {@link #WARN}
+     * level is enabled.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged.
+     * */
+    public static int w(String tag, MessageSupplier msg) {
+        return LogCat.println(WARN, tag, msg, null);
+    }
+
+    /**
+     * Send a {@link #WARN} log message. The message will be built only if the {@link #WARN}
+     * level is enabled.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged.
+     * @param obfuscate True, if you want to obfuscate log message.
+     * */
+    public static int w(String tag, MessageSupplier msg, boolean obfuscate) {
+        return LogCat.println(sConfig, WARN, tag, msg, null, obfuscate);
+    }
+
+    /**
+     * Send a {@link #WARN} log message and log the exception. The message will be built only if
+     * the {@link #WARN} level is enabled.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged.
+     * @param tr  An exception to log.
+     * */
+    public static int w(String tag, MessageSupplier msg, Throwable tr) {
+        return LogCat.println(WARN, tag, msg, tr);
+    }
+
+    /**
+     * Send a {@link #WARN} structured log message: the message and the fields are written as one
+     * line (see {@link LogFields}). The fields are encoded only if the {@link #WARN} level is
+     * enabled, and they are cleared in any case.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged, or {@code null}.
+     * @param fields The fields of log message, see {@link LogFields#of(String, Object)}. Maybe
+     *               {@code null}, then the message is written without fields.
+     * */
+    public static int w(String tag, String msg, LogFields fields) {
+        return LogCat.println(WARN, tag, msg, fields);
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Log level - ERROR
+    /*----------------------------------------------------------------------------------------*/
+
+    /**
+     * Send a {@link #ERROR} log message.
+     * @param msg The message you would like logged.
+     * */
+    public static int e(String msg) { return LogCat.e(null, msg); }
+
+    /**
+     * Send a {@link #ERROR} log message.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged.
+     * */
+    public static int e(String tag, String msg) {
+        return LogCat.println(ERROR, tag, msg);
+    }
+
+    /**
+     * Send a {@link #ERROR} log message.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged.
+     * @param obfuscate True, if you want to obfuscate log message.
+     * */
+    public static int e(String tag, String msg, boolean obfuscate) {
+        return LogCat.println(sConfig, ERROR, tag, msg, obfuscate);
+    }
+
+    /**
+     * Send a {@link #ERROR} log message.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param args The list of arguments passed to the formatter. If there are more arguments than
+     *             required by {@code format}, additional arguments are ignored.
+     *
+     * @throws NullPointerException if {@code format == null}.
+     * @throws java.util.IllegalFormatException if the format is invalid.
+     * */
+    public static int e(String tag, String format, Object... args) {
+        return LogCat.println(ERROR, tag, format, args);
+    }
+
+    /**
+     * Send a {@link #ERROR} log message. The same as {@link #e(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The argument referenced by the format specifier.
+     * */
+    public static int e(String tag, String format, Object arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, ERROR) ? LogCat.printf(config, ERROR, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #ERROR} log message. The same as {@link #e(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The long integer argument referenced by the format specifier.
+     * */
+    public static int e(String tag, String format, long arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, ERROR) ? LogCat.printf(config, ERROR, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #ERROR} log message. The same as {@link #e(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The integer argument referenced by the format specifier.
+     * */
+    public static int e(String tag, String format, int arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, ERROR) ? LogCat.printf(config, ERROR, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #ERROR} log message. The same as {@link #e(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The short integer argument referenced by the format specifier.
+     * */
+    public static int e(String tag, String format, short arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, ERROR) ? LogCat.printf(config, ERROR, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #ERROR} log message. The same as {@link #e(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The byte argument referenced by the format specifier.
+     * */
+    public static int e(String tag, String format, byte arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, ERROR) ? LogCat.printf(config, ERROR, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #ERROR} log message. The same as {@link #e(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The floating point argument referenced by the format specifier.
+     * */
+    public static int e(String tag, String format, double arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, ERROR) ? LogCat.printf(config, ERROR, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #ERROR} log message. The same as {@link #e(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The floating point argument referenced by the format specifier.
+     * */
+    public static int e(String tag, String format, float arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, ERROR) ? LogCat.printf(config, ERROR, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #ERROR} log message. The same as {@link #e(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg The character argument referenced by the format specifier.
+     * */
+    public static int e(String tag, String format, char arg) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, ERROR) ? LogCat.printf(config, ERROR, tag,
+                format, obtainArgs().add(arg)) : -1;
+    }
+
+    /**
+     * Send a {@link #ERROR} log message. The same as {@link #e(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     * */
+    public static int e(String tag, String format, Object arg1, Object arg2) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, ERROR) ? LogCat.printf(config, ERROR, tag,
+                format, obtainArgs().add(arg1).add(arg2)) : -1;
+    }
+
+    /**
+     * Send a {@link #ERROR} log message. The same as {@link #e(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     * @param arg3 The third argument.
+     * */
+    public static int e(String tag, String format, Object arg1, Object arg2,
+            Object arg3) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, ERROR) ? LogCat.printf(config, ERROR, tag,
+                format, obtainArgs().add(arg1).add(arg2).add(arg3)) : -1;
+    }
+
+    /**
+     * Send a {@link #ERROR} log message. The same as {@link #e(String, String, Object...)}, but
+     * without allocation of arguments array and boxing of primitive values.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     * @param arg3 The third argument.
+     * @param arg4 The fourth argument.
+     * */
+    public static int e(String tag, String format, Object arg1, Object arg2,
+            Object arg3, Object arg4) {
+        final LogConfig config = sConfig;
+        return LogCat.isAllowed(config, tag, ERROR) ? LogCat.printf(config, ERROR, tag,
+                format, obtainArgs().add(arg1).add(arg2).add(arg3).add(arg4)) : -1;
+    }
+
+    /**
+     * Send a {@link #ERROR} log message and log the exception.
+     *
+     * @param msg The message you would like logged.
+     * @param tr  An exception to log.
+     * */
+    public static int e(String msg, Throwable tr) { return LogCat.e(null, msg, tr); }
+
+    /**
+     * Send a {@link #ERROR} log message and log the exception.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged.
+     * @param tr  An exception to log.
+     * */
+    public static int e(String tag, String msg, Throwable tr) {
+        return LogCat.println(ERROR, tag, msg, tr);
+    }
+
+    /**
+     * Send a {@link #ERROR} log message. The message will be built only if the {@link #ERROR}
+     * level is enabled.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged.
+     * */
+    public static int e(String tag, MessageSupplier msg) {
+        return LogCat.println(ERROR, tag, msg, null);
+    }
+
+    /**
+     * Send a {@link #ERROR} log message. The message will be built only if the {@link #ERROR}
+     * level is enabled.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged.
+     * @param obfuscate True, if you want to obfuscate log message.
+     * */
+    public static int e(String tag, MessageSupplier msg, boolean obfuscate) {
+        return LogCat.println(sConfig, ERROR, tag, msg, null, obfuscate);
+    }
+
+    /**
+     * Send a {@link #ERROR} log message and log the exception. The message will be built only if
+     * the {@link #ERROR} level is enabled.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged.
+     * @param tr  An exception to log.
+     * */
+    public static int e(String tag, MessageSupplier msg, Throwable tr) {
+        return LogCat.println(ERROR, tag, msg, tr);
+    }
+
+    /**
+     * Send a {@link #ERROR} structured log message: the message and the fields are written as one
+     * line (see {@link LogFields}). The fields are encoded only if the {@link #ERROR} level is
+     * enabled, and they are cleared in any case.
+     *
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged, or {@code null}.
+     * @param fields The fields of log message, see {@link LogFields#of(String, Object)}. Maybe
+     *               {@code null}, then the message is written without fields.
+     * */
+    public static int e(String tag, String msg, LogFields fields) {
+        return LogCat.println(ERROR, tag, msg, fields);
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Stacktrace
+    /*----------------------------------------------------------------------------------------*/
+
+    /**
+     * Send a {@link #DEBUG} log message that contains a printable representation of current
+     * {@link Thread}'s stack trace.
+     * */
+    public static void printStackTrace() {
+        printStackTrace(null, DEBUG, Thread.currentThread());
+    }
+
+    /**
+     * Send a log message that contains a printable representation of current {@link Thread}'s
+     * stack trace.
+     * @param priority The priority/type of this log message.
+     * */
+    public static void printStackTrace(int priority) {
+        printStackTrace(null, priority, Thread.currentThread());
+    }
+
+    /**
+     * Send a log message that contains a printable representation of current {@link Thread}'s
+     * stack trace.
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param priority The priority/type of this log message.
+     * */
+    public static void printStackTrace(String tag, int priority) {
+        printStackTrace(tag, priority, Thread.currentThread());
+    }
+
+    /**
+     * Send a log message that contains a printable representation of specified {@link Thread}'s
+     * stack trace.
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param priority The priority/type of this log message.
+     * @param thread The {@link Thread}, for which a stack trace will be sent.
+     * */
+    public static void printStackTrace(String tag, int priority, Thread thread) {
+        checkInit();
+        if (thread == null) {
+            LogCat.w("Cannot print stack trace for thread - thread is null"); return;
+        }
+        if (!isDumped(tag, priority)) return;
+        final StringBuilder builder = appendStackTrace(obtainBuffer(), priority, tag, thread,
+                thread.getStackTrace());
+        flushDump(builder, priority, tag);
+    }
+
+    /**
+     * Send a {@link #DEBUG} log messages that contain the stack traces, states, priorities and
+     * daemon flags of all live threads, see {@link Thread#getAllStackTraces()}.
+     * */
+    public static void printAllStackTraces() {
+        printAllStackTraces(null, DEBUG);
+    }
+
+    /**
+     * Send a log messages that contain the stack traces, states, priorities and daemon flags of
+     * all live threads, see {@link Thread#getAllStackTraces()}. The dump is written in chunks.
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param priority The priority/type of this log message.
+     * */
+    public static void printAllStackTraces(String tag, int priority) {
+        checkInit();
+        if (!isDumped(tag, priority)) return;
+        StringBuilder builder = obtainBuffer();
+        final java.util.Map<Thread, StackTraceElement[]> traces = Thread.getAllStackTraces();
+        for (java.util.Map.Entry<Thread, StackTraceElement[]> entry: traces.entrySet()) {
+            final Thread thread = entry.getKey();
+            // Each thread starts with the empty line
+            if (builder.length() > 0) builder = nextLine(builder, priority, tag);
+            builder = nextLine(builder, priority, tag).append('"').append(thread.getName())
+                    .append("\" #").append(thread.getId());
+            if (thread.isDaemon()) builder.append(" daemon");
+            builder.append(" prio=").append(thread.getPriority()).append(' ')
+                    .append(thread.getState());
+            builder = appendStackTrace(builder, priority, tag, thread, entry.getValue());
+        }
+        flushDump(builder, priority, tag);
+    }
+
+    /**
+     * Appends the stack trace of thread to the dump, the leading frames of
+     * {@link Thread#getStackTrace()} and this class are skipped for the current thread.
+     * @return The buffer of dump, it could be replaced after writing of chunk.
+     * */
+    private static StringBuilder appendStackTrace(StringBuilder builder, int priority, String tag,
+            Thread thread, StackTraceElement[] elements) {
+        int start = 0;
+        if (thread == Thread.currentThread()) {
+            while (start < elements.length && isDumpFrame(elements[start])) start++;
+        }
+        for (int i = start; i < elements.length; i++) {
+            builder = nextLine(builder, priority, tag);
+            ThrowableRenderer.appendElement(builder, elements[i]);
+        }
+        return builder;
+    }
+
+    /**
+     * Returns true, if the frame belongs to the dump itself: the frame of this class or the frame
+     * of {@link Thread#getStackTrace()} (the frames of {@code VMStack} on Android).
+     * */
+    private static boolean isDumpFrame(StackTraceElement element) {
+        final String name = element.getClassName();
+        return name.equals(LogCat.class.getName()) || name.equals("java.lang.Thread")
+                || name.equals("dalvik.system.VMStack");
+    }
+
+    /**
+     * Returns true, if the dump with specified tag and priority will be written or recorded, to
+     * not collect the dump in vain.
+     * */
+    static boolean isDumped(String tag, int priority) {
+        final FlightRecorder recorder = sFlightRecorder;
+        return isLoggable(tag, priority) || (recorder != null && recorder.isRecorded(priority));
+    }
+
+    /**
+     * Starts the new line of dump. If the buffer is filled, it is written as a log message, and
+     * the new line starts in the empty buffer.
+     * @return The buffer of dump, it could be replaced after writing of chunk.
+     * */
+    static StringBuilder nextLine(StringBuilder builder, int priority, String tag) {
+        if (builder.length() >= DUMP_CHUNK_LENGTH) {
+            LogCat.println(sConfig, priority, tag, builder.toString(), false);
+            // The per-thread buffer was reused while writing
+            return obtainBuffer();
+        }
+        if (builder.length() > 0) builder.append(NEW_LINE);
+        return builder;
+    }
+
+    /**
+     * Writes the rest of dump as a log message.
+     * */
+    static void flushDump(StringBuilder builder, int priority, String tag) {
+        if (builder.length() > 0) {
+            LogCat.println(sConfig, priority, tag, builder.toString(), false);
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Threads
+    /*----------------------------------------------------------------------------------------*/
+
+    /**
+     * Send a {@link #DEBUG} log message that contains information (name, priority, group) about
+     * all active threads in current {@link ThreadGroup}.
+     * */
+    public static void printThreads() {
+        printThreads(null, DEBUG);
+    }
+
+    /**
+     * Send a log message that contains information (name, priority, group) about all active
+     * threads in current {@link ThreadGroup}.
+     * @param priority The priority/type of this log message.
+     * */
+    public static void printThreads(int priority) {
+        printThreads(null, priority);
+    }
+
+    /**
+     * Send a log message that contains information (name, priority, group) about all active
+     * threads in current {@link ThreadGroup}.
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param priority The priority/type of this log message.
+     * */
+    public static void printThreads(String tag, int priority) {
+        printThreads(tag, priority, Thread.currentThread().getThreadGroup());
+    }
+
+    /**
+     * Send a log message that contains information (name, priority, group) about all active
+     * threads in specified {@link ThreadGroup}. If there are many threads, the information is
+     * written in several log messages.
+     * @param tag Used to identify the source of a log message. It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param priority The priority/type of this log message.
+     * @param group The group of threads.
+     * */
+    public static void printThreads(String tag, int priority, ThreadGroup group) {
+        if (group == null) {
+            LogCat.println(sConfig, priority, tag, "ThreadGroup is null" , false);
+            return;
+        }
+        if (!isDumped(tag, priority)) return;
+        int count = group.activeCount();
+        final Thread[] threads = new Thread[count];
+        int copied = group.enumerate(threads, true);
+        StringBuilder builder = obtainBuffer();
+        for (int i = 0; i < copied; i++) {
+            builder = nextLine(builder, priority, tag);
+            // Each log message starts with the empty line, the list is under the message header
+            if (builder.length() == 0) builder.append(NEW_LINE);
+            appendThread(builder, threads[i]);
+        }
+        flushDump(builder, priority, tag);
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Log Obfuscator
+    /*----------------------------------------------------------------------------------------*/
+
+    /**
+     * @return True, if log messages will obfuscate by default.
+     * */
+    public static boolean isObfuscateByDefault() { return sConfig.isObfuscateByDefault(); }
+
+    /**
+     * Set the default behaviour for log obfuscator. The same as
+     * {@code reconfigure().setObfuscateByDefault(obfuscate).apply()}.
+     * @param obfuscate True, if you want to obfuscate log messages by default.
+     * */
+    public static void setObfuscateByDefault(boolean obfuscate) {
+        reconfigure().setObfuscateByDefault(obfuscate).apply();
+    }
+
+    /**
+     * The default simple number obfuscator. You could use it for obfuscate all numbers (like
+     * phone number, for example) in your log messages. For more complex rules, please see
+     * {@link LogObfuscatorEngine}.
+     * */
+    public static final LogObfuscator SIMPLE_NUMBER_OBFUSCATOR =
+            new LogObfuscatorEngine.Builder().digits().build();
+
+    /**
+     * @return The {@link LogObfuscator} that currently used.
+     * */
+    public static LogObfuscator getObfuscator() { return sConfig.getObfuscator(); }
+
+    /**
+     * Set the new obfuscator for log messages. The same as
+     * {@code reconfigure().setObfuscator(obfuscator).apply()}.
+     * */
+    public static void setObfuscator(LogObfuscator obfuscator) {
+        reconfigure().setObfuscator(obfuscator).apply();
+    }
+
+    /**
+     * @return Obfuscated message for logging.
+     * */
+    public static String obfuscate(String msg) { return obfuscate(sConfig, msg); }
+
+    /**
+     * @return Obfuscated message for logging, with obfuscator of specified settings.
+     * */
+    static String obfuscate(LogConfig config, String msg) {
+        final LogObfuscator obfuscator = config.getObfuscator();
+        return obfuscator != null ? obfuscator.obfuscate(msg) : msg;
+    }
+
+    /**
+     * Interface definition for a method to be invoked when a log message should be built. It
+     * allows you to avoid building of expensive log messages if the log level is disabled, for
+     * example:
+     * <br>&nbsp;<br>
+     * &#09;{@code LogCat.d(TAG, new LogCat.MessageSupplier() &#123;}<br>
+     * &#09;&#09;{@code public String get() &#123; return data.dump(); &#125;}<br>
+     * &#09;{@code &#125;);}
+     * <br>&nbsp;<br>
+     * Please note, the supplier object is created by the caller in any case, so it is better to
+     * keep it in a field, if it does not depend on local variables.
+     * */
+    public static interface MessageSupplier {
+
+        /**
+         * @return The log message.
+         * */
+        String get();
+    }
+
+    /**
+     * Interface definition for a method to be invoked when a message should be obfuscated.
+     * @see LogCat#setObfuscator(LogObfuscator)
      * @see LogCat#SIMPLE_NUMBER_OBFUSCATOR
      * */
-    public static interface LogObfuscator {
+    public static interface LogObfuscator {
+
+        /**
+         * Obfuscate message.
+         * */
+        String obfuscate(String msg);
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Configuration
+    /*----------------------------------------------------------------------------------------*/
+
+    /** The lock for changing the settings, the readers do not need it. */
+    private static final Object sConfigLock = new Object();
+
+    /**
+     * The current settings. It is declared after {@link #SIMPLE_NUMBER_OBFUSCATOR}, because it
+     * is used as the default obfuscator.
+     * */
+    private static volatile LogConfig sConfig = new LogConfig(null, false, false,
+            SIMPLE_NUMBER_OBFUSCATOR, false, LogFields.JSON);
+
+    /**
+     * @return The current settings, the immutable snapshot. See {@link LogConfig}.
+     * */
+    public static LogConfig getConfig() { return sConfig; }
+
+    /**
+     * Returns the builder of changes of settings, the changes are applied atomically by
+     * {@link LogConfig.Builder#apply()}. For example:
+     * <br>&nbsp;<br>
+     * &#09;{@code LogCat.reconfigure().setObfuscateByDefault(true)}<br>
+     * &#09;&#09;{@code .setObfuscator(obfuscator).apply();}
+     * <br>&nbsp;<br>
+     * The log calls that are in progress complete with the old settings, the next ones use the
+     * new settings.
+     * */
+    public static LogConfig.Builder reconfigure() { return new LogConfig.Builder(); }
+
+    /**
+     * Applies the changes to the current settings and publishes the new settings.
+     * @return The new settings.
+     * */
+    static LogConfig reconfigure(LogConfig.Builder builder) {
+        synchronized (sConfigLock) {
+            final LogConfig config = builder.applyTo(sConfig);
+            sConfig = config;
+            return config;
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Rate limiting
+    /*----------------------------------------------------------------------------------------*/
+
+    /** The rate limiter for log messages, or {@code null}. */
+    private static volatile LogRateLimiter sRateLimiter = null;
+
+    /**
+     * @return The {@link LogRateLimiter} that currently used, or {@code null}.
+     * */
+    public static LogRateLimiter getRateLimiter() { return sRateLimiter; }
+
+    /**
+     * Set the rate limiter for log messages. The log messages that are dropped by the limiter
+     * are not built at all, and the log methods return {@code -1} for them. The limiter
+     * periodically writes a summary line with the number of dropped messages. For example:
+     * <br>&nbsp;<br>
+     * &#09;{@code LogCat.setRateLimiter(new LogRateLimiter.Builder().setRate(50, 100)}<br>
+     * &#09;&#09;{@code .setSampleRate(LogCat.DEBUG, 0.1).build());}
+     * <br>&nbsp;<br>
+     * @param limiter The rate limiter, or {@code null} to turn off rate limiting.
+     * */
+    public static void setRateLimiter(LogRateLimiter limiter) { sRateLimiter = limiter; }
+
+    /**
+     * Checks to see whether or not a log message should be passed to low-level logging calls:
+     * it is recorded by the flight recorder (see {@link #setFlightRecorder(FlightRecorder)}),
+     * or it is accepted (see {@link #isAccepted(LogConfig, String, int)}). If the message is
+     * recorded, the low-level logging call checks whether or not it is accepted.
+     *
+     * @param config The current settings, see {@link #getConfig()}.
+     * @param tag The component tag, maybe {@code null}.
+     * @param priority The priority/type of log message.
+     * */
+    private static boolean isAllowed(LogConfig config, String tag, int priority) {
+        final FlightRecorder recorder = sFlightRecorder;
+        return (recorder != null && recorder.isRecorded(priority))
+                || isAccepted(config, tag, priority);
+    }
+
+    /**
+     * Checks to see whether or not a log message is loggable (see
+     * {@link #isLoggable(String, int)}) and is not dropped by the rate limiter.
+     *
+     * @param config The current settings, see {@link #getConfig()}.
+     * @param tag The component tag, maybe {@code null}.
+     * @param priority The priority/type of log message.
+     * */
+    private static boolean isAccepted(LogConfig config, String tag, int priority) {
+        final LogMetrics metrics = sMetrics;
+        if (!LogCat.isLoggable(config, tag, priority)) {
+            if (metrics != null) metrics.add(LogMetrics.FILTERED, priority, tag, 1);
+            return false;
+        }
+        final LogRateLimiter limiter = sRateLimiter;
+        boolean allowed = true;
+        if (limiter != null) {
+            final long now = System.nanoTime();
+            allowed = limiter.tryAcquire(priority, tag,
+                    limiter.isPerCallSite() ? getCallSite() : null, now);
+            final String summary = limiter.pollSummary(now);
+            if (summary != null) {
+                LogCat.write(config, WARN, LOG_TAG, summary, null, null, false, null, null);
+            }
+        }
+        if (metrics != null) {
+            metrics.add(allowed ? LogMetrics.EMITTED : LogMetrics.DROPPED, priority, tag, 1);
+        }
+        return allowed;
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Call sites
+    /*----------------------------------------------------------------------------------------*/
+
+    /** True, if any call site was passed, otherwise the per-thread value is not looked up. */
+    private static volatile boolean sCallSitesUsed = false;
+
+    /**
+     * Set the place of the next log call of current thread, or {@code null} after the call.
+     * The calls of this method are generated by the {@code LogCatStrip} Gradle plugin (see
+     * {@code logcatStrip.callSites}) around each {@code LogCat} call, with the call sites that
+     * are resolved once in static initializer of class. So there is no stack walking and no
+     * allocations per log call, see {@link CallSite}. The generated code has no
+     * {@code finally} block, so the place is also cleared by the log call itself when it ends,
+     * normally or by exception.
+     * @param site The place of log call, or {@code null}.
+     * */
+    public static void callSite(CallSite site) {
+        if (!sCallSitesUsed) {
+            if (site == null) return;
+            sCallSitesUsed = true;
+        }
+        sCallState.get().site = site;
+    }
+
+    /**
+     * @return The place of current log call of current thread, or {@code null} if it is unknown.
+     * @see #callSite(CallSite)
+     * */
+    static CallSite getCallSite() { return sCallSitesUsed ? sCallState.get().site : null; }
+
+    /** Clears the place of current log call, it is called before an exception is thrown. */
+    private static void clearCallSite() {
+        if (sCallSitesUsed) sCallState.get().site = null;
+    }
+
+    /**
+     * Turns on or off printing of call sites: the log messages with known call site (see
+     * {@link #callSite(CallSite)}) are started with it, like
+     * {@code "MyActivity.onCreate(MyActivity.java:42): Any message."}. The call sites are
+     * always available to sinks (see {@link LogEvent#getCallSite()}) and written in binary mode.
+     * */
+    public static void setPrintCallSites(boolean print) {
+        reconfigure().setPrintCallSites(print).apply();
+    }
+
+    /**
+     * @return True, if the call sites are printed in log messages.
+     * @see #setPrintCallSites(boolean)
+     * */
+    public static boolean isPrintCallSites() { return sConfig.isPrintCallSites(); }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Metrics
+    /*----------------------------------------------------------------------------------------*/
+
+    /** The metrics of logging, or {@code null}. */
+    private static volatile LogMetrics sMetrics = null;
+
+    /**
+     * Turns on or off the metrics of logging: the number of log messages per level and per
+     * component tag (emitted, filtered, dropped), the size of written messages and the time
+     * spent in obfuscation and sink writes. See {@link LogMetrics#snapshot()}.
+     * @param metrics The metrics, or {@code null} to turn them off.
+     * */
+    public static void setMetrics(LogMetrics metrics) { sMetrics = metrics; }
+
+    /**
+     * @return The metrics of logging, or {@code null} if they are turned off.
+     * */
+    public static LogMetrics getMetrics() { return sMetrics; }
+
+    /**
+     * Obfuscates the log message (see {@link #obfuscate(String)}) and measures the time of
+     * obfuscation, if the metrics are turned on.
+     * */
+    private static String obfuscateMeasured(LogConfig config, String msg) {
+        final LogMetrics metrics = sMetrics;
+        if (metrics == null) return obfuscate(config, msg);
+        final long start = System.nanoTime();
+        final String result = obfuscate(config, msg);
+        metrics.addObfuscationTime(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Writes the self-report of metrics, if it is the time.
+     * @param time The current time, see {@link System#currentTimeMillis()}.
+     * */
+    private static void reportMetrics(LogConfig config, LogMetrics metrics, long time) {
+        if (metrics.isReportDue(time)) {
+            LogCat.write(config, INFO, LOG_TAG, "Log metrics: " + metrics.snapshot(), null, null,
+                    false, null, null);
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Timing sections
+    /*----------------------------------------------------------------------------------------*/
+
+    /** The timing sections by names. */
+    private static final java.util.concurrent.ConcurrentHashMap<String, TimingSection> sTimings =
+            new java.util.concurrent.ConcurrentHashMap<String, TimingSection>();
+
+    /** The interval of timing reports in nanoseconds, or 0. */
+    private static volatile long sTimingReportInterval = 0;
+
+    /** The priority of timing reports. */
+    private static volatile int sTimingReportPriority = DEBUG;
+
+    /** The time of next timing report, see {@link System#nanoTime()}. */
+    private static final java.util.concurrent.atomic.AtomicLong sNextTimingReport =
+            new java.util.concurrent.atomic.AtomicLong(0);
+
+    /**
+     * Returns the timing section with specified name, the section is created if it is new. The
+     * lookup is cheap, but the section could be kept in a static field, for example:
+     * <br>&nbsp;<br>
+     * &#09;{@code private static final TimingSection QUERY = LogCat.timing("db.query");}
+     * <br>&nbsp;<br>
+     * See {@link TimingSection}.
+     * @param name The name of section.
+     * */
+    public static TimingSection timing(String name) {
+        if (name == null) throw new NullPointerException("name == null");
+        TimingSection section = sTimings.get(name);
+        if (section == null) {
+            final TimingSection created = new TimingSection(name);
+            section = sTimings.putIfAbsent(name, created);
+            if (section == null) section = created;
+        }
+        return section;
+    }
+
+    /**
+     * Turns on or off the periodic timing reports: the count, p50, p90, p99 and max of each
+     * timing section are logged after the interval, and the sections are cleared. The report is
+     * written by the thread that ends a section after the interval.
+     * @param interval The interval of reports in milliseconds, or 0 to turn the reports off.
+     * @param priority The priority/type of report messages.
+     * */
+    public static void setTimingReport(long interval, int priority) {
+        if (interval < 0) throw new IllegalArgumentException("The interval is negative");
+        sTimingReportPriority = priority;
+        sNextTimingReport.set(System.nanoTime() + interval * 1000000L);
+        sTimingReportInterval = interval * 1000000L;
+    }
+
+    /**
+     * Send a log message that contains the count, p50, p90, p99 and max of each timing section.
+     * @param priority The priority/type of this log message.
+     * */
+    public static void printTimings(int priority) {
+        checkInit();
+        printTimings(priority, false);
+    }
+
+    /**
+     * Writes the report of timing sections, in chunks.
+     * @param reset True, if the sections should be cleared.
+     * */
+    private static void printTimings(int priority, boolean reset) {
+        if (!isDumped(LOG_TAG, priority)) return;
+        StringBuilder builder = obtainBuffer();
+        for (TimingSection section: sTimings.values()) {
+            final int length = builder.length();
+            final StringBuilder line = nextLine(builder, priority, LOG_TAG);
+            final int mark = line == builder ? length : 0;
+            builder = line;
+            if (section.appendReport(builder, reset) == null) {
+                // No durations, the line is not needed
+                builder.setLength(mark);
+            }
+        }
+        flushDump(builder, priority, LOG_TAG);
+    }
 
-        /**
-         * Obfuscate message.
-         * */
-        String obfuscate(String msg);
+    /**
+     * Called when the duration of timing section was recorded, writes the periodic report.
+     * @param now The current time, see {@link System#nanoTime()}.
+     * */
+    static void onTiming(long now) {
+        final long interval = sTimingReportInterval;
+        if (interval <= 0 || !sConfig.isInit()) return;
+        final long next = sNextTimingReport.get();
+        if (now - next >= 0 && sNextTimingReport.compareAndSet(next, now + interval)) {
+            printTimings(sTimingReportPriority, true);
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Duplicate messages
+    /*----------------------------------------------------------------------------------------*/
+
+    /**
+     * The default maximum time (in milliseconds) to hold duplicate log messages, see
+     * {@link #setCollapseDuplicates(boolean, long)}.
+     * */
+    public static final long DEFAULT_DUPLICATE_WINDOW = 10 * 1000;
+
+    /** The filter of duplicate log messages, or {@code null}. */
+    private static volatile DuplicateFilter sDuplicateFilter = null;
+
+    /**
+     * @return True, if consecutive identical log messages are collapsed.
+     * */
+    public static boolean isCollapseDuplicates() { return sDuplicateFilter != null; }
+
+    /**
+     * Turns on or off collapsing of consecutive identical log messages, with default window
+     * {@link #DEFAULT_DUPLICATE_WINDOW}.
+     * @see #setCollapseDuplicates(boolean, long)
+     * */
+    public static void setCollapseDuplicates(boolean collapse) {
+        setCollapseDuplicates(collapse, DEFAULT_DUPLICATE_WINDOW);
+    }
+
+    /**
+     * Turns on or off collapsing of consecutive identical log messages (the same priority, tag
+     * and message, without exception). If it is on, only the first message of the run of
+     * identical messages is written, the following duplicates are held and counted. The summary
+     * line {@code "Last message repeated N times"} is written when the run ends (a different
+     * message is written by the same thread), no later than 1.5 windows after the first held
+     * duplicate (it is checked by the log call of any thread, and by the writer thread in
+     * asynchronous mode), or when {@link #flush()} is called (the held duplicates of all
+     * threads are written, so it also covers the crash handler). The runs are tracked for each
+     * thread separately, also in asynchronous mode: the writer thread tracks the runs of threads
+     * that wrote the messages, and the summary line is written on behalf of that thread.
+     *
+     * @param collapse True, if you want to collapse identical log messages.
+     * @param window The maximum time (in milliseconds) to hold duplicates before summary line.
+     * */
+    public static void setCollapseDuplicates(boolean collapse, long window) {
+        if (collapse && window <= 0) {
+            throw new IllegalArgumentException(LOG_TAG + TAG_DELIMITER +
+                    "The window should be positive");
+        }
+        final DuplicateFilter old = sDuplicateFilter;
+        sDuplicateFilter = collapse ? new DuplicateFilter(window) : null;
+        // The duplicates that were held by the old filter should not be lost
+        if (old != null) flushDuplicates(sConfig, old, System.nanoTime(), true);
+    }
+
+    /**
+     * Writes the summary lines for held duplicates of all threads, if any.
+     * */
+    private static void flushDuplicates() {
+        final DuplicateFilter filter = sDuplicateFilter;
+        if (filter != null) flushDuplicates(sConfig, filter, System.nanoTime(), true);
+    }
+
+    /**
+     * Writes the summary lines for held duplicates of all threads.
+     * @param now The current time, see {@link System#nanoTime()}.
+     * @param all True, if all held duplicates should be written, otherwise only the duplicates
+     * which window is over.
+     * */
+    private static void flushDuplicates(LogConfig config, DuplicateFilter filter, long now,
+            boolean all) {
+        final java.util.List<DuplicateFilter.Summary> summaries =
+                new java.util.ArrayList<DuplicateFilter.Summary>();
+        filter.sweep(now, all, summaries);
+        if (summaries.isEmpty()) return;
+        final CallState state = enter();
+        try {
+            for (int i = 0, size = summaries.size(); i < size; i++) {
+                printRepeated(config, summaries.get(i));
+            }
+        } finally {
+            exit(state);
+        }
+    }
+
+    /**
+     * Writes the summary line for held duplicates.
+     * */
+    private static void printRepeated(LogConfig config, DuplicateFilter.Summary summary) {
+        LogCat.print(config, System.currentTimeMillis(), summary.thread, summary.priority,
+                summary.tag, "Last message repeated " + summary.count + " times", null, false,
+                null, summary.context);
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Exceptions
+    /*----------------------------------------------------------------------------------------*/
+
+    /** The renderer of exceptions. */
+    private static volatile ThrowableRenderer sThrowableRenderer = ThrowableRenderer.DEFAULT;
+
+    /**
+     * Set the renderer of exceptions in log messages: the depth of cause chain, the number of
+     * frames and collapsing of repeated exceptions, see {@link ThrowableRenderer.Builder}.
+     * @param renderer The renderer, or {@code null} to use {@link ThrowableRenderer#DEFAULT}.
+     * */
+    public static void setThrowableRenderer(ThrowableRenderer renderer) {
+        sThrowableRenderer = renderer != null ? renderer : ThrowableRenderer.DEFAULT;
+    }
+
+    /**
+     * @return The renderer of exceptions in log messages.
+     * */
+    public static ThrowableRenderer getThrowableRenderer() { return sThrowableRenderer; }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Flight recorder
+    /*----------------------------------------------------------------------------------------*/
+
+    /** The flight recorder, or {@code null}. */
+    private static volatile FlightRecorder sFlightRecorder = null;
+
+    /**
+     * Turns on or off the flight recorder. The recorder keeps the last log messages of all
+     * levels (also the messages below the current log level) without formatting, so the context
+     * of an error could be dumped to the sinks, see {@link #dumpFlightRecorder()}. The messages
+     * of {@link MessageSupplier} overloads are recorded only if they are loggable, to not invoke
+     * the supplier.
+     * @param recorder The flight recorder, or {@code null} to turn it off.
+     * @see #installUncaughtExceptionHandler()
+     * */
+    public static void setFlightRecorder(FlightRecorder recorder) {
+        sFlightRecorder = recorder;
+    }
+
+    /**
+     * @return The flight recorder, or {@code null} if it is turned off.
+     * */
+    public static FlightRecorder getFlightRecorder() { return sFlightRecorder; }
+
+    /**
+     * Writes the recorded messages, that were not written to the sinks (below the log level,
+     * for example) and were not dumped before, to the sinks. The dumped messages keep own
+     * time, level and thread, and they are framed by begin and end lines. This method is called
+     * automatically when an error with exception is logged, see
+     * {@link FlightRecorder.Builder#setDumpOnError(boolean)}.
+     * @return The number of dumped messages.
+     * */
+    public static int dumpFlightRecorder() {
+        checkInit();
+        final FlightRecorder recorder = sFlightRecorder;
+        if (recorder == null) return 0;
+        final DumpSink sink = new DumpSink(sDispatcher);
+        recorder.dump(sink, sConfig, true);
+        if (sink.mCount > 0) {
+            sink.writeLine("Flight recorder: end of " + sink.mCount + " recorded messages");
+        }
+        return sink.mCount;
+    }
+
+    /**
+     * Records the log message by the flight recorder, if any.
+     * @return True, if the message should be written: it is accepted or it was accepted before
+     * this call (see {@link #isAllowed(LogConfig, String, int)}).
+     * @param obfuscate True, if the message should be obfuscated, it is obfuscated on dump.
+     * */
+    private static boolean record(LogConfig config, int priority, String tag, String msg,
+            Object[] args, Throwable tr, boolean obfuscate) {
+        final FlightRecorder recorder = sFlightRecorder;
+        // If the recorder was turned off right now, the message was accepted by isAllowed()
+        if (recorder == null || !recorder.isRecorded(priority)) return true;
+        final boolean accepted = isAccepted(config, tag, priority);
+        recorder.record(System.currentTimeMillis(), Thread.currentThread(), priority, tag, msg,
+                args, tr, accepted, obfuscate);
+        return accepted;
+    }
+
+    /**
+     * Dumps the flight recorder before the error with exception, if it is needed.
+     * */
+    private static void dumpOnError() {
+        final FlightRecorder recorder = sFlightRecorder;
+        if (recorder != null && recorder.isDumpOnError()) dumpFlightRecorder();
+    }
+
+    /**
+     * Installs the default handler for uncaught exceptions, that dumps the flight recorder (if
+     * any), logs the exception and writes all pending log messages (see {@link #flush()}). Then
+     * the previous handler is invoked, so the app crashes as usual.
+     * */
+    public static void installUncaughtExceptionHandler() {
+        final Thread.UncaughtExceptionHandler previous =
+                Thread.getDefaultUncaughtExceptionHandler();
+        if (previous instanceof CrashHandler) return;
+        Thread.setDefaultUncaughtExceptionHandler(new CrashHandler(previous));
+    }
+
+    /**
+     * The handler for uncaught exceptions, see {@link #installUncaughtExceptionHandler()}.
+     * */
+    private static final class CrashHandler implements Thread.UncaughtExceptionHandler {
+
+        /** The previous handler, or {@code null}. */
+        private final Thread.UncaughtExceptionHandler mPrevious;
+
+        CrashHandler(Thread.UncaughtExceptionHandler previous) { mPrevious = previous; }
+
+        @Override
+        public void uncaughtException(Thread thread, Throwable e) {
+            try {
+                final LogConfig config = sConfig;
+                if (config.isInit()) {
+                    dumpFlightRecorder();
+                    LogCat.println(config, ERROR, LOG_TAG, "Uncaught exception in thread "
+                            + thread.getName(), e, false);
+                    LogCat.flush();
+                }
+            } catch (Throwable ignored) {
+                // The previous handler should be invoked anyway
+            } finally {
+                if (mPrevious != null) {
+                    mPrevious.uncaughtException(thread, e);
+                } else {
+                    System.err.print("Exception in thread \"" + thread.getName() + "\" ");
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * The sink for dump of flight recorder, it writes the begin line before the first message.
+     * */
+    private static final class DumpSink implements LogSink {
+
+        /** The dispatcher of log events. */
+        private final SinkDispatcher mDispatcher;
+
+        /** The number of dumped messages. */
+        int mCount = 0;
+
+        DumpSink(SinkDispatcher dispatcher) { mDispatcher = dispatcher; }
+
+        /** Writes the service line of dump. */
+        void writeLine(String msg) {
+            final LogEvent event = new LogEvent();
+            event.set(System.currentTimeMillis(), INFO, sConfig.getAppTag(), LOG_TAG, msg,
+                    Thread.currentThread());
+            mDispatcher.write(event);
+        }
+
+        @Override
+        public int write(LogEvent event) {
+            if (mCount++ == 0) writeLine("Flight recorder: begin of recorded messages");
+            return mDispatcher.write(event);
+        }
+
+        @Override
+        public void write(LogEvent[] events, int offset, int count) {
+            for (int i = offset, end = offset + count; i < end; i++) write(events[i]);
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Binary mode
+    /*----------------------------------------------------------------------------------------*/
+
+    /** The writer of log messages in binary form, or {@code null}. */
+    private static volatile BinaryLogWriter sBinaryWriter = null;
+
+    /**
+     * Turns on or off the binary mode. In binary mode, log messages are not formatted and not
+     * written to the sinks: each message is written by {@link BinaryLogWriter} as a compact
+     * binary record with the raw format arguments, on the caller thread (also in asynchronous
+     * mode). The consecutive identical messages are not collapsed in binary mode. The messages
+     * that should be obfuscated are formatted and obfuscated before writing, to not keep
+     * private data in the file. The previous writer is not closed by this method.
+     * @param writer The binary writer, or {@code null} to turn off the binary mode.
+     * @see BinaryLogDecoder
+     * */
+    public static void setBinaryWriter(BinaryLogWriter writer) {
+        sBinaryWriter = writer;
+    }
+
+    /**
+     * @return The writer of log messages in binary form, or {@code null} if the binary mode is
+     * turned off.
+     * */
+    public static BinaryLogWriter getBinaryWriter() { return sBinaryWriter; }
+
+    /**
+     * Writes log message in binary form.
+     * @see #write(LogConfig, int, String, String, Object[], Throwable, boolean, CallSite,
+     * LogContext)
+     * */
+    private static int writeBinary(LogConfig config, BinaryLogWriter writer, long time,
+            int priority, String tag, String msg, Object[] args, Throwable tr, boolean obfuscate,
+            CallSite site, LogContext context) {
+        String trace = null;
+        if (obfuscate) {
+            // The arguments and the stack trace may contain private data
+            if (args != null) msg = LogFormatter.format(obtainBuffer(), msg, args).toString();
+            final StringBuilder builder = obtainBuffer();
+            appendMessage(builder, msg, tr);
+            msg = obfuscateMeasured(config, builder.toString());
+            args = null;
+        } else if (tr != null) {
+            final StringBuilder builder = obtainBuffer();
+            appendMessage(builder, null, tr);
+            trace = builder.toString();
+        }
+        final LogMetrics metrics = sMetrics;
+        if (metrics == null) {
+            return writer.write(time, Thread.currentThread(), priority, config.getAppTag(),
+                    isTagEmpty(tag) ? null : tag, msg, args, trace, site, context);
+        }
+        final long start = System.nanoTime();
+        final int result = writer.write(time, Thread.currentThread(), priority, config.getAppTag(),
+                isTagEmpty(tag) ? null : tag, msg, args, trace, site, context);
+        metrics.addWrite(priority, tag, result, 0, System.nanoTime() - start);
+        return result;
+    }
+
+    /*----------------------------------------------------------------------------------------*/
+    /* Asynchronous mode
+    /*----------------------------------------------------------------------------------------*/
+
+    /** The handler that writes log messages on the writer thread in asynchronous mode. */
+    private static final LogRingBuffer.Handler<LogRingBuffer.Entry> ASYNC_HANDLER =
+            new LogRingBuffer.Handler<LogRingBuffer.Entry>() {
+        @Override
+        public LogRingBuffer.Entry newEntry() { return new LogRingBuffer.Entry(); }
+
+        @Override
+        public void handle(LogRingBuffer.Entry[] entries, int offset, int count) {
+            for (int i = offset, end = offset + count; i < end; i++) {
+                final LogRingBuffer.Entry entry = entries[i];
+                final CallState state = enter();
+                try {
+                    LogCat.writeNow(entry.config, entry.time, entry.thread, entry.priority,
+                            entry.tag, entry.msg, entry.args, entry.typed ? entry.typedArgs : null,
+                            entry.tr, entry.obfuscate, entry.site, entry.context);
+                } catch (RuntimeException ignored) {
+                    // The writer thread should not die because of a single bad entry
+                } finally {
+                    exit(state);
+                    entry.clear();
+                }
+            }
+        }
+
+        @Override
+        public void onIdle() {}
+
+        @Override
+        public void onTick() {
+            final DuplicateFilter filter = sDuplicateFilter;
+            if (filter == null) return;
+            final long now = System.nanoTime();
+            if (filter.isSweepDue(now)) LogCat.flushDuplicates(sConfig, filter, now, false);
+        }
+
+        @Override
+        public void onShutdown() { LogCat.flushDuplicates(); }
+    };
+
+    /**
+     * @return True, if log messages are written in asynchronous mode.
+     * @see #init(String, boolean, boolean, int)
+     * */
+    public static boolean isAsync() { return sRingBuffer != null; }
+
+    /**
+     * @return The number of log messages that were dropped in asynchronous mode, because the
+     * buffer was full, plus the number of log messages that were dropped by sinks, because the
+     * queue of sink was full (see {@link #init(String, boolean, boolean, int, LogSink...)}).
+     * */
+    public static long getDroppedCount() {
+        final LogRingBuffer<LogRingBuffer.Entry> buffer = sRingBuffer;
+        final SinkDispatcher dispatcher = sDispatcher;
+        return (buffer != null ? buffer.getDropped() : 0)
+                + (dispatcher != null ? dispatcher.getDropped() : 0);
+    }
+
+    /**
+     * Waits (no more than 5 seconds) until all pending log messages will be written, writes
+     * the summary lines for held duplicates of all threads (see
+     * {@link #setCollapseDuplicates(boolean, long)}) and flushes the sinks.
+     * @return True, if all pending log messages were written.
+     * */
+    public static boolean flush() { return flush(DEFAULT_FLUSH_TIMEOUT); }
+
+    /**
+     * Waits until all pending log messages will be written, writes the summary lines for held
+     * duplicates of all threads (see {@link #setCollapseDuplicates(boolean, long)}) and flushes
+     * the sinks.
+     * @param timeout The maximum time to wait, in milliseconds.
+     * @return True, if all pending log messages were written.
+     * */
+    public static boolean flush(long timeout) {
+        final long deadline = System.currentTimeMillis() + timeout;
+        final LogRingBuffer<LogRingBuffer.Entry> buffer = sRingBuffer;
+        boolean result = true;
+        if (buffer != null) result = buffer.flush(timeout);
+        flushDuplicates();
+        final SinkDispatcher dispatcher = sDispatcher;
+        if (dispatcher != null) {
+            result &= dispatcher.flush(Math.max(0, deadline - System.currentTimeMillis()));
+        }
+        return result;
+    }
+
+    /**
+     * Writes all pending log messages (no more than 5 seconds), stops the writer thread and
+     * switches {@link LogCat} to synchronous mode. In synchronous mode, this method returns
+     * immediately.
+     * @return True, if all pending log messages were written.
+     * */
+    public static boolean shutdown() { return shutdown(DEFAULT_FLUSH_TIMEOUT); }
+
+    /**
+     * Writes all pending log messages, stops the writer thread and switches {@link LogCat} to
+     * synchronous mode. In synchronous mode, this method returns immediately.
+     * @param timeout The maximum time to wait, in milliseconds.
+     * @return True, if all pending log messages were written.
+     * */
+    public static boolean shutdown(long timeout) {
+        final LogRingBuffer<LogRingBuffer.Entry> buffer = sRingBuffer;
+        if (buffer == null) return true;
+        final long deadline = System.currentTimeMillis() + timeout;
+        sRingBuffer = null;
+        boolean result = buffer.shutdown(timeout);
+        final SinkDispatcher dispatcher = sDispatcher;
+        if (dispatcher != null) {
+            result &= dispatcher.flush(Math.max(0, deadline - System.currentTimeMillis()));
+        }
+        return result;
     }
 
     /*----------------------------------------------------------------------------------------*/
@@ -780,13 +3350,15 @@ public final class LogCat {
      * @param msg The message you would like logged.
      * @return The number of bytes written.
      * */
-    private static int println(int priority, String tag, String msg) {
-       return println(priority, tag, msg, sObfuscateByDefault);
+    static int println(int priority, String tag, String msg) {
+        final LogConfig config = sConfig;
+        return println(config, priority, tag, msg, config.isObfuscateByDefault());
     }
 
     /**
      * Low-level logging call.
      *
+     * @param config The current settings, see {@link #getConfig()}.
      * @param priority The priority/type of this log message.
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
@@ -794,12 +3366,18 @@ public final class LogCat {
      * @param obfuscate True, if you want to obfuscate log message.
      * @return The number of bytes written.
      * */
-    private static int println(int priority, String tag, String msg, boolean obfuscate) {
-        checkInit();
-        if (LogCat.isLoggable(priority)) {
-            if (obfuscate) msg = obfuscate(msg);
-            final String m = (!isTagEmpty(tag)) ? tag + TAG_DELIMITER + msg : msg;
-            return android.util.Log.println(priority, sAppTag, m);
+    private static int println(LogConfig config, int priority, String tag, String msg,
+            boolean obfuscate) {
+        checkInit(config);
+        if (LogCat.isAllowed(config, tag, priority)
+                && LogCat.record(config, priority, tag, msg, null, null, obfuscate)) {
+            final CallState state = enter();
+            try {
+                return LogCat.write(config, priority, tag, msg, null, null, obfuscate,
+                        getCallSite(), LogContext.current());
+            } finally {
+                exit(state);
+            }
         } else {
             return -1;
         }
@@ -811,7 +3389,7 @@ public final class LogCat {
      * @param priority The priority/type of this log message.
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
-     * @param format The format string (see {@link java.util.Formatter#format}).
+     * @param format The format string (see {@link LogFormatter}).
      * @param args The list of arguments passed to the formatter. If there are more arguments than
      *             required by {@code format}, additional arguments are ignored.
      * @return The number of bytes written.
@@ -819,29 +3397,41 @@ public final class LogCat {
      * @throws java.util.IllegalFormatException if the format is invalid.
      * */
     private static int println(int priority, String tag, String format, Object... args) {
-        return println(priority, tag, sObfuscateByDefault, format, args);
+        final LogConfig config = sConfig;
+        return println(config, priority, tag, config.isObfuscateByDefault(), format, args);
     }
 
     /**
      * Low-level logging call.
      *
+     * @param config The current settings, see {@link #getConfig()}.
      * @param priority The priority/type of this log message.
      * @param tag Used to identify the source of a log message. It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
      * @param obfuscate True, if you want to obfuscate log message.
-     * @param format The format string (see {@link java.util.Formatter#format}).
+     * @param format The format string (see {@link LogFormatter}).
      * @param args The list of arguments passed to the formatter. If there are more arguments than
      *             required by {@code format}, additional arguments are ignored.
      * @return The number of bytes written.
      * @throws NullPointerException if {@code format == null}.
      * @throws java.util.IllegalFormatException if the format is invalid.
      * */
-    private static int println(int priority, String tag, boolean obfuscate, String format,
-            Object... args) {
+    private static int println(LogConfig config, int priority, String tag, boolean obfuscate,
+            String format, Object... args) {
         // This is a double check, but it is faster than String.format()
-        if (LogCat.isLoggable(priority)) {
-            final String msg = String.format(format, args);
-            return LogCat.println(priority, tag, msg, obfuscate);
+        if (LogCat.isAllowed(config, tag, priority)) {
+            if (format == null) {
+                clearCallSite();
+                throw new NullPointerException("format == null");
+            }
+            if (!LogCat.record(config, priority, tag, format, args, null, obfuscate)) return -1;
+            final CallState state = enter();
+            try {
+                return LogCat.write(config, priority, tag, format, args, null, obfuscate,
+                        getCallSite(), LogContext.current());
+            } finally {
+                exit(state);
+            }
         } else {
             return -1;
         }
@@ -858,12 +3448,14 @@ public final class LogCat {
      * @return The number of bytes written.
      * */
     private static int println(int priority, String tag, String msg, Throwable tr) {
-        return println(priority, tag, msg, tr, sObfuscateByDefault);
+        final LogConfig config = sConfig;
+        return println(config, priority, tag, msg, tr, config.isObfuscateByDefault());
     }
 
     /**
      * Low-level logging call.
      *
+     * @param config The current settings, see {@link #getConfig()}.
      * @param priority The priority/type of this log message.
      * @param tag Used to identify the source of a log message.  It usually identifies the class or
      *            activity where the log call occurs. Maybe {@code null}.
@@ -872,10 +3464,354 @@ public final class LogCat {
      * @param obfuscate True, if you want to obfuscate log message.
      * @return The number of bytes written.
      * */
-    private static int println(int priority, String tag, String msg, Throwable tr,
-            boolean obfuscate) {
-        return LogCat.println(priority, tag, msg + NEW_LINE +
-                android.util.Log.getStackTraceString(tr), obfuscate);
+    private static int println(LogConfig config, int priority, String tag, String msg,
+            Throwable tr, boolean obfuscate) {
+        checkInit(config);
+        if (LogCat.isAllowed(config, tag, priority)
+                && LogCat.record(config, priority, tag, msg, null, tr, obfuscate)) {
+            if (tr != null && priority >= ERROR) dumpOnError();
+            final CallState state = enter();
+            try {
+                return LogCat.write(config, priority, tag, msg, null, tr, obfuscate,
+                        getCallSite(), LogContext.current());
+            } finally {
+                exit(state);
+            }
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * Low-level logging call for format methods with fixed number of arguments. The log level
+     * should be checked before this call.
+     *
+     * @param config The current settings, see {@link #getConfig()}.
+     * @param priority The priority/type of this log message.
+     * @param tag Used to identify the source of a log message.  It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param format The format string (see {@link LogFormatter}).
+     * @param args The list of arguments, it will be cleared after this call. In asynchronous
+     *             mode it is copied to the buffer, and formatted on the writer thread.
+     * @return The number of bytes written.
+     * @throws NullPointerException if {@code format == null}.
+     * @throws java.util.IllegalFormatException if the format is invalid.
+     * */
+    private static int printf(LogConfig config, int priority, String tag, String format,
+            LogArgs args) {
+        final CallState state = enter();
+        try {
+            final FlightRecorder recorder = sFlightRecorder;
+            if (recorder != null && recorder.isRecorded(priority)) {
+                final boolean accepted = isAccepted(config, tag, priority);
+                recorder.record(System.currentTimeMillis(), Thread.currentThread(), priority,
+                        tag, format, args, accepted, config.isObfuscateByDefault());
+                if (!accepted) {
+                    args.clear();
+                    return -1;
+                }
+            }
+            final CallSite site = getCallSite();
+            final LogContext context = LogContext.current();
+            final BinaryLogWriter binary = sBinaryWriter;
+            if (binary != null && !config.isObfuscateByDefault()) {
+                // The arguments are written as is, without formatting and boxing
+                final LogMetrics metrics = sMetrics;
+                final long start = metrics != null ? System.nanoTime() : 0;
+                final int result;
+                try {
+                    result = binary.write(System.currentTimeMillis(), Thread.currentThread(),
+                            priority, config.getAppTag(), isTagEmpty(tag) ? null : tag, format,
+                            args, site, context);
+                } finally {
+                    args.clear();
+                }
+                if (metrics != null) {
+                    metrics.addWrite(priority, tag, result, 0, System.nanoTime() - start);
+                }
+                return result;
+            }
+            try {
+                return LogCat.write(config, priority, tag, format, null, args, null,
+                        config.isObfuscateByDefault(), site, context);
+            } finally {
+                args.clear();
+            }
+        } finally {
+            exit(state);
+        }
+    }
+
+    /**
+     * Low-level logging call.
+     *
+     * @param priority The priority/type of this log message.
+     * @param tag Used to identify the source of a log message.  It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged. It will be invoked only if
+     *            this message is allowed to be logged.
+     * @param tr An exception to log, or {@code null}.
+     * @return The number of bytes written.
+     * */
+    private static int println(int priority, String tag, MessageSupplier msg, Throwable tr) {
+        final LogConfig config = sConfig;
+        return println(config, priority, tag, msg, tr, config.isObfuscateByDefault());
+    }
+
+    /**
+     * Low-level logging call.
+     *
+     * @param config The current settings, see {@link #getConfig()}.
+     * @param priority The priority/type of this log message.
+     * @param tag Used to identify the source of a log message.  It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The supplier of the message you would like logged. It will be invoked only if
+     *            this message is allowed to be logged.
+     * @param tr An exception to log, or {@code null}.
+     * @param obfuscate True, if you want to obfuscate log message.
+     * @return The number of bytes written.
+     * */
+    private static int println(LogConfig config, int priority, String tag, MessageSupplier msg,
+            Throwable tr, boolean obfuscate) {
+        checkInit(config);
+        if (!LogCat.isAllowed(config, tag, priority)) return -1;
+        final CallState state = enter();
+        try {
+            final FlightRecorder recorder = sFlightRecorder;
+            if (recorder != null && recorder.isRecorded(priority)) {
+                // The supplier is invoked only for accepted messages, they are recorded as is
+                if (!isAccepted(config, tag, priority)) return -1;
+                final String message = msg.get();
+                recorder.record(System.currentTimeMillis(), Thread.currentThread(), priority,
+                        tag, message, null, tr, true, obfuscate);
+                if (tr != null && priority >= ERROR) dumpOnError();
+                return LogCat.write(config, priority, tag, message, null, tr, obfuscate,
+                        getCallSite(), LogContext.current());
+            }
+            if (tr != null && priority >= ERROR) dumpOnError();
+            return LogCat.write(config, priority, tag, msg.get(), null, tr, obfuscate,
+                    getCallSite(), LogContext.current());
+        } finally {
+            exit(state);
+        }
+    }
+
+    /**
+     * Low-level logging call for structured log messages. The message and the fields are encoded
+     * into the per-thread buffer, the obfuscator (if it is enabled by default) is applied to the
+     * values only. The diagnostic context (see {@link LogContext}) is encoded as fields too.
+     *
+     * @param priority The priority/type of this log message.
+     * @param tag Used to identify the source of a log message.  It usually identifies the class or
+     *            activity where the log call occurs. Maybe {@code null}.
+     * @param msg The message you would like logged, or {@code null}.
+     * @param fields The fields of log message, they will be cleared after this call. Maybe
+     *               {@code null}.
+     * @return The number of bytes written.
+     * */
+    private static int println(int priority, String tag, String msg, LogFields fields) {
+        if (fields == null) fields = LogFields.EMPTY;
+        final LogConfig config = sConfig;
+        CallState state = null;
+        try {
+            checkInit(config);
+            if (!LogCat.isAllowed(config, tag, priority)) return -1;
+            state = enter();
+            final StringBuilder builder = obtainBuffer();
+            // The context is encoded as fields, so it is not prefixed to the line. The values
+            // are already obfuscated, so the line is recorded as is
+            fields.appendTo(builder, config.getFieldFormat(), msg, LogContext.current(),
+                    config.isObfuscateByDefault() ? config.getObfuscator() : null);
+            final String line = builder.toString();
+            if (!LogCat.record(config, priority, tag, line, null, null, false)) return -1;
+            return LogCat.write(config, priority, tag, line, null, null, false, getCallSite(),
+                    null);
+        } finally {
+            if (state != null) exit(state);
+            if (fields != LogFields.EMPTY) fields.clear();
+        }
+    }
+
+    /**
+     * Writes log message that is already allowed to be logged. In asynchronous mode, the message
+     * only put to the buffer.
+     *
+     * @param config The current settings, see {@link #getConfig()}.
+     * @param priority The priority/type of this log message.
+     * @param tag Used to identify the source of a log message. Maybe {@code null}.
+     * @param msg The message you would like logged, or the format string if {@code args} is not
+     *            {@code null}. Maybe {@code null} if {@code tr} is not {@code null}.
+     * @param args The list of arguments passed to the formatter, or {@code null}.
+     * @param tr An exception to log, or {@code null}.
+     * @param obfuscate True, if you want to obfuscate log message.
+     * @param site The place of log call, or {@code null}.
+     * @param context The diagnostic context of log call, or {@code null}.
+     * @return The number of bytes written, {@code 0} if the message was put to the buffer in
+     * asynchronous mode, or {@code -1} if the message was dropped.
+     * */
+    private static int write(LogConfig config, int priority, String tag, String msg,
+            Object[] args, Throwable tr, boolean obfuscate, CallSite site, LogContext context) {
+        return LogCat.write(config, priority, tag, msg, args, null, tr, obfuscate, site, context);
+    }
+
+    /**
+     * Writes log message that is already allowed to be logged, with array or list of format
+     * arguments. In asynchronous mode, the list of arguments is copied to the buffer.
+     * @param typed The list of format arguments, or {@code null}. It is not cleared.
+     * @see #write(LogConfig, int, String, String, Object[], Throwable, boolean, CallSite,
+     * LogContext)
+     * */
+    private static int write(LogConfig config, int priority, String tag, String msg,
+            Object[] args, LogArgs typed, Throwable tr, boolean obfuscate, CallSite site,
+            LogContext context) {
+        final long time = System.currentTimeMillis();
+        final LogMetrics metrics = sMetrics;
+        if (metrics != null) reportMetrics(config, metrics, time);
+        final BinaryLogWriter binary = sBinaryWriter;
+        if (binary != null) {
+            // The binary records are written on the caller thread
+            if (typed != null) msg = LogFormatter.format(obtainBuffer(), msg, typed).toString();
+            return writeBinary(config, binary, time, priority, tag, msg, args, tr, obfuscate,
+                    site, context);
+        }
+        final LogRingBuffer<LogRingBuffer.Entry> buffer = sRingBuffer;
+        if (buffer != null) {
+            final long seq = buffer.claim();
+            if (seq == LogRingBuffer.CLOSED) {
+                // The buffer was shut down concurrently, so the message is written right now
+                return LogCat.writeNow(config, time, Thread.currentThread(), priority, tag, msg,
+                        args, typed, tr, obfuscate, site, context);
+            }
+            if (seq < 0) {
+                if (metrics != null) metrics.add(LogMetrics.DROPPED, priority, tag, 1);
+                return -1;
+            }
+            final LogRingBuffer.Entry entry = buffer.get(seq);
+            entry.time = time;
+            entry.thread = Thread.currentThread();
+            entry.priority = priority;
+            entry.tag = tag;
+            entry.msg = msg;
+            entry.args = args;
+            if (typed != null) {
+                // The primitive arguments are copied without boxing
+                entry.typedArgs.copyFrom(typed);
+                entry.typed = true;
+            }
+            entry.tr = tr;
+            entry.obfuscate = obfuscate;
+            entry.site = site;
+            entry.context = context;
+            entry.config = config;
+            buffer.publish(seq);
+            return 0;
+        }
+        return LogCat.writeNow(config, time, Thread.currentThread(), priority, tag, msg, args,
+                typed, tr, obfuscate, site, context);
+    }
+
+    /**
+     * Formats, filters duplicates, obfuscates and writes log message to the sinks.
+     * @param time The time of log call, see {@link System#currentTimeMillis()}.
+     * @param thread The thread that made log call.
+     * @param typed The list of format arguments, or {@code null}. It is not cleared.
+     * @see #write(LogConfig, int, String, String, Object[], Throwable, boolean, CallSite,
+     * LogContext)
+     * */
+    private static int writeNow(LogConfig config, long time, Thread thread, int priority,
+            String tag, String msg, Object[] args, LogArgs typed, Throwable tr,
+            boolean obfuscate, CallSite site, LogContext context) {
+        if (args != null) {
+            msg = LogFormatter.format(obtainBuffer(), msg, args).toString();
+        } else if (typed != null) {
+            msg = LogFormatter.format(obtainBuffer(), msg, typed).toString();
+        }
+        final DuplicateFilter filter = sDuplicateFilter;
+        if (filter != null) {
+            final long now = System.nanoTime();
+            // Any log call reports the held duplicates of other threads, which window is over
+            if (filter.isSweepDue(now)) flushDuplicates(config, filter, now, false);
+            if (tr == null) {
+                final DuplicateFilter.Run run = filter.get(thread);
+                final DuplicateFilter.Summary summary;
+                final boolean held;
+                synchronized (run) {
+                    held = run.matches(priority, tag, msg, context);
+                    if (held) {
+                        run.count++;
+                        summary = now - run.start >= filter.window ? run.take(now) : null;
+                    } else {
+                        summary = run.take(now);
+                        run.start(priority, tag, msg, context, now);
+                    }
+                }
+                if (summary != null) printRepeated(config, summary);
+                if (held) return 0;
+            }
+        }
+        return LogCat.print(config, time, thread, priority, tag, msg, tr, obfuscate, site,
+                context);
+    }
+
+    /**
+     * Obfuscates and writes log message to the sinks.
+     * @see #writeNow(LogConfig, long, Thread, int, String, String, Object[], LogArgs, Throwable,
+     * boolean, CallSite, LogContext)
+     * */
+    private static int print(LogConfig config, long time, Thread thread, int priority,
+            String tag, String msg, Throwable tr, boolean obfuscate, CallSite site,
+            LogContext context) {
+        final boolean printSite = site != null && config.isPrintCallSites();
+        final boolean printContext = context != null && !context.isEmpty();
+        if (tr != null || printSite || printContext) {
+            final StringBuilder builder = obtainBuffer();
+            if (printSite) builder.append(site).append(TAG_DELIMITER);
+            if (printContext) builder.append(context.getPrefix());
+            appendMessage(builder, msg, tr);
+            msg = builder.toString();
+        } else if (msg == null) {
+            msg = "null";
+        }
+        if (obfuscate) msg = obfuscateMeasured(config, msg);
+        final LogMetrics metrics = sMetrics;
+        final LogEvent event = obtainEvent();
+        event.set(time, priority, config.getAppTag(), isTagEmpty(tag) ? null : tag, msg, thread);
+        event.setCallSite(site);
+        event.setContext(context);
+        try {
+            if (metrics == null) return sDispatcher.write(event);
+            final long start = System.nanoTime();
+            final int result = sDispatcher.write(event);
+            metrics.addWrite(priority, tag, result, msg.length(), System.nanoTime() - start);
+            return result;
+        } finally {
+            event.clear();
+        }
+    }
+
+    /**
+     * Appends the message and the printable representation of exception (if it is not
+     * {@code null}) to the buffer.
+     * */
+    static void appendMessage(StringBuilder builder, String msg, Throwable tr) {
+        if (tr == null) {
+            builder.append(msg);
+            return;
+        }
+        if (msg != null) builder.append(msg).append(NEW_LINE);
+        sThrowableRenderer.render(builder, tr);
+    }
+
+    /**
+     * Appends the short description of thread to the buffer, the same as
+     * {@link Thread#toString()}.
+     * */
+    private static StringBuilder appendThread(StringBuilder builder, Thread thread) {
+        builder.append("Thread[").append(thread.getName()).append(',')
+                .append(thread.getPriority()).append(',');
+        final ThreadGroup group = thread.getThreadGroup();
+        if (group != null) builder.append(group.getName());
+        return builder.append(']');
     }
 
 }
\ No newline at end of file
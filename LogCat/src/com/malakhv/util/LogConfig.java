@@ -0,0 +1,221 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+/**
+ * The immutable snapshot of runtime settings of {@link LogCat}: the main app tag, the debug
+ * flag, obfuscation, printing of call sites and the format of structured messages. The current
+ * snapshot is published through a single volatile reference, each log call reads it once and
+ * passes it down, so these settings are consistent within the call, and the changes made from
+ * any thread are visible to all threads. The settings are changed atomically by
+ * {@link LogCat#reconfigure()}, for example:
+ * <br>&nbsp;<br>
+ * &#09;{@code LogCat.reconfigure().setObfuscateByDefault(true)}<br>
+ * &#09;&#09;{@code .setObfuscator(obfuscator).apply();}
+ * <br>&nbsp;<br>
+ *
+ * <p>The other state of {@link LogCat} is not in the snapshot, it is read from own volatile
+ * fields, at the point of use:</p>
+ * <ul>
+ * <li>the log levels (the level of app tag, its expiry time and refresh interval, and the
+ * levels of component tags) are the cache of system properties, that is refreshed by any log
+ * call, so it would replace the snapshot several times per second;</li>
+ * <li>the writer and the sinks (the async buffer and the sink dispatcher) have own life cycle,
+ * they are replaced by {@code init} and {@code shutdown} with handoff of pending messages;</li>
+ * <li>the optional components (rate limiter, metrics, flight recorder, binary writer, duplicate
+ * filter, exception renderer and the flag of use of call sites) have own setters, and each of
+ * them is read by the step that uses it, usually only when it is set.</li>
+ * </ul>
+ * <p>So a log call that is concurrent with a change of these could see the old value in one
+ * step and the new value in the next one. It is harmless, because they are independent.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LogConfig {
+
+    /** The flags of changed settings in {@link Builder}. */
+    private static final int CHANGED_DEBUG = 1;
+    private static final int CHANGED_OBFUSCATE_BY_DEFAULT = 1 << 1;
+    private static final int CHANGED_OBFUSCATOR = 1 << 2;
+    private static final int CHANGED_PRINT_CALL_SITES = 1 << 3;
+    private static final int CHANGED_FIELD_FORMAT = 1 << 4;
+
+    /** The main app tag, or {@code null} if {@link LogCat} was not been initialized. */
+    private final String mAppTag;
+
+    /** The debug flag, all log levels are enabled if it equals {@code true}. */
+    private final boolean mDebug;
+
+    /** The behavior of obfuscation by default. */
+    private final boolean mObfuscateByDefault;
+
+    /** The obfuscator for log messages, or {@code null}. */
+    private final LogCat.LogObfuscator mObfuscator;
+
+    /** True, if the call sites are printed in log messages. */
+    private final boolean mPrintCallSites;
+
+    /** The format of structured log messages, see {@link LogFields}. */
+    private final int mFieldFormat;
+
+    /**
+     * Creates a new snapshot, it is used by {@link LogCat} only.
+     * */
+    LogConfig(String appTag, boolean debug, boolean obfuscateByDefault,
+            LogCat.LogObfuscator obfuscator, boolean printCallSites, int fieldFormat) {
+        mAppTag = appTag;
+        mDebug = debug;
+        mObfuscateByDefault = obfuscateByDefault;
+        mObfuscator = obfuscator;
+        mPrintCallSites = printCallSites;
+        mFieldFormat = fieldFormat;
+    }
+
+    /**
+     * @return The main app tag, or {@code null} if {@link LogCat} was not been initialized.
+     * */
+    public String getAppTag() { return mAppTag; }
+
+    /**
+     * @return True, if {@link LogCat} was been initialized.
+     * */
+    public boolean isInit() { return mAppTag != null; }
+
+    /**
+     * @return True, if all log levels are enabled (see {@link LogCat#init(String, boolean)}).
+     * */
+    public boolean isDebug() { return mDebug; }
+
+    /**
+     * @return True, if log messages are obfuscated by default.
+     * */
+    public boolean isObfuscateByDefault() { return mObfuscateByDefault; }
+
+    /**
+     * @return The obfuscator for log messages, or {@code null}.
+     * */
+    public LogCat.LogObfuscator getObfuscator() { return mObfuscator; }
+
+    /**
+     * @return True, if the call sites are printed in log messages, see
+     * {@link LogCat#setPrintCallSites(boolean)}.
+     * */
+    public boolean isPrintCallSites() { return mPrintCallSites; }
+
+    /**
+     * @return The format of structured log messages, {@link LogFields#JSON} or
+     * {@link LogFields#LOGFMT}.
+     * */
+    public int getFieldFormat() { return mFieldFormat; }
+
+    /**
+     * Returns the copy of this snapshot with new main app tag and debug flag.
+     * */
+    LogConfig withAppTag(String appTag, boolean debug) {
+        return new LogConfig(appTag, debug, mObfuscateByDefault, mObfuscator, mPrintCallSites,
+                mFieldFormat);
+    }
+
+    /**
+     * The builder of changes of {@link LogConfig}. Only the settings that were set in this
+     * builder are changed, other settings are kept, also if they are changed concurrently by
+     * other thread.
+     * */
+    public static final class Builder {
+        private int mChanged = 0;
+        private boolean mDebug;
+        private boolean mObfuscateByDefault;
+        private LogCat.LogObfuscator mObfuscator;
+        private boolean mPrintCallSites;
+        private int mFieldFormat;
+
+        /**
+         * Set the debug flag. If it equals {@code true}, all log levels will be enabled for the
+         * main app tag. Use {@code true} for debug mode only.
+         * */
+        public Builder setDebug(boolean debug) {
+            mDebug = debug;
+            mChanged |= CHANGED_DEBUG;
+            return this;
+        }
+
+        /**
+         * Set the default behaviour for log obfuscator.
+         * @param obfuscate True, if you want to obfuscate log messages by default.
+         * */
+        public Builder setObfuscateByDefault(boolean obfuscate) {
+            mObfuscateByDefault = obfuscate;
+            mChanged |= CHANGED_OBFUSCATE_BY_DEFAULT;
+            return this;
+        }
+
+        /**
+         * Set the obfuscator for log messages, or {@code null} to not obfuscate them.
+         * */
+        public Builder setObfuscator(LogCat.LogObfuscator obfuscator) {
+            mObfuscator = obfuscator;
+            mChanged |= CHANGED_OBFUSCATOR;
+            return this;
+        }
+
+        /**
+         * Set whether or not the call sites are printed in log messages, see
+         * {@link LogCat#setPrintCallSites(boolean)}.
+         * */
+        public Builder setPrintCallSites(boolean print) {
+            mPrintCallSites = print;
+            mChanged |= CHANGED_PRINT_CALL_SITES;
+            return this;
+        }
+
+        /**
+         * Set the format of structured log messages (see {@link LogFields}), {@link LogFields#JSON}
+         * by default.
+         * @param format The format, {@link LogFields#JSON} or {@link LogFields#LOGFMT}.
+         * */
+        public Builder setFieldFormat(int format) {
+            if (format != LogFields.JSON && format != LogFields.LOGFMT) {
+                throw new IllegalArgumentException("Unknown field format: " + format);
+            }
+            mFieldFormat = format;
+            mChanged |= CHANGED_FIELD_FORMAT;
+            return this;
+        }
+
+        /**
+         * Applies the changes to the current settings of {@link LogCat} atomically.
+         * @return The new settings.
+         * */
+        public LogConfig apply() { return LogCat.reconfigure(this); }
+
+        /**
+         * Returns the copy of specified snapshot with changes of this builder.
+         * */
+        LogConfig applyTo(LogConfig config) {
+            return new LogConfig(config.mAppTag,
+                    (mChanged & CHANGED_DEBUG) != 0 ? mDebug : config.mDebug,
+                    (mChanged & CHANGED_OBFUSCATE_BY_DEFAULT) != 0 ? mObfuscateByDefault
+                            : config.mObfuscateByDefault,
+                    (mChanged & CHANGED_OBFUSCATOR) != 0 ? mObfuscator : config.mObfuscator,
+                    (mChanged & CHANGED_PRINT_CALL_SITES) != 0 ? mPrintCallSites
+                            : config.mPrintCallSites,
+                    (mChanged & CHANGED_FIELD_FORMAT) != 0 ? mFieldFormat : config.mFieldFormat);
+        }
+    }
+
+}
@@ -0,0 +1,247 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+/**
+ * The per-thread diagnostic context: the key-value pairs (a request id or a user session, for
+ * example) that are added to each log message of the current thread, for example:
+ * <br>&nbsp;<br>
+ * &#09;{@code LogContext.put("rid", requestId);}<br>
+ * &#09;{@code LogCat.d(TAG, "Loaded");   // D/App: Net: [rid=42] Loaded}
+ * <br>&nbsp;<br>
+ * The context is an immutable snapshot, the changes create a new snapshot (copy-on-write), and
+ * its printable prefix is built once. So the log calls read the context without allocations,
+ * and the context could be captured and restored by a single reference: when a task hops to
+ * other thread, use {@link #wrap(Runnable)}, {@link #wrap(java.util.concurrent.Callable)} or
+ * {@link #wrap(java.util.concurrent.Executor)}.
+ *
+ * <p>The context is prefixed to text messages, encoded as fields into structured messages (see
+ * {@link LogFields}), written to binary records and available to sinks (see
+ * {@link LogEvent#getContext()}).</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LogContext {
+
+    /** The empty context. */
+    public static final LogContext EMPTY = new LogContext(new String[0], new String[0]);
+
+    /** The context of each thread. */
+    private static final ThreadLocal<LogContext> sCurrent = new ThreadLocal<LogContext>() {
+        @Override
+        protected LogContext initialValue() { return EMPTY; }
+    };
+
+    /** The keys, in order of adding. */
+    private final String[] mKeys;
+
+    /** The values. */
+    private final String[] mValues;
+
+    /** The printable prefix of log messages, like {@code "[rid=42 sid=abc] "}. */
+    private final String mPrefix;
+
+    private LogContext(String[] keys, String[] values) {
+        mKeys = keys;
+        mValues = values;
+        if (keys.length == 0) {
+            mPrefix = "";
+            return;
+        }
+        final StringBuilder builder = new StringBuilder().append('[');
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) builder.append(' ');
+            builder.append(keys[i]).append('=').append(values[i]);
+        }
+        mPrefix = builder.append("] ").toString();
+    }
+
+    /**
+     * @return The context of current thread, it could be restored later by
+     * {@link #attach(LogContext)}.
+     * */
+    public static LogContext current() { return sCurrent.get(); }
+
+    /**
+     * Set the context of current thread.
+     * @param context The context, or {@code null} to clear the context.
+     * @return The previous context of current thread, to restore it later.
+     * */
+    public static LogContext attach(LogContext context) {
+        final LogContext previous = sCurrent.get();
+        sCurrent.set(context != null ? context : EMPTY);
+        return previous;
+    }
+
+    /**
+     * Puts the value to the context of current thread.
+     * @param value The value, or {@code null} to remove the key.
+     * */
+    public static void put(String key, String value) {
+        final LogContext context = sCurrent.get();
+        sCurrent.set(value != null ? context.with(key, value) : context.without(key));
+    }
+
+    /**
+     * Puts the value to the context of current thread.
+     * */
+    public static void put(String key, long value) { put(key, String.valueOf(value)); }
+
+    /**
+     * Removes the key from the context of current thread.
+     * */
+    public static void remove(String key) { sCurrent.set(sCurrent.get().without(key)); }
+
+    /**
+     * Removes all keys from the context of current thread.
+     * */
+    public static void clear() { sCurrent.set(EMPTY); }
+
+    /**
+     * Returns the task that runs specified task with the context of current thread, and then
+     * restores the context of its thread.
+     * */
+    public static Runnable wrap(final Runnable task) {
+        if (task == null) throw new NullPointerException("task == null");
+        final LogContext context = current();
+        return new Runnable() {
+            @Override
+            public void run() {
+                final LogContext previous = attach(context);
+                try {
+                    task.run();
+                } finally {
+                    attach(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the task that runs specified task with the context of current thread, and then
+     * restores the context of its thread.
+     * */
+    public static <V> java.util.concurrent.Callable<V> wrap(
+            final java.util.concurrent.Callable<V> task) {
+        if (task == null) throw new NullPointerException("task == null");
+        final LogContext context = current();
+        return new java.util.concurrent.Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                final LogContext previous = attach(context);
+                try {
+                    return task.call();
+                } finally {
+                    attach(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the executor that runs each task with the context of thread that submitted this
+     * task.
+     * */
+    public static java.util.concurrent.Executor wrap(
+            final java.util.concurrent.Executor executor) {
+        if (executor == null) throw new NullPointerException("executor == null");
+        return new java.util.concurrent.Executor() {
+            @Override
+            public void execute(Runnable task) {
+                final LogContext context = current();
+                executor.execute(context.isEmpty() ? task : wrap(task));
+            }
+        };
+    }
+
+    /**
+     * Returns the copy of this context with specified value.
+     * */
+    public LogContext with(String key, String value) {
+        if (key == null) throw new NullPointerException("key == null");
+        if (value == null) throw new NullPointerException("value == null");
+        final int index = indexOf(key);
+        if (index >= 0) {
+            if (value.equals(mValues[index])) return this;
+            final String[] values = mValues.clone();
+            values[index] = value;
+            return new LogContext(mKeys, values);
+        }
+        final int size = mKeys.length;
+        final String[] keys = java.util.Arrays.copyOf(mKeys, size + 1);
+        final String[] values = java.util.Arrays.copyOf(mValues, size + 1);
+        keys[size] = key;
+        values[size] = value;
+        return new LogContext(keys, values);
+    }
+
+    /**
+     * Returns the copy of this context without specified key.
+     * */
+    public LogContext without(String key) {
+        final int index = indexOf(key);
+        if (index < 0) return this;
+        final int size = mKeys.length - 1;
+        if (size == 0) return EMPTY;
+        final String[] keys = new String[size];
+        final String[] values = new String[size];
+        System.arraycopy(mKeys, 0, keys, 0, index);
+        System.arraycopy(mValues, 0, values, 0, index);
+        System.arraycopy(mKeys, index + 1, keys, index, size - index);
+        System.arraycopy(mValues, index + 1, values, index, size - index);
+        return new LogContext(keys, values);
+    }
+
+    /**
+     * @return The value, or {@code null} if there is no such key.
+     * */
+    public String get(String key) {
+        final int index = indexOf(key);
+        return index >= 0 ? mValues[index] : null;
+    }
+
+    /** @return The number of keys. */
+    public int size() { return mKeys.length; }
+
+    /** @return True, if there are no keys. */
+    public boolean isEmpty() { return mKeys.length == 0; }
+
+    /** @return The key at specified index, in order of adding. */
+    public String getKey(int index) { return mKeys[index]; }
+
+    /** @return The value at specified index, in order of adding. */
+    public String getValue(int index) { return mValues[index]; }
+
+    /**
+     * @return The printable prefix of log messages, like {@code "[rid=42 sid=abc] "}, or empty
+     * string if there are no keys.
+     * */
+    public String getPrefix() { return mPrefix; }
+
+    /** Returns the index of key, or {@code -1}. */
+    private int indexOf(String key) {
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mKeys[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() { return mPrefix; }
+
+}
@@ -0,0 +1,189 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+/**
+ * The log event, that is passed to {@link LogSink}. It contains the final message: formatted,
+ * obfuscated, with printable representation of exception (if any).
+ *
+ * <p>The events are reused by {@link LogCat}, so a sink should not keep the event after
+ * {@link LogSink#write(LogEvent)} call, please use {@link #copy()} if you need it.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LogEvent {
+
+    /** The time of event, see {@link System#currentTimeMillis()}. */
+    private long mTime;
+
+    /** The priority/type of event. */
+    private int mPriority;
+
+    /** The main app tag. */
+    private String mAppTag;
+
+    /** The component tag, or {@code null}. */
+    private String mTag;
+
+    /** The message. */
+    private String mMessage;
+
+    /** The id of thread that wrote this event. */
+    private long mThreadId;
+
+    /** The name of thread that wrote this event. */
+    private String mThreadName;
+
+    /** The place of log call, or {@code null}. */
+    private CallSite mCallSite;
+
+    /** The diagnostic context of log call. */
+    private LogContext mContext = LogContext.EMPTY;
+
+    /** Creates a new empty event, it is used by {@link LogCat} only. */
+    LogEvent() {}
+
+    /** @return The time of this event, see {@link System#currentTimeMillis()}. */
+    public long getTime() { return mTime; }
+
+    /** @return The priority/type of this event, see {@link LogCat#DEBUG}, for example. */
+    public int getPriority() { return mPriority; }
+
+    /** @return The main app tag, see {@link LogCat#init(String)}. */
+    public String getAppTag() { return mAppTag; }
+
+    /** @return The component tag, or {@code null} if the event has no component tag. */
+    public String getTag() { return mTag; }
+
+    /** @return The message, with printable representation of exception (if any). */
+    public String getMessage() { return mMessage; }
+
+    /** @return The id of thread that wrote this event. */
+    public long getThreadId() { return mThreadId; }
+
+    /** @return The name of thread that wrote this event. */
+    public String getThreadName() { return mThreadName; }
+
+    /**
+     * @return The place of log call, or {@code null} if it is unknown (see
+     * {@link LogCat#callSite(CallSite)}).
+     * */
+    public CallSite getCallSite() { return mCallSite; }
+
+    /**
+     * @return The diagnostic context of log call (see {@link LogContext}), it is empty if there is
+     * no context. The context is also prefixed to the message.
+     * */
+    public LogContext getContext() { return mContext; }
+
+    /**
+     * Set all fields of this event.
+     * */
+    void set(long time, int priority, String appTag, String tag, String message, Thread thread) {
+        set(time, priority, appTag, tag, message, thread.getId(), thread.getName());
+    }
+
+    /**
+     * Set all fields of this event.
+     * */
+    void set(long time, int priority, String appTag, String tag, String message, long threadId,
+            String threadName) {
+        mTime = time;
+        mPriority = priority;
+        mAppTag = appTag;
+        mTag = tag;
+        mMessage = message;
+        mThreadId = threadId;
+        mThreadName = threadName;
+        mCallSite = null;
+        mContext = LogContext.EMPTY;
+    }
+
+    /**
+     * Set the place of log call.
+     * */
+    void setCallSite(CallSite site) { mCallSite = site; }
+
+    /**
+     * Set the diagnostic context of log call, or {@code null} if there is no context.
+     * */
+    void setContext(LogContext context) { mContext = context != null ? context : LogContext.EMPTY; }
+
+    /**
+     * Copies all fields from other event.
+     * */
+    void set(LogEvent other) {
+        mTime = other.mTime;
+        mPriority = other.mPriority;
+        mAppTag = other.mAppTag;
+        mTag = other.mTag;
+        mMessage = other.mMessage;
+        mThreadId = other.mThreadId;
+        mThreadName = other.mThreadName;
+        mCallSite = other.mCallSite;
+        mContext = other.mContext;
+    }
+
+    /** Clears all references, to not keep it in memory. */
+    void clear() {
+        mAppTag = null;
+        mTag = null;
+        mMessage = null;
+        mThreadName = null;
+        mCallSite = null;
+        mContext = LogContext.EMPTY;
+    }
+
+    /**
+     * @return The copy of this event, that could be kept by sink.
+     * */
+    public LogEvent copy() {
+        final LogEvent event = new LogEvent();
+        event.set(this);
+        return event;
+    }
+
+    /**
+     * Returns the character for priority, like {@code 'D'} for {@link LogCat#DEBUG}.
+     * */
+    public static char toPriorityChar(int priority) {
+        switch (priority) {
+            case LogCat.VERBOSE: return 'V';
+            case LogCat.DEBUG: return 'D';
+            case LogCat.INFO: return 'I';
+            case LogCat.WARN: return 'W';
+            case LogCat.ERROR: return 'E';
+            case LogCat.ASSERT: return 'A';
+            default: return '?';
+        }
+    }
+
+    /**
+     * Returns the string representation of this event, in the same format as logcat prints it:
+     * {@code "D/MyApp: MyActivity: Any message."}
+     * */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(toPriorityChar(mPriority)).append('/').append(mAppTag)
+                .append(LogCat.TAG_DELIMITER);
+        if (mTag != null) builder.append(mTag).append(LogCat.TAG_DELIMITER);
+        return builder.append(mMessage).toString();
+    }
+
+}
@@ -0,0 +1,392 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+/**
+ * The reusable per-thread list of typed key-value fields of structured log message, for
+ * example:
+ * <br>&nbsp;<br>
+ * &#09;{@code LogCat.i(TAG, "Request done", LogFields.of("status", 200).and("ms", 12.5)}<br>
+ * &#09;&#09;{@code .and("path", path));}
+ * <br>&nbsp;<br>
+ * The message is written as one line in JSON ({@code {"msg":"Request done","status":200,...}})
+ * or in logfmt ({@code msg="Request done" status=200 ...}) format, see
+ * {@link LogConfig.Builder#setFieldFormat(int)}.
+ *
+ * <p>The primitive values are not boxed, and the fields are encoded straight into the
+ * per-thread buffer, so there are no intermediate maps and strings. The fields are cleared by
+ * the log call, they should not be kept or reused. The obfuscator (see
+ * {@link LogCat#setObfuscateByDefault(boolean)}) is applied to the values only, the keys and the
+ * structure of line are kept.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LogFields {
+
+    /** The format of structured log messages: one JSON object per line. */
+    public static final int JSON = 0;
+
+    /** The format of structured log messages: logfmt, {@code key=value} pairs. */
+    public static final int LOGFMT = 1;
+
+    /** The key of message. */
+    public static final String MESSAGE_KEY = "msg";
+
+    /** The initial capacity of lists. */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** The types of values. */
+    private static final byte OBJECT = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte FLOAT = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte CHAR = 5;
+
+    /** The hex digits, for escaping. */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** The fields of log message without fields, it is never changed. */
+    static final LogFields EMPTY = new LogFields();
+
+    /** The per-thread instances. */
+    private static final ThreadLocal<LogFields> sFields = new ThreadLocal<LogFields>() {
+        @Override
+        protected LogFields initialValue() { return new LogFields(); }
+    };
+
+    /** The number of fields. */
+    private int mCount = 0;
+
+    /** The keys of fields. */
+    private String[] mKeys = new String[INITIAL_CAPACITY];
+
+    /** The types of values. */
+    private byte[] mTypes = new byte[INITIAL_CAPACITY];
+
+    /** The integer, boolean and char values. */
+    private long[] mLongs = new long[INITIAL_CAPACITY];
+
+    /** The floating point values. */
+    private double[] mDoubles = new double[INITIAL_CAPACITY];
+
+    /** The object values. */
+    private Object[] mObjects = new Object[INITIAL_CAPACITY];
+
+    private LogFields() {}
+
+    /**
+     * Returns the empty per-thread list of fields. If the list is in use (the value of outer
+     * structured message is computed by code that logs structured message too), a new list is
+     * used for this thread.
+     * */
+    private static LogFields obtain() {
+        LogFields fields = sFields.get();
+        if (fields.mCount > 0) {
+            fields = new LogFields();
+            sFields.set(fields);
+        }
+        return fields;
+    }
+
+    /** Returns the per-thread list of fields with one integer field. */
+    public static LogFields of(String key, long value) { return obtain().and(key, value); }
+
+    /** Returns the per-thread list of fields with one floating point field. */
+    public static LogFields of(String key, double value) { return obtain().and(key, value); }
+
+    /** Returns the per-thread list of fields with one floating point field. */
+    public static LogFields of(String key, float value) { return obtain().and(key, value); }
+
+    /** Returns the per-thread list of fields with one boolean field. */
+    public static LogFields of(String key, boolean value) { return obtain().and(key, value); }
+
+    /** Returns the per-thread list of fields with one char field. */
+    public static LogFields of(String key, char value) { return obtain().and(key, value); }
+
+    /** Returns the per-thread list of fields with one field, the value could be {@code null}. */
+    public static LogFields of(String key, Object value) { return obtain().and(key, value); }
+
+    /** Adds integer field. */
+    public LogFields and(String key, long value) {
+        final int index = next(key, LONG);
+        mLongs[index] = value;
+        return this;
+    }
+
+    /** Adds floating point field. */
+    public LogFields and(String key, double value) {
+        final int index = next(key, DOUBLE);
+        mDoubles[index] = value;
+        return this;
+    }
+
+    /** Adds floating point field. */
+    public LogFields and(String key, float value) {
+        final int index = next(key, FLOAT);
+        mDoubles[index] = value;
+        return this;
+    }
+
+    /** Adds boolean field. */
+    public LogFields and(String key, boolean value) {
+        final int index = next(key, BOOLEAN);
+        mLongs[index] = value ? 1 : 0;
+        return this;
+    }
+
+    /** Adds char field, it is written as a string. */
+    public LogFields and(String key, char value) {
+        final int index = next(key, CHAR);
+        mLongs[index] = value;
+        return this;
+    }
+
+    /**
+     * Adds field with any value, the value could be {@code null}. The numbers and booleans are
+     * written as is, other objects are written as strings (see {@link String#valueOf(Object)}).
+     * */
+    public LogFields and(String key, Object value) {
+        final int index = next(key, OBJECT);
+        mObjects[index] = value;
+        return this;
+    }
+
+    /** @return The number of fields. */
+    public int size() { return mCount; }
+
+    /**
+     * Removes all fields and clears all references, to not keep it in memory. It is called by
+     * the log call, also if the message is not loggable.
+     * */
+    public void clear() {
+        for (int i = 0; i < mCount; i++) {
+            mKeys[i] = null;
+            mObjects[i] = null;
+        }
+        mCount = 0;
+    }
+
+    /** Reserves the next field, and returns its index. */
+    private int next(String key, byte type) {
+        if (key == null) throw new NullPointerException("key == null");
+        if (mCount == mKeys.length) grow();
+        final int index = mCount++;
+        mKeys[index] = key;
+        mTypes[index] = type;
+        return index;
+    }
+
+    /** Doubles the capacity of lists. */
+    private void grow() {
+        final int capacity = mKeys.length * 2;
+        mKeys = java.util.Arrays.copyOf(mKeys, capacity);
+        mTypes = java.util.Arrays.copyOf(mTypes, capacity);
+        mLongs = java.util.Arrays.copyOf(mLongs, capacity);
+        mDoubles = java.util.Arrays.copyOf(mDoubles, capacity);
+        mObjects = java.util.Arrays.copyOf(mObjects, capacity);
+    }
+
+    /**
+     * Appends the message and the fields to the buffer as one line.
+     * @param format The format, {@link #JSON} or {@link #LOGFMT}.
+     * @param msg The message, it is the first field with {@link #MESSAGE_KEY} key. Maybe
+     *            {@code null}, then it is not written.
+     * @param context The diagnostic context, its entries are written after the message as
+     *                string fields. Maybe {@code null}.
+     * @param obfuscator The obfuscator for values, or {@code null}.
+     * */
+    void appendTo(StringBuilder builder, int format, String msg, LogContext context,
+            LogCat.LogObfuscator obfuscator) {
+        final boolean json = format == JSON;
+        if (json) builder.append('{');
+        boolean first = true;
+        if (msg != null) {
+            appendKey(builder, MESSAGE_KEY, json, true);
+            appendString(builder, obfuscator != null ? obfuscator.obfuscate(msg) : msg, json);
+            first = false;
+        }
+        for (int i = 0, size = context != null ? context.size() : 0; i < size; i++) {
+            appendKey(builder, context.getKey(i), json, first);
+            appendValue(builder, context.getValue(i), obfuscator, json);
+            first = false;
+        }
+        for (int i = 0; i < mCount; i++) {
+            appendKey(builder, mKeys[i], json, first);
+            first = false;
+            switch (mTypes[i]) {
+                case LONG:
+                    if (obfuscator == null) {
+                        builder.append(mLongs[i]);
+                    } else {
+                        appendObfuscated(builder, String.valueOf(mLongs[i]), obfuscator, json);
+                    }
+                    break;
+                case DOUBLE:
+                    appendDouble(builder, mDoubles[i], false, obfuscator, json);
+                    break;
+                case FLOAT:
+                    appendDouble(builder, mDoubles[i], true, obfuscator, json);
+                    break;
+                case BOOLEAN:
+                    builder.append(mLongs[i] != 0);
+                    break;
+                case CHAR:
+                    appendValue(builder, String.valueOf((char) mLongs[i]), obfuscator, json);
+                    break;
+                default:
+                    appendObject(builder, mObjects[i], obfuscator, json);
+            }
+        }
+        if (json) builder.append('}');
+    }
+
+    /** Appends the key and the separators. */
+    private static void appendKey(StringBuilder builder, String key, boolean json,
+            boolean first) {
+        if (json) {
+            if (!first) builder.append(',');
+            appendString(builder, key, true);
+            builder.append(':');
+            return;
+        }
+        if (!first) builder.append(' ');
+        if (key.length() == 0) builder.append('_');
+        for (int i = 0, len = key.length(); i < len; i++) {
+            final char c = key.charAt(i);
+            // The key could not be quoted in logfmt
+            builder.append(c <= ' ' || c == '=' || c == '"' ? '_' : c);
+        }
+        builder.append('=');
+    }
+
+    /** Appends the floating point value, NaN and infinity are written as strings in JSON. */
+    private static void appendDouble(StringBuilder builder, double value, boolean isFloat,
+            LogCat.LogObfuscator obfuscator, boolean json) {
+        if (obfuscator != null || (json && (Double.isNaN(value) || Double.isInfinite(value)))) {
+            final String text = isFloat ? String.valueOf((float) value) : String.valueOf(value);
+            appendObfuscated(builder, text, obfuscator, json);
+        } else if (isFloat) {
+            builder.append((float) value);
+        } else {
+            builder.append(value);
+        }
+    }
+
+    /** Appends the value of object field. */
+    private static void appendObject(StringBuilder builder, Object value,
+            LogCat.LogObfuscator obfuscator, boolean json) {
+        if (value == null) {
+            builder.append("null");
+        } else if (value instanceof Boolean) {
+            builder.append(((Boolean) value).booleanValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            appendDouble(builder, ((Number) value).doubleValue(), value instanceof Float,
+                    obfuscator, json);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte) {
+            if (obfuscator == null) {
+                builder.append(((Number) value).longValue());
+            } else {
+                appendObfuscated(builder, value.toString(), obfuscator, json);
+            }
+        } else if (value instanceof CharSequence && obfuscator == null) {
+            // The string is escaped as is, without copy
+            appendString(builder, (CharSequence) value, json);
+        } else {
+            appendValue(builder, String.valueOf(value), obfuscator, json);
+        }
+    }
+
+    /** Appends the string value, obfuscated if it is needed. */
+    private static void appendValue(StringBuilder builder, String value,
+            LogCat.LogObfuscator obfuscator, boolean json) {
+        appendString(builder, obfuscator != null ? obfuscator.obfuscate(value) : value, json);
+    }
+
+    /**
+     * Appends the text of number or special value: as is, if it is not changed by obfuscator
+     * and it is a valid JSON number, otherwise as a string.
+     * */
+    private static void appendObfuscated(StringBuilder builder, String text,
+            LogCat.LogObfuscator obfuscator, boolean json) {
+        final String value = obfuscator != null ? obfuscator.obfuscate(text) : text;
+        if (value.equals(text) && (!json || isJsonNumber(text))) {
+            builder.append(text);
+        } else {
+            appendString(builder, value, json);
+        }
+    }
+
+    /** Returns true, if the text of number is allowed in JSON (it is not NaN or infinity). */
+    private static boolean isJsonNumber(String text) {
+        final char c = text.charAt(0);
+        return c == '-' ? text.length() > 1 && Character.isDigit(text.charAt(1))
+                : Character.isDigit(c);
+    }
+
+    /**
+     * Appends the string value: quoted and escaped in JSON, quoted only if it is needed in
+     * logfmt.
+     * */
+    private static void appendString(StringBuilder builder, CharSequence value, boolean json) {
+        if (value == null) {
+            builder.append("null");
+            return;
+        }
+        final int len = value.length();
+        if (!json && len > 0 && !needsQuotes(value)) {
+            builder.append(value);
+            return;
+        }
+        builder.append('"');
+        for (int i = 0; i < len; i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"': builder.append("\\\""); break;
+                case '\\': builder.append("\\\\"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                case '\t': builder.append("\\t"); break;
+                case '\b': builder.append("\\b"); break;
+                case '\f': builder.append("\\f"); break;
+                default:
+                    if (c < ' ' || c == '\u2028' || c == '\u2029') {
+                        builder.append("\\u").append(HEX[c >> 12 & 0xF]).append(HEX[c >> 8 & 0xF])
+                                .append(HEX[c >> 4 & 0xF]).append(HEX[c & 0xF]);
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+
+    /** Returns true, if the logfmt value should be quoted. */
+    private static boolean needsQuotes(CharSequence value) {
+        for (int i = 0, len = value.length(); i < len; i++) {
+            final char c = value.charAt(i);
+            if (c <= ' ' || c == '=' || c == '"' || c == '\\' || c == '\u2028'
+                    || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
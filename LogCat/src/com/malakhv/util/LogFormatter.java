@@ -0,0 +1,301 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.math.BigInteger;
+import java.util.Formattable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The lightweight formatter for log messages. It is used by {@link LogCat} instead of
+ * {@link String#format(String, Object...)} for all format methods.
+ *
+ * <p>The formatter supports two kinds of templates:
+ * <ul>
+ *  <li>{@code "Loaded %d items from %s"} - the most common specifiers of
+ *  {@link java.util.Formatter}: {@code %s}, {@code %d}, {@code %n} and {@code %%}. The output is
+ *  the same as the output of {@link String#format(String, Object...)}.</li>
+ *  <li>{@code "Loaded {} items from {}"} - the template with {@code {}} placeholders, each
+ *  placeholder is replaced by the next argument. This kind of template is used only if the
+ *  template has no {@code %} specifiers.</li>
+ * </ul>
+ * All other specifiers (with flags, width, precision, argument index, and etc.) are supported
+ * too, but in that case the formatter falls back to {@link String#format(String, Object...)}.</p>
+ *
+ * <p>Each distinct template is parsed only once, the result is cached.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LogFormatter {
+
+    /** The maximum number of cached templates. */
+    private static final int CACHE_MAX_SIZE = 512;
+
+    /** The placeholder for template with {@code {}} placeholders. */
+    private static final String PLACEHOLDER = "{}";
+
+    /** The line separator, the same as {@code %n} specifier. */
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator", "\n");
+
+    /** The cache of parsed templates. */
+    private static final ConcurrentHashMap<String, Template> sCache =
+            new ConcurrentHashMap<String, Template>();
+
+    /**
+     * This class has only static data, not need to create instance.
+     * */
+    private LogFormatter() {}
+
+    /**
+     * Returns a formatted string, using the specified template and arguments.
+     *
+     * @param template The format string.
+     * @param args The list of arguments. If there are more arguments than required by
+     *             {@code template}, additional arguments are ignored.
+     * @throws NullPointerException if {@code template == null}.
+     * @throws java.util.IllegalFormatException if the template is invalid.
+     * */
+    public static String format(String template, Object... args) {
+        return format(new StringBuilder(template.length() + 16), template, args).toString();
+    }
+
+    /**
+     * Appends a formatted string, using the specified template and arguments, to the buffer.
+     *
+     * @param out The buffer to append to.
+     * @param template The format string.
+     * @param args The list of arguments. If there are more arguments than required by
+     *             {@code template}, additional arguments are ignored.
+     * @return The buffer.
+     * @throws NullPointerException if {@code template == null}.
+     * @throws java.util.IllegalFormatException if the template is invalid.
+     * */
+    public static StringBuilder format(StringBuilder out, String template, Object... args) {
+        final Template t = compile(template);
+        final int count = args != null ? args.length : 0;
+        if (!t.canFormat(args, null, count)) {
+            return out.append(String.format(template, args));
+        }
+        t.append(out, args, null, count);
+        return out;
+    }
+
+    /**
+     * Appends a formatted string, using the specified template and arguments, to the buffer.
+     * @see #format(StringBuilder, String, Object...)
+     * */
+    static StringBuilder format(StringBuilder out, String template, LogArgs args) {
+        final Template t = compile(template);
+        if (!t.canFormat(null, args, args.count)) {
+            return out.append(String.format(template, args.toArray()));
+        }
+        t.append(out, null, args, args.count);
+        return out;
+    }
+
+    /**
+     * Returns the parsed template from cache, or parses it.
+     * */
+    private static Template compile(String template) {
+        if (template == null) throw new NullPointerException("template == null");
+        Template t = sCache.get(template);
+        if (t == null) {
+            t = new Template(template);
+            if (sCache.size() < CACHE_MAX_SIZE) sCache.putIfAbsent(template, t);
+        }
+        return t;
+    }
+
+    /**
+     * The parsed template.
+     * */
+    private static final class Template {
+
+        /** The operation: append literal text from {@code start} to {@code end}. */
+        private static final byte LITERAL = 0;
+
+        /** The operation: append argument with {@code %s} (or {@code {}}) conversion. */
+        private static final byte STRING = 1;
+
+        /** The operation: append argument with {@code %d} conversion. */
+        private static final byte DECIMAL = 2;
+
+        /** The operation: append line separator. */
+        private static final byte NEW_LINE = 3;
+
+        /** The template string. */
+        private final String mTemplate;
+
+        /** True, if the template has specifiers that is not supported by this formatter. */
+        private boolean mComplex = false;
+
+        /** True, if the template uses {@code {}} placeholders. */
+        private boolean mBraces = false;
+
+        /** The number of operations. */
+        private int mCount = 0;
+
+        /** The operations. */
+        private byte[] mOps = new byte[8];
+
+        /** The start of literal text, or index of argument. */
+        private int[] mStart = new int[8];
+
+        /** The end of literal text. */
+        private int[] mEnd = new int[8];
+
+        /** The number of arguments required by this template ({@code %} specifiers only). */
+        private int mRequired = 0;
+
+        /**
+         * Parses the template.
+         * */
+        Template(String template) {
+            mTemplate = template;
+            if (template.indexOf('%') >= 0) {
+                parsePercent(template);
+            } else if (template.contains(PLACEHOLDER)) {
+                mBraces = true;
+                parseBraces(template);
+            } else {
+                add(LITERAL, 0, template.length());
+            }
+        }
+
+        /** Parses template with {@code %} specifiers. */
+        private void parsePercent(String template) {
+            final int length = template.length();
+            int literal = 0, arg = 0;
+            int i = template.indexOf('%');
+            while (i >= 0) {
+                if (i + 1 >= length) { mComplex = true; return; }
+                final char c = template.charAt(i + 1);
+                if (i > literal) add(LITERAL, literal, i);
+                switch (c) {
+                    case 's': add(STRING, arg++, 0); break;
+                    case 'd': add(DECIMAL, arg++, 0); break;
+                    case 'n': add(NEW_LINE, 0, 0); break;
+                    case '%': add(LITERAL, i + 1, i + 2); break;
+                    default: mComplex = true; return;
+                }
+                literal = i + 2;
+                i = template.indexOf('%', literal);
+            }
+            if (literal < length) add(LITERAL, literal, length);
+            mRequired = arg;
+        }
+
+        /** Parses template with {@code {}} placeholders. */
+        private void parseBraces(String template) {
+            int literal = 0, arg = 0;
+            int i = template.indexOf(PLACEHOLDER);
+            while (i >= 0) {
+                if (i > literal) add(LITERAL, literal, i);
+                add(STRING, arg++, 0);
+                literal = i + PLACEHOLDER.length();
+                i = template.indexOf(PLACEHOLDER, literal);
+            }
+            if (literal < template.length()) add(LITERAL, literal, template.length());
+        }
+
+        /** Adds the new operation. */
+        private void add(byte op, int start, int end) {
+            if (mCount == mOps.length) {
+                final int size = mCount * 2;
+                final byte[] ops = new byte[size];
+                final int[] starts = new int[size], ends = new int[size];
+                System.arraycopy(mOps, 0, ops, 0, mCount);
+                System.arraycopy(mStart, 0, starts, 0, mCount);
+                System.arraycopy(mEnd, 0, ends, 0, mCount);
+                mOps = ops; mStart = starts; mEnd = ends;
+            }
+            mOps[mCount] = op; mStart[mCount] = start; mEnd[mCount] = end;
+            mCount++;
+        }
+
+        /**
+         * Returns true, if this template could be formatted with specified arguments without
+         * fallback to {@link String#format(String, Object...)}. Only one of {@code objects} and
+         * {@code args} should be not {@code null}.
+         * */
+        boolean canFormat(Object[] objects, LogArgs args, int count) {
+            if (mComplex || count < mRequired) return false;
+            for (int i = 0; i < mCount; i++) {
+                final byte op = mOps[i];
+                if (op != STRING && op != DECIMAL) continue;
+                final int index = mStart[i];
+                if (index >= count) continue;
+                if (args != null) {
+                    final byte type = args.types[index];
+                    if (op == DECIMAL && !LogArgs.isInteger(type) && type != LogArgs.OBJECT) {
+                        return false;
+                    }
+                    if (type != LogArgs.OBJECT) continue;
+                }
+                final Object value = args != null ? args.objects[index] : objects[index];
+                if (op == STRING && value instanceof Formattable) return false;
+                if (op == DECIMAL && value != null && !isInteger(value)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Appends formatted template to the buffer. Only one of {@code objects} and
+         * {@code args} should be not {@code null}.
+         * */
+        void append(StringBuilder out, Object[] objects, LogArgs args, int count) {
+            for (int i = 0; i < mCount; i++) {
+                switch (mOps[i]) {
+                    case LITERAL: out.append(mTemplate, mStart[i], mEnd[i]); break;
+                    case NEW_LINE: out.append(LINE_SEPARATOR); break;
+                    default:
+                        final int index = mStart[i];
+                        if (index >= count) {
+                            // Only {} placeholders could be here
+                            out.append(PLACEHOLDER);
+                        } else if (args != null) {
+                            appendArg(out, args, index);
+                        } else {
+                            out.append(objects[index]);
+                        }
+                }
+            }
+        }
+
+        /** Appends argument to the buffer, without boxing. */
+        private static void appendArg(StringBuilder out, LogArgs args, int index) {
+            switch (args.types[index]) {
+                case LogArgs.LONG:
+                case LogArgs.INT:
+                case LogArgs.SHORT:
+                case LogArgs.BYTE: out.append(args.longs[index]); break;
+                case LogArgs.DOUBLE: out.append(args.doubles[index]); break;
+                case LogArgs.FLOAT: out.append((float) args.doubles[index]); break;
+                case LogArgs.CHAR: out.append((char) args.longs[index]); break;
+                default: out.append(args.objects[index]);
+            }
+        }
+
+        /** Returns true, if the value is integer value supported by {@code %d}. */
+        private static boolean isInteger(Object value) {
+            return value instanceof Integer || value instanceof Long || value instanceof Short
+                    || value instanceof Byte || value instanceof BigInteger;
+        }
+    }
+
+}
@@ -0,0 +1,346 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The metrics of logging, see {@link LogCat#setMetrics(LogMetrics)}: the number of log messages
+ * per level and per component tag (emitted, filtered by level, dropped by rate limiter or
+ * queues), the size of written messages and the time spent in obfuscation and sink writes. The
+ * metrics are available through {@link #snapshot()}, and they could be reported to the log
+ * periodically (see {@link Builder#setReportInterval(long)}).
+ *
+ * <p>The counters are striped: each thread updates its own stripe (selected by thread id), the
+ * stripes are padded to separate cache lines, and they are summed only by snapshot. So the
+ * counters are cheap enough to leave them on permanently. The component tags are kept in the
+ * fixed table, the tags over {@link #MAX_TAGS} are counted as {@link #OTHER_TAGS}.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LogMetrics {
+
+    /** The metric: the number of log messages, that passed the level and rate filters. */
+    public static final int EMITTED = 0;
+
+    /** The metric: the number of log messages, that were filtered by log level. */
+    public static final int FILTERED = 1;
+
+    /** The metric: the number of log messages, that were dropped by rate limiter or queues. */
+    public static final int DROPPED = 2;
+
+    /**
+     * The metric: the size of written log messages, as it is reported by sinks (the bytes of
+     * system log or binary file, for example) or the length of message.
+     * */
+    public static final int BYTES = 3;
+
+    /** The maximum number of component tags with own counters. */
+    public static final int MAX_TAGS = 128;
+
+    /** The pseudo tag for the tags over {@link #MAX_TAGS}. */
+    public static final String OTHER_TAGS = "*";
+
+    /** The pseudo tag for log messages without component tag. */
+    public static final String NO_TAG = "";
+
+    /** The number of metrics per level and tag. */
+    private static final int METRIC_COUNT = 4;
+
+    /** The number of log levels, from {@link LogCat#VERBOSE} to {@link LogCat#ASSERT}. */
+    private static final int LEVEL_COUNT = LogCat.ASSERT - LogCat.VERBOSE + 1;
+
+    /** The indexes of time counters in stripe. */
+    private static final int OBFUSCATION_TIME = METRIC_COUNT * LEVEL_COUNT;
+    private static final int SINK_TIME = OBFUSCATION_TIME + 1;
+
+    /** The size of stripe, it is padded to separate cache lines. */
+    private static final int STRIPE_SIZE = 32;
+
+    /** The size of tag table, a power of two. */
+    private static final int TAG_TABLE_SIZE = MAX_TAGS * 2;
+
+    /** The maximum number of stripes. */
+    private static final int MAX_STRIPES = 8;
+
+    /** The mask for selecting stripe by thread id. */
+    private final int mStripeMask;
+
+    /** The counters per level and the time counters, for each stripe. */
+    private final AtomicLongArray mCounters;
+
+    /** The counters per tag, for each stripe. */
+    private final AtomicLongArray mTagCounters;
+
+    /** The table of component tags. */
+    private final AtomicReferenceArray<String> mTags =
+            new AtomicReferenceArray<String>(TAG_TABLE_SIZE);
+
+    /** The number of tags in the table. */
+    private final AtomicLong mTagCount = new AtomicLong(0);
+
+    /** The interval of self-report, in milliseconds, or 0. */
+    private final long mReportInterval;
+
+    /** The time of next self-report, see {@link System#currentTimeMillis()}. */
+    private final AtomicLong mNextReport;
+
+    /**
+     * Creates a new metrics, please use {@link Builder}.
+     * */
+    private LogMetrics(Builder builder) {
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors());
+        stripes = Math.max(1, Math.min(MAX_STRIPES, stripes));
+        mStripeMask = stripes - 1;
+        mCounters = new AtomicLongArray(stripes * STRIPE_SIZE);
+        mTagCounters = new AtomicLongArray(stripes * TAG_TABLE_SIZE * METRIC_COUNT);
+        mReportInterval = builder.mReportInterval;
+        mNextReport = new AtomicLong(System.currentTimeMillis() + mReportInterval);
+        // The slot of other tags should always exist
+        slot(OTHER_TAGS);
+    }
+
+    /** @return The interval of self-report in milliseconds, or 0. */
+    public long getReportInterval() { return mReportInterval; }
+
+    /** Returns the stripe of current thread. */
+    private int stripe() {
+        return (int) Thread.currentThread().getId() & mStripeMask;
+    }
+
+    /**
+     * Adds the value to the metric of log level and component tag.
+     * */
+    void add(int metric, int priority, String tag, long value) {
+        final int stripe = stripe();
+        final int level = Math.max(LogCat.VERBOSE, Math.min(LogCat.ASSERT, priority))
+                - LogCat.VERBOSE;
+        mCounters.getAndAdd(stripe * STRIPE_SIZE + level * METRIC_COUNT + metric, value);
+        final int slot = slot(tag);
+        mTagCounters.getAndAdd((stripe * TAG_TABLE_SIZE + slot) * METRIC_COUNT + metric, value);
+    }
+
+    /**
+     * Adds the time of obfuscation, in nanoseconds.
+     * */
+    void addObfuscationTime(long nanos) {
+        mCounters.getAndAdd(stripe() * STRIPE_SIZE + OBFUSCATION_TIME, nanos);
+    }
+
+    /**
+     * Counts the result of sink write: the size of message or the drop.
+     * @param result The result of sink write, the negative value means the drop.
+     * @param length The length of message, if the sink does not report the size.
+     * @param nanos The time of sink write, in nanoseconds.
+     * */
+    void addWrite(int priority, String tag, int result, int length, long nanos) {
+        mCounters.getAndAdd(stripe() * STRIPE_SIZE + SINK_TIME, nanos);
+        if (result < 0) {
+            add(DROPPED, priority, tag, 1);
+        } else {
+            add(BYTES, priority, tag, result > 0 ? result : length);
+        }
+    }
+
+    /**
+     * Returns true, if the self-report should be written now. It returns true only once for
+     * each interval.
+     * @param time The current time, see {@link System#currentTimeMillis()}.
+     * */
+    boolean isReportDue(long time) {
+        if (mReportInterval <= 0) return false;
+        final long next = mNextReport.get();
+        return time >= next && mNextReport.compareAndSet(next, time + mReportInterval);
+    }
+
+    /**
+     * Returns the slot of component tag in the table, the tag is added if it is new. The lookup
+     * compares hashes first, and the hashes of strings are cached.
+     * */
+    private int slot(String tag) {
+        if (tag == null) tag = NO_TAG;
+        final int mask = TAG_TABLE_SIZE - 1;
+        int hash = tag.hashCode() * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            final String current = mTags.get(i);
+            if (current == null) {
+                if (mTagCount.get() >= MAX_TAGS) return slot(OTHER_TAGS);
+                if (mTags.compareAndSet(i, null, tag)) {
+                    mTagCount.incrementAndGet();
+                    return i;
+                }
+                // Other thread took this slot, check it again
+                i = (i - 1) & mask;
+                continue;
+            }
+            if (current == tag || (current.hashCode() == tag.hashCode() && current.equals(tag))) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Returns the snapshot of metrics: the sums of all stripes. The snapshot is not atomic, the
+     * counters could be updated while summing.
+     * */
+    public Snapshot snapshot() {
+        final int stripes = mStripeMask + 1;
+        final long[] levels = new long[STRIPE_SIZE];
+        for (int s = 0; s < stripes; s++) {
+            for (int i = 0; i < STRIPE_SIZE; i++) levels[i] += mCounters.get(s * STRIPE_SIZE + i);
+        }
+        final Map<String, long[]> tags = new HashMap<String, long[]>();
+        for (int slot = 0; slot < TAG_TABLE_SIZE; slot++) {
+            final String tag = mTags.get(slot);
+            if (tag == null) continue;
+            final long[] counters = new long[METRIC_COUNT];
+            for (int s = 0; s < stripes; s++) {
+                final int base = (s * TAG_TABLE_SIZE + slot) * METRIC_COUNT;
+                for (int m = 0; m < METRIC_COUNT; m++) counters[m] += mTagCounters.get(base + m);
+            }
+            tags.put(tag, counters);
+        }
+        return new Snapshot(System.currentTimeMillis(), levels, tags);
+    }
+
+    /**
+     * The snapshot of {@link LogMetrics}.
+     * */
+    public static final class Snapshot {
+
+        /** The time of snapshot, see {@link System#currentTimeMillis()}. */
+        private final long mTime;
+
+        /** The counters per level and the time counters. */
+        private final long[] mLevels;
+
+        /** The counters per tag. */
+        private final Map<String, long[]> mTags;
+
+        private Snapshot(long time, long[] levels, Map<String, long[]> tags) {
+            mTime = time;
+            mLevels = levels;
+            mTags = tags;
+        }
+
+        /** @return The time of snapshot, see {@link System#currentTimeMillis()}. */
+        public long getTime() { return mTime; }
+
+        /**
+         * @param metric The metric, {@link #EMITTED}, {@link #FILTERED}, {@link #DROPPED} or
+         *               {@link #BYTES}.
+         * @param priority The log level, from {@link LogCat#VERBOSE} to {@link LogCat#ASSERT}.
+         * @return The value of metric for log level.
+         * */
+        public long get(int metric, int priority) {
+            checkMetric(metric);
+            if (priority < LogCat.VERBOSE || priority > LogCat.ASSERT) {
+                throw new IllegalArgumentException("Invalid level " + priority);
+            }
+            return mLevels[(priority - LogCat.VERBOSE) * METRIC_COUNT + metric];
+        }
+
+        /**
+         * @return The value of metric for all log levels.
+         * */
+        public long get(int metric) {
+            checkMetric(metric);
+            long total = 0;
+            for (int level = 0; level < LEVEL_COUNT; level++) {
+                total += mLevels[level * METRIC_COUNT + metric];
+            }
+            return total;
+        }
+
+        /**
+         * @return The value of metric for component tag, or 0 if there is no such tag. The log
+         * messages without component tag are counted as {@link #NO_TAG}.
+         * */
+        public long get(int metric, String tag) {
+            checkMetric(metric);
+            final long[] counters = mTags.get(tag == null ? NO_TAG : tag);
+            return counters != null ? counters[metric] : 0;
+        }
+
+        /** @return The component tags that have own counters. */
+        public Set<String> getTags() { return Collections.unmodifiableSet(mTags.keySet()); }
+
+        /** @return The time spent in obfuscation, in nanoseconds. */
+        public long getObfuscationTime() { return mLevels[OBFUSCATION_TIME]; }
+
+        /** @return The time spent in sink writes, in nanoseconds. */
+        public long getSinkTime() { return mLevels[SINK_TIME]; }
+
+        /** Checks the metric. */
+        private static void checkMetric(int metric) {
+            if (metric < EMITTED || metric > BYTES) {
+                throw new IllegalArgumentException("Invalid metric " + metric);
+            }
+        }
+
+        /**
+         * Returns the one line report, for example: {@code "emitted 120 (V 0, D 20, I 90, W 8,
+         * E 2, A 0), filtered 300, dropped 4, bytes 10240, obfuscation 3 ms, sinks 25 ms"}.
+         * */
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder(128);
+            builder.append("emitted ").append(get(EMITTED)).append(" (");
+            for (int level = LogCat.VERBOSE; level <= LogCat.ASSERT; level++) {
+                if (level > LogCat.VERBOSE) builder.append(", ");
+                builder.append(LogEvent.toPriorityChar(level)).append(' ')
+                        .append(get(EMITTED, level));
+            }
+            return builder.append("), filtered ").append(get(FILTERED))
+                    .append(", dropped ").append(get(DROPPED))
+                    .append(", bytes ").append(get(BYTES))
+                    .append(", obfuscation ").append(getObfuscationTime() / 1000000L)
+                    .append(" ms, sinks ").append(getSinkTime() / 1000000L).append(" ms")
+                    .toString();
+        }
+    }
+
+    /**
+     * The builder for {@link LogMetrics}.
+     * */
+    public static final class Builder {
+        private long mReportInterval = 0;
+
+        /**
+         * Set the interval (in milliseconds) of self-report: the one line report (see
+         * {@link Snapshot#toString()}) is written to the log with the next log message after
+         * the interval. The default value is 0 (no reports).
+         * */
+        public Builder setReportInterval(long interval) {
+            if (interval < 0) throw new IllegalArgumentException("The interval is negative");
+            mReportInterval = interval;
+            return this;
+        }
+
+        /** Creates the new {@link LogMetrics}. */
+        public LogMetrics build() { return new LogMetrics(this); }
+    }
+
+}
@@ -0,0 +1,411 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The rule based {@link LogCat.LogObfuscator}. All rules are compiled once (see {@link Builder})
+ * and the message is processed in one linear pass without regular expressions. If nothing in the
+ * message matches the rules, the same message is returned without any allocation.
+ *
+ * <p>The supported rules:
+ * <ul>
+ *  <li>{@link Builder#digits()} - all digits (the same as
+ *  {@link LogCat#SIMPLE_NUMBER_OBFUSCATOR}), also the last four digits of card numbers;</li>
+ *  <li>{@link Builder#phones()} - numbers with 7-15 digits, with optional leading {@code +} and
+ *  separators (space, {@code -}, {@code .}, brackets);</li>
+ *  <li>{@link Builder#cards()} - Luhn valid numbers with 13-19 digits, all digits except the last
+ *  four are masked;</li>
+ *  <li>{@link Builder#emails()} - the local part of e-mail addresses;</li>
+ *  <li>{@link Builder#tokens()} - words of 20 or more characters that contain both letters and
+ *  digits (access tokens, keys, and etc.);</li>
+ *  <li>{@link Builder#keywords(String...)} - any literal keywords (user names, for example), all
+ *  keywords are compiled into one Aho-Corasick automaton.</li>
+ * </ul></p>
+ *
+ * <p>For example:
+ * <br>&nbsp;<br>
+ * &#09;{@code LogCat.setObfuscator(new LogObfuscatorEngine.Builder().phones().emails().build());}
+ * <br>&nbsp;<br></p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LogObfuscatorEngine implements LogCat.LogObfuscator {
+
+    /** The default symbol that replaces obfuscated characters. */
+    public static final char DEFAULT_MASK = '*';
+
+    /** The minimum number of digits in phone number. */
+    private static final int PHONE_MIN_DIGITS = 7;
+
+    /** The maximum number of digits in phone number. */
+    private static final int PHONE_MAX_DIGITS = 15;
+
+    /** The minimum number of digits in card number. */
+    private static final int CARD_MIN_DIGITS = 13;
+
+    /** The maximum number of digits in card number. */
+    private static final int CARD_MAX_DIGITS = 19;
+
+    /** The number of last digits of card number that are not masked. */
+    private static final int CARD_VISIBLE_DIGITS = 4;
+
+    /** The minimum length of token. */
+    private static final int TOKEN_MIN_LENGTH = 20;
+
+    /** The maximum number of successive separators in number. */
+    private static final int NUMBER_MAX_SEPARATORS = 2;
+
+    private final boolean mDigits;
+    private final boolean mPhones;
+    private final boolean mCards;
+    private final boolean mEmails;
+    private final boolean mTokens;
+    private final boolean mIgnoreCase;
+    private final char mMask;
+
+    /** The keywords automaton, or {@code null} if there are no keywords. */
+    private final Automaton mKeywords;
+
+    /**
+     * Creates a new engine, please use {@link Builder}.
+     * */
+    private LogObfuscatorEngine(Builder builder) {
+        mDigits = builder.mDigits;
+        mPhones = builder.mPhones;
+        mCards = builder.mCards;
+        mEmails = builder.mEmails;
+        mTokens = builder.mTokens;
+        mIgnoreCase = builder.mIgnoreCase;
+        mMask = builder.mMask;
+        mKeywords = builder.mKeywords.isEmpty() ? null
+                : new Automaton(builder.mKeywords, builder.mIgnoreCase);
+    }
+
+    /**
+     * Obfuscate message.
+     * */
+    @Override
+    public String obfuscate(String msg) {
+        if (msg == null || msg.length() == 0) return msg;
+        final boolean words = mEmails || mTokens;
+        final boolean numbers = mDigits || mPhones || mCards;
+        final int length = msg.length();
+        char[] out = null;
+        int state = 0, skip = 0, wordEnd = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = msg.charAt(i);
+            if (words && i >= skip && i >= wordEnd && isWordChar(c)) {
+                wordEnd = i + 1;
+                while (wordEnd < length && isWordChar(msg.charAt(wordEnd))) wordEnd++;
+                if (mEmails && wordEnd < length && msg.charAt(wordEnd) == '@'
+                        && isDomain(msg, wordEnd + 1)) {
+                    out = mask(out, msg, i, wordEnd);
+                    skip = wordEnd;
+                } else if (mTokens && isToken(msg, i, wordEnd)) {
+                    out = mask(out, msg, i, wordEnd);
+                    skip = wordEnd;
+                }
+            }
+            if (numbers && i >= skip && isNumberStart(msg, i, length)) {
+                // Digits with separators, the number ends after the last digit
+                int end = i + 1, digits = isDigit(c) ? 1 : 0, separators = 0;
+                for (int j = i + 1; j < length; j++) {
+                    final char n = msg.charAt(j);
+                    if (isDigit(n)) {
+                        digits++;
+                        separators = 0;
+                        end = j + 1;
+                    } else if (!isSeparator(n) || ++separators > NUMBER_MAX_SEPARATORS) {
+                        break;
+                    }
+                }
+                skip = end;
+                if (mDigits) {
+                    // All digits are masked, also the last digits of card numbers
+                    out = maskDigits(out, msg, i, end, 0);
+                } else if (mCards && digits >= CARD_MIN_DIGITS && digits <= CARD_MAX_DIGITS
+                        && isLuhnValid(msg, i, end)) {
+                    out = maskDigits(out, msg, i, end, CARD_VISIBLE_DIGITS);
+                } else if (mPhones && digits >= PHONE_MIN_DIGITS && digits <= PHONE_MAX_DIGITS) {
+                    out = maskDigits(out, msg, i, end, 0);
+                }
+            }
+            if (mKeywords != null) {
+                state = mKeywords.next(state, mIgnoreCase ? Character.toLowerCase(c) : c);
+                final int match = mKeywords.mMatch[state];
+                if (match > 0) out = mask(out, msg, i - match + 1, i + 1);
+            }
+        }
+        return out != null ? new String(out) : msg;
+    }
+
+    /** Returns true, if character could be a part of e-mail local part or token. */
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '.' || c == '_' || c == '%' || c == '+' || c == '-' || c == '/'
+                || c == '=';
+    }
+
+    /** Returns true, if the text from specified position starts with domain name. */
+    private static boolean isDomain(String msg, int start) {
+        final int length = msg.length();
+        boolean dot = false;
+        for (int i = start; i < length; i++) {
+            final char c = msg.charAt(i);
+            if (c == '.') {
+                if (i == start || msg.charAt(i - 1) == '.') return false;
+                dot = true;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                    || (c >= '0' && c <= '9') || c == '-') {
+                // The top level domain should have at least one character
+                if (dot) return true;
+            } else {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /** Returns true, if the word looks like a token. */
+    private static boolean isToken(String msg, int start, int end) {
+        if (end - start < TOKEN_MIN_LENGTH) return false;
+        boolean letter = false, digit = false;
+        for (int i = start; i < end && !(letter && digit); i++) {
+            final char c = msg.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                letter = true;
+            }
+        }
+        return letter && digit;
+    }
+
+    /** Returns true, if the number starts at the specified position. */
+    private static boolean isNumberStart(String msg, int i, int length) {
+        final char c = msg.charAt(i);
+        return isDigit(c) || (c == '+' && i + 1 < length && isDigit(msg.charAt(i + 1)));
+    }
+
+    /** Returns true, if character is ASCII digit. */
+    private static boolean isDigit(char c) { return c >= '0' && c <= '9'; }
+
+    /** Returns true, if character could be a separator in phone or card number. */
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '-' || c == '.' || c == '(' || c == ')';
+    }
+
+    /** Returns true, if digits in range of message pass the Luhn checksum. */
+    private static boolean isLuhnValid(String msg, int start, int end) {
+        int sum = 0;
+        boolean twice = false;
+        for (int i = end - 1; i >= start; i--) {
+            final char c = msg.charAt(i);
+            if (!isDigit(c)) continue;
+            int digit = c - '0';
+            if (twice) {
+                digit *= 2;
+                if (digit > 9) digit -= 9;
+            }
+            sum += digit;
+            twice = !twice;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * Masks all characters in range of message, and returns the buffer with result.
+     * @param out The buffer with result, or {@code null} if message was not changed yet.
+     * */
+    private char[] mask(char[] out, String msg, int start, int end) {
+        if (out == null) out = msg.toCharArray();
+        for (int i = start; i < end; i++) out[i] = mMask;
+        return out;
+    }
+
+    /**
+     * Masks digits in range of message, and returns the buffer with result.
+     * @param out The buffer with result, or {@code null} if message was not changed yet.
+     * @param keep The number of last digits that should not be masked.
+     * */
+    private char[] maskDigits(char[] out, String msg, int start, int end, int keep) {
+        if (out == null) out = msg.toCharArray();
+        for (int i = end - 1; i >= start; i--) {
+            if (!isDigit(out[i])) continue;
+            if (keep > 0) {
+                keep--;
+            } else {
+                out[i] = mMask;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * The builder for {@link LogObfuscatorEngine}.
+     * */
+    public static final class Builder {
+        private boolean mDigits = false;
+        private boolean mPhones = false;
+        private boolean mCards = false;
+        private boolean mEmails = false;
+        private boolean mTokens = false;
+        private boolean mIgnoreCase = true;
+        private char mMask = DEFAULT_MASK;
+        private final List<String> mKeywords = new ArrayList<String>();
+
+        /** Mask all digits, this rule takes precedence over {@link #cards()}. */
+        public Builder digits() { mDigits = true; return this; }
+
+        /** Mask all digits of phone numbers. */
+        public Builder phones() { mPhones = true; return this; }
+
+        /** Mask all digits of card numbers, except the last four. */
+        public Builder cards() { mCards = true; return this; }
+
+        /** Mask the local part of e-mail addresses. */
+        public Builder emails() { mEmails = true; return this; }
+
+        /** Mask long words that contain both letters and digits. */
+        public Builder tokens() { mTokens = true; return this; }
+
+        /** Mask all specified keywords. Empty and {@code null} keywords are ignored. */
+        public Builder keywords(String... keywords) {
+            if (keywords != null) {
+                for (String keyword : keywords) {
+                    if (keyword != null && keyword.length() > 0) mKeywords.add(keyword);
+                }
+            }
+            return this;
+        }
+
+        /** Set whether keywords are case insensitive, {@code true} by default. */
+        public Builder ignoreCase(boolean ignoreCase) { mIgnoreCase = ignoreCase; return this; }
+
+        /** Set the symbol that replaces obfuscated characters, {@code '*'} by default. */
+        public Builder mask(char mask) { mMask = mask; return this; }
+
+        /** Compiles all rules and creates the new {@link LogObfuscatorEngine}. */
+        public LogObfuscatorEngine build() { return new LogObfuscatorEngine(this); }
+    }
+
+    /**
+     * The Aho-Corasick automaton for keywords, compiled into DFA transition table.
+     * */
+    private static final class Automaton {
+
+        /** The sorted characters of all keywords. */
+        private final char[] mAlphabet;
+
+        /** The column of each ASCII character in transition table, 0 for other characters. */
+        private final int[] mAscii = new int[128];
+
+        /** The number of columns in transition table. */
+        private final int mColumns;
+
+        /** The transition table: mNext[state * mColumns + column]. */
+        private final int[] mNext;
+
+        /** The length of the longest keyword that ends in each state, or 0. */
+        final int[] mMatch;
+
+        Automaton(List<String> keywords, boolean ignoreCase) {
+            // Alphabet
+            final TreeSet<Character> chars = new TreeSet<Character>();
+            int total = 1;
+            for (String keyword : keywords) {
+                for (int i = 0; i < keyword.length(); i++) chars.add(normalize(keyword.charAt(i),
+                        ignoreCase));
+                total += keyword.length();
+            }
+            mAlphabet = new char[chars.size()];
+            int index = 0;
+            for (Character c : chars) mAlphabet[index++] = c;
+            for (int i = 0; i < mAlphabet.length; i++) {
+                if (mAlphabet[i] < 128) mAscii[mAlphabet[i]] = i + 1;
+            }
+            mColumns = mAlphabet.length + 1;
+
+            // Trie
+            final int[] next = new int[total * mColumns];
+            Arrays.fill(next, -1);
+            final int[] match = new int[total];
+            int states = 1;
+            for (String keyword : keywords) {
+                int state = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    final int column = column(normalize(keyword.charAt(i), ignoreCase));
+                    if (next[state * mColumns + column] < 0) next[state * mColumns + column] =
+                            states++;
+                    state = next[state * mColumns + column];
+                }
+                match[state] = Math.max(match[state], keyword.length());
+            }
+
+            // Failure links (BFS), and full transition table
+            final int[] fail = new int[states];
+            final int[] queue = new int[states];
+            int head = 0, tail = 0;
+            for (int column = 0; column < mColumns; column++) {
+                final int s = next[column];
+                if (s < 0) {
+                    next[column] = 0;
+                } else {
+                    fail[s] = 0;
+                    queue[tail++] = s;
+                }
+            }
+            while (head < tail) {
+                final int state = queue[head++];
+                match[state] = Math.max(match[state], match[fail[state]]);
+                for (int column = 0; column < mColumns; column++) {
+                    final int s = next[state * mColumns + column];
+                    if (s < 0) {
+                        next[state * mColumns + column] = next[fail[state] * mColumns + column];
+                    } else {
+                        fail[s] = next[fail[state] * mColumns + column];
+                        queue[tail++] = s;
+                    }
+                }
+            }
+            mNext = Arrays.copyOf(next, states * mColumns);
+            mMatch = Arrays.copyOf(match, states);
+        }
+
+        /** Returns the next state. */
+        int next(int state, char c) { return mNext[state * mColumns + column(c)]; }
+
+        /** Returns the column of character in transition table. */
+        private int column(char c) {
+            if (c < 128) return mAscii[c];
+            final int index = Arrays.binarySearch(mAlphabet, c);
+            return index >= 0 ? index + 1 : 0;
+        }
+
+        /** Returns the character in lower case, if necessary. */
+        private static char normalize(char c, boolean ignoreCase) {
+            return ignoreCase ? Character.toLowerCase(c) : c;
+        }
+    }
+
+}
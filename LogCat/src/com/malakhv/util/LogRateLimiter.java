@@ -0,0 +1,329 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The rate limiter for log messages, see {@link LogCat#setRateLimiter(LogRateLimiter)}. It
+ * protects the system log from a tight loop that writes thousands of log messages per second.
+ *
+ * <p>The limiter supports:
+ * <ul>
+ *  <li>token bucket for each component tag and log level (see
+ *  {@link Builder#setRate(int, int, int)}), a message is dropped if the bucket is empty; the
+ *  buckets could be also per call site (see {@link Builder#setPerCallSite(boolean)});</li>
+ *  <li>probabilistic sampling for any log level (see {@link Builder#setSampleRate(int, double)}),
+ *  it is useful for {@link LogCat#DEBUG} and {@link LogCat#INFO} messages;</li>
+ *  <li>periodic summary line with number of dropped messages (see
+ *  {@link Builder#setSummaryInterval(long)}).</li>
+ * </ul></p>
+ *
+ * <p>The buckets are lock-free (one CAS per message, see GCRA algorithm), and the counters of
+ * dropped messages are striped by threads, so the limiter is not a bottleneck under
+ * multi-threaded load.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LogRateLimiter {
+
+    /** The default interval between two summary lines, in milliseconds. */
+    public static final long DEFAULT_SUMMARY_INTERVAL = 10 * 1000;
+
+    /** The maximum number of component tags (or call sites) with own buckets. */
+    private static final int MAX_TAGS = 1024;
+
+    /** The number of levels, from 0 to {@link LogCat#SUPPRESS}. */
+    private static final int LEVELS = LogCat.SUPPRESS + 1;
+
+    /** The number of stripes for counters, should be a power of two. */
+    private static final int STRIPES = 16;
+
+    /** The distance between stripes in counters array, to avoid false sharing. */
+    private static final int STRIPE_STRIDE = 8;
+
+    /** The index of counter: messages dropped by token bucket. */
+    private static final int COUNTER_LIMITED = 0;
+
+    /** The index of counter: messages dropped by sampling. */
+    private static final int COUNTER_SAMPLED = 1;
+
+    /** The key in bucket table for {@code null} tag. */
+    private static final String NULL_TAG = "";
+
+    /** The interval (in nanoseconds) between two messages for each level, or 0. */
+    private final long[] mIntervals = new long[LEVELS];
+
+    /** The maximum burst (in nanoseconds, interval * burst) for each level. */
+    private final long[] mBursts = new long[LEVELS];
+
+    /** The sampling threshold (from 0 to {@link Integer#MAX_VALUE}) for each level. */
+    private final int[] mSampleThresholds = new int[LEVELS];
+
+    /** True, if the token bucket is used for any level. */
+    private final boolean mLimiting;
+
+    /** True, if the call sites have own buckets. */
+    private final boolean mPerCallSite;
+
+    /** The interval between two summary lines, in nanoseconds. */
+    private final long mSummaryInterval;
+
+    /** The time of creation of this limiter, the origin for buckets. */
+    private final long mOrigin = System.nanoTime();
+
+    /** The time of next summary line, see {@link System#nanoTime()}. */
+    private final AtomicLong mNextSummary;
+
+    /**
+     * The buckets (theoretical arrival times for each level) for component tags, or for call
+     * sites (they are compared by identity).
+     * */
+    private final ConcurrentHashMap<Object, AtomicLongArray> mBuckets =
+            new ConcurrentHashMap<Object, AtomicLongArray>();
+
+    /** The shared buckets for component tags, if there are too many tags. */
+    private final AtomicLongArray mOverflow = new AtomicLongArray(LEVELS);
+
+    /** The striped counters of dropped messages. */
+    private final AtomicLongArray mCounters = new AtomicLongArray(STRIPES * STRIPE_STRIDE);
+
+    /** The per-thread state of random generator for sampling. */
+    private static final ThreadLocal<long[]> sRandom = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            final long seed = System.nanoTime() ^ Thread.currentThread().getId();
+            return new long[] { seed != 0 ? seed : 0x9E3779B97F4A7C15L };
+        }
+    };
+
+    /**
+     * Creates a new limiter, please use {@link Builder}.
+     * */
+    private LogRateLimiter(Builder builder) {
+        boolean limiting = false;
+        for (int level = 0; level < LEVELS; level++) {
+            final int rate = builder.mRates[level];
+            if (rate > 0) {
+                mIntervals[level] = 1000000000L / rate;
+                mBursts[level] = mIntervals[level] * Math.max(1, builder.mBursts[level]);
+                limiting = true;
+            }
+            final double sample = builder.mSampleRates[level];
+            mSampleThresholds[level] = (int) (sample * Integer.MAX_VALUE);
+        }
+        mLimiting = limiting;
+        mPerCallSite = builder.mPerCallSite;
+        mSummaryInterval = builder.mSummaryInterval * 1000000L;
+        mNextSummary = new AtomicLong(System.nanoTime() + mSummaryInterval);
+    }
+
+    /**
+     * Checks whether or not a log message is allowed to be logged now, and takes the token from
+     * the bucket if so.
+     * @param priority The priority/type of log message.
+     * @param tag The component tag, maybe {@code null}.
+     * @param site The place of log call, maybe {@code null}.
+     * @param now The current time, see {@link System#nanoTime()}.
+     * */
+    boolean tryAcquire(int priority, String tag, CallSite site, long now) {
+        if (priority < 0 || priority >= LEVELS) return true;
+        final int threshold = mSampleThresholds[priority];
+        if (threshold < Integer.MAX_VALUE && nextRandom() >= threshold) {
+            count(COUNTER_SAMPLED);
+            return false;
+        }
+        final long interval = mIntervals[priority];
+        if (!mLimiting || interval == 0) return true;
+        final AtomicLongArray bucket = getBucket(mPerCallSite && site != null ? site : tag);
+        final long burst = mBursts[priority];
+        now -= mOrigin;
+        while (true) {
+            final long tat = bucket.get(priority);
+            final long next = (tat - now > 0 ? tat : now) + interval;
+            if (next - now > burst) {
+                count(COUNTER_LIMITED);
+                return false;
+            }
+            if (bucket.compareAndSet(priority, tat, next)) return true;
+        }
+    }
+
+    /**
+     * Returns the summary line, if it is time for it and some messages were dropped since last
+     * summary. Only one thread gets the summary line.
+     * @param now The current time, see {@link System#nanoTime()}.
+     * @return The summary line, or {@code null}.
+     * */
+    String pollSummary(long now) {
+        final long next = mNextSummary.get();
+        if (now - next < 0 || !mNextSummary.compareAndSet(next, now + mSummaryInterval)) {
+            return null;
+        }
+        final long limited = drain(COUNTER_LIMITED);
+        final long sampled = drain(COUNTER_SAMPLED);
+        if (limited == 0 && sampled == 0) return null;
+        return "Suppressed " + (limited + sampled) + " log messages (rate limit: " + limited
+                + ", sampling: " + sampled + ")";
+    }
+
+    /**
+     * @return The number of messages dropped since last summary line.
+     * */
+    public long getSuppressedCount() {
+        long total = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            total += mCounters.get(i * STRIPE_STRIDE + COUNTER_LIMITED);
+            total += mCounters.get(i * STRIPE_STRIDE + COUNTER_SAMPLED);
+        }
+        return total;
+    }
+
+    /**
+     * @return True, if the call sites have own buckets, see
+     * {@link Builder#setPerCallSite(boolean)}.
+     * */
+    public boolean isPerCallSite() { return mPerCallSite; }
+
+    /** Returns the buckets for component tag or call site. */
+    private AtomicLongArray getBucket(Object tag) {
+        final Object key = tag != null ? tag : NULL_TAG;
+        AtomicLongArray bucket = mBuckets.get(key);
+        if (bucket == null) {
+            if (mBuckets.size() >= MAX_TAGS) return mOverflow;
+            final AtomicLongArray created = new AtomicLongArray(LEVELS);
+            bucket = mBuckets.putIfAbsent(key, created);
+            if (bucket == null) bucket = created;
+        }
+        return bucket;
+    }
+
+    /** Increments the counter in the stripe of current thread. */
+    private void count(int counter) {
+        final int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        mCounters.incrementAndGet(stripe * STRIPE_STRIDE + counter);
+    }
+
+    /** Returns the sum of the counter in all stripes, and resets it. */
+    private long drain(int counter) {
+        long total = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            total += mCounters.getAndSet(i * STRIPE_STRIDE + counter, 0);
+        }
+        return total;
+    }
+
+    /** Returns the next random value from 0 to {@link Integer#MAX_VALUE} (xorshift). */
+    private static int nextRandom() {
+        final long[] state = sRandom.get();
+        long x = state[0];
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        state[0] = x;
+        return (int) (x >>> 33);
+    }
+
+    /**
+     * The builder for {@link LogRateLimiter}.
+     * */
+    public static final class Builder {
+        private final int[] mRates = new int[LEVELS];
+        private final int[] mBursts = new int[LEVELS];
+        private final double[] mSampleRates = new double[LEVELS];
+        private long mSummaryInterval = DEFAULT_SUMMARY_INTERVAL;
+        private boolean mPerCallSite = false;
+
+        public Builder() {
+            for (int level = 0; level < LEVELS; level++) mSampleRates[level] = 1;
+        }
+
+        /**
+         * Set the maximum rate of log messages for each component tag, for all log levels.
+         * @param perSecond The maximum number of messages per second, or 0 for no limit.
+         * @param burst The maximum number of messages that could be written at once.
+         * */
+        public Builder setRate(int perSecond, int burst) {
+            for (int level = 0; level < LEVELS; level++) setRate(level, perSecond, burst);
+            return this;
+        }
+
+        /**
+         * Set the maximum rate of log messages for each component tag, for specified log level.
+         * @param level The log level.
+         * @param perSecond The maximum number of messages per second, or 0 for no limit.
+         * @param burst The maximum number of messages that could be written at once.
+         * */
+        public Builder setRate(int level, int perSecond, int burst) {
+            checkLevel(level);
+            if (perSecond < 0 || burst < 0) {
+                throw new IllegalArgumentException("The rate and burst should not be negative");
+            }
+            mRates[level] = perSecond;
+            mBursts[level] = burst;
+            return this;
+        }
+
+        /**
+         * Set the part of log messages of specified level that will be written.
+         * @param level The log level.
+         * @param rate The value from 0 (drop all messages) to 1 (write all messages).
+         * */
+        public Builder setSampleRate(int level, double rate) {
+            checkLevel(level);
+            if (rate < 0 || rate > 1) {
+                throw new IllegalArgumentException("The sample rate should be from 0 to 1");
+            }
+            mSampleRates[level] = rate;
+            return this;
+        }
+
+        /**
+         * Set the interval between two summary lines with number of dropped messages.
+         * @param millis The interval in milliseconds.
+         * */
+        public Builder setSummaryInterval(long millis) {
+            if (millis <= 0) throw new IllegalArgumentException("The interval should be positive");
+            mSummaryInterval = millis;
+            return this;
+        }
+
+        /**
+         * Set whether or not each call site has own buckets instead of its component tag, so
+         * a noisy log call does not drop other messages with the same tag. The messages without
+         * call site (see {@link LogCat#callSite(CallSite)}) use the buckets of component tag.
+         * */
+        public Builder setPerCallSite(boolean perCallSite) {
+            mPerCallSite = perCallSite;
+            return this;
+        }
+
+        /** Creates the new {@link LogRateLimiter}. */
+        public LogRateLimiter build() { return new LogRateLimiter(this); }
+
+        /** Checks the log level. */
+        private static void checkLevel(int level) {
+            if (level < 0 || level >= LEVELS) {
+                throw new IllegalArgumentException("Invalid level " + level);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,311 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.lang.reflect.Array;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The bounded, preallocated ring buffer of log entries with a single consumer thread. It is used
+ * by {@link LogCat} in asynchronous mode, and for the queue of each {@link LogSink} if there are
+ * several sinks.
+ *
+ * <p>Producers never take locks: a producer claims a slot via CAS on the tail sequence (see
+ * {@link #claim()}), fills the preallocated entry and publishes it (see {@link #publish(long)}).
+ * If the buffer is full, the entry is dropped and counted (see {@link #getDropped()}), so the
+ * caller never waits for the consumer. The consumer handles published entries by batches.</p>
+ *
+ * <p>On shutdown, the consumer handles all claimed entries and then closes the tail sequence by
+ * CAS, so a producer that still keeps the reference to this buffer could not claim a slot that
+ * will never be handled: it gets {@link #CLOSED} and should write the entry by itself.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+final class LogRingBuffer<E> implements Runnable {
+
+    /** The maximum time (in nanoseconds) that the consumer thread sleeps without new entries. */
+    private static final long PARK_NANOS = 50 * 1000000L;
+
+    /** The time (in milliseconds) between two checks of the consumer state in flush method. */
+    private static final long FLUSH_WAIT_MILLIS = 1;
+
+    /** The result of {@link #claim()} for the buffer that was shut down. */
+    static final long CLOSED = -2;
+
+    /** The value of tail sequence after shutdown. */
+    private static final long CLOSED_TAIL = Long.MIN_VALUE;
+
+    /** The maximum number of entries that are handled at once. */
+    private static final int MAX_BATCH_SIZE = 64;
+
+    /**
+     * Interface definition for a callback to be invoked on the consumer thread for entries
+     * in the ring buffer.
+     * */
+    interface Handler<E> {
+
+        /**
+         * Creates a new entry, it is called for each slot when the buffer is created.
+         * */
+        E newEntry();
+
+        /**
+         * Handle the batch of log entries. The entries are reused after this call, so the
+         * handler should clear them and do not keep it.
+         * */
+        void handle(E[] entries, int offset, int count);
+
+        /**
+         * Called on the consumer thread after all pending entries were handled, before the
+         * consumer thread goes to sleep.
+         * */
+        void onIdle();
+
+        /**
+         * Called on the consumer thread each time it wakes up without new entries, so no more
+         * than once per {@link #PARK_NANOS} while the buffer is idle.
+         * */
+        void onTick();
+
+        /**
+         * Called on the consumer thread after all pending entries were handled during shutdown.
+         * */
+        void onShutdown();
+    }
+
+    /**
+     * The log entry of {@link LogCat} in asynchronous mode. All fields are written by producer
+     * before publication and cleared by consumer after handling.
+     * */
+    static final class Entry {
+        long time;
+        Thread thread;
+        int priority;
+        String tag;
+        String msg;
+        Object[] args;
+        Throwable tr;
+        boolean obfuscate;
+        CallSite site;
+        LogContext context;
+        LogConfig config;
+
+        /** The copy of typed format arguments, it is reused. */
+        final LogArgs typedArgs = new LogArgs();
+
+        /** True, if {@link #msg} is the format string for {@link #typedArgs}. */
+        boolean typed;
+
+        /** Clears all references, to not keep it in memory. */
+        void clear() {
+            thread = null; tag = null; msg = null; args = null; tr = null; site = null;
+            context = null; config = null; typed = false;
+            typedArgs.clear();
+        }
+    }
+
+    /** The slots of this ring buffer. */
+    private final E[] mEntries;
+
+    /** The mask for computing slot index from sequence, the capacity is a power of two. */
+    private final int mMask;
+
+    /** The published sequence (plus one) for each slot, or zero for empty slot. */
+    private final AtomicLongArray mPublished;
+
+    /** The next sequence that will be claimed by a producer, or {@link #CLOSED_TAIL}. */
+    private final AtomicLong mTail = new AtomicLong(0);
+
+    /** The next sequence that will be handled by the consumer. Written by consumer only. */
+    private volatile long mHead = 0;
+
+    /** The number of entries that were dropped because the buffer was full. */
+    private final AtomicLong mDropped = new AtomicLong(0);
+
+    /** True, if the consumer thread should keep working. */
+    private volatile boolean mRunning = true;
+
+    /** True, if the consumer thread is going to sleep or already sleeping. */
+    private volatile boolean mWaiting = false;
+
+    /** The handler for entries. */
+    private final Handler<E> mHandler;
+
+    /** The consumer thread. */
+    private final Thread mThread;
+
+    /**
+     * Creates a new ring buffer and starts the consumer thread.
+     * @param capacity The minimum capacity of this buffer, will be rounded up to a power of two.
+     * @param handler The handler that will be invoked on the consumer thread.
+     * @param name The name of the consumer thread.
+     * */
+    @SuppressWarnings("unchecked")
+    LogRingBuffer(int capacity, Handler<E> handler, String name) {
+        if (capacity <= 0) throw new IllegalArgumentException("The capacity should be positive");
+        if (handler == null) throw new NullPointerException("The handler is null");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        final E first = handler.newEntry();
+        mEntries = (E[]) Array.newInstance(first.getClass(), size);
+        mEntries[0] = first;
+        for (int i = 1; i < size; i++) mEntries[i] = handler.newEntry();
+        mMask = size - 1;
+        mPublished = new AtomicLongArray(size);
+        mHandler = handler;
+        mThread = new Thread(this, name);
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    /** @return The capacity of this buffer. */
+    int getCapacity() { return mEntries.length; }
+
+    /** @return The number of entries that were dropped because the buffer was full. */
+    long getDropped() { return mDropped.get(); }
+
+    /** @return True, if the consumer thread still works. */
+    boolean isRunning() { return mRunning; }
+
+    /**
+     * Claims the slot for a new entry. This method never blocks. The entry (see
+     * {@link #get(long)}) should be filled and published (see {@link #publish(long)}) right
+     * after this call.
+     * @return The sequence of claimed slot, {@code -1} if the buffer is full, or
+     * {@link #CLOSED} if the buffer was shut down.
+     * */
+    long claim() {
+        final int capacity = mEntries.length;
+        long seq;
+        do {
+            seq = mTail.get();
+            if (seq == CLOSED_TAIL) return CLOSED;
+            if (seq - mHead >= capacity) {
+                mDropped.incrementAndGet();
+                return -1;
+            }
+        } while (!mTail.compareAndSet(seq, seq + 1));
+        return seq;
+    }
+
+    /** Returns the entry for claimed sequence. */
+    E get(long seq) { return mEntries[(int) seq & mMask]; }
+
+    /** Publishes the entry for claimed sequence, so the consumer could handle it. */
+    void publish(long seq) {
+        mPublished.set((int) seq & mMask, seq + 1);
+        if (mWaiting) LockSupport.unpark(mThread);
+    }
+
+    /**
+     * Waits until all entries, that were put before this call, will be handled.
+     * @param timeout The maximum time to wait, in milliseconds.
+     * @return True, if all entries were handled.
+     * */
+    boolean flush(long timeout) {
+        final long target = mTail.get();
+        if (target == CLOSED_TAIL) return !mThread.isAlive();
+        if (Thread.currentThread() == mThread) return mHead >= target;
+        final long deadline = System.currentTimeMillis() + timeout;
+        while (mHead < target) {
+            if (!mThread.isAlive() || System.currentTimeMillis() >= deadline) return false;
+            LockSupport.unpark(mThread);
+            try {
+                Thread.sleep(FLUSH_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return mHead >= target;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Handles all pending entries and stops the consumer thread.
+     * @param timeout The maximum time to wait, in milliseconds.
+     * @return True, if all entries were handled and the consumer thread was stopped.
+     * */
+    boolean shutdown(long timeout) {
+        mRunning = false;
+        LockSupport.unpark(mThread);
+        if (Thread.currentThread() == mThread) return false;
+        try {
+            mThread.join(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !mThread.isAlive();
+    }
+
+    /**
+     * The consumer loop.
+     * */
+    @Override
+    public void run() {
+        boolean idle = true;
+        while (true) {
+            final long head = mHead;
+            final int index = (int) head & mMask;
+            // The batch is the published entries from head to the end of array
+            final int max = Math.min(MAX_BATCH_SIZE, mEntries.length - index);
+            int count = 0;
+            while (count < max && mPublished.get(index + count) == head + count + 1) count++;
+            if (count > 0) {
+                try {
+                    mHandler.handle(mEntries, index, count);
+                } catch (RuntimeException ignored) {
+                    // The consumer thread should not die because of a single bad entry
+                }
+                mHead = head + count;
+                idle = false;
+            } else {
+                // The tail is closed only if there are no claimed entries, otherwise they will be
+                // published soon
+                if (!mRunning && mTail.compareAndSet(head, CLOSED_TAIL)) {
+                    try {
+                        mHandler.onShutdown();
+                    } catch (RuntimeException ignored) {
+                        // Nothing to do, the consumer thread is stopping
+                    }
+                    break;
+                }
+                if (!idle) {
+                    idle = true;
+                    try {
+                        mHandler.onIdle();
+                    } catch (RuntimeException ignored) {
+                        // The consumer thread should not die because of the handler
+                    }
+                }
+                mWaiting = true;
+                if (mPublished.get(index) != head + 1 && mRunning) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                mWaiting = false;
+                try {
+                    mHandler.onTick();
+                } catch (RuntimeException ignored) {
+                    // The consumer thread should not die because of the handler
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+/**
+ * Interface definition for the destination of log events: the system log (see
+ * {@link AndroidLogSink}), a file, memory or a test stand-in (see {@link StreamLogSink}). The
+ * sinks are registered via {@link LogCat#init(String, boolean, LogSink...)}.
+ *
+ * <p>If there is only one sink, it is called by the thread that writes log messages (or by the
+ * writer thread in asynchronous mode), so the sink should be thread-safe. If there are several
+ * sinks, each sink has own queue and own thread, and it receives events by batches (see
+ * {@link #write(LogEvent[], int, int)}), so a slow sink doesn't block other sinks and
+ * callers.</p>
+ *
+ * <p>The events are reused after each call, so the sink should not keep them, please use
+ * {@link LogEvent#copy()} if you need it.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public interface LogSink {
+
+    /**
+     * Writes the log event.
+     * @return The number of bytes written, or negative value if the event was not written.
+     * */
+    int write(LogEvent event);
+
+    /**
+     * Writes the batch of log events.
+     * @param events The array of events.
+     * @param offset The index of first event in array.
+     * @param count The number of events.
+     * */
+    void write(LogEvent[] events, int offset, int count);
+
+    /**
+     * Flushes all buffered events, if any. It is called by {@link LogCat#flush()}, and when the
+     * queue of sink becomes empty.
+     * */
+    void flush();
+
+    /**
+     * Flushes and releases all resources of this sink. It is called when the sink is replaced
+     * by {@link LogCat#init(String, boolean, LogSink...)}.
+     * */
+    void close();
+
+}
@@ -0,0 +1,505 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The sampling CPU profiler for production builds, where attaching a profiler is not possible.
+ * The daemon thread periodically captures the stacks of selected threads (see
+ * {@link Thread#getStackTrace()}), and identical stacks are aggregated into counters of a
+ * compact trie. The result could be exported as collapsed stacks, the input format of flame
+ * graph tools ({@code "thread;outer.method;inner.method count"}), to the log (see
+ * {@link #print(String, int)}) or to a file (see {@link #writeTo(Appendable)}). For example:
+ * <br>&nbsp;<br>
+ * &#09;{@code SamplingProfiler profiler = new SamplingProfiler.Builder()}<br>
+ * &#09;&#09;{@code .addThread(Looper.getMainLooper().getThread()).build();}<br>
+ * &#09;{@code profiler.start();}<br>
+ * &#09;{@code ...}<br>
+ * &#09;{@code profiler.stop();}<br>
+ * &#09;{@code profiler.print("Profiler", LogCat.INFO);}
+ * <br>&nbsp;<br>
+ *
+ * <p>The frames are aggregated by class and method (not by line). The trie and the frame table
+ * are preallocated arrays with open addressing, so the aggregation does not allocate memory
+ * once all frames were met. If the tables are full, the samples are dropped.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class SamplingProfiler {
+
+    /** The default sampling interval, in milliseconds. */
+    public static final long DEFAULT_INTERVAL = 10;
+
+    /** The default maximum number of trie nodes. */
+    public static final int DEFAULT_MAX_NODES = 16 * 1024;
+
+    /** The default maximum number of sampled frames of one stack. */
+    public static final int DEFAULT_MAX_DEPTH = 128;
+
+    /** The frame in place of outermost frames of too deep stack, see {@link #sample(Thread)}. */
+    private static final String TRUNCATED_FRAME = "...";
+
+    /** The interval (in samples) of searching threads by name prefix. */
+    private static final int THREADS_REFRESH_SAMPLES = 100;
+
+    /** The root of trie. */
+    private static final int ROOT = 0;
+
+    /** The empty slot of hash tables. */
+    private static final int EMPTY = -1;
+
+    /** The sampled threads. */
+    private final Thread[] mThreads;
+
+    /** The name prefixes of sampled threads (thread pools, for example). */
+    private final String[] mPrefixes;
+
+    /** The sampling interval, in milliseconds. */
+    private final long mInterval;
+
+    /** The sampling duration in milliseconds, or 0 for sampling until {@link #stop()}. */
+    private final long mDuration;
+
+    /** The maximum number of sampled frames of one stack. */
+    private final int mMaxDepth;
+
+    /**
+     * The frames: the {@link StackTraceElement} or the thread name (the first level of trie).
+     * The frame id is an index in this array.
+     * */
+    private final Object[] mFrames;
+
+    /** The number of frames. */
+    private int mFrameCount = 0;
+
+    /** The hash table of frames: the frame id or {@link #EMPTY}. */
+    private final int[] mFrameTable;
+
+    /** The parents of trie nodes. */
+    private final int[] mParents;
+
+    /** The frames of trie nodes. */
+    private final int[] mNodeFrames;
+
+    /** The number of samples that end at node. */
+    private final int[] mCounts;
+
+    /** The number of trie nodes (the root too). */
+    private int mNodeCount = 1;
+
+    /** The hash table of trie nodes: the node or {@link #EMPTY}, the key is parent and frame. */
+    private final int[] mNodeTable;
+
+    /** The sampled threads that were found by name prefixes. */
+    private Thread[] mFound = new Thread[0];
+
+    /** The number of threads in {@link #mFound}. */
+    private int mFoundCount = 0;
+
+    /** The buffer for enumeration of all threads. */
+    private Thread[] mAll = new Thread[0];
+
+    /** The number of samples (sampled stacks). */
+    private long mSamples = 0;
+
+    /** The number of samples that were dropped, because the tables were full. */
+    private long mDropped = 0;
+
+    /** The sampling thread, or {@code null}. */
+    private Thread mThread = null;
+
+    /** True, if the profiler should stop. */
+    private volatile boolean mStopped = false;
+
+    /**
+     * Creates a new profiler, please use {@link Builder}.
+     * */
+    private SamplingProfiler(Builder builder) {
+        mThreads = builder.mThreads.toArray(new Thread[builder.mThreads.size()]);
+        mPrefixes = builder.mPrefixes.toArray(new String[builder.mPrefixes.size()]);
+        mInterval = builder.mInterval;
+        mDuration = builder.mDuration;
+        mMaxDepth = builder.mMaxDepth;
+        final int nodes = builder.mMaxNodes;
+        mParents = new int[nodes];
+        mNodeFrames = new int[nodes];
+        mCounts = new int[nodes];
+        mNodeTable = new int[tableSize(nodes)];
+        // The number of distinct frames is less than the number of nodes
+        mFrames = new Object[nodes];
+        mFrameTable = new int[tableSize(nodes)];
+        java.util.Arrays.fill(mNodeTable, EMPTY);
+        java.util.Arrays.fill(mFrameTable, EMPTY);
+    }
+
+    /** Returns the size of hash table for specified number of entries, a power of two. */
+    private static int tableSize(int entries) {
+        return Integer.highestOneBit(entries) << 2;
+    }
+
+    /**
+     * Starts sampling in the daemon thread. The profiler could be started only once.
+     * */
+    public synchronized void start() {
+        if (mThread != null) throw new IllegalStateException("The profiler was already started");
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() { loop(); }
+        }, "LogCat-Profiler");
+        mThread.setDaemon(true);
+        // The sampling should not take the CPU from sampled threads
+        mThread.setPriority(Thread.NORM_PRIORITY);
+        mThread.start();
+    }
+
+    /**
+     * Stops sampling and waits for the sampling thread. The collected samples are kept.
+     * */
+    public void stop() {
+        mStopped = true;
+        final Thread thread;
+        synchronized (this) { thread = mThread; }
+        if (thread == null || thread == Thread.currentThread()) return;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** @return True, if the profiler samples the threads. */
+    public synchronized boolean isRunning() {
+        return mThread != null && mThread.isAlive() && !mStopped;
+    }
+
+    /** @return The number of samples (sampled stacks). */
+    public synchronized long getSampleCount() { return mSamples; }
+
+    /** @return The number of samples that were dropped, because the trie was full. */
+    public synchronized long getDroppedCount() { return mDropped; }
+
+    /**
+     * Clears the collected samples, the profiler continues sampling.
+     * */
+    public synchronized void reset() {
+        java.util.Arrays.fill(mNodeTable, EMPTY);
+        java.util.Arrays.fill(mFrameTable, EMPTY);
+        java.util.Arrays.fill(mFrames, null);
+        java.util.Arrays.fill(mCounts, 0);
+        mFrameCount = 0;
+        mNodeCount = 1;
+        mSamples = 0;
+        mDropped = 0;
+    }
+
+    /**
+     * The sampling loop.
+     * */
+    private void loop() {
+        final long start = System.currentTimeMillis();
+        int refresh = 0;
+        while (!mStopped) {
+            if (mDuration > 0 && System.currentTimeMillis() - start >= mDuration) break;
+            if (mPrefixes.length > 0 && refresh-- == 0) {
+                findThreads();
+                refresh = THREADS_REFRESH_SAMPLES;
+            }
+            for (Thread thread: mThreads) sample(thread);
+            for (int i = 0; i < mFoundCount; i++) sample(mFound[i]);
+            try {
+                Thread.sleep(mInterval);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        mStopped = true;
+    }
+
+    /**
+     * Finds the live threads with specified name prefixes. The buffers are reused.
+     * */
+    private void findThreads() {
+        ThreadGroup root = Thread.currentThread().getThreadGroup();
+        while (root.getParent() != null) root = root.getParent();
+        int count;
+        while ((count = root.enumerate(mAll, true)) >= mAll.length) {
+            mAll = new Thread[Math.max(16, count * 2)];
+        }
+        if (mFound.length < count) mFound = new Thread[mAll.length];
+        mFoundCount = 0;
+        for (int i = 0; i < count; i++) {
+            final Thread thread = mAll[i];
+            mAll[i] = null;
+            if (thread == Thread.currentThread()) continue;
+            final String name = thread.getName();
+            for (String prefix: mPrefixes) {
+                if (name.startsWith(prefix)) {
+                    mFound[mFoundCount++] = thread;
+                    break;
+                }
+            }
+        }
+        for (int i = mFoundCount; i < mFound.length; i++) mFound[i] = null;
+    }
+
+    /**
+     * Captures and aggregates the stack of thread.
+     * */
+    private void sample(Thread thread) {
+        if (!thread.isAlive()) return;
+        final StackTraceElement[] trace = thread.getStackTrace();
+        if (trace.length == 0) return;
+        synchronized (this) {
+            mSamples++;
+            int node = child(ROOT, frame(thread.getName()));
+            // The innermost frames are sampled (they are the hot ones), and the outermost frames
+            // of too deep stack are replaced by the single marker frame
+            final int depth = Math.min(trace.length, mMaxDepth);
+            if (depth < trace.length && node != EMPTY) node = child(node, frame(TRUNCATED_FRAME));
+            for (int i = depth - 1; i >= 0 && node != EMPTY; i--) {
+                node = child(node, frame(trace[i]));
+            }
+            if (node == EMPTY) {
+                mDropped++;
+            } else {
+                mCounts[node]++;
+            }
+        }
+    }
+
+    /**
+     * Returns the id of frame, the frame is added if it is new.
+     * @return The id of frame, or {@link #EMPTY} if the table is full.
+     * */
+    private int frame(Object frame) {
+        final int mask = mFrameTable.length - 1;
+        for (int i = mix(frameHash(frame)) & mask;; i = (i + 1) & mask) {
+            final int id = mFrameTable[i];
+            if (id == EMPTY) {
+                if (mFrameCount == mFrames.length) return EMPTY;
+                mFrames[mFrameCount] = frame;
+                mFrameTable[i] = mFrameCount;
+                return mFrameCount++;
+            }
+            if (isSameFrame(mFrames[id], frame)) return id;
+        }
+    }
+
+    /**
+     * Returns the child of node with specified frame, the child is added if it is new.
+     * @return The child, or {@link #EMPTY} if the table is full or the frame is {@link #EMPTY}.
+     * */
+    private int child(int parent, int frame) {
+        if (parent == EMPTY || frame == EMPTY) return EMPTY;
+        final int mask = mNodeTable.length - 1;
+        for (int i = mix(parent * 31 + frame) & mask;; i = (i + 1) & mask) {
+            final int node = mNodeTable[i];
+            if (node == EMPTY) {
+                if (mNodeCount == mParents.length) return EMPTY;
+                final int added = mNodeCount++;
+                mParents[added] = parent;
+                mNodeFrames[added] = frame;
+                mCounts[added] = 0;
+                mNodeTable[i] = added;
+                return added;
+            }
+            if (mParents[node] == parent && mNodeFrames[node] == frame) return node;
+        }
+    }
+
+    /** Returns the hash of frame: class and method of {@link StackTraceElement}, or string. */
+    private static int frameHash(Object frame) {
+        if (frame instanceof StackTraceElement) {
+            final StackTraceElement element = (StackTraceElement) frame;
+            return element.getClassName().hashCode() * 31 + element.getMethodName().hashCode();
+        }
+        return frame.hashCode();
+    }
+
+    /** Mixes the bits of hash, for the tables with power of two size. */
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /** Returns true, if the frames have the same class and method (or the same string). */
+    private static boolean isSameFrame(Object a, Object b) {
+        if (a instanceof StackTraceElement && b instanceof StackTraceElement) {
+            final StackTraceElement first = (StackTraceElement) a;
+            final StackTraceElement second = (StackTraceElement) b;
+            return first.getMethodName().equals(second.getMethodName())
+                    && first.getClassName().equals(second.getClassName());
+        }
+        return a.equals(b);
+    }
+
+    /**
+     * Writes the collected samples as collapsed stacks, one stack per line:
+     * {@code "thread;outer.method;inner.method count"}. This is the input format of flame graph
+     * tools.
+     * @throws IOException If an I/O error occurs.
+     * */
+    public void writeTo(Appendable out) throws IOException {
+        final StringBuilder builder = new StringBuilder(256);
+        final int[] path = new int[mMaxDepth + 2];
+        final int nodes;
+        synchronized (this) { nodes = mNodeCount; }
+        for (int node = 1; node < nodes; node++) {
+            builder.setLength(0);
+            synchronized (this) {
+                if (node >= mNodeCount || mCounts[node] == 0) continue;
+                appendStack(builder, node, path);
+            }
+            out.append(builder).append('\n');
+        }
+    }
+
+    /**
+     * Writes the collected samples as collapsed stacks (see {@link #writeTo(Appendable)}) to the
+     * log. The stacks are written in several log messages.
+     * @param tag Used to identify the source of a log message. Maybe {@code null}.
+     * @param priority The priority/type of log messages.
+     * */
+    public void print(String tag, int priority) {
+        if (!LogCat.isDumped(tag, priority)) return;
+        final int[] path = new int[mMaxDepth + 2];
+        StringBuilder builder = LogCat.obtainBuffer();
+        synchronized (this) {
+            for (int node = 1; node < mNodeCount; node++) {
+                if (mCounts[node] == 0) continue;
+                builder = LogCat.nextLine(builder, priority, tag);
+                appendStack(builder, node, path);
+            }
+        }
+        LogCat.flushDump(builder, priority, tag);
+    }
+
+    /**
+     * Appends the collapsed stack that ends at specified node and its count.
+     * @param path The buffer for path from the root, its length is the max depth plus the thread
+     * and the marker of truncated stack.
+     * */
+    private void appendStack(StringBuilder builder, int node, int[] path) {
+        int length = 0;
+        for (int n = node; n != ROOT; n = mParents[n]) path[length++] = n;
+        for (int i = length - 1; i >= 0; i--) {
+            final Object frame = mFrames[mNodeFrames[path[i]]];
+            if (frame instanceof StackTraceElement) {
+                final StackTraceElement element = (StackTraceElement) frame;
+                builder.append(element.getClassName()).append('.')
+                        .append(element.getMethodName());
+            } else {
+                // The thread name or the marker, the separators are not allowed in stacks
+                final String name = (String) frame;
+                for (int k = 0; k < name.length(); k++) {
+                    final char c = name.charAt(k);
+                    builder.append(c == ';' || c == ' ' ? '_' : c);
+                }
+            }
+            if (i > 0) builder.append(';');
+        }
+        builder.append(' ').append(mCounts[node]);
+    }
+
+    /**
+     * The builder for {@link SamplingProfiler}.
+     * */
+    public static final class Builder {
+        private final List<Thread> mThreads = new ArrayList<Thread>();
+        private final List<String> mPrefixes = new ArrayList<String>();
+        private long mInterval = DEFAULT_INTERVAL;
+        private long mDuration = 0;
+        private int mMaxNodes = DEFAULT_MAX_NODES;
+        private int mMaxDepth = DEFAULT_MAX_DEPTH;
+
+        /**
+         * Add the sampled thread, the main thread for example.
+         * */
+        public Builder addThread(Thread thread) {
+            if (thread == null) throw new NullPointerException("thread == null");
+            mThreads.add(thread);
+            return this;
+        }
+
+        /**
+         * Add the name prefix of sampled threads, a thread pool for example. The threads are
+         * searched periodically, so the new threads are sampled too.
+         * */
+        public Builder addThreads(String prefix) {
+            if (prefix == null) throw new NullPointerException("prefix == null");
+            mPrefixes.add(prefix);
+            return this;
+        }
+
+        /**
+         * Set the sampling interval in milliseconds, the default value is
+         * {@link #DEFAULT_INTERVAL}.
+         * */
+        public Builder setInterval(long interval) {
+            if (interval <= 0) {
+                throw new IllegalArgumentException("The interval should be positive");
+            }
+            mInterval = interval;
+            return this;
+        }
+
+        /**
+         * Set the sampling duration in milliseconds. The default value is 0, the profiler samples
+         * threads until {@link SamplingProfiler#stop()}.
+         * */
+        public Builder setDuration(long duration) {
+            if (duration < 0) throw new IllegalArgumentException("The duration is negative");
+            mDuration = duration;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of trie nodes (distinct stack prefixes), the default value is
+         * {@link #DEFAULT_MAX_NODES}.
+         * */
+        public Builder setMaxNodes(int nodes) {
+            if (nodes <= 1) throw new IllegalArgumentException("Too few nodes " + nodes);
+            mMaxNodes = nodes;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of sampled frames of one stack. The innermost frames are sampled,
+         * the outermost frames of deeper stack are replaced by the single {@code "..."} frame.
+         * The default value is {@link #DEFAULT_MAX_DEPTH}.
+         * */
+        public Builder setMaxDepth(int depth) {
+            if (depth <= 0) throw new IllegalArgumentException("The depth should be positive");
+            mMaxDepth = depth;
+            return this;
+        }
+
+        /** Creates the new {@link SamplingProfiler}. */
+        public SamplingProfiler build() {
+            if (mThreads.isEmpty() && mPrefixes.isEmpty()) {
+                throw new IllegalStateException("There are no sampled threads");
+            }
+            return new SamplingProfiler(this);
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+/**
+ * The dispatcher of log events to registered sinks, see
+ * {@link LogCat#init(String, boolean, LogSink...)}. The single sink is called directly. If
+ * there are several sinks, each sink has own queue (see {@link LogRingBuffer}) and own thread,
+ * so callers never wait for the slowest sink: if the queue of sink is full, the event is
+ * dropped for this sink only.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+final class SinkDispatcher {
+
+    /** The prefix for names of sink threads. */
+    private static final String SINK_THREAD_NAME = "LogCat-Sink-";
+
+    /** The registered sinks. */
+    private final LogSink[] mSinks;
+
+    /** The queues of sinks, or {@code null} if there is only one sink. */
+    private final LogRingBuffer<LogEvent>[] mQueues;
+
+    /**
+     * Creates a new dispatcher.
+     * @param sinks The sinks, at least one.
+     * @param queueSize The capacity of queue of each sink, if there are several sinks.
+     * */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    SinkDispatcher(LogSink[] sinks, int queueSize) {
+        if (sinks.length == 0) throw new IllegalArgumentException("There are no sinks");
+        for (LogSink sink : sinks) {
+            if (sink == null) throw new NullPointerException("The sink is null");
+        }
+        mSinks = sinks.clone();
+        if (mSinks.length == 1) {
+            mQueues = null;
+            return;
+        }
+        mQueues = new LogRingBuffer[mSinks.length];
+        for (int i = 0; i < mSinks.length; i++) {
+            mQueues[i] = new LogRingBuffer<LogEvent>(queueSize, new SinkHandler(mSinks[i]),
+                    SINK_THREAD_NAME + i);
+        }
+    }
+
+    /** @return True, if the sink is registered in this dispatcher. */
+    boolean contains(LogSink sink) {
+        for (LogSink s : mSinks) if (s == sink) return true;
+        return false;
+    }
+
+    /**
+     * Writes the event to all sinks.
+     * @return The number of bytes written by the single sink, {@code 0} if the event was put to
+     * queue of at least one sink, or {@code -1} if the event was dropped.
+     * */
+    int write(LogEvent event) {
+        final LogRingBuffer<LogEvent>[] queues = mQueues;
+        if (queues == null) return mSinks[0].write(event);
+        int result = -1;
+        for (LogRingBuffer<LogEvent> queue : queues) {
+            final long seq = queue.claim();
+            if (seq < 0) continue;
+            queue.get(seq).set(event);
+            queue.publish(seq);
+            result = 0;
+        }
+        return result;
+    }
+
+    /** @return The number of events that were dropped, because the queue of sink was full. */
+    long getDropped() {
+        long dropped = 0;
+        if (mQueues != null) {
+            for (LogRingBuffer<LogEvent> queue : mQueues) dropped += queue.getDropped();
+        }
+        return dropped;
+    }
+
+    /**
+     * Waits until all pending events will be written and flushes the sinks.
+     * @param timeout The maximum time to wait, in milliseconds.
+     * @return True, if all pending events were written.
+     * */
+    boolean flush(long timeout) {
+        if (mQueues == null) {
+            mSinks[0].flush();
+            return true;
+        }
+        // The sinks are flushed by own threads, when the queue becomes empty
+        final long deadline = System.currentTimeMillis() + timeout;
+        boolean result = true;
+        for (LogRingBuffer<LogEvent> queue : mQueues) {
+            result &= queue.flush(Math.max(0, deadline - System.currentTimeMillis()));
+        }
+        return result;
+    }
+
+    /**
+     * Writes all pending events, stops the queues and closes the sinks, except the sinks that
+     * are registered in other dispatcher.
+     * @param timeout The maximum time to wait, in milliseconds.
+     * @param next The dispatcher that will be used instead of this one, or {@code null}.
+     * @return True, if all pending events were written.
+     * */
+    boolean close(long timeout, SinkDispatcher next) {
+        boolean result = true;
+        if (mQueues != null) {
+            final long deadline = System.currentTimeMillis() + timeout;
+            for (LogRingBuffer<LogEvent> queue : mQueues) {
+                result &= queue.shutdown(Math.max(0, deadline - System.currentTimeMillis()));
+            }
+        }
+        for (LogSink sink : mSinks) {
+            try {
+                if (next == null || !next.contains(sink)) {
+                    sink.close();
+                } else {
+                    sink.flush();
+                }
+            } catch (RuntimeException ignored) {
+                // Nothing to do, the sink is not used anymore
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The handler of queue of one sink, it writes events by batches.
+     * */
+    private static final class SinkHandler implements LogRingBuffer.Handler<LogEvent> {
+
+        /** The sink. */
+        private final LogSink mSink;
+
+        SinkHandler(LogSink sink) { mSink = sink; }
+
+        @Override
+        public LogEvent newEntry() { return new LogEvent(); }
+
+        @Override
+        public void handle(LogEvent[] entries, int offset, int count) {
+            try {
+                mSink.write(entries, offset, count);
+            } finally {
+                for (int i = offset, end = offset + count; i < end; i++) entries[i].clear();
+            }
+        }
+
+        @Override
+        public void onIdle() { mSink.flush(); }
+
+        @Override
+        public void onTick() {}
+
+        @Override
+        public void onShutdown() { mSink.flush(); }
+    }
+
+}
@@ -0,0 +1,303 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.util.concurrent.Executor;
+
+/**
+ * The watchdog that detects stalls of monitored thread (UI jank, or stalls that never reach a
+ * real ANR). The daemon thread of watchdog posts a heartbeat task to the monitored thread and
+ * checks whether it was executed. If the heartbeat is late by more than the threshold, the stack
+ * of monitored thread is logged (see {@link LogCat#printStackTrace(String, int, Thread)}), and
+ * several stacks are captured while the stall lasts. When the thread becomes responsive, the
+ * stall duration is logged too. For the main thread of Android app:
+ * <br>&nbsp;<br>
+ * &#09;{@code final Handler handler = new Handler(Looper.getMainLooper());}<br>
+ * &#09;{@code new StallWatchdog.Builder(Looper.getMainLooper().getThread(), new Executor() {}<br>
+ * &#09;&#09;{@code public void execute(Runnable task) { handler.post(task); }}<br>
+ * &#09;{@code }).setThreshold(500).build().start();}
+ * <br>&nbsp;<br>
+ *
+ * <p>The monitored thread and the scheduler of heartbeat are pluggable, so any thread with a
+ * task queue could be monitored (also on plain JVM).</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class StallWatchdog {
+
+    /** The default stall threshold, in milliseconds. */
+    public static final long DEFAULT_THRESHOLD = 1000;
+
+    /** The default maximum number of captured stacks during one stall. */
+    public static final int DEFAULT_STACK_COUNT = 3;
+
+    /** The default tag of log messages. */
+    public static final String DEFAULT_TAG = "StallWatchdog";
+
+    /** The number of nanoseconds in one millisecond. */
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /** The monitored thread. */
+    private final Thread mMonitored;
+
+    /** The scheduler of heartbeat tasks, it executes tasks on the monitored thread. */
+    private final Executor mScheduler;
+
+    /** The stall threshold, in nanoseconds. */
+    private final long mThreshold;
+
+    /** The interval between checks of heartbeat, in milliseconds. */
+    private final long mCheckInterval;
+
+    /** The maximum number of captured stacks during one stall. */
+    private final int mStackCount;
+
+    /** The interval between captured stacks, in nanoseconds. */
+    private final long mStackInterval;
+
+    /** The tag of log messages. */
+    private final String mTag;
+
+    /** The priority of log messages. */
+    private final int mPriority;
+
+    /** The time of last executed heartbeat, see {@link System#nanoTime()}. */
+    private volatile long mBeat;
+
+    /** The heartbeat task, it is reused. */
+    private final Runnable mHeartbeat = new Runnable() {
+        @Override
+        public void run() { mBeat = System.nanoTime(); }
+    };
+
+    /** The number of detected stalls. */
+    private volatile long mStalls = 0;
+
+    /** The watchdog thread, or {@code null}. */
+    private Thread mThread = null;
+
+    /** True, if the watchdog should stop. */
+    private volatile boolean mStopped = false;
+
+    /**
+     * Creates a new watchdog, please use {@link Builder}.
+     * */
+    private StallWatchdog(Builder builder) {
+        mMonitored = builder.mMonitored;
+        mScheduler = builder.mScheduler;
+        mThreshold = builder.mThreshold * NANOS_PER_MILLI;
+        mCheckInterval = builder.mCheckInterval > 0 ? builder.mCheckInterval
+                : Math.max(1, builder.mThreshold / 4);
+        mStackCount = builder.mStackCount;
+        mStackInterval = (builder.mStackInterval > 0 ? builder.mStackInterval
+                : builder.mThreshold) * NANOS_PER_MILLI;
+        mTag = builder.mTag;
+        mPriority = builder.mPriority;
+        mBeat = System.nanoTime();
+    }
+
+    /** @return The monitored thread. */
+    public Thread getMonitoredThread() { return mMonitored; }
+
+    /** @return The stall threshold, in milliseconds. */
+    public long getThreshold() { return mThreshold / NANOS_PER_MILLI; }
+
+    /** @return The number of detected stalls. */
+    public long getStallCount() { return mStalls; }
+
+    /**
+     * Starts the watchdog thread. The watchdog could be started only once.
+     * */
+    public synchronized void start() {
+        if (mThread != null) throw new IllegalStateException("The watchdog was already started");
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() { loop(); }
+        }, "LogCat-Watchdog");
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    /**
+     * Stops the watchdog and waits for its thread.
+     * */
+    public void stop() {
+        mStopped = true;
+        final Thread thread;
+        synchronized (this) { thread = mThread; }
+        if (thread == null || thread == Thread.currentThread()) return;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The watchdog loop: posts the heartbeat and waits for it.
+     * */
+    private void loop() {
+        while (!mStopped) {
+            final long posted = System.nanoTime();
+            try {
+                mScheduler.execute(mHeartbeat);
+            } catch (RuntimeException e) {
+                // The queue of monitored thread was shut down
+                LogCat.w(mTag, "Cannot post heartbeat, the watchdog stopped", e);
+                break;
+            }
+            if (!await(posted)) break;
+        }
+        mStopped = true;
+    }
+
+    /**
+     * Waits for the heartbeat, that was posted at specified time, and reports the stall.
+     * @return False, if the watchdog was stopped.
+     * */
+    private boolean await(long posted) {
+        int stacks = 0;
+        long nextStack = posted + mThreshold;
+        while (true) {
+            if (!sleep(mCheckInterval)) return false;
+            final long now = System.nanoTime();
+            final long beat = mBeat;
+            if (beat - posted >= 0) {
+                if (stacks > 0) {
+                    LogCat.println(mPriority, mTag, "Thread " + mMonitored.getName()
+                            + " was stalled for " + toMillis(beat - posted) + " ms");
+                }
+                return true;
+            }
+            if (!mMonitored.isAlive()) return false;
+            if (now - nextStack >= 0 && stacks < mStackCount) {
+                if (stacks == 0) mStalls++;
+                stacks++;
+                nextStack = now + mStackInterval;
+                LogCat.println(mPriority, mTag, "Thread " + mMonitored.getName()
+                        + " is stalled for " + toMillis(now - posted) + " ms, stack " + stacks
+                        + "/" + mStackCount + ":");
+                LogCat.printStackTrace(mTag, mPriority, mMonitored);
+            }
+        }
+    }
+
+    /**
+     * Sleeps specified time, in milliseconds.
+     * @return False, if the watchdog was stopped.
+     * */
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            return false;
+        }
+        return !mStopped;
+    }
+
+    /** Converts nanoseconds to milliseconds. */
+    private static long toMillis(long nanos) { return nanos / NANOS_PER_MILLI; }
+
+    /**
+     * The builder for {@link StallWatchdog}.
+     * */
+    public static final class Builder {
+        private final Thread mMonitored;
+        private final Executor mScheduler;
+        private long mThreshold = DEFAULT_THRESHOLD;
+        private long mCheckInterval = 0;
+        private int mStackCount = DEFAULT_STACK_COUNT;
+        private long mStackInterval = 0;
+        private String mTag = DEFAULT_TAG;
+        private int mPriority = LogCat.WARN;
+
+        /**
+         * Creates a new builder.
+         * @param monitored The monitored thread.
+         * @param scheduler The scheduler, it executes the heartbeat tasks on the monitored
+         *                  thread (the {@code Handler} of thread's {@code Looper}, for example).
+         * */
+        public Builder(Thread monitored, Executor scheduler) {
+            if (monitored == null) throw new NullPointerException("monitored == null");
+            if (scheduler == null) throw new NullPointerException("scheduler == null");
+            mMonitored = monitored;
+            mScheduler = scheduler;
+        }
+
+        /**
+         * Set the stall threshold in milliseconds, the default value is
+         * {@link #DEFAULT_THRESHOLD}.
+         * */
+        public Builder setThreshold(long threshold) {
+            if (threshold <= 0) {
+                throw new IllegalArgumentException("The threshold should be positive");
+            }
+            mThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Set the interval between checks of heartbeat in milliseconds, by default it is a
+         * quarter of the threshold.
+         * */
+        public Builder setCheckInterval(long interval) {
+            if (interval <= 0) {
+                throw new IllegalArgumentException("The interval should be positive");
+            }
+            mCheckInterval = interval;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of captured stacks during one stall, the default value is
+         * {@link #DEFAULT_STACK_COUNT}.
+         * */
+        public Builder setStackCount(int count) {
+            if (count <= 0) throw new IllegalArgumentException("The count should be positive");
+            mStackCount = count;
+            return this;
+        }
+
+        /**
+         * Set the interval between captured stacks during one stall in milliseconds, by default
+         * it is equal to the threshold.
+         * */
+        public Builder setStackInterval(long interval) {
+            if (interval <= 0) {
+                throw new IllegalArgumentException("The interval should be positive");
+            }
+            mStackInterval = interval;
+            return this;
+        }
+
+        /**
+         * Set the tag and the priority of stall reports, the default values are
+         * {@link #DEFAULT_TAG} and {@link LogCat#WARN}.
+         * */
+        public Builder setLog(String tag, int priority) {
+            mTag = tag;
+            mPriority = priority;
+            return this;
+        }
+
+        /** Creates the new {@link StallWatchdog}. */
+        public StallWatchdog build() { return new StallWatchdog(this); }
+    }
+
+}
@@ -0,0 +1,86 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.io.PrintStream;
+
+/**
+ * The {@link LogSink} that writes log events to {@link PrintStream}, in the same format as
+ * logcat prints it: {@code "D/MyApp: MyActivity: Any message."}. It is the default sink on a
+ * plain JVM (unit tests and benchmarks, for example), it writes log events to
+ * {@link System#err}.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class StreamLogSink implements LogSink {
+
+    /** The output stream. */
+    private final PrintStream mStream;
+
+    /**
+     * Creates a new sink that writes log events to {@link System#err}.
+     * */
+    public StreamLogSink() { this(System.err); }
+
+    /**
+     * Creates a new sink that writes log events to specified stream.
+     * */
+    public StreamLogSink(PrintStream stream) {
+        if (stream == null) throw new NullPointerException("The stream is null");
+        mStream = stream;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int write(LogEvent event) {
+        final StringBuilder builder = LogCat.obtainSinkBuffer();
+        appendEvent(builder, event);
+        mStream.print(builder);
+        return builder.length();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(LogEvent[] events, int offset, int count) {
+        // All events are written by one call
+        final StringBuilder builder = LogCat.obtainSinkBuffer();
+        for (int i = offset, end = offset + count; i < end; i++) appendEvent(builder, events[i]);
+        mStream.print(builder);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void flush() { mStream.flush(); }
+
+    /**
+     * Flushes the stream. The stream is not closed, because it is usually {@link System#err}
+     * or {@link System#out}.
+     * */
+    @Override
+    public void close() { mStream.flush(); }
+
+    /** Appends the event to the buffer, as one line. */
+    private static void appendEvent(StringBuilder builder, LogEvent event) {
+        builder.append(LogEvent.toPriorityChar(event.getPriority())).append('/')
+                .append(event.getAppTag()).append(LogCat.TAG_DELIMITER);
+        final String tag = event.getTag();
+        if (tag != null) builder.append(tag).append(LogCat.TAG_DELIMITER);
+        builder.append(event.getMessage()).append('\n');
+    }
+
+}
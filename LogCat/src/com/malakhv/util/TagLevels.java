@@ -0,0 +1,144 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The immutable table of log levels for component tags. It is used by {@link LogCat} for
+ * filtering log messages by component tag (see {@link LogCat#setTagLevel(String, int)}). Any
+ * change creates a new table, so lookup needs no locks and no allocations.
+ *
+ * <p>The table supports exact tags ({@code "MyActivity"}) and hierarchical prefixes
+ * ({@code "net.*"}). The prefix {@code "net.*"} matches {@code "net"} and any tag that starts
+ * with {@code "net."}. The exact tag has priority over prefixes, and the longest prefix has
+ * priority over shorter ones.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+final class TagLevels {
+
+    /** The level that means "the level is not specified for tag". */
+    static final int NOT_SET = Integer.MIN_VALUE;
+
+    /** The suffix of hierarchical prefix. */
+    static final String PREFIX_SUFFIX = ".*";
+
+    /** The empty table. */
+    static final TagLevels EMPTY = new TagLevels(new HashMap<String, Integer>());
+
+    /** The levels for exact tags. */
+    private final HashMap<String, Integer> mExact;
+
+    /** The prefixes (without {@link #PREFIX_SUFFIX}), sorted by length, longest first. */
+    private final String[] mPrefixes;
+
+    /** The levels for prefixes. */
+    private final int[] mPrefixLevels;
+
+    /** All entries of this table (the key is the tag or the prefix with suffix). */
+    private final Map<String, Integer> mEntries;
+
+    /**
+     * Creates a new table with specified entries.
+     * */
+    private TagLevels(Map<String, Integer> entries) {
+        mEntries = Collections.unmodifiableMap(new HashMap<String, Integer>(entries));
+        mExact = new HashMap<String, Integer>();
+        final List<String> prefixes = new ArrayList<String>();
+        for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+            final String key = entry.getKey();
+            if (isPrefix(key)) {
+                prefixes.add(key.substring(0, key.length() - PREFIX_SUFFIX.length()));
+            } else {
+                mExact.put(key, entry.getValue());
+            }
+        }
+        Collections.sort(prefixes, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) { return b.length() - a.length(); }
+        });
+        mPrefixes = prefixes.toArray(new String[prefixes.size()]);
+        mPrefixLevels = new int[mPrefixes.length];
+        for (int i = 0; i < mPrefixes.length; i++) {
+            mPrefixLevels[i] = entries.get(mPrefixes[i] + PREFIX_SUFFIX);
+        }
+    }
+
+    /** Returns true, if the tag is hierarchical prefix, like {@code "net.*"}. */
+    static boolean isPrefix(String tag) {
+        return tag.endsWith(PREFIX_SUFFIX) && tag.length() > PREFIX_SUFFIX.length();
+    }
+
+    /** @return True, if this table has no entries. */
+    boolean isEmpty() { return mEntries.isEmpty(); }
+
+    /** @return All entries of this table. */
+    Map<String, Integer> getEntries() { return mEntries; }
+
+    /**
+     * Returns the level for specified tag, or {@link #NOT_SET}.
+     * */
+    int get(String tag) {
+        if (tag == null) return NOT_SET;
+        final Integer level = mExact.get(tag);
+        if (level != null) return level;
+        final int length = tag.length();
+        for (int i = 0; i < mPrefixes.length; i++) {
+            final String prefix = mPrefixes[i];
+            final int prefixLength = prefix.length();
+            if (tag.startsWith(prefix)
+                    && (length == prefixLength || tag.charAt(prefixLength) == '.')) {
+                return mPrefixLevels[i];
+            }
+        }
+        return NOT_SET;
+    }
+
+    /**
+     * Returns a new table with the specified entry, or without entry if level is
+     * {@link #NOT_SET}.
+     * */
+    TagLevels with(String tag, int level) {
+        final HashMap<String, Integer> entries = new HashMap<String, Integer>(mEntries);
+        if (level == NOT_SET) {
+            entries.remove(tag);
+        } else {
+            entries.put(tag, level);
+        }
+        return entries.isEmpty() ? EMPTY : new TagLevels(entries);
+    }
+
+    /**
+     * Returns a new table with entries from both tables. The entries from {@code other} have
+     * priority.
+     * */
+    TagLevels merge(TagLevels other) {
+        if (other.isEmpty()) return this;
+        if (isEmpty()) return other;
+        final HashMap<String, Integer> entries = new HashMap<String, Integer>(mEntries);
+        entries.putAll(other.mEntries);
+        return new TagLevels(entries);
+    }
+
+}
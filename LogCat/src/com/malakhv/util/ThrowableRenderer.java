@@ -0,0 +1,376 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The renderer of exceptions for log messages, see
+ * {@link LogCat#setThrowableRenderer(ThrowableRenderer)}. The exception and its causes are
+ * rendered straight into the buffer of log message, the result is the same as
+ * {@link android.util.Log#getStackTraceString(Throwable)} (suppressed exceptions are indented
+ * by tab, frames in common with the enclosing trace are elided as "... N more"), but without
+ * temporary {@link java.io.StringWriter}.
+ *
+ * <p>The depth of cause chain and the number of frames for each exception could be limited.
+ * Also the renderer could collapse repeated exceptions (a retry loop, for example): the stack
+ * trace fingerprint is computed for each exception (from classes and frames, but not messages),
+ * and the same exception within the time window is rendered as one line
+ * "{@code java.io.IOException: msg (same as #1f2e3d4c, x 3)}". The first full rendering ends
+ * with line "{@code Fingerprint: #1f2e3d4c}".</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ThrowableRenderer {
+
+    /** The default maximum number of exceptions in cause chain, to protect against cycles. */
+    public static final int DEFAULT_MAX_DEPTH = 32;
+
+    /** The default renderer: no frame limit, repeated exceptions are not collapsed. */
+    public static final ThrowableRenderer DEFAULT = new Builder().build();
+
+    /** The line separator. */
+    private static final char NEW_LINE = '\n';
+
+    /** The number of slots in the table of recent fingerprints, a power of two. */
+    private static final int TABLE_SIZE = 64;
+
+    /** The fields of slot in the table of recent fingerprints. */
+    private static final int SLOT_FINGERPRINT = 0;
+    private static final int SLOT_TIME = 1;
+    private static final int SLOT_COUNT = 2;
+    private static final int SLOT_STRIDE = 3;
+
+    /** The digits for hex output. */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** The caption of causes, the same as {@link Throwable#printStackTrace()} prints. */
+    private static final String CAUSE_CAPTION = "Caused by: ";
+
+    /** The caption of suppressed exceptions. */
+    private static final String SUPPRESSED_CAPTION = "Suppressed: ";
+
+    /**
+     * True, if {@link Throwable#getSuppressed()} is available, it was added in Java 7 (Android
+     * 4.4), so older devices have no suppressed exceptions.
+     * */
+    private static final boolean HAS_SUPPRESSED = hasSuppressedApi();
+
+    /** The maximum number of exceptions in cause chain. */
+    private final int mMaxDepth;
+
+    /** The maximum number of frames for each exception in cause chain. */
+    private final int mMaxFrames;
+
+    /** The time window (in nanoseconds) to collapse repeated exceptions, or 0. */
+    private final long mWindow;
+
+    /**
+     * The recent fingerprints: the fingerprint, the time of full rendering (see
+     * {@link System#nanoTime()}) and the number of repeats. The updates are not atomic, so
+     * concurrent repeats could be rendered in full twice or could be counted inaccurately, but
+     * this is harmless.
+     * */
+    private final AtomicLongArray mRecent;
+
+    /**
+     * Creates a new renderer, please use {@link Builder}.
+     * */
+    private ThrowableRenderer(Builder builder) {
+        mMaxDepth = builder.mMaxDepth;
+        mMaxFrames = builder.mMaxFrames;
+        mWindow = builder.mWindow * 1000000L;
+        mRecent = mWindow > 0 ? new AtomicLongArray(TABLE_SIZE * SLOT_STRIDE) : null;
+    }
+
+    /** @return The maximum number of exceptions in cause chain. */
+    public int getMaxDepth() { return mMaxDepth; }
+
+    /** @return The maximum number of frames for each exception in cause chain. */
+    public int getMaxFrames() { return mMaxFrames; }
+
+    /** @return The time window (in milliseconds) to collapse repeated exceptions, or 0. */
+    public long getDedupWindow() { return mWindow / 1000000L; }
+
+    /**
+     * Appends the printable representation of exception and its causes to the buffer. Nothing
+     * is appended for network errors, the same as {@link android.util.Log} does.
+     * */
+    public void render(StringBuilder builder, Throwable tr) {
+        // This is to reduce the amount of log spew that apps do in the non-error condition
+        // of the network being unavailable (the same as android.util.Log does)
+        int depth = 0;
+        for (Throwable t = tr; t != null && depth < mMaxDepth; t = t.getCause(), depth++) {
+            if (t instanceof java.net.UnknownHostException) return;
+        }
+        if (mRecent == null) {
+            appendStackTrace(builder, tr);
+            return;
+        }
+        final long fingerprint = fingerprint(tr);
+        final long count = repeats(fingerprint, System.nanoTime());
+        if (count > 0) {
+            appendThrowable(builder, tr).append(" (same as ");
+            appendFingerprint(builder, fingerprint).append(", x ").append(count).append(')')
+                    .append(NEW_LINE);
+        } else {
+            appendStackTrace(builder, tr);
+            appendFingerprint(builder.append("Fingerprint: "), fingerprint).append(NEW_LINE);
+        }
+    }
+
+    /**
+     * Computes the fingerprint of exception and its causes: the classes and the frames (but
+     * not the messages, they often contain variable data).
+     * */
+    public long fingerprint(Throwable tr) {
+        // FNV-1a over hashes, the hashes of strings are cached by String
+        long hash = 0xcbf29ce484222325L;
+        int depth = 0;
+        for (Throwable t = tr; t != null && depth < mMaxDepth; t = t.getCause(), depth++) {
+            hash = (hash ^ t.getClass().getName().hashCode()) * 0x100000001b3L;
+            final StackTraceElement[] trace = t.getStackTrace();
+            final int count = Math.min(trace.length, mMaxFrames);
+            for (int i = 0; i < count; i++) {
+                final StackTraceElement element = trace[i];
+                hash = (hash ^ element.getClassName().hashCode()) * 0x100000001b3L;
+                hash = (hash ^ element.getMethodName().hashCode()) * 0x100000001b3L;
+                hash = (hash ^ element.getLineNumber()) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Registers the exception with specified fingerprint.
+     * @return The number of repeats since the last full rendering, or 0 if the exception should
+     * be rendered in full.
+     * */
+    private long repeats(long fingerprint, long now) {
+        final AtomicLongArray recent = mRecent;
+        final int slot = ((int) (fingerprint ^ (fingerprint >>> 32)) & (TABLE_SIZE - 1))
+                * SLOT_STRIDE;
+        if (recent.get(slot + SLOT_FINGERPRINT) == fingerprint
+                && now - recent.get(slot + SLOT_TIME) < mWindow) {
+            return recent.incrementAndGet(slot + SLOT_COUNT);
+        }
+        recent.set(slot + SLOT_TIME, now);
+        recent.set(slot + SLOT_COUNT, 0);
+        recent.set(slot + SLOT_FINGERPRINT, fingerprint);
+        return 0;
+    }
+
+    /**
+     * Appends the exception, its suppressed exceptions and its causes, without any checks.
+     * */
+    private void appendStackTrace(StringBuilder builder, Throwable tr) {
+        // The suppressed exceptions make a tree, so they need the set of appended exceptions
+        // to find cycles, otherwise the cause chain is checked
+        final java.util.Map<Throwable, Boolean> seen = hasSuppressed(tr)
+                ? new java.util.IdentityHashMap<Throwable, Boolean>() : null;
+        appendEnclosed(builder, tr, null, null, 0, 0, seen);
+    }
+
+    /**
+     * Appends the exception, its suppressed exceptions and its causes, the same as
+     * {@link Throwable#printStackTrace()} does.
+     * @param enclosing The trace of enclosing exception, or {@code null}.
+     * @param caption The caption of exception, or {@code null}.
+     * @param indent The number of tabs before each line.
+     * @param depth The number of enclosing exceptions.
+     * @param seen The appended exceptions, or {@code null} if there are no suppressed ones.
+     * */
+    private void appendEnclosed(StringBuilder builder, Throwable tr,
+            StackTraceElement[] enclosing, String caption, int indent, int depth,
+            java.util.Map<Throwable, Boolean> seen) {
+        Throwable t = tr;
+        for (int i = 0; t != null; t = t.getCause(), i++, depth++) {
+            if (i > 0) caption = CAUSE_CAPTION;
+            if (depth >= mMaxDepth) {
+                appendCaption(builder, indent, caption).append("... (cause chain truncated)")
+                        .append(NEW_LINE);
+                return;
+            }
+            if (seen != null ? seen.put(t, Boolean.TRUE) != null : isCircular(tr, t, i)) {
+                appendThrowable(appendCaption(builder, indent, caption)
+                        .append("[CIRCULAR REFERENCE: "), t).append(']').append(NEW_LINE);
+                return;
+            }
+            final StackTraceElement[] trace = t.getStackTrace();
+            appendThrowable(appendCaption(builder, indent, caption), t).append(NEW_LINE);
+            // Compute number of frames in common between this and enclosing trace
+            int m = trace.length - 1;
+            if (enclosing != null) {
+                int n = enclosing.length - 1;
+                while (m >= 0 && n >= 0 && trace[m].equals(enclosing[n])) { m--; n--; }
+            }
+            final int count = Math.min(m + 1, mMaxFrames);
+            for (int k = 0; k < count; k++) {
+                appendElement(appendIndent(builder, indent).append("\tat "), trace[k])
+                        .append(NEW_LINE);
+            }
+            // The omitted and the common frames
+            final int more = trace.length - count;
+            if (more != 0) {
+                appendIndent(builder, indent).append("\t... ").append(more).append(" more")
+                        .append(NEW_LINE);
+            }
+            if (seen != null) {
+                for (Throwable suppressed : t.getSuppressed()) {
+                    appendEnclosed(builder, suppressed, trace, SUPPRESSED_CAPTION, indent + 1,
+                            depth + 1, seen);
+                }
+            }
+            enclosing = trace;
+        }
+    }
+
+    /**
+     * Returns true, if the exception or its causes have suppressed exceptions. The depth is
+     * limited, so the search is cheap, and {@link Throwable#getSuppressed()} doesn't allocate
+     * for exception without suppressed ones.
+     * */
+    private boolean hasSuppressed(Throwable tr) {
+        if (!HAS_SUPPRESSED) return false;
+        int depth = 0;
+        for (Throwable t = tr; t != null && depth < mMaxDepth; t = t.getCause(), depth++) {
+            if (t.getSuppressed().length > 0) return true;
+        }
+        return false;
+    }
+
+    /** Returns true, if {@link Throwable#getSuppressed()} is available. */
+    private static boolean hasSuppressedApi() {
+        try {
+            Throwable.class.getMethod("getSuppressed");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /** Appends the tabs to the buffer. */
+    private static StringBuilder appendIndent(StringBuilder builder, int indent) {
+        for (int i = 0; i < indent; i++) builder.append('\t');
+        return builder;
+    }
+
+    /** Appends the tabs and the caption (if it is not {@code null}) to the buffer. */
+    private static StringBuilder appendCaption(StringBuilder builder, int indent,
+            String caption) {
+        appendIndent(builder, indent);
+        return caption != null ? builder.append(caption) : builder;
+    }
+
+    /**
+     * Returns true, if the exception at specified depth of cause chain was already met in this
+     * chain. The depth is limited, so the search is cheap.
+     * */
+    private static boolean isCircular(Throwable tr, Throwable cause, int depth) {
+        Throwable t = tr;
+        for (int i = 0; i < depth; i++, t = t.getCause()) {
+            if (t == cause) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Appends the fingerprint to the buffer, as "#" and 8 hex digits.
+     * */
+    private static StringBuilder appendFingerprint(StringBuilder builder, long fingerprint) {
+        final int value = (int) (fingerprint ^ (fingerprint >>> 32));
+        builder.append('#');
+        for (int shift = 28; shift >= 0; shift -= 4) builder.append(HEX[(value >>> shift) & 0xF]);
+        return builder;
+    }
+
+    /**
+     * Appends the short description of exception to the buffer, the same as
+     * {@link Throwable#toString()}.
+     * */
+    static StringBuilder appendThrowable(StringBuilder builder, Throwable tr) {
+        builder.append(tr.getClass().getName());
+        final String msg = tr.getLocalizedMessage();
+        if (msg != null) builder.append(LogCat.TAG_DELIMITER).append(msg);
+        return builder;
+    }
+
+    /**
+     * Appends the stack trace element to the buffer, the same as
+     * {@link StackTraceElement#toString()}.
+     * */
+    static StringBuilder appendElement(StringBuilder builder, StackTraceElement element) {
+        builder.append(element.getClassName()).append('.').append(element.getMethodName());
+        final String file = element.getFileName();
+        final int line = element.getLineNumber();
+        if (element.isNativeMethod()) {
+            builder.append("(Native Method)");
+        } else if (file == null) {
+            builder.append("(Unknown Source)");
+        } else if (line >= 0) {
+            builder.append('(').append(file).append(':').append(line).append(')');
+        } else {
+            builder.append('(').append(file).append(')');
+        }
+        return builder;
+    }
+
+    /**
+     * The builder for {@link ThrowableRenderer}.
+     * */
+    public static final class Builder {
+        private int mMaxDepth = DEFAULT_MAX_DEPTH;
+        private int mMaxFrames = Integer.MAX_VALUE;
+        private long mWindow = 0;
+
+        /**
+         * Set the maximum number of exceptions in cause chain, the default value is
+         * {@link #DEFAULT_MAX_DEPTH}.
+         * */
+        public Builder setMaxDepth(int depth) {
+            if (depth <= 0) throw new IllegalArgumentException("The depth should be positive");
+            mMaxDepth = depth;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of frames for each exception in cause chain, the rest frames
+         * are elided as "... N more". There is no limit by default.
+         * */
+        public Builder setMaxFrames(int frames) {
+            if (frames < 0) throw new IllegalArgumentException("The frames is negative");
+            mMaxFrames = frames;
+            return this;
+        }
+
+        /**
+         * Set the time window (in milliseconds) to collapse repeated exceptions: the exception
+         * with the same fingerprint as the exception, that was rendered in full within this
+         * window, is rendered as one line. The default value is 0 (do not collapse).
+         * */
+        public Builder setDedupWindow(long window) {
+            if (window < 0) throw new IllegalArgumentException("The window is negative");
+            mWindow = window;
+            return this;
+        }
+
+        /** Creates the new {@link ThrowableRenderer}. */
+        public ThrowableRenderer build() { return new ThrowableRenderer(this); }
+    }
+
+}
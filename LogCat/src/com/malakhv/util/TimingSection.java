@@ -0,0 +1,215 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.io.Closeable;
+
+/**
+ * The named timing section, see {@link LogCat#timing(String)}. The durations of section are
+ * recorded into the log-linear histogram, and the percentiles (p50, p90, p99, max) are logged
+ * periodically (see {@link LogCat#setTimingReport(long, int)}) or by request (see
+ * {@link LogCat#printTimings(int)}). For example:
+ * <br>&nbsp;<br>
+ * &#09;{@code private static final TimingSection QUERY = LogCat.timing("db.query");}<br>
+ * &#09;{@code ...}<br>
+ * &#09;{@code QUERY.begin();}<br>
+ * &#09;{@code try &#123; ... &#125; finally &#123; QUERY.end(); &#125;}
+ * <br>&nbsp;<br>
+ * or with try-with-resources: {@code try (TimingSection.Scope scope = QUERY.begin()) {...}}.
+ *
+ * <p>The sections of one thread should be nested properly, {@link #end()} finishes the last
+ * section that was begun by current thread. The begin and the end take no locks and no
+ * allocations: the start times are kept in the per-thread stack, and the histogram is striped
+ * (see {@link LatencyHistogram}).</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class TimingSection {
+
+    /** The maximum depth of nested sections, the deeper sections are not recorded. */
+    public static final int MAX_DEPTH = 32;
+
+    /** The per-thread stacks of begun sections. */
+    private static final ThreadLocal<Scope> sScopes = new ThreadLocal<Scope>() {
+        @Override
+        protected Scope initialValue() { return new Scope(); }
+    };
+
+    /** The name of this section. */
+    private final String mName;
+
+    /** The histogram of durations. */
+    private final LatencyHistogram mHistogram = new LatencyHistogram();
+
+    /**
+     * Creates a new section, please use {@link LogCat#timing(String)}.
+     * */
+    TimingSection(String name) {
+        mName = name;
+    }
+
+    /** @return The name of this section. */
+    public String getName() { return mName; }
+
+    /**
+     * Begins this section on current thread.
+     * @return The per-thread scope, its {@link Scope#close()} is the same as {@link #end()}.
+     * */
+    public Scope begin() {
+        final Scope scope = sScopes.get();
+        scope.push(this, System.nanoTime());
+        return scope;
+    }
+
+    /**
+     * Ends the last section that was begun by current thread, and records its duration.
+     * */
+    public void end() {
+        sScopes.get().pop(System.nanoTime());
+    }
+
+    /**
+     * Records the duration of this section.
+     * @param nanos The duration, in nanoseconds.
+     * */
+    public void record(long nanos) {
+        mHistogram.record(nanos);
+        LogCat.onTiming(System.nanoTime());
+    }
+
+    /** Records the duration that ends at specified time, without check of report. */
+    private void record(long nanos, long now) {
+        mHistogram.record(nanos);
+        LogCat.onTiming(now);
+    }
+
+    /** @return The number of recorded durations. */
+    public long getCount() { return mHistogram.snapshot()[LatencyHistogram.COUNT]; }
+
+    /**
+     * @param percentile The percentile, from 0 to 100.
+     * @return The duration at specified percentile, in nanoseconds.
+     * */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile " + percentile);
+        }
+        return LatencyHistogram.percentile(mHistogram.snapshot(), percentile);
+    }
+
+    /** @return The maximum duration, in nanoseconds. */
+    public long getMax() { return mHistogram.snapshot()[LatencyHistogram.MAX]; }
+
+    /** Clears the recorded durations. */
+    public void reset() { mHistogram.reset(); }
+
+    /**
+     * Appends the report of this section, for example: {@code "db.query: count 120, p50 1.2 ms,
+     * p90 3.4 ms, p99 8.1 ms, max 12 ms"}.
+     * @param reset True, if the recorded durations should be cleared.
+     * @return The buffer, or {@code null} if there are no recorded durations.
+     * */
+    StringBuilder appendReport(StringBuilder builder, boolean reset) {
+        final long[] snapshot = mHistogram.snapshot();
+        if (reset) mHistogram.reset();
+        final long count = snapshot[LatencyHistogram.COUNT];
+        if (count == 0) return null;
+        builder.append(mName).append(": count ").append(count);
+        appendDuration(builder.append(", p50 "), LatencyHistogram.percentile(snapshot, 50));
+        appendDuration(builder.append(", p90 "), LatencyHistogram.percentile(snapshot, 90));
+        appendDuration(builder.append(", p99 "), LatencyHistogram.percentile(snapshot, 99));
+        return appendDuration(builder.append(", max "), snapshot[LatencyHistogram.MAX]);
+    }
+
+    /**
+     * Appends the duration with suitable unit (ns, us, ms or s) and 3 significant digits.
+     * */
+    static StringBuilder appendDuration(StringBuilder builder, long nanos) {
+        if (nanos < 1000) return builder.append(nanos).append(" ns");
+        long scale = 1000;
+        String unit = " us";
+        if (nanos >= 1000000000L) {
+            scale = 1000000000L;
+            unit = " s";
+        } else if (nanos >= 1000000L) {
+            scale = 1000000L;
+            unit = " ms";
+        }
+        final long whole = nanos / scale;
+        builder.append(whole);
+        if (whole < 100) {
+            // One or two fraction digits
+            final int digits = whole < 10 ? 2 : 1;
+            final long fraction = (nanos % scale) * (digits == 2 ? 100 : 10) / scale;
+            builder.append('.');
+            if (digits == 2 && fraction < 10) builder.append('0');
+            builder.append(fraction);
+        }
+        return builder.append(unit);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = appendReport(new StringBuilder(), false);
+        return builder != null ? builder.toString() : mName + ": count 0";
+    }
+
+    /**
+     * The per-thread stack of begun sections, see {@link TimingSection#begin()}.
+     * */
+    public static final class Scope implements Closeable {
+
+        /** The begun sections. */
+        private final TimingSection[] mSections = new TimingSection[MAX_DEPTH];
+
+        /** The start times of begun sections. */
+        private final long[] mStarts = new long[MAX_DEPTH];
+
+        /** The depth of stack, it could be greater than {@link #MAX_DEPTH}. */
+        private int mDepth = 0;
+
+        private Scope() {}
+
+        /** Pushes the section. */
+        void push(TimingSection section, long start) {
+            if (mDepth < MAX_DEPTH) {
+                mSections[mDepth] = section;
+                mStarts[mDepth] = start;
+            }
+            mDepth++;
+        }
+
+        /** Pops the last section and records its duration. */
+        void pop(long now) {
+            if (mDepth == 0) return;
+            final int top = --mDepth;
+            if (top >= MAX_DEPTH) return;
+            final TimingSection section = mSections[top];
+            mSections[top] = null;
+            section.record(now - mStarts[top], now);
+        }
+
+        /**
+         * Ends the last section that was begun by current thread, the same as
+         * {@link TimingSection#end()}.
+         * */
+        @Override
+        public void close() { pop(System.nanoTime()); }
+    }
+
+}
@@ -0,0 +1,182 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the records of {@link BinaryLogWriter} are decoded by {@link BinaryLogDecoder} to
+ * the same lines as the text {@link FileLogSink} writes, and that the incomplete records are
+ * skipped.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class BinaryLogDecoderTest {
+
+    /** The time of log line, like {@code "2013-10-17 12:00:00.123 "}. */
+    private static final String TIME_REGEX =
+            "(?m)^\\d{4}-\\d\\d-\\d\\d \\d\\d:\\d\\d:\\d\\d\\.\\d{3} ";
+
+    /** The directory for log files. */
+    private File mDirectory;
+
+    @Before
+    public void setUp() {
+        mDirectory = new File(System.getProperty("java.io.tmpdir"),
+                "BinaryLogDecoderTest-" + System.nanoTime());
+    }
+
+    @After
+    public void tearDown() {
+        LogCat.setBinaryWriter(null);
+        LogCat.setPrintCallSites(false);
+        LogContext.clear();
+        LogCat.init("App", false);
+        final File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) file.delete();
+        }
+        mDirectory.delete();
+    }
+
+    @Test
+    public void decodedAsTextSink() throws IOException {
+        final FileLogSink text = new FileLogSink.Builder(mDirectory).setFilePrefix("text")
+                .build();
+        final Throwable tr = new IllegalStateException("boom");
+        LogCat.init("App", true, text);
+        LogCat.setPrintCallSites(true);
+        logAll(tr);
+        LogCat.init("App", false);
+        final StringBuilder expected = new StringBuilder();
+        for (File file : text.listFiles()) expected.append(new String(read(file), "UTF-8"));
+
+        final BinaryLogWriter writer = new BinaryLogWriter(
+                new FileLogSink.Builder(mDirectory).setFilePrefix("bin"));
+        LogCat.setBinaryWriter(writer);
+        LogCat.init("App", true);
+        LogCat.setPrintCallSites(true);
+        logAll(tr);
+        LogCat.setBinaryWriter(null);
+        writer.close();
+        final BinaryLogDecoder decoder = new BinaryLogDecoder(writer.getDictionaryFile());
+        final StringBuilder actual = new StringBuilder();
+        for (File file : writer.listFiles()) decoder.decode(file, actual);
+
+        assertEquals(0, decoder.getSkippedCount());
+        assertEquals(expected.toString().replaceAll(TIME_REGEX, ""),
+                actual.toString().replaceAll(TIME_REGEX, ""));
+    }
+
+    @Test
+    public void incompleteRecordsAreSkipped() throws IOException {
+        final BinaryLogWriter writer = new BinaryLogWriter(
+                new FileLogSink.Builder(mDirectory).setFilePrefix("bin"));
+        final Thread thread = Thread.currentThread();
+        for (int i = 1; i <= 4; i++) {
+            writer.write(1000L * i, thread, LogCat.INFO, "App", "T", "Record %d",
+                    new Object[] {i}, null, null, null);
+        }
+        writer.close();
+        final File file = writer.listFiles()[0];
+        final byte[] data = read(file);
+        final byte[][] records = new byte[4][];
+        for (int i = 0, pos = 0; i < records.length; i++) {
+            int length = 0, size = 0;
+            for (int b = 0x80; (b & 0x80) != 0; size++) {
+                b = data[pos + size];
+                length |= (b & 0x7F) << (7 * size);
+            }
+            records[i] = new byte[size + length];
+            System.arraycopy(data, pos, records[i], 0, records[i].length);
+            pos += records[i].length;
+        }
+        final BinaryLogDecoder decoder = new BinaryLogDecoder(writer.getDictionaryFile());
+        final StringBuilder lines = new StringBuilder();
+        assertEquals(4, decoder.decode(file, lines));
+        final String[] expected = lines.toString().split("\n");
+
+        // The hole, the record without commit byte, and the truncated record at the end
+        final ByteArrayOutputStream damaged = new ByteArrayOutputStream();
+        damaged.write(records[0]);
+        damaged.write(new byte[3]);
+        records[1][records[1].length - 1] = 0;
+        damaged.write(records[1]);
+        damaged.write(records[2]);
+        damaged.write(new byte[2]);
+        damaged.write(records[3], 0, records[3].length - 2);
+        final File damagedFile = new File(mDirectory, "damaged.bin");
+        final FileOutputStream out = new FileOutputStream(damagedFile);
+        try {
+            out.write(damaged.toByteArray());
+        } finally {
+            out.close();
+        }
+        lines.setLength(0);
+        assertEquals(2, decoder.decode(damagedFile, lines));
+        assertEquals(2, decoder.getSkippedCount());
+        assertEquals(expected[0] + "\n" + expected[2] + "\n", lines.toString());
+    }
+
+    /** Writes the messages with all argument types, exception, call site and context. */
+    private static void logAll(Throwable tr) {
+        LogCat.d("T", "long %d", -5L);
+        LogCat.d("T", "int %x", -1);
+        LogCat.d("T", "short %d", (short) -300);
+        LogCat.d("T", "byte %x", (byte) -1);
+        LogCat.d("T", "double %.3f", 2.5);
+        LogCat.d("T", "float %s", 0.1f);
+        LogCat.d("T", "char %c", '\u00e9');
+        LogCat.d("T", "object %s", new StringBuilder("builder"));
+        LogCat.d("T", "boxed %s %s %s %s %s %s %s %s %s %s %s", null, 1, 2L, 3.5f, 4.5, 'c',
+                true, (byte) 8, (short) -9, "\u043f\u0440\u0438\u0432\u0435\u0442",
+                new StringBuilder("sb"));
+        LogCat.i("T", "plain message");
+        LogCat.d("no tag");
+        LogCat.w("T", "failed", tr);
+        LogCat.callSite(CallSite.of("com.example.Foo", "bar", "Foo.java", 42));
+        LogCat.d("T", "with site %d", 1);
+        LogContext.put("req", "r1");
+        LogCat.d("T", "with context");
+        LogCat.callSite(CallSite.of("com.example.Foo", "baz", "Foo.java", 43));
+        LogCat.d("T", "site and context %s", "x");
+        LogContext.clear();
+    }
+
+    /** Reads the whole file. */
+    private static byte[] read(File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final byte[] data = new byte[(int) raf.length()];
+            raf.readFully(data);
+            return data;
+        } finally {
+            raf.close();
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the held duplicates are reported after the window by log calls of other threads,
+ * and that {@link LogCat#flush()} reports the held duplicates of all threads.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class DuplicateFilterTest {
+
+    /** The window (in milliseconds) to hold duplicates. */
+    private static final long WINDOW = 50;
+
+    /** The output of sink. */
+    private ByteArrayOutputStream mOutput;
+
+    @Before
+    public void setUp() {
+        mOutput = new ByteArrayOutputStream();
+        LogCat.init("App", true, new StreamLogSink(new PrintStream(mOutput, true)));
+        LogCat.setCollapseDuplicates(true, WINDOW);
+        mOutput.reset();
+    }
+
+    @After
+    public void tearDown() {
+        LogCat.setCollapseDuplicates(false);
+        LogCat.init("App", false);
+    }
+
+    @Test
+    public void duplicatesOfSameThreadAreHeld() {
+        LogCat.d("T", "same");
+        LogCat.d("T", "same");
+        LogCat.d("T", "same");
+        LogCat.d("T", "other");
+        assertEquals("D/App: T: same\nD/App: T: Last message repeated 2 times\n"
+                + "D/App: T: other\n", output());
+    }
+
+    @Test
+    public void windowIsCheckedByOtherThread() throws Exception {
+        logTwiceInOtherThread();
+        Thread.sleep(WINDOW * 2);
+        LogCat.d("Main", "tick");
+        assertEquals("D/App: T: same\nD/App: T: Last message repeated 1 times\n"
+                + "D/App: Main: tick\n", output());
+    }
+
+    @Test
+    public void flushDrainsAllThreads() throws Exception {
+        logTwiceInOtherThread();
+        LogCat.flush();
+        assertEquals("D/App: T: same\nD/App: T: Last message repeated 1 times\n", output());
+    }
+
+    @Test
+    public void asyncModeTracksRunsOfProducers() throws Exception {
+        final List<String> lines = new ArrayList<String>();
+        LogCat.init("App", true, true, 16, new LogSink() {
+            @Override
+            public int write(LogEvent event) {
+                synchronized (lines) {
+                    lines.add(event.getThreadName() + ": " + event.getMessage());
+                }
+                return 0;
+            }
+
+            @Override
+            public void write(LogEvent[] events, int offset, int count) {
+                for (int i = offset; i < offset + count; i++) write(events[i]);
+            }
+
+            @Override
+            public void flush() {}
+
+            @Override
+            public void close() {}
+        });
+        LogCat.setCollapseDuplicates(true, WINDOW * 100);
+        LogCat.flush();
+        synchronized (lines) {
+            lines.clear();
+        }
+        logTwiceInOtherThread("A");
+        logTwiceInOtherThread("B");
+        LogCat.flush();
+        synchronized (lines) {
+            // The runs of producers are not merged by the writer thread
+            assertEquals(4, lines.size());
+            assertEquals("A: same", lines.get(0));
+            assertEquals("B: same", lines.get(1));
+            assertTrue(lines.contains("A: Last message repeated 1 times"));
+            assertTrue(lines.contains("B: Last message repeated 1 times"));
+        }
+    }
+
+    /** Writes the same message twice in other thread, and waits for this thread. */
+    private static void logTwiceInOtherThread() throws InterruptedException {
+        logTwiceInOtherThread("T");
+    }
+
+    /** Writes the same message twice in other thread with specified name, and waits for it. */
+    private static void logTwiceInOtherThread(String name) throws InterruptedException {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                LogCat.d("T", "same");
+                LogCat.d("T", "same");
+            }
+        }, name);
+        thread.start();
+        thread.join();
+    }
+
+    /** Returns the output of sink, with Unix line separators. */
+    private String output() { return new String(mOutput.toByteArray()).replace("\r\n", "\n"); }
+
+}
@@ -0,0 +1,194 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the files of {@link FileLogSink}: the repair after a crash, the rolling by size and by
+ * age, and the deletion of the oldest files (also when the wall clock goes backwards).
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class FileLogSinkTest {
+
+    /** The size of files, three records fit into one file. */
+    private static final int FILE_SIZE = 4 * 1024;
+
+    /** The message, the record is about 1 KB. */
+    private static final String MESSAGE;
+    static {
+        final char[] chars = new char[1000];
+        Arrays.fill(chars, 'x');
+        MESSAGE = new String(chars);
+    }
+
+    /** The directory for log files. */
+    private File mDirectory;
+
+    /** The sink under test, or {@code null}. */
+    private FileLogSink mSink;
+
+    @Before
+    public void setUp() {
+        mDirectory = new File(System.getProperty("java.io.tmpdir"),
+                "FileLogSinkTest-" + System.nanoTime());
+        assertTrue(mDirectory.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        if (mSink != null) mSink.close();
+        final File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) file.delete();
+        }
+        mDirectory.delete();
+    }
+
+    @Test
+    public void recoveryRemovesZeroTailsAndHoles() throws IOException {
+        final File tail = create("log-0000000000001.log", "a\nb\n\0\0\0\0\0\0\0\0\0\0");
+        final File hole = create("log-0000000000002.log", "a\nbb\0\0\0c\n\0\0\0\0\0");
+        final File zeros = create("log-0000000000003.log", "\0\0\0\0\0\0\0\0");
+        final File closed = create("log-0000000000004.log", "ok\n");
+        mSink = new FileLogSink.Builder(mDirectory).build();
+        assertEquals("a\nb\n", read(tail));
+        // The record before the hole is truncated
+        assertEquals("a\nc\n", read(hole));
+        assertFalse(zeros.exists());
+        assertEquals("ok\n", read(closed));
+        assertEquals(4, mSink.listFiles().length);
+    }
+
+    @Test
+    public void rollingBySize() throws IOException {
+        mSink = new FileLogSink.Builder(mDirectory).setFileSize(FILE_SIZE).build();
+        final long time = System.currentTimeMillis();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 7; i++) expected.append(write(time + i, i));
+        mSink.close();
+        final File[] files = mSink.listFiles();
+        assertEquals(3, files.length);
+        final StringBuilder actual = new StringBuilder();
+        for (File file : files) {
+            // The retired files are truncated to actual size
+            final String text = read(file);
+            assertEquals(-1, text.indexOf('\0'));
+            assertTrue(text.endsWith("\n"));
+            actual.append(text);
+        }
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void rollingByAge() throws IOException {
+        final long time = System.currentTimeMillis();
+        mSink = new FileLogSink.Builder(mDirectory).setMaxFileAge(1000).build();
+        final String first = write(time, 0);
+        final String second = write(time + 60 * 1000, 1);
+        mSink.close();
+        final File[] files = mSink.listFiles();
+        assertEquals(2, files.length);
+        assertEquals(first, read(files[0]));
+        assertEquals(second, read(files[1]));
+    }
+
+    @Test
+    public void oldFilesAreDeleted() throws IOException {
+        mSink = new FileLogSink.Builder(mDirectory).setFileSize(FILE_SIZE)
+                .setMaxTotalSize(2 * FILE_SIZE).build();
+        final long time = System.currentTimeMillis();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            final String record = write(time + i, i);
+            if (i >= 6) expected.append(record);
+        }
+        mSink.close();
+        final File[] files = mSink.listFiles();
+        assertEquals(2, files.length);
+        assertEquals(expected.toString(), read(files[0]) + read(files[1]));
+    }
+
+    @Test
+    public void clockGoingBackwards() throws IOException {
+        mSink = new FileLogSink.Builder(mDirectory).setFileSize(FILE_SIZE)
+                .setMaxTotalSize(2 * FILE_SIZE).build();
+        final long time = System.currentTimeMillis();
+        String last = null;
+        for (int i = 0; i < 10; i++) {
+            // Each new file gets an earlier name
+            last = write(time - i / 3 * 60 * 1000, i);
+        }
+        mSink.close();
+        final File[] files = mSink.listFiles();
+        assertEquals(2, files.length);
+        // The current file is the first one by name, and it is kept
+        assertEquals(last, read(files[0]));
+    }
+
+    /** Writes the record, and returns its text. */
+    private String write(long time, int index) {
+        final LogEvent event = new LogEvent();
+        event.set(time, LogCat.DEBUG, "App", "T", index + MESSAGE, Thread.currentThread());
+        assertTrue(mSink.write(event) > 0);
+        return read(event);
+    }
+
+    /** @return The text of record, without time. */
+    private static String read(LogEvent event) {
+        return Thread.currentThread().getId() + " D/App: T: " + event.getMessage() + "\n";
+    }
+
+    /** Creates the file with specified content. */
+    private File create(String name, String content) throws IOException {
+        final File file = new File(mDirectory, name);
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    /** Reads the whole file, the times of records are removed. */
+    private static String read(File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final byte[] data = new byte[(int) raf.length()];
+            raf.readFully(data);
+            return new String(data, "UTF-8").replaceAll(
+                    "(?m)^\\d{4}-\\d\\d-\\d\\d \\d\\d:\\d\\d:\\d\\d\\.\\d{3} ", "");
+        } finally {
+            raf.close();
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the messages dumped by {@link FlightRecorder} are obfuscated the same as the
+ * messages written as usual.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class FlightRecorderTest {
+
+    /** The card number, that should not be in the output. */
+    private static final String CARD = "4111111111111111";
+
+    /** The output of sink. */
+    private ByteArrayOutputStream mOutput;
+
+    @Before
+    public void setUp() {
+        mOutput = new ByteArrayOutputStream();
+        // The debug messages are below the log level, they are written only by dump
+        LogCat.init("App", false, new StreamLogSink(new PrintStream(mOutput, true)));
+        LogCat.setObfuscator(LogCat.SIMPLE_NUMBER_OBFUSCATOR);
+        LogCat.setFlightRecorder(new FlightRecorder.Builder().setCapacity(16).build());
+        mOutput.reset();
+    }
+
+    @After
+    public void tearDown() {
+        LogCat.setFlightRecorder(null);
+        LogCat.setObfuscateByDefault(false);
+        LogCat.setObfuscator(null);
+        LogCat.init("App", false);
+    }
+
+    @Test
+    public void dumpObfuscatesByDefault() {
+        LogCat.setObfuscateByDefault(true);
+        LogCat.d("T", "card %s", CARD);
+        LogCat.d("T", "card " + CARD, new Object[0]);
+        LogCat.e("T", "failed " + CARD, new IllegalStateException(CARD));
+        final String output = output();
+        assertTrue(output, output.contains("Flight recorder: begin"));
+        assertFalse(output, output.contains(CARD));
+        assertFalse(output, output.contains("1111"));
+    }
+
+    @Test
+    public void dumpObfuscatesOnRequest() {
+        LogCat.d("T", "pin 1234", true);
+        LogCat.d("T", "count 42", false);
+        LogCat.e("T", "failed", new IllegalStateException());
+        final String output = output();
+        assertFalse(output, output.contains("1234"));
+        assertTrue(output, output.contains("D/App: T: count 42\n"));
+    }
+
+    @Test
+    public void dumpToSinkObfuscates() {
+        LogCat.setObfuscateByDefault(true);
+        LogCat.d("T", "card %s", CARD);
+        final ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        assertEquals(1, LogCat.getFlightRecorder().dump(
+                new StreamLogSink(new PrintStream(dump, true))));
+        assertFalse(dump.toString(), dump.toString().contains(CARD));
+    }
+
+    /** Returns the output of sink, with Unix line separators. */
+    private String output() { return new String(mOutput.toByteArray()).replace("\r\n", "\n"); }
+
+}
@@ -0,0 +1,135 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the enabled path of {@link LogCat} creates no more than one String per log call.
+ * The allocations are measured by {@code com.sun.management.ThreadMXBean}, so the test is
+ * skipped on JVMs that don't support it. The sink does not allocate, so the measured bytes
+ * belong to {@link LogCat} only.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class LogCatAllocationTest {
+
+    /** The number of log calls before measurement, to warm up per-thread buffers and JIT. */
+    private static final int WARM_UP_CALLS = 20000;
+
+    /** The number of measured log calls. */
+    private static final int MEASURED_CALLS = 10000;
+
+    /** The component tag. */
+    private static final String TAG = "Alloc";
+
+    /** The exception for log calls with exception, it is created once. */
+    private static final Throwable ERROR = new IllegalStateException("Test");
+
+    /** The bean that measures allocations of current thread. */
+    private static com.sun.management.ThreadMXBean sBean;
+
+    /** The length of last written message. */
+    private static int sLastLength = 0;
+
+    /** The sink that only counts the length of messages. */
+    private static final LogSink SINK = new LogSink() {
+        @Override
+        public int write(LogEvent event) {
+            sLastLength = event.getMessage().length();
+            return 1;
+        }
+
+        @Override
+        public void write(LogEvent[] events, int offset, int count) {
+            for (int i = offset, end = offset + count; i < end; i++) write(events[i]);
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    };
+
+    @BeforeClass
+    public static void setUp() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        sBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(sBean.isThreadAllocatedMemorySupported());
+        sBean.setThreadAllocatedMemoryEnabled(true);
+        LogCat.init("App", true, SINK);
+    }
+
+    @AfterClass
+    public static void tearDown() { LogCat.init("App", false); }
+
+    @Test
+    public void plainMessageDoesNotAllocate() {
+        final long bytes = measure(new Runnable() {
+            @Override
+            public void run() { LogCat.d(TAG, "Plain message"); }
+        });
+        assertTrue("Allocated " + bytes + " bytes per call", bytes == 0);
+    }
+
+    @Test
+    public void formattedMessageCreatesOneString() {
+        final long bytes = measure(new Runnable() {
+            @Override
+            public void run() { LogCat.d(TAG, "Loaded %d items", 42); }
+        });
+        assertTrue("Allocated " + bytes + " bytes per call", bytes <= maxStringSize(sLastLength));
+    }
+
+    @Test
+    public void messageWithExceptionCreatesOneString() {
+        final long bytes = measure(new Runnable() {
+            @Override
+            public void run() { LogCat.d(TAG, "Failed", ERROR); }
+        });
+        assertTrue("Allocated " + bytes + " bytes per call", bytes <= maxStringSize(sLastLength));
+    }
+
+    /**
+     * Returns the average number of bytes that are allocated by one call, after warm-up.
+     * */
+    private static long measure(Runnable call) {
+        for (int i = 0; i < WARM_UP_CALLS; i++) call.run();
+        final long id = Thread.currentThread().getId();
+        final long start = sBean.getThreadAllocatedBytes(id);
+        for (int i = 0; i < MEASURED_CALLS; i++) call.run();
+        return (sBean.getThreadAllocatedBytes(id) - start) / MEASURED_CALLS;
+    }
+
+    /**
+     * Returns the maximum size of String with specified length: the object header and fields,
+     * and the array of UTF-16 chars, with alignment.
+     * */
+    private static long maxStringSize(int length) {
+        return 32 + 24 + 2L * length;
+    }
+
+}
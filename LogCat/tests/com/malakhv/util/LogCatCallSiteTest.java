@@ -0,0 +1,114 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that the call site, that is passed by {@link LogCat#callSite(CallSite)} the same way
+ * as the generated code does it, is not left for the next log calls when the log call throws.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class LogCatCallSiteTest {
+
+    /** The call site of the failed log call. */
+    private static final CallSite SITE = CallSite.of("com.example.Loader", "load",
+            "Loader.java", 42);
+
+    /** The argument that throws in its {@code toString()}. */
+    private static final Object BROKEN = new Object() {
+        @Override
+        public String toString() { throw new IllegalStateException("broken"); }
+    };
+
+    /** The output of sink. */
+    private ByteArrayOutputStream mOutput;
+
+    @Before
+    public void setUp() {
+        mOutput = new ByteArrayOutputStream();
+        LogCat.init("App", true, new StreamLogSink(new PrintStream(mOutput, true)));
+        LogCat.setPrintCallSites(true);
+        mOutput.reset();
+    }
+
+    @After
+    public void tearDown() {
+        LogCat.setPrintCallSites(false);
+        LogCat.init("App", false);
+    }
+
+    @Test
+    public void siteIsPrinted() {
+        LogCat.callSite(SITE);
+        LogCat.d("T", "loaded");
+        LogCat.callSite(null);
+        assertEquals("D/App: T: " + SITE + LogCat.TAG_DELIMITER + "loaded\n", output());
+    }
+
+    @Test
+    public void siteIsClearedAfterInvalidFormat() {
+        LogCat.callSite(SITE);
+        try {
+            LogCat.d("T", "value %q", 1);
+            fail();
+        } catch (java.util.IllegalFormatException expected) {
+            // The generated callSite(null) is skipped
+        }
+        LogCat.d("T", "next");
+        assertEquals("D/App: T: next\n", output());
+    }
+
+    @Test
+    public void siteIsClearedAfterBrokenArgument() {
+        LogCat.callSite(SITE);
+        try {
+            LogCat.d("T", "value %s %s", BROKEN, 2);
+            fail();
+        } catch (IllegalStateException expected) {
+            // The generated callSite(null) is skipped
+        }
+        LogCat.d("T", "next");
+        assertEquals("D/App: T: next\n", output());
+    }
+
+    @Test
+    public void siteIsClearedAfterNullFormat() {
+        LogCat.callSite(SITE);
+        try {
+            LogCat.d("T", null, 1, 2, 3, 4, 5);
+            fail();
+        } catch (NullPointerException expected) {
+            // The generated callSite(null) is skipped
+        }
+        LogCat.d("T", "next");
+        assertEquals("D/App: T: next\n", output());
+    }
+
+    /** Returns the output of sink, with Unix line separators. */
+    private String output() { return new String(mOutput.toByteArray()).replace("\r\n", "\n"); }
+
+}
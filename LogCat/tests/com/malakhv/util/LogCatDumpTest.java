@@ -0,0 +1,75 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the line format of thread lists and stack traces, written by
+ * {@link LogCat#printThreads(String, int, ThreadGroup)} and
+ * {@link LogCat#printStackTrace(String, int, Thread)}.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class LogCatDumpTest {
+
+    /** The output of sink. */
+    private ByteArrayOutputStream mOutput;
+
+    @Before
+    public void setUp() {
+        mOutput = new ByteArrayOutputStream();
+        LogCat.init("App", true, new StreamLogSink(new PrintStream(mOutput, true)));
+        mOutput.reset();
+    }
+
+    @After
+    public void tearDown() {
+        LogCat.init("App", false);
+    }
+
+    @Test
+    public void threadsStartWithEmptyLine() {
+        final Thread thread = Thread.currentThread();
+        LogCat.printThreads("T", LogCat.DEBUG, thread.getThreadGroup());
+        final String output = output();
+        assertTrue(output, output.startsWith("D/App: T: \nThread["));
+        assertTrue(output, output.contains("Thread[" + thread.getName() + ","
+                + thread.getPriority() + "," + thread.getThreadGroup().getName() + "]\n"));
+    }
+
+    @Test
+    public void framesHaveNoPrefix() {
+        LogCat.printStackTrace("T", LogCat.DEBUG, Thread.currentThread());
+        final String output = output();
+        assertTrue(output, output.startsWith("D/App: T: " + LogCatDumpTest.class.getName()
+                + ".framesHaveNoPrefix("));
+        assertFalse(output, output.contains("\tat "));
+    }
+
+    /** Returns the output of sink, with Unix line separators. */
+    private String output() { return new String(mOutput.toByteArray()).replace("\r\n", "\n"); }
+
+}
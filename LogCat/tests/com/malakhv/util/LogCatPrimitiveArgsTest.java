@@ -0,0 +1,138 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the format methods with one primitive argument write the same messages as
+ * {@link String#format(String, Object...)} with the boxed argument: the width of integer
+ * argument is kept. In asynchronous mode, the arguments are formatted on the writer thread.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class LogCatPrimitiveArgsTest {
+
+    /** The output of sink. */
+    private ByteArrayOutputStream mOutput;
+
+    @Before
+    public void setUp() {
+        mOutput = new ByteArrayOutputStream();
+        LogCat.init("App", true, new StreamLogSink(new PrintStream(mOutput, true)));
+        mOutput.reset();
+    }
+
+    @After
+    public void tearDown() { LogCat.init("App", false); }
+
+    @Test
+    public void intArgument() {
+        LogCat.d("T", "hex %x", -1);
+        assertOutput(String.format("hex %x", -1));
+        LogCat.d("T", "chr %c", 65);
+        assertOutput(String.format("chr %c", 65));
+        LogCat.d("T", "oct %o", 42);
+        assertOutput(String.format("oct %o", 42));
+    }
+
+    @Test
+    public void shortAndByteArguments() {
+        LogCat.d("T", "hex %x", (short) -1);
+        assertOutput(String.format("hex %x", (short) -1));
+        LogCat.d("T", "hex %x", (byte) -1);
+        assertOutput(String.format("hex %x", (byte) -1));
+        LogCat.d("T", "dec %d", (byte) -128);
+        assertOutput(String.format("dec %d", (byte) -128));
+    }
+
+    @Test
+    public void longArgument() {
+        LogCat.d("T", "hex %x", -1L);
+        assertOutput(String.format("hex %x", -1L));
+        LogCat.d("T", "dec %,d", Long.MIN_VALUE);
+        assertOutput(String.format("dec %,d", Long.MIN_VALUE));
+    }
+
+    @Test
+    public void otherArguments() {
+        LogCat.d("T", "chr %c", 'x');
+        assertOutput(String.format("chr %c", 'x'));
+        LogCat.d("T", "real %.2f", 1.5f);
+        assertOutput(String.format("real %.2f", 1.5f));
+        LogCat.d("T", "real %s", 0.1);
+        assertOutput(String.format("real %s", 0.1));
+    }
+
+    @Test
+    public void flightRecorderKeepsWidth() {
+        LogCat.setFlightRecorder(new FlightRecorder.Builder().build());
+        try {
+            LogCat.d("T", "hex %x", (byte) -1);
+            mOutput.reset();
+            final ByteArrayOutputStream dump = new ByteArrayOutputStream();
+            LogCat.getFlightRecorder().dump(new StreamLogSink(new PrintStream(dump, true)));
+            assertEquals("D/App: T: " + String.format("hex %x", (byte) -1) + "\n",
+                    dump.toString().replace("\r\n", "\n"));
+        } finally {
+            LogCat.setFlightRecorder(null);
+        }
+    }
+
+    @Test
+    public void asyncModeFormatsOnWriterThread() {
+        LogCat.init("App", true, true, 16, new StreamLogSink(new PrintStream(mOutput, true)));
+        LogCat.flush();
+        mOutput.reset();
+        final String[] thread = new String[1];
+        final Object arg = new Object() {
+            @Override
+            public String toString() {
+                thread[0] = Thread.currentThread().getName();
+                return "arg";
+            }
+        };
+        assertEquals(0, LogCat.d("T", "obj %s", arg));
+        // The per-thread list of arguments is reused, each message has own copy
+        final StringBuilder expected = new StringBuilder("D/App: T: obj arg\n");
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, LogCat.d("T", "hex %x", (byte) -i));
+            expected.append("D/App: T: ").append(String.format("hex %x", (byte) -i))
+                    .append('\n');
+        }
+        assertTrue(LogCat.flush());
+        assertEquals("LogCat-Writer", thread[0]);
+        assertEquals(expected.toString(), new String(mOutput.toByteArray())
+                .replace("\r\n", "\n"));
+    }
+
+    /** Checks that the sink got the one message, and resets the output. */
+    private void assertOutput(String msg) {
+        assertEquals("D/App: T: " + msg + "\n",
+                new String(mOutput.toByteArray()).replace("\r\n", "\n"));
+        mOutput.reset();
+    }
+
+}
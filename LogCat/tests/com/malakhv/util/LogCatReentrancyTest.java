@@ -0,0 +1,87 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that a log call made by {@code toString()} of argument of other log call does not
+ * corrupt the message of outer call: the per-thread buffers and arguments are used by the outer
+ * call only.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class LogCatReentrancyTest {
+
+    /** The argument that logs something in its {@code toString()}. */
+    private static final Object NOISY = new Object() {
+        @Override
+        public String toString() {
+            LogCat.d("Inner", "inner %s", "x");
+            return "OUTER_ARG";
+        }
+    };
+
+    /** The output of sink. */
+    private ByteArrayOutputStream mOutput;
+
+    @Before
+    public void setUp() {
+        mOutput = new ByteArrayOutputStream();
+        LogCat.init("App", true, new StreamLogSink(new PrintStream(mOutput, true)));
+        mOutput.reset();
+    }
+
+    @After
+    public void tearDown() { LogCat.init("App", false); }
+
+    @Test
+    public void nestedCallDoesNotCorruptBuffer() {
+        LogCat.d("T", "value=%s end", NOISY);
+        assertEquals("D/App: Inner: inner x\nD/App: T: value=OUTER_ARG end\n", output());
+    }
+
+    @Test
+    public void nestedCallDoesNotClearArguments() {
+        LogCat.d("T", "a=%s b=%s", NOISY, "B");
+        assertEquals("D/App: Inner: inner x\nD/App: T: a=OUTER_ARG b=B\n", output());
+    }
+
+    @Test
+    public void nestedCallWithArrayOfArguments() {
+        LogCat.d("T", "%s %s %s %s %s", NOISY, 1, 2, 3, 4);
+        assertEquals("D/App: Inner: inner x\nD/App: T: OUTER_ARG 1 2 3 4\n", output());
+    }
+
+    @Test
+    public void nestedCallInStructuredMessage() {
+        LogCat.d("T", "msg", LogFields.of("a", NOISY).and("b", 2));
+        assertEquals("D/App: Inner: inner x\n"
+                + "D/App: T: {\"msg\":\"msg\",\"a\":\"OUTER_ARG\",\"b\":2}\n", output());
+    }
+
+    /** Returns the output of sink, with Unix line separators. */
+    private String output() { return new String(mOutput.toByteArray()).replace("\r\n", "\n"); }
+
+}
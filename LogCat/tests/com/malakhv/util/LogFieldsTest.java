@@ -0,0 +1,122 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the encoding of structured log messages (see {@link LogFields}) in JSON and logfmt
+ * formats: escaping, special values and obfuscation.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class LogFieldsTest {
+
+    @Test
+    public void jsonEscapesStrings() {
+        assertEquals("{\"msg\":\"a\\\"b\\\\c\",\"k\\\"\\n\":\"\\t\\r\\b\\f\\u0001\\u001f\\u2028"
+                + "\\u2029 \u00e9\"}", json("a\"b\\c",
+                LogFields.of("k\"\n", "\t\r\b\f\u0001\u001f\u2028\u2029 \u00e9"), null));
+    }
+
+    @Test
+    public void jsonSpecialValues() {
+        assertEquals("{\"nan\":\"NaN\",\"inf\":\"-Infinity\",\"d\":1.5,\"f\":0.25,\"l\":-7,"
+                + "\"b\":false,\"c\":\"\\n\",\"o\":null}", json(null, LogFields.of("nan",
+                Double.NaN).and("inf", Float.NEGATIVE_INFINITY).and("d", 1.5).and("f", 0.25f)
+                .and("l", -7L).and("b", false).and("c", '\n').and("o", (Object) null), null));
+    }
+
+    @Test
+    public void logfmtQuotesOnlyIfNeeded() {
+        assertEquals("msg=\"a b\" plain=x_y empty=\"\" eq=\"a=b\" nl=\"a\\nb\" ls=\"\\u2028\" "
+                + "nan=NaN", logfmt("a b", LogFields.of("plain", "x_y").and("empty", "")
+                .and("eq", "a=b").and("nl", "a\nb").and("ls", "\u2028")
+                .and("nan", Double.NaN), null));
+    }
+
+    @Test
+    public void logfmtReplacesInvalidKeyChars() {
+        assertEquals("a_b_c_d=1 _=2", logfmt(null, LogFields.of("a b=c\"d", 1).and("", 2),
+                null));
+    }
+
+    @Test
+    public void obfuscatorIsAppliedToValuesOnly() {
+        final LogCat.LogObfuscator obfuscator = LogCat.SIMPLE_NUMBER_OBFUSCATOR;
+        assertEquals("{\"msg\":\"user **\",\"id1\":\"*****\",\"pin2\":\"pin ****\","
+                + "\"ok\":true,\"r\":\"*.*\"}", json("user 42", LogFields.of("id1", 12345)
+                .and("pin2", "pin 1234").and("ok", true).and("r", 1.5), obfuscator));
+        assertEquals("msg=\"user **\" id1=***** d2=\"x *\"", logfmt("user 42",
+                LogFields.of("id1", 12345).and("d2", "x 1"), obfuscator));
+    }
+
+    @Test
+    public void contextIsWrittenAsFields() {
+        final LogContext context = LogContext.EMPTY.with("req", "r 1");
+        final StringBuilder builder = new StringBuilder();
+        LogFields.of("k", 1).appendTo(builder, LogFields.JSON, "m", context, null);
+        assertEquals("{\"msg\":\"m\",\"req\":\"r 1\",\"k\":1}", builder.toString());
+    }
+
+    @Test
+    public void nullFieldsAreNoFields() {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        LogCat.init("App", true, new StreamLogSink(new PrintStream(output, true)));
+        try {
+            output.reset();
+            LogCat.d("T", "done", (LogFields) null);
+            LogCat.v("T", "verbose", (LogFields) null);
+            assertEquals("D/App: T: {\"msg\":\"done\"}\nV/App: T: {\"msg\":\"verbose\"}\n",
+                    output.toString().replace("\r\n", "\n"));
+            // The filtered call doesn't throw too
+            LogCat.init("App", false);
+            LogCat.v("T", "filtered", (LogFields) null);
+        } finally {
+            LogCat.init("App", false);
+        }
+    }
+
+    /** Encodes the fields in JSON format, the fields are cleared. */
+    private static String json(String msg, LogFields fields, LogCat.LogObfuscator obfuscator) {
+        return encode(LogFields.JSON, msg, fields, obfuscator);
+    }
+
+    /** Encodes the fields in logfmt format, the fields are cleared. */
+    private static String logfmt(String msg, LogFields fields,
+            LogCat.LogObfuscator obfuscator) {
+        return encode(LogFields.LOGFMT, msg, fields, obfuscator);
+    }
+
+    /** Encodes the fields, the fields are cleared. */
+    private static String encode(int format, String msg, LogFields fields,
+            LogCat.LogObfuscator obfuscator) {
+        final StringBuilder builder = new StringBuilder();
+        try {
+            fields.appendTo(builder, format, msg, null, obfuscator);
+        } finally {
+            fields.clear();
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,126 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks the rules of {@link LogObfuscatorEngine}, alone and combined, and that the message
+ * without matches is returned as is.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class LogObfuscatorEngineTest {
+
+    @Test
+    public void digits() {
+        final LogObfuscatorEngine engine = new LogObfuscatorEngine.Builder().digits().build();
+        assertEquals("room **, floor *", engine.obfuscate("room 42, floor 3"));
+        assertEquals(LogCat.SIMPLE_NUMBER_OBFUSCATOR.obfuscate("id 123-45 v2.0"),
+                engine.obfuscate("id 123-45 v2.0"));
+    }
+
+    @Test
+    public void phones() {
+        final LogObfuscatorEngine engine = new LogObfuscatorEngine.Builder().phones().build();
+        assertEquals("Call +* (***) ***-**** now",
+                engine.obfuscate("Call +1 (555) 123-4567 now"));
+        assertEquals("tel: ***.***.****", engine.obfuscate("tel: 555.123.4567"));
+        // Too short and too long numbers, and numbers with too many separators
+        assertEquals("room 42", engine.obfuscate("room 42"));
+        assertEquals("1234567890123456", engine.obfuscate("1234567890123456"));
+        assertEquals("123 - - 4567", engine.obfuscate("123 - - 4567"));
+    }
+
+    @Test
+    public void cards() {
+        final LogObfuscatorEngine engine = new LogObfuscatorEngine.Builder().cards().build();
+        assertEquals("card **** **** **** 1111 ok",
+                engine.obfuscate("card 4111 1111 1111 1111 ok"));
+        assertEquals("************0004", engine.obfuscate("5500000000000004"));
+        assertEquals("***********0005", engine.obfuscate("378282246310005"));
+        // Luhn invalid number
+        assertEquals("4111 1111 1111 1112", engine.obfuscate("4111 1111 1111 1112"));
+    }
+
+    @Test
+    public void emails() {
+        final LogObfuscatorEngine engine = new LogObfuscatorEngine.Builder().emails().build();
+        assertEquals("mail ********@example.com, ****@mail.example.org",
+                engine.obfuscate("mail john.doe@example.com, a+b2@mail.example.org"));
+        // Not a domain
+        assertEquals("a@b, a@b., a@.b", engine.obfuscate("a@b, a@b., a@.b"));
+    }
+
+    @Test
+    public void tokens() {
+        final LogObfuscatorEngine engine = new LogObfuscatorEngine.Builder().tokens().build();
+        assertEquals("token ********************** end",
+                engine.obfuscate("token abcdef1234567890ABCDEF end"));
+        // Too short, or letters only
+        assertEquals("abc123 abcdefghijklmnopqrstuvwxyz",
+                engine.obfuscate("abc123 abcdefghijklmnopqrstuvwxyz"));
+    }
+
+    @Test
+    public void keywords() {
+        final LogObfuscatorEngine engine = new LogObfuscatorEngine.Builder()
+                .keywords("alice", "lice", "bob", "\u0431\u043e\u0431", "", null).build();
+        // The longest keyword wins, the keywords inside words are masked too
+        assertEquals("***** and *** met ***, s****, ***by", engine.obfuscate(
+                "Alice and BOB met \u0411\u043e\u0431, slice, bobby"));
+        final LogObfuscatorEngine caseSensitive = new LogObfuscatorEngine.Builder()
+                .keywords("Bob").ignoreCase(false).mask('#').build();
+        assertEquals("### bob", caseSensitive.obfuscate("Bob bob"));
+    }
+
+    @Test
+    public void noMatchIsIdentity() {
+        final LogObfuscatorEngine engine = new LogObfuscatorEngine.Builder().digits().phones()
+                .cards().emails().tokens().keywords("secret").build();
+        final String msg = "Nothing to hide here: user@localhost, short words.";
+        assertSame(msg, engine.obfuscate(msg));
+        assertSame("", engine.obfuscate(""));
+        assertNull(engine.obfuscate(null));
+    }
+
+    @Test
+    public void digitsMaskWholeCards() {
+        final LogObfuscatorEngine engine = new LogObfuscatorEngine.Builder().digits().cards()
+                .build();
+        assertEquals("card **** **** **** ****, pin ****",
+                engine.obfuscate("card 4111 1111 1111 1111, pin 1234"));
+    }
+
+    @Test
+    public void combinedRules() {
+        final LogObfuscatorEngine engine = new LogObfuscatorEngine.Builder().phones().cards()
+                .emails().keywords("alice").build();
+        assertEquals("*****: *****@example.com, +* *** ***-**-**, ************1111, room 42",
+                engine.obfuscate("alice: alice@example.com, +7 900 123-45-67, "
+                        + "4111111111111111, room 42"));
+        final LogObfuscatorEngine tokens = new LogObfuscatorEngine.Builder().tokens().digits()
+                .build();
+        assertEquals("key ********************** v **",
+                tokens.obfuscate("key abcdef1234567890ABCDEF v 42"));
+    }
+
+}
@@ -0,0 +1,93 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link SamplingProfiler} keeps the innermost frames of deep stacks, and that the
+ * sampling thread does not run above the normal priority.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class SamplingProfilerTest {
+
+    /** The depth of recursion of sampled thread. */
+    private static final int RECURSION = 64;
+
+    /** The number of samples to wait for. */
+    private static final int SAMPLES = 3;
+
+    @Test
+    public void deepStackKeepsInnermostFrames() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() { recurse(RECURSION, started, release); }
+        }, "Deep");
+        thread.start();
+        started.await();
+        final SamplingProfiler profiler = new SamplingProfiler.Builder().addThread(thread)
+                .setInterval(1).setMaxDepth(8).build();
+        try {
+            profiler.start();
+            assertEquals(Thread.NORM_PRIORITY, findThread("LogCat-Profiler").getPriority());
+            while (profiler.getSampleCount() < SAMPLES) Thread.sleep(1);
+        } finally {
+            profiler.stop();
+            release.countDown();
+            thread.join();
+        }
+        final StringBuilder out = new StringBuilder();
+        profiler.writeTo(out);
+        final String stacks = out.toString();
+        // The blocked leaf frame is sampled, the outermost frames are replaced by the marker
+        assertTrue(stacks, stacks.startsWith("Deep;...;"));
+        assertTrue(stacks, stacks.contains(CountDownLatch.class.getName() + ".await;"));
+        assertFalse(stacks, stacks.contains("java.lang.Thread.run"));
+    }
+
+    /** Calls itself specified number of times, and waits for the latch in the deepest call. */
+    private static void recurse(int depth, CountDownLatch started, CountDownLatch release) {
+        if (depth > 0) {
+            recurse(depth - 1, started, release);
+            return;
+        }
+        started.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Returns the live thread with specified name. */
+    private static Thread findThread(String name) {
+        for (Thread thread: Thread.getAllStackTraces().keySet()) {
+            if (name.equals(thread.getName())) return thread;
+        }
+        throw new AssertionError("No thread " + name);
+    }
+
+}
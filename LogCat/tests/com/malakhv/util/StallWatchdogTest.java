@@ -0,0 +1,150 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link StallWatchdog} on plain JVM: the monitored thread is an ordinary executor
+ * thread, that is blocked for a while.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class StallWatchdogTest {
+
+    /** The name of monitored thread. */
+    private static final String THREAD_NAME = "Stalled-Worker";
+
+    /** The time to wait for expected output, in milliseconds. */
+    private static final long TIMEOUT = 10000;
+
+    /** The output of sink. */
+    private ByteArrayOutputStream mOutput;
+
+    /** The monitored executor. */
+    private ExecutorService mExecutor;
+
+    /** The monitored thread. */
+    private volatile Thread mThread;
+
+    @Before
+    public void setUp() {
+        mOutput = new ByteArrayOutputStream();
+        LogCat.init("App", true, new StreamLogSink(new PrintStream(mOutput, true)));
+        mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                mThread = new Thread(task, THREAD_NAME);
+                return mThread;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+        LogCat.init("App", false);
+    }
+
+    @Test
+    public void stallIsReported() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                block(release);
+            }
+        });
+        assertTrue(started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        final StallWatchdog watchdog = new StallWatchdog.Builder(mThread, mExecutor)
+                .setThreshold(100).setCheckInterval(10).setStackInterval(50).setStackCount(2)
+                .build();
+        watchdog.start();
+        try {
+            final String frame = getClass().getName() + ".block(";
+            assertTrue(awaitOutput(frame, 2));
+            assertEquals(1, watchdog.getStallCount());
+            release.countDown();
+            assertTrue(awaitOutput(" was stalled for ", 1));
+            // The thread is responsive again, so there are no new stalls
+            Thread.sleep(300);
+            assertEquals(1, watchdog.getStallCount());
+        } finally {
+            release.countDown();
+            watchdog.stop();
+        }
+        final String output = output();
+        assertTrue(output, output.contains("W/App: StallWatchdog: Thread " + THREAD_NAME
+                + " is stalled for "));
+        assertTrue(output, output.contains(" ms, stack 1/2:\n"));
+        assertFalse(output, output.contains("stack 3/2"));
+        // Both captured stacks show the blocked method
+        assertEquals(output, 2, count(output, getClass().getName() + ".block("));
+        final Matcher matcher = Pattern.compile("Thread " + THREAD_NAME
+                + " was stalled for (\\d+) ms\n").matcher(output);
+        assertTrue(output, matcher.find());
+        assertTrue(output, Long.parseLong(matcher.group(1)) >= 100);
+    }
+
+    /** Blocks the thread until the latch is released. */
+    private static void block(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Waits for the number of occurrences of text in output, with {@link #TIMEOUT}. */
+    private boolean awaitOutput(String text, int count) throws InterruptedException {
+        final long end = System.currentTimeMillis() + TIMEOUT;
+        while (System.currentTimeMillis() < end) {
+            if (count(output(), text) >= count) return true;
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    /** @return The output of sink. */
+    private String output() { return mOutput.toString().replace("\r\n", "\n"); }
+
+    /** @return The number of occurrences of text. */
+    private static int count(String str, String text) {
+        int count = 0;
+        for (int i = str.indexOf(text); i >= 0; i = str.indexOf(text, i + 1)) count++;
+        return count;
+    }
+
+}
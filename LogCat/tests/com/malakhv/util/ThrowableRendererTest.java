@@ -0,0 +1,91 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that {@link ThrowableRenderer} renders exceptions the same as
+ * {@link Throwable#printStackTrace()}, including suppressed exceptions.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class ThrowableRendererTest {
+
+    @Test
+    public void causeChain() {
+        assertRendered(frames(new Exception("top",
+                frames(new IllegalStateException("cause"), 2)), 1));
+    }
+
+    @Test
+    public void suppressedExceptions() {
+        final Exception cause = frames(new IllegalStateException("cause"), 2);
+        cause.addSuppressed(frames(new RuntimeException("suppressed by cause"), 3));
+        final Exception top = frames(new Exception("top", cause), 1);
+        top.addSuppressed(frames(new RuntimeException("suppressed",
+                frames(new Error("suppressed cause"), 5)), 4));
+        assertRendered(top);
+    }
+
+    @Test
+    public void nestedSuppressedExceptions() {
+        final Exception suppressed = frames(new RuntimeException("suppressed"), 2);
+        suppressed.addSuppressed(frames(new IllegalArgumentException("nested"), 3));
+        final Exception top = frames(new Exception("top"), 1);
+        top.addSuppressed(suppressed);
+        assertRendered(top);
+    }
+
+    @Test
+    public void circularSuppressedException() {
+        final Exception top = frames(new Exception("top"), 1);
+        final Exception suppressed = frames(new RuntimeException("suppressed"), 2);
+        top.addSuppressed(suppressed);
+        suppressed.initCause(top);
+        assertRendered(top);
+    }
+
+    /**
+     * Replaces the stack trace of exception by three frames, the last two frames are the same
+     * for all exceptions, so they are in common with the enclosing trace. The frames of a real
+     * trace on JVM are printed with module names, unlike Android.
+     * */
+    private static <T extends Throwable> T frames(T tr, int line) {
+        tr.setStackTrace(new StackTraceElement[] {
+                new StackTraceElement("com.example.Loader", "load", "Loader.java", line),
+                new StackTraceElement("com.example.Main", "run", "Main.java", 20),
+                new StackTraceElement("com.example.Main", "main", "Main.java", 10)
+        });
+        return tr;
+    }
+
+    /** Checks that the exception is rendered the same as {@link Throwable#printStackTrace()}. */
+    private static void assertRendered(Throwable tr) {
+        final StringWriter expected = new StringWriter();
+        tr.printStackTrace(new PrintWriter(expected));
+        final StringBuilder actual = new StringBuilder();
+        ThrowableRenderer.DEFAULT.render(actual, tr);
+        assertEquals(expected.toString().replace("\r\n", "\n"), actual.toString());
+    }
+
+}
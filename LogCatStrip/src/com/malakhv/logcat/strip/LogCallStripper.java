@@ -0,0 +1,603 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.logcat.strip;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes calls of {@code LogCat} logging methods below the specified level from class bytecode
+ * ({@code LogCat.v(...)} and {@code LogCat.d(...)} for {@code INFO} level, for example). Also
+ * the calls of {@code LogCat.isDebug()} and {@code LogCat.isInfo()} below the level are replaced
+ * by {@code false}, so the guarded code becomes dead and the shrinker removes it.
+ *
+ * <p>The code that computes arguments of removed call is removed too, if it has no side effects:
+ * constants, loads of local variables and fields, string concatenation, boxing, creation of
+ * varargs arrays, lambdas, anonymous message suppliers and {@code LogFields} chains. The
+ * {@code toString()} of objects in string concatenation is assumed to have no side effects (the
+ * same as ProGuard does). Otherwise the arguments are computed as before, and only the call
+ * itself is removed; the per-thread {@code LogFields} argument is cleared then, instead of
+ * being dropped.</p>
+ *
+ * <p>The analysis does not cross jump targets and stack map frames, so the code is removed only
+ * within one basic block, and the existing stack map frames stay valid.</p>
+ *
+ * <p>Optionally (see {@link #setCallSites(boolean)}), the kept calls get their call sites: each
+ * call site is created once in static initializer and kept in a synthetic static field, and the
+ * call is surrounded by {@code LogCat.callSite(SITE)} and {@code LogCat.callSite(null)}. The
+ * interfaces are not changed, they could not have private fields.</p>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LogCallStripper {
+
+    /** The internal name of LogCat class. */
+    static final String LOGCAT_CLASS = "com/malakhv/util/LogCat";
+
+    /** The package of LogCat library, its classes are not processed. */
+    static final String LOGCAT_PACKAGE = "com/malakhv/util/";
+
+    /** The log levels, the same as in {@code LogCat}. */
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+    public static final int ASSERT = 7;
+
+    /** The logging methods for each level, the index is a level. */
+    private static final String[] LOG_METHODS = {null, null, "v", "d", "i", "w", "e", null};
+
+    /** The checks of log level for each level, the index is a level. */
+    private static final String[] CHECK_METHODS = {null, null, null, "isDebug", "isInfo",
+            null, null, null};
+
+    /** The string concatenation bootstrap (Java 9+). */
+    private static final String CONCAT_FACTORY = "java/lang/invoke/StringConcatFactory";
+
+    /** The internal name of CallSite class. */
+    static final String CALL_SITE_CLASS = "com/malakhv/util/CallSite";
+
+    /** The descriptor of CallSite class. */
+    private static final String CALL_SITE_DESC = "L" + CALL_SITE_CLASS + ";";
+
+    /** The internal name of LogFields class. */
+    static final String LOG_FIELDS_CLASS = "com/malakhv/util/LogFields";
+
+    /** The prefix of names of synthetic fields with call sites. */
+    private static final String CALL_SITE_FIELD = "$logcat$site$";
+
+    /** The lambda bootstrap. */
+    private static final String LAMBDA_FACTORY = "java/lang/invoke/LambdaMetafactory";
+
+    /** The boxing classes, their {@code valueOf} methods have no side effects. */
+    private static final Set<String> BOXES = new HashSet<String>();
+    static {
+        BOXES.add("java/lang/Boolean");
+        BOXES.add("java/lang/Byte");
+        BOXES.add("java/lang/Character");
+        BOXES.add("java/lang/Short");
+        BOXES.add("java/lang/Integer");
+        BOXES.add("java/lang/Long");
+        BOXES.add("java/lang/Float");
+        BOXES.add("java/lang/Double");
+        BOXES.add("java/lang/String");
+    }
+
+    /** The kinds of values on the operand stack. */
+    private static final int VALUE = 0;
+    private static final int FRESH = 1;
+
+    /** The lowest kept level. */
+    private final int mLevel;
+
+    /** True, if the kept calls get their call sites. */
+    private boolean mCallSites = false;
+
+    /** The number of kept calls, that got their call sites. */
+    private int mSites = 0;
+
+    /** The number of removed calls. */
+    private int mRemoved = 0;
+
+    /** The number of removed calls, which arguments were kept (they have side effects). */
+    private int mKeptArguments = 0;
+
+    /** The number of replaced checks of log level. */
+    private int mChecks = 0;
+
+    /**
+     * Creates a new stripper.
+     * @param level The lowest kept level, the calls below it are removed.
+     * */
+    public LogCallStripper(int level) {
+        if (level < VERBOSE || level > ASSERT) {
+            throw new IllegalArgumentException("Invalid level " + level);
+        }
+        mLevel = level;
+    }
+
+    /**
+     * Returns the level by its name (for example, "DEBUG" or "debug").
+     * @throws IllegalArgumentException if there is no such level.
+     * */
+    public static int parseLevel(String name) {
+        final String[] names = {"VERBOSE", "DEBUG", "INFO", "WARN", "ERROR", "ASSERT"};
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(name)) return VERBOSE + i;
+        }
+        throw new IllegalArgumentException("Unknown log level " + name);
+    }
+
+    /** @return The number of removed calls. */
+    public int getRemovedCount() { return mRemoved; }
+
+    /** @return The number of removed calls, which arguments were kept. */
+    public int getKeptArgumentsCount() { return mKeptArguments; }
+
+    /** @return The number of checks of log level, that were replaced by {@code false}. */
+    public int getCheckCount() { return mChecks; }
+
+    /**
+     * Set whether or not the kept calls get their call sites (class, method, file and line), see
+     * {@code com.malakhv.util.CallSite}. It is turned off by default.
+     * */
+    public void setCallSites(boolean callSites) { mCallSites = callSites; }
+
+    /** @return The number of kept calls, that got their call sites. */
+    public int getCallSiteCount() { return mSites; }
+
+    /**
+     * Processes the class.
+     * @param bytes The class bytecode.
+     * @return The new class bytecode, or the same array if there is nothing to remove.
+     * */
+    public byte[] process(byte[] bytes) {
+        final ClassReader reader = new ClassReader(bytes);
+        if (reader.getClassName().startsWith(LOGCAT_PACKAGE)) return bytes;
+        final ClassNode node = new ClassNode();
+        reader.accept(node, 0);
+        boolean changed = false;
+        // The lines of call sites, the index is the number of field
+        final List<Object[]> sites = mCallSites && (node.access & Opcodes.ACC_INTERFACE) == 0
+                ? new ArrayList<Object[]>() : null;
+        // The static initializer could be added, so the methods are copied
+        for (MethodNode method: new ArrayList<MethodNode>(node.methods)) {
+            if (process(node.name, method, sites)) changed = true;
+        }
+        if (sites != null && !sites.isEmpty()) addCallSites(node, sites);
+        if (!changed) return bytes;
+        // The stack map frames stay valid, only the max stack could be changed
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        node.accept(writer);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Processes the method.
+     * @param sites The list of call sites of class, or {@code null} if the kept calls should not
+     *              get their call sites.
+     * @return True, if the method was changed.
+     * */
+    private boolean process(String owner, MethodNode method, List<Object[]> sites) {
+        final InsnList insns = method.instructions;
+        if (insns.size() == 0) return false;
+        Set<LabelNode> targets = null;
+        boolean changed = false;
+        int line = -1;
+        // The removal changes the list, so the instructions are copied to the array
+        for (AbstractInsnNode insn: insns.toArray()) {
+            if (insn instanceof LineNumberNode) line = ((LineNumberNode) insn).line;
+            if (insn.getOpcode() == Opcodes.INVOKESTATIC) {
+                final MethodInsnNode call = (MethodInsnNode) insn;
+                if (LOGCAT_CLASS.equals(call.owner)) {
+                    if (isStripped(LOG_METHODS, call.name)) {
+                        if (targets == null) targets = findTargets(method);
+                        removeCall(owner, insns, call, targets);
+                        changed = true;
+                    } else if (isStripped(CHECK_METHODS, call.name)
+                            && "()Z".equals(call.desc)) {
+                        insns.set(call, new InsnNode(Opcodes.ICONST_0));
+                        mChecks++;
+                        changed = true;
+                    } else if (sites != null && isLogMethod(call.name)) {
+                        addCallSite(owner, insns, call, sites.size());
+                        sites.add(new Object[] {method.name, line});
+                        changed = true;
+                    }
+                }
+            }
+        }
+        if (changed) removeEmptyTryBlocks(method);
+        return changed;
+    }
+
+    /**
+     * Removes the try-catch blocks without instructions (the removed calls were the only code
+     * of try block), the empty range is not allowed in class files.
+     * */
+    private static void removeEmptyTryBlocks(MethodNode method) {
+        for (int i = method.tryCatchBlocks.size() - 1; i >= 0; i--) {
+            final TryCatchBlockNode block = method.tryCatchBlocks.get(i);
+            boolean empty = true;
+            for (AbstractInsnNode insn = block.start; insn != block.end && insn != null;
+                    insn = insn.getNext()) {
+                if (insn.getOpcode() >= 0) {
+                    empty = false;
+                    break;
+                }
+            }
+            if (empty) method.tryCatchBlocks.remove(i);
+        }
+    }
+
+    /**
+     * Surrounds the kept call by {@code LogCat.callSite(SITE)} and {@code LogCat.callSite(null)}.
+     * The arguments are already on the stack, and the result is not touched. There is no
+     * exception handler (it would need new stack map frames): if the call throws, the site is
+     * cleared by {@code LogCat} itself.
+     * */
+    private void addCallSite(String owner, InsnList insns, MethodInsnNode call, int index) {
+        final String desc = "(" + CALL_SITE_DESC + ")V";
+        insns.insertBefore(call, new FieldInsnNode(Opcodes.GETSTATIC, owner,
+                CALL_SITE_FIELD + index, CALL_SITE_DESC));
+        insns.insertBefore(call, new MethodInsnNode(Opcodes.INVOKESTATIC, LOGCAT_CLASS,
+                "callSite", desc, false));
+        final InsnList after = new InsnList();
+        after.add(new InsnNode(Opcodes.ACONST_NULL));
+        after.add(new MethodInsnNode(Opcodes.INVOKESTATIC, LOGCAT_CLASS, "callSite", desc,
+                false));
+        insns.insert(call, after);
+        mSites++;
+    }
+
+    /**
+     * Adds the synthetic fields with call sites, they are created at the beginning of static
+     * initializer. The code is straight and leaves the stack empty, so the stack map frames of
+     * existing initializer stay valid.
+     * */
+    private static void addCallSites(ClassNode node, List<Object[]> sites) {
+        final String className = node.name.replace('/', '.');
+        final InsnList init = new InsnList();
+        for (int i = 0; i < sites.size(); i++) {
+            final String field = CALL_SITE_FIELD + i;
+            node.fields.add(new FieldNode(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC
+                    | Opcodes.ACC_FINAL | Opcodes.ACC_SYNTHETIC, field, CALL_SITE_DESC, null,
+                    null));
+            init.add(new LdcInsnNode(className));
+            init.add(new LdcInsnNode(sites.get(i)[0]));
+            init.add(node.sourceFile != null ? new LdcInsnNode(node.sourceFile)
+                    : new InsnNode(Opcodes.ACONST_NULL));
+            init.add(new LdcInsnNode(sites.get(i)[1]));
+            init.add(new MethodInsnNode(Opcodes.INVOKESTATIC, CALL_SITE_CLASS, "of",
+                    "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;I)" + CALL_SITE_DESC,
+                    false));
+            init.add(new FieldInsnNode(Opcodes.PUTSTATIC, node.name, field, CALL_SITE_DESC));
+        }
+        MethodNode clinit = null;
+        for (MethodNode method: node.methods) {
+            if ("<clinit>".equals(method.name)) clinit = method;
+        }
+        if (clinit == null) {
+            clinit = new MethodNode(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+            clinit.instructions.add(new InsnNode(Opcodes.RETURN));
+            node.methods.add(clinit);
+        }
+        clinit.instructions.insert(init);
+    }
+
+    /** Returns true, if the method of LogCat is a logging method of any level. */
+    private static boolean isLogMethod(String name) {
+        for (String method: LOG_METHODS) {
+            if (name.equals(method)) return true;
+        }
+        return false;
+    }
+
+    /** Returns true, if the method of LogCat is below the level. */
+    private boolean isStripped(String[] methods, String name) {
+        for (int level = VERBOSE; level < mLevel; level++) {
+            if (name.equals(methods[level])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the labels that could be reached not only from the previous instruction: jump
+     * targets and exception handlers.
+     * */
+    private static Set<LabelNode> findTargets(MethodNode method) {
+        final Set<LabelNode> targets = new HashSet<LabelNode>();
+        for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null;
+                insn = insn.getNext()) {
+            if (insn instanceof JumpInsnNode) {
+                targets.add(((JumpInsnNode) insn).label);
+            } else if (insn instanceof TableSwitchInsnNode) {
+                targets.add(((TableSwitchInsnNode) insn).dflt);
+                targets.addAll(((TableSwitchInsnNode) insn).labels);
+            } else if (insn instanceof LookupSwitchInsnNode) {
+                targets.add(((LookupSwitchInsnNode) insn).dflt);
+                targets.addAll(((LookupSwitchInsnNode) insn).labels);
+            }
+        }
+        for (TryCatchBlockNode block: method.tryCatchBlocks) targets.add(block.handler);
+        return targets;
+    }
+
+    /**
+     * Removes the call and, if possible, the code that computes its arguments.
+     * */
+    private void removeCall(String owner, InsnList insns, MethodInsnNode call,
+            Set<LabelNode> targets) {
+        final Type[] args = Type.getArgumentTypes(call.desc);
+        final Type result = Type.getReturnType(call.desc);
+        AbstractInsnNode start = findArguments(owner, call, args.length, targets);
+        if (start != null && hasFields(args) && !createsFields(start, call)) {
+            // The fields were filled before, they should be cleared by the kept code below
+            start = null;
+        }
+        if (start != null) {
+            // The arguments have no side effects, remove them with the call
+            for (AbstractInsnNode insn = start; insn != call; ) {
+                final AbstractInsnNode next = insn.getNext();
+                if (insn.getOpcode() >= 0) insns.remove(insn);
+                insn = next;
+            }
+        } else {
+            for (int i = args.length - 1; i >= 0; i--) {
+                if (LOG_FIELDS_CLASS.equals(args[i].getInternalName())) {
+                    // The per-thread fields should be cleared, as the call does
+                    insns.insertBefore(call, new MethodInsnNode(Opcodes.INVOKEVIRTUAL,
+                            LOG_FIELDS_CLASS, "clear", "()V", false));
+                } else {
+                    insns.insertBefore(call, new InsnNode(args[i].getSize() == 2
+                            ? Opcodes.POP2 : Opcodes.POP));
+                }
+            }
+            mKeptArguments++;
+        }
+        // The result of call is usually ignored
+        final AbstractInsnNode next = call.getNext();
+        if (result.getSort() == Type.VOID) {
+            insns.remove(call);
+        } else if (next != null && next.getOpcode() == Opcodes.POP) {
+            insns.remove(next);
+            insns.remove(call);
+        } else {
+            // The same result as for disabled level
+            insns.set(call, new InsnNode(Opcodes.ICONST_M1));
+        }
+        mRemoved++;
+    }
+
+    /** Returns true, if one of arguments is the fields of structured message. */
+    private static boolean hasFields(Type[] args) {
+        for (Type arg: args) {
+            if (LOG_FIELDS_CLASS.equals(arg.getInternalName())) return true;
+        }
+        return false;
+    }
+
+    /** Returns true, if the code creates the fields of structured message. */
+    private static boolean createsFields(AbstractInsnNode start, AbstractInsnNode end) {
+        for (AbstractInsnNode insn = start; insn != end; insn = insn.getNext()) {
+            if (insn.getOpcode() == Opcodes.INVOKESTATIC && isLogFields(insn)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the code that computes the arguments of call, it should be a straight code without
+     * side effects.
+     * @return The first instruction of the code, or {@code null} if the code could not be
+     * removed.
+     * */
+    private static AbstractInsnNode findArguments(String owner, MethodInsnNode call, int count,
+            Set<LabelNode> targets) {
+        if (count == 0) return call;
+        // Walk backward until all arguments are produced
+        int needed = count;
+        AbstractInsnNode start = call.getPrevious();
+        for (; start != null; start = start.getPrevious()) {
+            if (start.getType() == AbstractInsnNode.FRAME) return null;
+            if (start instanceof LabelNode && targets.contains(start)) return null;
+            if (start.getOpcode() < 0) continue;
+            final int[] effect = effect(owner, start);
+            if (effect == null) return null;
+            // The instruction should not push values that are used after the arguments
+            if (effect[1] > needed) return null;
+            needed = needed - effect[1] + effect[0];
+            if (needed == 0) break;
+        }
+        if (start == null) return null;
+        // Walk forward and check that stores and constructors work with new objects only
+        final List<Integer> stack = new ArrayList<Integer>();
+        for (AbstractInsnNode insn = start; insn != call; insn = insn.getNext()) {
+            if (insn.getOpcode() < 0) continue;
+            if (!simulate(owner, insn, stack)) return null;
+        }
+        return start;
+    }
+
+    /**
+     * Returns the stack effect of instruction without side effects (the number of popped and
+     * pushed values, long and double are one value), or {@code null} if the instruction could
+     * have side effects or is not supported.
+     * */
+    private static int[] effect(String owner, AbstractInsnNode insn) {
+        final int opcode = insn.getOpcode();
+        switch (opcode) {
+            case Opcodes.ACONST_NULL: case Opcodes.ICONST_M1: case Opcodes.ICONST_0:
+            case Opcodes.ICONST_1: case Opcodes.ICONST_2: case Opcodes.ICONST_3:
+            case Opcodes.ICONST_4: case Opcodes.ICONST_5: case Opcodes.LCONST_0:
+            case Opcodes.LCONST_1: case Opcodes.FCONST_0: case Opcodes.FCONST_1:
+            case Opcodes.FCONST_2: case Opcodes.DCONST_0: case Opcodes.DCONST_1:
+            case Opcodes.BIPUSH: case Opcodes.SIPUSH: case Opcodes.LDC:
+            case Opcodes.ILOAD: case Opcodes.LLOAD: case Opcodes.FLOAD: case Opcodes.DLOAD:
+            case Opcodes.ALOAD: case Opcodes.GETSTATIC: case Opcodes.NEW:
+                return new int[] {0, 1};
+            case Opcodes.GETFIELD: case Opcodes.NEWARRAY: case Opcodes.ANEWARRAY:
+            case Opcodes.I2L: case Opcodes.I2F: case Opcodes.I2D: case Opcodes.L2I:
+            case Opcodes.L2F: case Opcodes.L2D: case Opcodes.F2I: case Opcodes.F2L:
+            case Opcodes.F2D: case Opcodes.D2I: case Opcodes.D2L: case Opcodes.D2F:
+            case Opcodes.I2B: case Opcodes.I2C: case Opcodes.I2S: case Opcodes.INEG:
+            case Opcodes.LNEG: case Opcodes.FNEG: case Opcodes.DNEG:
+                return new int[] {1, 1};
+            case Opcodes.IADD: case Opcodes.LADD: case Opcodes.FADD: case Opcodes.DADD:
+            case Opcodes.ISUB: case Opcodes.LSUB: case Opcodes.FSUB: case Opcodes.DSUB:
+            case Opcodes.IMUL: case Opcodes.LMUL: case Opcodes.FMUL: case Opcodes.DMUL:
+            case Opcodes.FDIV: case Opcodes.DDIV: case Opcodes.FREM: case Opcodes.DREM:
+            case Opcodes.ISHL: case Opcodes.LSHL: case Opcodes.ISHR: case Opcodes.LSHR:
+            case Opcodes.IUSHR: case Opcodes.LUSHR: case Opcodes.IAND: case Opcodes.LAND:
+            case Opcodes.IOR: case Opcodes.LOR: case Opcodes.IXOR: case Opcodes.LXOR:
+            case Opcodes.LCMP: case Opcodes.FCMPL: case Opcodes.FCMPG: case Opcodes.DCMPL:
+            case Opcodes.DCMPG:
+                return new int[] {2, 1};
+            case Opcodes.DUP:
+                return new int[] {1, 2};
+            case Opcodes.IASTORE: case Opcodes.LASTORE: case Opcodes.FASTORE:
+            case Opcodes.DASTORE: case Opcodes.AASTORE: case Opcodes.BASTORE:
+            case Opcodes.CASTORE: case Opcodes.SASTORE:
+                return new int[] {3, 0};
+            case Opcodes.INVOKEVIRTUAL: case Opcodes.INVOKESTATIC: case Opcodes.INVOKESPECIAL: {
+                final MethodInsnNode method = (MethodInsnNode) insn;
+                if (!isPure(owner, method)) return null;
+                final int args = Type.getArgumentTypes(method.desc).length
+                        + (opcode == Opcodes.INVOKESTATIC ? 0 : 1);
+                return new int[] {args, Type.getReturnType(method.desc).getSort() == Type.VOID
+                        ? 0 : 1};
+            }
+            case Opcodes.INVOKEDYNAMIC: {
+                final InvokeDynamicInsnNode indy = (InvokeDynamicInsnNode) insn;
+                final Handle bsm = indy.bsm;
+                if (!CONCAT_FACTORY.equals(bsm.getOwner())
+                        && !LAMBDA_FACTORY.equals(bsm.getOwner())) {
+                    return null;
+                }
+                return new int[] {Type.getArgumentTypes(indy.desc).length, 1};
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns true, if the method has no side effects: the string concatenation, the boxing,
+     * the constructors of anonymous classes (message suppliers), the fields of structured
+     * messages ({@code LogFields.of(...).and(...)}).
+     * */
+    private static boolean isPure(String owner, MethodInsnNode method) {
+        final String name = method.name;
+        if ("java/lang/StringBuilder".equals(method.owner)) {
+            return "<init>".equals(name) || "append".equals(name) || "toString".equals(name);
+        }
+        if (LOG_FIELDS_CLASS.equals(method.owner)) {
+            return method.getOpcode() == Opcodes.INVOKESTATIC ? "of".equals(name)
+                    : "and".equals(name);
+        }
+        if (method.getOpcode() == Opcodes.INVOKESTATIC) {
+            return "valueOf".equals(name) && BOXES.contains(method.owner);
+        }
+        return method.getOpcode() == Opcodes.INVOKESPECIAL && "<init>".equals(name)
+                && isAnonymous(owner, method.owner);
+    }
+
+    /** Returns true, if the class is an anonymous class of owner ({@code Owner$1}). */
+    private static boolean isAnonymous(String owner, String clazz) {
+        if (!clazz.startsWith(owner) || clazz.length() <= owner.length() + 1) return false;
+        if (clazz.charAt(owner.length()) != '$') return false;
+        for (int i = owner.length() + 1; i < clazz.length(); i++) {
+            if (!Character.isDigit(clazz.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Simulates the instruction on the stack of value kinds: the array stores, the
+     * constructors and the appends are allowed only for new objects (created by the arguments
+     * code), not for existing ones.
+     * @return False, if the instruction changes an existing object.
+     * */
+    private static boolean simulate(String owner, AbstractInsnNode insn, List<Integer> stack) {
+        final int opcode = insn.getOpcode();
+        final int[] effect = effect(owner, insn);
+        if (effect == null || stack.size() < effect[0]) return false;
+        if (opcode == Opcodes.DUP) {
+            stack.add(stack.get(stack.size() - 1));
+            return true;
+        }
+        int target = VALUE;
+        if (opcode >= Opcodes.IASTORE && opcode <= Opcodes.SASTORE) {
+            // The array reference is the third value from top
+            target = stack.get(stack.size() - 3);
+        } else if (opcode == Opcodes.INVOKEVIRTUAL || opcode == Opcodes.INVOKESPECIAL) {
+            final int args = Type.getArgumentTypes(((MethodInsnNode) insn).desc).length;
+            target = stack.get(stack.size() - 1 - args);
+        }
+        if ((opcode >= Opcodes.IASTORE && opcode <= Opcodes.SASTORE
+                || opcode == Opcodes.INVOKESPECIAL
+                || opcode == Opcodes.INVOKEVIRTUAL && !isToString(insn)) && target != FRESH) {
+            return false;
+        }
+        for (int i = 0; i < effect[0]; i++) stack.remove(stack.size() - 1);
+        if (effect[1] > 0) {
+            final boolean fresh = opcode == Opcodes.NEW || opcode == Opcodes.NEWARRAY
+                    || opcode == Opcodes.ANEWARRAY
+                    || (opcode == Opcodes.INVOKEVIRTUAL && !isToString(insn))
+                    || (opcode == Opcodes.INVOKESTATIC && isLogFields(insn));
+            stack.add(fresh ? FRESH : VALUE);
+        }
+        return true;
+    }
+
+    /** Returns true, if the instruction is a call of {@code LogFields.of(...)}. */
+    private static boolean isLogFields(AbstractInsnNode insn) {
+        return LOG_FIELDS_CLASS.equals(((MethodInsnNode) insn).owner);
+    }
+
+    /** Returns true, if the instruction is a call of {@code toString()}. */
+    private static boolean isToString(AbstractInsnNode insn) {
+        return "toString".equals(((MethodInsnNode) insn).name);
+    }
+
+}
@@ -0,0 +1,99 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.logcat.strip;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The configuration of {@link LogCatStripPlugin}, for example:
+ * <br>&nbsp;<br>
+ * &#09;{@code logcatStrip &#123;}<br>
+ * &#09;&#09;{@code level 'INFO'}<br>
+ * &#09;&#09;{@code buildTypes 'release'}<br>
+ * &#09;&#09;{@code callSites true}<br>
+ * &#09;{@code &#125;}
+ * <br>&nbsp;<br>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class LogCatStripExtension {
+
+    /** The name of extension in build script. */
+    public static final String NAME = "logcatStrip";
+
+    /** The lowest kept level, the calls below it are removed. */
+    private String mLevel = "DEBUG";
+
+    /** The build types, which classes are processed. */
+    private final Set<String> mBuildTypes = new LinkedHashSet<String>(Arrays.asList("release"));
+
+    /**
+     * @return The lowest kept level (VERBOSE, DEBUG, INFO, WARN, ERROR or ASSERT), the calls
+     * below it are removed. The default value is DEBUG, so only VERBOSE calls are removed.
+     * */
+    public String getLevel() { return mLevel; }
+
+    /**
+     * Set the lowest kept level, the calls below it are removed.
+     * */
+    public void setLevel(String level) {
+        // Check the name right now, to report error in build script
+        LogCallStripper.parseLevel(level);
+        mLevel = level;
+    }
+
+    /** The same as {@link #setLevel(String)}, for build scripts. */
+    public void level(String level) { setLevel(level); }
+
+    /** True, if the kept calls get their call sites. */
+    private boolean mCallSites = false;
+
+    /**
+     * @return The build types, which classes are processed. The default value is "release".
+     * */
+    public Set<String> getBuildTypes() { return mBuildTypes; }
+
+    /**
+     * Set the build types, which classes are processed.
+     * */
+    public void setBuildTypes(Collection<String> types) {
+        mBuildTypes.clear();
+        mBuildTypes.addAll(types);
+    }
+
+    /** The same as {@link #setBuildTypes(Collection)}, for build scripts. */
+    public void buildTypes(String... types) { setBuildTypes(Arrays.asList(types)); }
+
+    /**
+     * @return True, if the kept calls get their call sites (class, method, file and line), see
+     * {@code LogCat.callSite(CallSite)}. The default value is false.
+     * */
+    public boolean getCallSites() { return mCallSites; }
+
+    /**
+     * Set whether or not the kept calls get their call sites.
+     * */
+    public void setCallSites(boolean callSites) { mCallSites = callSites; }
+
+    /** The same as {@link #setCallSites(boolean)}, for build scripts. */
+    public void callSites(boolean callSites) { setCallSites(callSites); }
+
+}
@@ -0,0 +1,63 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.logcat.strip;
+
+import com.android.build.gradle.BaseExtension;
+
+import org.gradle.api.Action;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+
+/**
+ * The Gradle plugin that removes calls of {@code LogCat} logging methods below the configured
+ * level from bytecode of release builds, see {@link LogCallStripper} and
+ * {@link LogCatStripExtension}. It should be applied after Android plugin:
+ * <br>&nbsp;<br>
+ * &#09;{@code apply plugin: 'com.android.application'}<br>
+ * &#09;{@code apply plugin: 'com.malakhv.logcat.strip'}
+ * <br>&nbsp;<br>
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess", "rawtypes"})
+public class LogCatStripPlugin implements Plugin<Project> {
+
+    @Override
+    public void apply(final Project project) {
+        final LogCatStripExtension extension = project.getExtensions()
+                .create(LogCatStripExtension.NAME, LogCatStripExtension.class);
+        project.getPlugins().withId("com.android.application", new Action<Plugin>() {
+            @Override
+            public void execute(Plugin plugin) { register(project, extension, true); }
+        });
+        project.getPlugins().withId("com.android.library", new Action<Plugin>() {
+            @Override
+            public void execute(Plugin plugin) { register(project, extension, false); }
+        });
+    }
+
+    /**
+     * Registers the transform of classes.
+     * @param application True for application, false for library.
+     * */
+    private static void register(Project project, LogCatStripExtension extension,
+            boolean application) {
+        final BaseExtension android = project.getExtensions().getByType(BaseExtension.class);
+        android.registerTransform(new LogCatStripTransform(project, extension, application));
+    }
+
+}
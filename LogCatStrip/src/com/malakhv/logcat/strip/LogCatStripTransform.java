@@ -0,0 +1,215 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.logcat.strip;
+
+import com.android.build.api.transform.DirectoryInput;
+import com.android.build.api.transform.Format;
+import com.android.build.api.transform.JarInput;
+import com.android.build.api.transform.QualifiedContent;
+import com.android.build.api.transform.Transform;
+import com.android.build.api.transform.TransformException;
+import com.android.build.api.transform.TransformInput;
+import com.android.build.api.transform.TransformInvocation;
+import com.android.build.api.transform.TransformOutputProvider;
+
+import org.gradle.api.Project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * The transform of classes, that removes calls of {@code LogCat} logging methods (see
+ * {@link LogCallStripper}). The classes of build types, that are not configured in
+ * {@link LogCatStripExtension}, are copied as is. The number of removed calls is reported to
+ * the build log.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+@SuppressWarnings({"unused", "WeakerAccess"})
+final class LogCatStripTransform extends Transform {
+
+    /** The extension of class files. */
+    private static final String CLASS_EXTENSION = ".class";
+
+    /** The project. */
+    private final Project mProject;
+
+    /** The configuration. */
+    private final LogCatStripExtension mExtension;
+
+    /** True for application, false for library. */
+    private final boolean mApplication;
+
+    LogCatStripTransform(Project project, LogCatStripExtension extension, boolean application) {
+        mProject = project;
+        mExtension = extension;
+        mApplication = application;
+    }
+
+    @Override
+    public String getName() { return LogCatStripExtension.NAME; }
+
+    @Override
+    public Set<QualifiedContent.ContentType> getInputTypes() {
+        return Collections.<QualifiedContent.ContentType>singleton(
+                QualifiedContent.DefaultContentType.CLASSES);
+    }
+
+    @Override
+    public Set<? super QualifiedContent.Scope> getScopes() {
+        // The library could transform only own classes
+        return mApplication ? EnumSet.of(QualifiedContent.Scope.PROJECT,
+                QualifiedContent.Scope.SUB_PROJECTS) : EnumSet.of(QualifiedContent.Scope.PROJECT);
+    }
+
+    @Override
+    public boolean isIncremental() { return false; }
+
+    @Override
+    public void transform(TransformInvocation invocation)
+            throws TransformException, InterruptedException, IOException {
+        final String variant = invocation.getContext().getVariantName();
+        final LogCallStripper stripper = isStripped(variant)
+                ? new LogCallStripper(LogCallStripper.parseLevel(mExtension.getLevel())) : null;
+        if (stripper != null) stripper.setCallSites(mExtension.getCallSites());
+        final TransformOutputProvider output = invocation.getOutputProvider();
+        output.deleteAll();
+        for (TransformInput input: invocation.getInputs()) {
+            for (DirectoryInput directory: input.getDirectoryInputs()) {
+                final File target = output.getContentLocation(directory.getName(),
+                        directory.getContentTypes(), directory.getScopes(), Format.DIRECTORY);
+                copyDirectory(directory.getFile(), target, stripper);
+            }
+            for (JarInput jar: input.getJarInputs()) {
+                final File target = output.getContentLocation(jar.getName(),
+                        jar.getContentTypes(), jar.getScopes(), Format.JAR);
+                copyJar(jar.getFile(), target, stripper);
+            }
+        }
+        if (stripper != null) {
+            mProject.getLogger().lifecycle("LogCat strip (" + variant + "): removed "
+                    + stripper.getRemovedCount() + " call sites below "
+                    + mExtension.getLevel().toUpperCase() + " ("
+                    + stripper.getKeptArgumentsCount() + " with kept arguments), replaced "
+                    + stripper.getCheckCount() + " level checks, added "
+                    + stripper.getCallSiteCount() + " call sites");
+        }
+    }
+
+    /**
+     * Returns true, if the classes of variant should be processed: its build type is
+     * configured ("release" matches "release" and "freeRelease" variants, for example).
+     * */
+    private boolean isStripped(String variant) {
+        for (String type: mExtension.getBuildTypes()) {
+            if (type.isEmpty()) continue;
+            final String suffix = Character.toUpperCase(type.charAt(0)) + type.substring(1);
+            if (variant.equals(type) || variant.endsWith(suffix)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Copies the directory of classes, the classes are processed by stripper (if any).
+     * */
+    private static void copyDirectory(File source, File target, LogCallStripper stripper)
+            throws IOException {
+        final File[] files = source.listFiles();
+        if (files == null) return;
+        if (!target.isDirectory() && !target.mkdirs()) {
+            throw new IOException("Cannot create directory " + target);
+        }
+        for (File file: files) {
+            final File copy = new File(target, file.getName());
+            if (file.isDirectory()) {
+                copyDirectory(file, copy, stripper);
+                continue;
+            }
+            final InputStream in = new FileInputStream(file);
+            try {
+                byte[] bytes = readAll(in);
+                if (stripper != null && file.getName().endsWith(CLASS_EXTENSION)) {
+                    bytes = stripper.process(bytes);
+                }
+                final OutputStream out = new FileOutputStream(copy);
+                try {
+                    out.write(bytes);
+                } finally {
+                    out.close();
+                }
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Copies the jar, the classes are processed by stripper (if any).
+     * */
+    private static void copyJar(File source, File target, LogCallStripper stripper)
+            throws IOException {
+        final File parent = target.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create directory " + parent);
+        }
+        final ZipInputStream in = new ZipInputStream(new FileInputStream(source));
+        try {
+            final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(target));
+            try {
+                final Set<String> names = new HashSet<String>();
+                ZipEntry entry;
+                while ((entry = in.getNextEntry()) != null) {
+                    // The duplicates are not allowed in zip output
+                    if (entry.isDirectory() || !names.add(entry.getName())) continue;
+                    byte[] bytes = readAll(in);
+                    if (stripper != null && entry.getName().endsWith(CLASS_EXTENSION)) {
+                        bytes = stripper.process(bytes);
+                    }
+                    out.putNextEntry(new ZipEntry(entry.getName()));
+                    out.write(bytes);
+                    out.closeEntry();
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /** Reads all bytes of stream. */
+    private static byte[] readAll(InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) != -1) out.write(buffer, 0, count);
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,317 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.logcat.strip;
+
+import com.malakhv.util.LogCat;
+import com.malakhv.util.LogFields;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.util.CheckClassAdapter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs {@link LogCallStripper} on the compiled {@link StripFixture} (at {@code INFO} level), and
+ * checks that the result is verified by {@link CheckClassAdapter} and by the JVM (the classes
+ * of custom class loader are always verified), and that it works as the original code, except
+ * the removed calls.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public class LogCallStripperTest {
+
+    /** The name of fixture class. */
+    private static final String FIXTURE = StripFixture.class.getName();
+
+    /** The stripper under test. */
+    private LogCallStripper mStripper;
+
+    /** The loader of processed fixture, it is created on first use. */
+    private StripLoader mLoader;
+
+    @Before
+    public void setUp() {
+        LogCat.CALLS.clear();
+        LogFields.sCleared = 0;
+        StripFixture.sCounter = 0;
+        mStripper = new LogCallStripper(LogCallStripper.INFO);
+    }
+
+    @Test
+    public void pureArgumentsAreRemoved() {
+        StripFixture.concat("a", 1);
+        StripFixture.format("a", 1);
+        assertEquals(Arrays.asList("D/Tag: Name a, value 1", "D/Tag: a 1 x"), LogCat.CALLS);
+        LogCat.CALLS.clear();
+        invoke("concat", "a", 1);
+        invoke("format", "a", 1);
+        assertEquals(Collections.emptyList(), LogCat.CALLS);
+        assertEquals(Collections.singletonList(Opcodes.RETURN), opcodes("concat"));
+        assertEquals(Collections.singletonList(Opcodes.RETURN), opcodes("format"));
+    }
+
+    @Test
+    public void sideEffectsAreKept() {
+        StripFixture.sideEffect();
+        assertEquals(1, StripFixture.sCounter);
+        assertEquals(Collections.singletonList("D/Tag: Counter 1"), LogCat.CALLS);
+        LogCat.CALLS.clear();
+        invoke("sideEffect");
+        assertEquals(1, counter());
+
+        final StringBuilder builder = new StringBuilder();
+        invoke("existing", builder);
+        assertEquals("x", builder.toString());
+
+        invoke("named");
+        assertEquals(2, counter());
+        assertTrue(mLoader.mLoaded.contains(FIXTURE + "$Message"));
+
+        invoke("ternary", true);
+        assertEquals(Collections.emptyList(), LogCat.CALLS);
+    }
+
+    @Test
+    public void anonymousSuppliersAreRemoved() {
+        invoke("anonymous", "a");
+        invoke("lambda", "a");
+        assertEquals(Collections.emptyList(), LogCat.CALLS);
+        assertEquals(Collections.singletonList(Opcodes.RETURN), opcodes("anonymous"));
+        assertEquals(Collections.singletonList(Opcodes.RETURN), opcodes("lambda"));
+        assertFalse(mLoader.mLoaded.contains(FIXTURE + "$1"));
+    }
+
+    @Test
+    public void fieldsChainIsRemoved() {
+        invoke("fields", "a");
+        assertEquals(Collections.singletonList(Opcodes.RETURN), opcodes("fields"));
+        assertEquals(0, LogFields.sCleared);
+    }
+
+    @Test
+    public void prebuiltFieldsAreCleared() {
+        final LogFields fields = LogFields.of("k", 1);
+        invoke("prebuilt", fields);
+        assertEquals(Collections.emptyList(), LogCat.CALLS);
+        assertEquals(1, LogFields.sCleared);
+        assertEquals("", fields.toString());
+    }
+
+    @Test
+    public void resultIsMinusOne() {
+        assertEquals(1, StripFixture.result());
+        assertEquals(-1, invoke("result"));
+    }
+
+    @Test
+    public void emptyTryBlockIsRemoved() {
+        assertEquals(1, method(read(FIXTURE), "tryBlock").tryCatchBlocks.size());
+        assertEquals(0, invoke("tryBlock"));
+        assertEquals(0, method(strip(FIXTURE), "tryBlock").tryCatchBlocks.size());
+        assertEquals(Collections.emptyList(), LogCat.CALLS);
+    }
+
+    @Test
+    public void levelChecksAreFalse() {
+        assertEquals("debug", StripFixture.guarded());
+        assertEquals("release", invoke("guarded"));
+        assertEquals(1, mStripper.getCheckCount());
+    }
+
+    @Test
+    public void callsAreCounted() {
+        strip(FIXTURE);
+        assertEquals(13, mStripper.getRemovedCount());
+        assertEquals(5, mStripper.getKeptArgumentsCount());
+        assertEquals(0, mStripper.getCallSiteCount());
+    }
+
+    @Test
+    public void keptCallsGetCallSites() {
+        mStripper.setCallSites(true);
+        invoke("info", "a");
+        assertEquals(1, LogCat.CALLS.size());
+        final String prefix = "I/Tag: Info a @" + FIXTURE + ".info(StripFixture.java:";
+        assertTrue(LogCat.CALLS.get(0), LogCat.CALLS.get(0).startsWith(prefix));
+        assertEquals(1, mStripper.getCallSiteCount());
+        // The site is cleared after call
+        LogCat.i("Tag", "Next");
+        assertEquals("I/Tag: Next", LogCat.CALLS.get(1));
+    }
+
+    @Test
+    public void unchangedClassesAreNotRewritten() {
+        final byte[] library = read(LogCat.class.getName());
+        assertSame(library, mStripper.process(library));
+        final byte[] message = read(FIXTURE + "$Message");
+        assertSame(message, mStripper.process(message));
+        final byte[] fixture = read(FIXTURE);
+        assertNotSame(fixture, mStripper.process(fixture));
+    }
+
+    @Test
+    public void levels() {
+        assertEquals(LogCallStripper.DEBUG, LogCallStripper.parseLevel("debug"));
+        assertEquals(LogCallStripper.ASSERT, LogCallStripper.parseLevel("ASSERT"));
+        try {
+            new LogCallStripper(LogCallStripper.ASSERT + 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /** Invokes the static method of processed fixture, the arguments should not be null. */
+    private Object invoke(String name, Object... args) {
+        try {
+            for (Method method: fixture().getDeclaredMethods()) {
+                if (method.getName().equals(name)) {
+                    method.setAccessible(true);
+                    return method.invoke(null, args);
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new AssertionError(e);
+        } catch (InvocationTargetException e) {
+            throw new AssertionError(e.getCause());
+        }
+        throw new AssertionError("No method " + name);
+    }
+
+    /** @return The counter of processed fixture. */
+    private int counter() {
+        try {
+            final Field field = fixture().getDeclaredField("sCounter");
+            field.setAccessible(true);
+            return field.getInt(null);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /** @return The processed fixture class. */
+    private Class<?> fixture() {
+        if (mLoader == null) mLoader = new StripLoader();
+        try {
+            return mLoader.loadClass(FIXTURE);
+        } catch (ClassNotFoundException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /** @return The opcodes of method of processed fixture, without labels and line numbers. */
+    private List<Integer> opcodes(String name) {
+        final List<Integer> opcodes = new ArrayList<Integer>();
+        for (AbstractInsnNode insn: method(strip(FIXTURE), name).instructions) {
+            if (insn.getOpcode() >= 0) opcodes.add(insn.getOpcode());
+        }
+        return opcodes;
+    }
+
+    /** Processes the class and verifies the result. */
+    private byte[] strip(String className) {
+        final byte[] bytes = mStripper.process(read(className));
+        final StringWriter errors = new StringWriter();
+        CheckClassAdapter.verify(new ClassReader(bytes), getClass().getClassLoader(), false,
+                new PrintWriter(errors));
+        assertEquals(className, "", errors.toString());
+        return bytes;
+    }
+
+    /** @return The method of class. */
+    private static MethodNode method(byte[] bytes, String name) {
+        final ClassNode node = new ClassNode();
+        new ClassReader(bytes).accept(node, 0);
+        for (MethodNode method: node.methods) {
+            if (method.name.equals(name)) return method;
+        }
+        throw new AssertionError("No method " + name);
+    }
+
+    /** @return The original bytecode of class. */
+    private static byte[] read(String className) {
+        final String path = "/" + className.replace('.', '/') + ".class";
+        final InputStream in = LogCallStripperTest.class.getResourceAsStream(path);
+        if (in == null) throw new AssertionError("No class " + className);
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            for (int count; (count = in.read(buffer)) > 0; ) out.write(buffer, 0, count);
+            in.close();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Loads the processed fixture and its nested classes, the other classes (fake LogCat, for
+     * example) are loaded by parent.
+     * */
+    private final class StripLoader extends ClassLoader {
+
+        /** The names of loaded fixture classes. */
+        final Set<String> mLoaded = new HashSet<String>();
+
+        StripLoader() { super(LogCallStripperTest.class.getClassLoader()); }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve)
+                throws ClassNotFoundException {
+            if (!name.equals(FIXTURE) && !name.startsWith(FIXTURE + "$")) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> clazz = findLoadedClass(name);
+                if (clazz == null) {
+                    final byte[] bytes = strip(name);
+                    clazz = defineClass(name, bytes, 0, bytes.length);
+                    mLoaded.add(name);
+                }
+                if (resolve) resolveClass(clazz);
+                return clazz;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.logcat.strip;
+
+import com.malakhv.util.LogCat;
+import com.malakhv.util.LogFields;
+
+/**
+ * The fixture for {@link LogCallStripperTest}: the typical {@code LogCat} calls, which bytecode
+ * is processed by {@link LogCallStripper}. The counter shows whether the arguments of removed
+ * calls were computed.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+final class StripFixture {
+
+    /** Incremented by the code with side effects. */
+    static int sCounter = 0;
+
+    private StripFixture() {}
+
+    /** The message supplier with side effect in constructor, it is not anonymous. */
+    static final class Message implements LogCat.MessageSupplier {
+        Message() { sCounter++; }
+
+        @Override
+        public String get() { return "message"; }
+    }
+
+    static int next() { return ++sCounter; }
+
+    static void concat(String name, int value) {
+        LogCat.d("Tag", "Name " + name + ", value " + value);
+    }
+
+    static void format(String name, int value) {
+        LogCat.d("Tag", "%s %d %s", name, value, "x");
+    }
+
+    static void sideEffect() {
+        LogCat.d("Tag", "Counter " + next());
+    }
+
+    static void existing(StringBuilder builder) {
+        LogCat.d("Tag", builder.append("x").toString());
+    }
+
+    static void anonymous(final String name) {
+        LogCat.d("Tag", new LogCat.MessageSupplier() {
+            @Override
+            public String get() { return name; }
+        });
+    }
+
+    static void lambda(String name) {
+        LogCat.d("Tag", () -> name);
+    }
+
+    static void named() {
+        LogCat.d("Tag", new Message());
+    }
+
+    static void fields(String name) {
+        LogCat.d("Tag", "Fields", LogFields.of("name", name).and("count", 1));
+    }
+
+    static void prebuilt(LogFields fields) {
+        LogCat.d("Tag", "Fields", fields);
+    }
+
+    static void ternary(boolean flag) {
+        LogCat.d("Tag", flag ? "yes" : "no");
+    }
+
+    static int result() {
+        return LogCat.d("Tag", "Result");
+    }
+
+    static int tryBlock() {
+        try {
+            LogCat.d("Tag", "Try");
+        } catch (RuntimeException e) {
+            return -2;
+        }
+        return 0;
+    }
+
+    static String guarded() {
+        return LogCat.isDebug() ? "debug" : "release";
+    }
+
+    static void info(String name) {
+        LogCat.v("Tag", "Verbose " + name);
+        LogCat.i("Tag", "Info " + name);
+    }
+
+}
@@ -0,0 +1,39 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+/**
+ * The fake of {@code CallSite} for tests of {@code LogCatStrip} plugin.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public final class CallSite {
+
+    private final String mDescription;
+
+    private CallSite(String description) { mDescription = description; }
+
+    public static CallSite of(String className, String methodName, String fileName,
+            int lineNumber) {
+        return new CallSite(className + "." + methodName + "(" + fileName + ":" + lineNumber
+                + ")");
+    }
+
+    @Override
+    public String toString() { return mDescription; }
+
+}
@@ -0,0 +1,74 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fake of {@code LogCat} for tests of {@code LogCatStrip} plugin: it has the same signatures
+ * of logging methods, but only records the calls.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public final class LogCat {
+
+    /** The recorded calls, in form {@code "D/Tag: msg"} or {@code "D/Tag: msg @site"}. */
+    public static final List<String> CALLS = new ArrayList<String>();
+
+    /** The current call site, see {@link #callSite(CallSite)}. */
+    private static CallSite sSite = null;
+
+    private LogCat() {}
+
+    public static int v(String tag, String msg) { return log("V", tag, msg); }
+
+    public static int d(String tag, String msg) { return log("D", tag, msg); }
+
+    public static int d(String tag, String format, Object... args) {
+        return log("D", tag, String.format(format, args));
+    }
+
+    public static int d(String tag, MessageSupplier msg) { return log("D", tag, msg.get()); }
+
+    public static int d(String tag, String msg, LogFields fields) {
+        try {
+            return log("D", tag, msg + " " + fields);
+        } finally {
+            fields.clear();
+        }
+    }
+
+    public static int i(String tag, String msg) { return log("I", tag, msg); }
+
+    public static boolean isDebug() { return true; }
+
+    public static boolean isInfo() { return true; }
+
+    public static void callSite(CallSite site) { sSite = site; }
+
+    /** Records the call. */
+    private static int log(String level, String tag, String msg) {
+        CALLS.add(level + "/" + tag + ": " + msg + (sSite != null ? " @" + sSite : ""));
+        return 1;
+    }
+
+    public static interface MessageSupplier {
+        String get();
+    }
+
+}
@@ -0,0 +1,58 @@
+/* *
+ * Copyright (C) 2013 Mikhail Malakhov <malakhv@live.ru>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+
+package com.malakhv.util;
+
+/**
+ * The fake of {@code LogFields} for tests of {@code LogCatStrip} plugin: one shared instance,
+ * that counts its clearings.
+ *
+ * @author Mikhail.Malakhov [malakhv@live.ru|https://github.com/malakhv]
+ * */
+public final class LogFields {
+
+    /** The shared instance, the real one is per-thread. */
+    private static final LogFields sFields = new LogFields();
+
+    /** The number of {@link #clear()} calls. */
+    public static int sCleared = 0;
+
+    /** The fields in form {@code "key=value key=value"}. */
+    private final StringBuilder mText = new StringBuilder();
+
+    private LogFields() {}
+
+    public static LogFields of(String key, long value) { return sFields.and(key, value); }
+
+    public static LogFields of(String key, Object value) { return sFields.and(key, value); }
+
+    public LogFields and(String key, long value) { return and(key, (Object) value); }
+
+    public LogFields and(String key, Object value) {
+        if (mText.length() > 0) mText.append(' ');
+        mText.append(key).append('=').append(value);
+        return this;
+    }
+
+    public void clear() {
+        mText.setLength(0);
+        sCleared++;
+    }
+
+    @Override
+    public String toString() { return mText.toString(); }
+
+}